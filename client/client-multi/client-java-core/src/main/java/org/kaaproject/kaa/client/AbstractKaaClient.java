@@ -50,6 +50,7 @@ import org.kaaproject.kaa.client.channel.impl.DefaultOperationDataProcessor;
 import org.kaaproject.kaa.client.channel.impl.channels.DefaultBootstrapChannel;
 import org.kaaproject.kaa.client.channel.impl.channels.DefaultOperationMqttChannel;
 import org.kaaproject.kaa.client.channel.impl.channels.DefaultOperationTcpChannel;
+import org.kaaproject.kaa.client.channel.impl.channels.NioOperationTcpChannel;
 import org.kaaproject.kaa.client.channel.impl.transports.DefaultBootstrapTransport;
 import org.kaaproject.kaa.client.channel.impl.transports.DefaultConfigurationTransport;
 import org.kaaproject.kaa.client.channel.impl.transports.DefaultEventTransport;
@@ -91,13 +92,17 @@ import org.kaaproject.kaa.client.notification.NotificationTopicListListener;
 import org.kaaproject.kaa.client.notification.UnavailableTopicException;
 import org.kaaproject.kaa.client.persistence.KaaClientPropertiesState;
 import org.kaaproject.kaa.client.persistence.KaaClientState;
+import org.kaaproject.kaa.client.persistence.MqttStoragePersistence;
 import org.kaaproject.kaa.client.persistence.PersistentStorage;
 import org.kaaproject.kaa.client.profile.DefaultProfileManager;
 import org.kaaproject.kaa.client.profile.ProfileContainer;
 import org.kaaproject.kaa.client.profile.ProfileManager;
 import org.kaaproject.kaa.client.transport.AbstractHttpClient;
 import org.kaaproject.kaa.client.transport.TransportException;
+import org.kaaproject.kaa.common.endpoint.compression.DeflatePayloadCodec;
+import org.kaaproject.kaa.common.endpoint.compression.PayloadCompressor;
 import org.kaaproject.kaa.common.endpoint.gen.Topic;
+import org.kaaproject.kaa.common.endpoint.security.SessionCipherMode;
 import org.kaaproject.kaa.common.hash.EndpointObjectHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -643,10 +648,28 @@ public abstract class AbstractKaaClient implements GenericKaaClient {
 //        operationsChannel.setDemultiplexer(operationsDataProcessor);
 //        channelManager.addChannel(operationsChannel);
 
-        KaaDataChannel operationsMqttChannel = new DefaultOperationMqttChannel(kaaClientState, failoverManager, failureListener);
-        operationsMqttChannel.setMultiplexer(operationsDataProcessor);
-        operationsMqttChannel.setDemultiplexer(operationsDataProcessor);
-        channelManager.addChannel(operationsMqttChannel);
+        if (properties.isTcpNioEnabled()) {
+            NioOperationTcpChannel operationsTcpChannel = new NioOperationTcpChannel(kaaClientState, failoverManager, failureListener);
+            if (properties.isTcpGcmEnabled()) {
+                operationsTcpChannel.setSessionCipherMode(SessionCipherMode.AES_GCM);
+            }
+            operationsTcpChannel.setMultiplexer(operationsDataProcessor);
+            operationsTcpChannel.setDemultiplexer(operationsDataProcessor);
+            channelManager.addChannel(operationsTcpChannel);
+        } else {
+            DefaultOperationMqttChannel operationsMqttChannel = new DefaultOperationMqttChannel(kaaClientState, failoverManager, failureListener);
+            if (properties.isMqttSessionPersistent()) {
+                operationsMqttChannel.setSessionPersistence(
+                        new MqttStoragePersistence(context.createPersistentStorage(), properties.getMqttSessionDirectory()));
+            }
+            if (properties.getCompressionThreshold() >= 0) {
+                operationsMqttChannel.setPayloadCompressor(
+                        new PayloadCompressor(new DeflatePayloadCodec(), properties.getCompressionThreshold()));
+            }
+            operationsMqttChannel.setMultiplexer(operationsDataProcessor);
+            operationsMqttChannel.setDemultiplexer(operationsDataProcessor);
+            channelManager.addChannel(operationsMqttChannel);
+        }
     }
 
     protected FailoverManager buildFailoverManager(KaaChannelManager channelManager) {
@@ -684,7 +707,9 @@ public abstract class AbstractKaaClient implements GenericKaaClient {
     }
 
     public AbstractHttpClient createHttpClient(String url, PrivateKey privateKey, PublicKey publicKey, PublicKey remotePublicKey) {
-        return context.createHttpClient(url, privateKey, publicKey, remotePublicKey);
+        AbstractHttpClient httpClient = context.createHttpClient(url, privateKey, publicKey, remotePublicKey);
+        httpClient.setSessionKeyRotation(properties.getSessionKeyMaxAge(), properties.getSessionKeyMaxBytes());
+        return httpClient;
     }
 
     protected BootstrapTransport buildBootstrapTransport(KaaClientProperties properties, KaaClientState kaaClientState) {
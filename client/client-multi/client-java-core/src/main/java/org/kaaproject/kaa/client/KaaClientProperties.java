@@ -37,6 +37,7 @@ import org.kaaproject.kaa.client.channel.TransportProtocolId;
 import org.kaaproject.kaa.client.util.Base64;
 import org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData;
 import org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair;
+import org.kaaproject.kaa.common.endpoint.security.KeyUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,6 +72,14 @@ public class KaaClientProperties extends Properties {
     public static final String STATE_FILE_NAME_PROPERTY = "state.file_name";
     public static final String CLIENT_PRIVATE_KEY_FILE_NAME_PROPERTY = "keys.private_name";
     public static final String CLIENT_PUBLIC_KEY_FILE_NAME_PROPERTY = "keys.public_name";
+    public static final String CLIENT_KEY_ALGORITHM_PROPERTY = "keys.algorithm";
+    public static final String MQTT_PERSISTENT_SESSION_PROPERTY = "transport.mqtt.persistent_session";
+    public static final String MQTT_SESSION_DIR_DEFAULT = "mqtt";
+    public static final String TRANSPORT_COMPRESSION_THRESHOLD = "transport.compression.threshold";
+    public static final String TRANSPORT_TCP_GCM_ENABLED = "transport.tcp.gcm.enabled";
+    public static final String TRANSPORT_TCP_NIO_ENABLED = "transport.tcp.nio.enabled";
+    public static final String HTTP_SESSION_KEY_MAX_AGE = "transport.http.session_key.max_age";
+    public static final String HTTP_SESSION_KEY_MAX_BYTES = "transport.http.session_key.max_bytes";
 
     private static final String PROPERTIES_HASH_ALGORITHM = "SHA";
 
@@ -259,6 +268,110 @@ public class KaaClientProperties extends Properties {
         setProperty(CLIENT_PRIVATE_KEY_FILE_NAME_PROPERTY, fileName);
     }
 
+    /**
+     * Returns the algorithm of the client key pair generated on the first start.
+     *
+     * @return {@link KeyUtil#RSA} (default) or {@link KeyUtil#EC}
+     */
+    public String getKeyAlgorithm() {
+        String algorithm = getProperty(CLIENT_KEY_ALGORITHM_PROPERTY);
+        return isBlank(algorithm) ? KeyUtil.RSA : algorithm.trim();
+    }
+
+    public void setKeyAlgorithm(String algorithm) {
+        checkNotBlankProperty(algorithm, "Key algorithm couldn't be blank");
+        setProperty(CLIENT_KEY_ALGORITHM_PROPERTY, algorithm);
+    }
+
+    public boolean isMqttSessionPersistent() {
+        return Boolean.parseBoolean(getProperty(MQTT_PERSISTENT_SESSION_PROPERTY));
+    }
+
+    public void setMqttSessionPersistent(boolean persistent) {
+        setProperty(MQTT_PERSISTENT_SESSION_PROPERTY, Boolean.toString(persistent));
+    }
+
+    public String getMqttSessionDirectory() {
+        return getWorkingDirectory() + MQTT_SESSION_DIR_DEFAULT;
+    }
+
+    /**
+     * Returns the minimal size in bytes of a sync request to compress.
+     *
+     * @return the threshold, or -1 if compression is disabled
+     */
+    public int getCompressionThreshold() {
+        String threshold = getProperty(TRANSPORT_COMPRESSION_THRESHOLD);
+        if (isBlank(threshold)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(threshold.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value of {}: {}, compression is disabled", TRANSPORT_COMPRESSION_THRESHOLD, threshold);
+            return -1;
+        }
+    }
+
+    public void setCompressionThreshold(int threshold) {
+        setProperty(TRANSPORT_COMPRESSION_THRESHOLD, Integer.toString(threshold));
+    }
+
+    /**
+     * Returns whether the operations are served by the non-blocking Kaatcp channel instead of the MQTT channel.
+     *
+     * @return true if the non-blocking Kaatcp channel is enabled, false by default
+     */
+    public boolean isTcpNioEnabled() {
+        return Boolean.parseBoolean(getProperty(TRANSPORT_TCP_NIO_ENABLED));
+    }
+
+    public void setTcpNioEnabled(boolean enabled) {
+        setProperty(TRANSPORT_TCP_NIO_ENABLED, Boolean.toString(enabled));
+    }
+
+    /**
+     * Returns whether the Kaatcp channel enabled by {@link #isTcpNioEnabled()} proposes AES/GCM sessions to
+     * the server. Servers that don't confirm AES/GCM are still used with AES/ECB.
+     *
+     * @return true if AES/GCM is enabled, false by default
+     */
+    public boolean isTcpGcmEnabled() {
+        return Boolean.parseBoolean(getProperty(TRANSPORT_TCP_GCM_ENABLED));
+    }
+
+    public void setTcpGcmEnabled(boolean enabled) {
+        setProperty(TRANSPORT_TCP_GCM_ENABLED, Boolean.toString(enabled));
+    }
+
+    /**
+     * Returns the lifetime of an HTTP session key.
+     *
+     * @return the lifetime in milliseconds, or -1 if the key is not rotated by age
+     */
+    public long getSessionKeyMaxAge() {
+        String maxAge = getProperty(HTTP_SESSION_KEY_MAX_AGE);
+        return isBlank(maxAge) ? -1 : Long.parseLong(maxAge.trim());
+    }
+
+    public void setSessionKeyMaxAge(long maxAge) {
+        setProperty(HTTP_SESSION_KEY_MAX_AGE, Long.toString(maxAge));
+    }
+
+    /**
+     * Returns the number of request bytes an HTTP session key encodes before it is rotated.
+     *
+     * @return the byte budget, or -1 if the key is not rotated by volume
+     */
+    public long getSessionKeyMaxBytes() {
+        String maxBytes = getProperty(HTTP_SESSION_KEY_MAX_BYTES);
+        return isBlank(maxBytes) ? -1 : Long.parseLong(maxBytes.trim());
+    }
+
+    public void setSessionKeyMaxBytes(long maxBytes) {
+        setProperty(HTTP_SESSION_KEY_MAX_BYTES, Long.toString(maxBytes));
+    }
+
     private static void checkNotBlankProperty(String fileName, String errorMessage) {
         if (isBlank(fileName)) {
             throw new IllegalArgumentException(errorMessage);
@@ -24,7 +24,7 @@ import org.kaaproject.kaa.client.channel.ChannelDirection;
 import org.kaaproject.kaa.client.channel.KaaDataDemultiplexer;
 import org.kaaproject.kaa.client.channel.KaaDataMultiplexer;
 import org.kaaproject.kaa.common.TransportType;
-import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.avro.AvroCodec;
 import org.kaaproject.kaa.common.endpoint.gen.SyncRequest;
 import org.kaaproject.kaa.common.endpoint.gen.SyncResponse;
 import org.slf4j.Logger;
@@ -34,8 +34,8 @@ public class DefaultBootstrapDataProcessor implements KaaDataMultiplexer, KaaDat
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultBootstrapDataProcessor.class);
 
-    private final AvroByteArrayConverter<SyncRequest> requestConverter = new AvroByteArrayConverter<>(SyncRequest.class);
-    private final AvroByteArrayConverter<SyncResponse> responseConverter = new AvroByteArrayConverter<>(SyncResponse.class);
+    private static final AvroCodec<SyncRequest> REQUEST_CODEC = AvroCodec.forClass(SyncRequest.class);
+    private static final AvroCodec<SyncResponse> RESPONSE_CODEC = AvroCodec.forClass(SyncResponse.class);
     private BootstrapTransport transport;
 
     public void setBootstrapTransport(BootstrapTransport transport) {
@@ -47,7 +47,7 @@ public class DefaultBootstrapDataProcessor implements KaaDataMultiplexer, KaaDat
         if (transport != null) {
             SyncRequest request = transport.createResolveRequest();
             LOG.trace("Created Resolve request {}", request);
-            return requestConverter.toByteArray(request);
+            return REQUEST_CODEC.encode(request);
         }
         return null; //NOSONAR
     }
@@ -55,7 +55,7 @@ public class DefaultBootstrapDataProcessor implements KaaDataMultiplexer, KaaDat
     @Override
     public synchronized void processResponse(byte[] response) throws IOException {
         if (transport != null && response != null) {
-            SyncResponse list = responseConverter.fromByteArray(response);
+            SyncResponse list = RESPONSE_CODEC.decode(response);
             LOG.trace("Received OperationsServerList response {}", list);
             transport.onResolveResponse(list);
         }
@@ -16,7 +16,10 @@
 
 package org.kaaproject.kaa.client.channel.impl;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.kaaproject.kaa.client.channel.ChannelDirection;
@@ -32,7 +35,7 @@ import org.kaaproject.kaa.client.channel.RedirectionTransport;
 import org.kaaproject.kaa.client.channel.UserTransport;
 import org.kaaproject.kaa.client.persistence.KaaClientState;
 import org.kaaproject.kaa.common.TransportType;
-import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.avro.AvroCodec;
 import org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest;
 import org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest;
 import org.kaaproject.kaa.common.endpoint.gen.SyncRequest;
@@ -46,8 +49,9 @@ public class DefaultOperationDataProcessor implements KaaDataMultiplexer, KaaDat
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultOperationDataProcessor.class);
     private final AtomicInteger   requestsCounter = new AtomicInteger(0);
-    private final AvroByteArrayConverter<SyncRequest> requestConverter = new AvroByteArrayConverter<>(SyncRequest.class);
-    private final AvroByteArrayConverter<SyncResponse> responseConverter = new AvroByteArrayConverter<>(SyncResponse.class);
+    private static final AvroCodec<SyncRequest> REQUEST_CODEC = AvroCodec.forClass(SyncRequest.class);
+
+    private static final Set<String> UNUSED_SECTIONS = new HashSet<>(Arrays.asList("bootstrapSyncResponse", "extensionSyncResponses"));
 
     private MetaDataTransport metaDataTransport;
     private ConfigurationTransport configurationTransport;
@@ -97,52 +101,92 @@ public class DefaultOperationDataProcessor implements KaaDataMultiplexer, KaaDat
         this.logTransport = logTransport;
     }
 
+    /**
+     * Decodes the response and dispatches it under the same lock, so the sections are skipped for exactly
+     * the transports that are missing at the time of dispatch.
+     */
     @Override
     public synchronized void processResponse(byte[] response) throws Exception {
         if (response != null) {
-            try {
-                SyncResponse syncResponse = responseConverter.fromByteArray(response);
-    
-                LOG.info("Received Sync response: {}", syncResponse);
-                if (syncResponse.getConfigurationSyncResponse() != null && configurationTransport != null) {
-                    configurationTransport.onConfigurationResponse(syncResponse.getConfigurationSyncResponse());
-                }
-                if (eventTransport != null) {
-                    eventTransport.onSyncResposeIdReceived(syncResponse.getRequestId());
-                    if (syncResponse.getEventSyncResponse() != null) {
-                        eventTransport.onEventResponse(syncResponse.getEventSyncResponse());
-                    }
-                }
-                if (syncResponse.getNotificationSyncResponse() != null && notificationTransport != null) {
-                    notificationTransport.onNotificationResponse(syncResponse.getNotificationSyncResponse());
-                }
-                if (syncResponse.getUserSyncResponse() != null && userTransport != null) {
-                    userTransport.onUserResponse(syncResponse.getUserSyncResponse());
-                }
-                if (syncResponse.getRedirectSyncResponse() != null && redirectionTransport != null) {
-                    redirectionTransport.onRedirectionResponse(syncResponse.getRedirectSyncResponse());
-                }
-                if (syncResponse.getProfileSyncResponse() != null && profileTransport != null) {
-                    profileTransport.onProfileResponse(syncResponse.getProfileSyncResponse());
-                }
-                if (syncResponse.getLogSyncResponse() != null && logTransport != null) {
-                    logTransport.onLogResponse(syncResponse.getLogSyncResponse());
-                }
+            processResponse(LazySyncResponse.decode(response, getSkippedSections()).getResponse());
+        }
+    }
+
+    /**
+     * Collects the response sections no transport is registered for.
+     */
+    private Set<String> getSkippedSections() {
+        Set<String> skippedSections = new HashSet<>(UNUSED_SECTIONS);
+        if (configurationTransport == null) {
+            skippedSections.add("configurationSyncResponse");
+        }
+        if (notificationTransport == null) {
+            skippedSections.add("notificationSyncResponse");
+        }
+        if (profileTransport == null) {
+            skippedSections.add("profileSyncResponse");
+        }
+        if (userTransport == null) {
+            skippedSections.add("userSyncResponse");
+        }
+        if (eventTransport == null) {
+            skippedSections.add("eventSyncResponse");
+        }
+        if (redirectionTransport == null) {
+            skippedSections.add("redirectSyncResponse");
+        }
+        if (logTransport == null) {
+            skippedSections.add("logSyncResponse");
+        }
+        return skippedSections;
+    }
 
-                boolean needProfileResync = syncResponse.getStatus() == SyncResponseResultType.PROFILE_RESYNC;
-                state.setIfNeedProfileResync(needProfileResync);
-                if (needProfileResync) {
-                    LOG.info("Going to resync profile...");
-                    profileTransport.sync();
+    private synchronized void processResponse(SyncResponse syncResponse) throws Exception {
+        try {
+            LOG.info("Received Sync response: {}", syncResponse);
+            if (syncResponse.getConfigurationSyncResponse() != null && configurationTransport != null) {
+                configurationTransport.onConfigurationResponse(syncResponse.getConfigurationSyncResponse());
+            }
+            if (eventTransport != null) {
+                eventTransport.onSyncResposeIdReceived(syncResponse.getRequestId());
+                if (syncResponse.getEventSyncResponse() != null) {
+                    eventTransport.onEventResponse(syncResponse.getEventSyncResponse());
                 }
-            } finally {
-                state.persist();
             }
+            if (syncResponse.getNotificationSyncResponse() != null && notificationTransport != null) {
+                notificationTransport.onNotificationResponse(syncResponse.getNotificationSyncResponse());
+            }
+            if (syncResponse.getUserSyncResponse() != null && userTransport != null) {
+                userTransport.onUserResponse(syncResponse.getUserSyncResponse());
+            }
+            if (syncResponse.getRedirectSyncResponse() != null && redirectionTransport != null) {
+                redirectionTransport.onRedirectionResponse(syncResponse.getRedirectSyncResponse());
+            }
+            if (syncResponse.getProfileSyncResponse() != null && profileTransport != null) {
+                profileTransport.onProfileResponse(syncResponse.getProfileSyncResponse());
+            }
+            if (syncResponse.getLogSyncResponse() != null && logTransport != null) {
+                logTransport.onLogResponse(syncResponse.getLogSyncResponse());
+            }
+
+            boolean needProfileResync = syncResponse.getStatus() == SyncResponseResultType.PROFILE_RESYNC;
+            state.setIfNeedProfileResync(needProfileResync);
+            if (needProfileResync) {
+                LOG.info("Going to resync profile...");
+                profileTransport.sync();
+            }
+        } finally {
+            state.persist();
         }
     }
 
     @Override
-    public synchronized byte[] compileRequest(Map<TransportType, ChannelDirection> types) throws Exception {
+    public byte[] compileRequest(Map<TransportType, ChannelDirection> types) throws Exception {
+        SyncRequest request = createRequest(types);
+        return request != null ? REQUEST_CODEC.encode(request) : null; //NOSONAR
+    }
+
+    private synchronized SyncRequest createRequest(Map<TransportType, ChannelDirection> types) throws Exception {
         if (types != null) {
             SyncRequest request = new SyncRequest();
             request.setRequestId(requestsCounter.incrementAndGet());
@@ -199,7 +243,7 @@ public class DefaultOperationDataProcessor implements KaaDataMultiplexer, KaaDat
                 }
             }
             LOG.info("Created Sync request: {}", request);
-            return requestConverter.toByteArray(request);
+            return request;
         }
         return null; //NOSONAR
     }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.kaaproject.kaa.common.endpoint.gen.SyncResponse;
+
+/**
+ * {@link SyncResponse} decoded section by section.
+ * <p>
+ * Each field of the response is either decoded into the {@link #getResponse() response} or skipped without
+ * materializing it. Skipped fields are {@code null} in the decoded response.
+ */
+final class LazySyncResponse {
+
+    private static final Schema SCHEMA = SyncResponse.getClassSchema();
+    private static final List<Schema.Field> FIELDS = SCHEMA.getFields();
+    private static final ConcurrentMap<Schema, SpecificDatumReader<Object>> READERS = new ConcurrentHashMap<>();
+
+    private final SyncResponse response = new SyncResponse();
+
+    private LazySyncResponse() {
+    }
+
+    /**
+     * Decodes the response.
+     *
+     * @param data the Avro encoded SyncResponse
+     * @param skippedFields the names of the fields to skip
+     * @return the decoded response
+     * @throws IOException if the data is not a valid SyncResponse
+     */
+    static LazySyncResponse decode(byte[] data, Set<String> skippedFields) throws IOException {
+        LazySyncResponse result = new LazySyncResponse();
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, null);
+        for (Schema.Field field : FIELDS) {
+            Schema fieldSchema = field.schema();
+            if (fieldSchema.getType() == Schema.Type.UNION) {
+                fieldSchema = fieldSchema.getTypes().get(decoder.readIndex());
+                if (fieldSchema.getType() == Schema.Type.NULL) {
+                    continue;
+                }
+                if (skippedFields.contains(field.name())) {
+                    GenericDatumReader.skip(fieldSchema, decoder);
+                    continue;
+                }
+            }
+            result.response.put(field.pos(), getReader(fieldSchema).read(null, decoder));
+        }
+        return result;
+    }
+
+    private static SpecificDatumReader<Object> getReader(Schema schema) {
+        SpecificDatumReader<Object> reader = READERS.get(schema);
+        if (reader == null) {
+            reader = new SpecificDatumReader<>(schema);
+            READERS.putIfAbsent(schema, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * @return the response with the decoded fields
+     */
+    SyncResponse getResponse() {
+        return response;
+    }
+}
@@ -0,0 +1,632 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl.channels;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.kaaproject.kaa.client.FailureListener;
+import org.kaaproject.kaa.client.channel.ChannelDirection;
+import org.kaaproject.kaa.client.channel.IPTransportInfo;
+import org.kaaproject.kaa.client.channel.KaaDataChannel;
+import org.kaaproject.kaa.client.channel.KaaDataDemultiplexer;
+import org.kaaproject.kaa.client.channel.KaaDataMultiplexer;
+import org.kaaproject.kaa.client.channel.ServerType;
+import org.kaaproject.kaa.client.channel.TransportConnectionInfo;
+import org.kaaproject.kaa.client.channel.TransportProtocolId;
+import org.kaaproject.kaa.client.channel.TransportProtocolIdConstants;
+import org.kaaproject.kaa.client.channel.connectivity.ConnectivityChecker;
+import org.kaaproject.kaa.client.channel.failover.FailoverDecision;
+import org.kaaproject.kaa.client.channel.failover.FailoverManager;
+import org.kaaproject.kaa.client.channel.failover.FailoverStatus;
+import org.kaaproject.kaa.client.persistence.KaaClientState;
+import org.kaaproject.kaa.common.Constants;
+import org.kaaproject.kaa.common.TransportType;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.ConnAckListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.DisconnectListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.PingResponseListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.SyncResponseListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck.ReturnCode;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Connect;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Disconnect;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MessageFactory;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MqttFrame;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.PingResponse;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncRequest;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncResponse;
+import org.kaaproject.kaa.common.endpoint.compression.PayloadCompressor;
+import org.kaaproject.kaa.common.endpoint.security.MessageEncoderDecoder;
+import org.kaaproject.kaa.common.endpoint.security.SessionCipherMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base of the kaatcp operations channels.
+ * <p>
+ * Holds the channel state, the handling of the kaatcp messages received from the server, the compilation of
+ * sync requests and the failover logic. Subclasses own the connection: they open and close it, write the frames
+ * and push the received bytes into the {@link #getMessageFactory() message factory}.
+ */
+public abstract class AbstractOperationTcpChannel implements KaaDataChannel {
+
+    public static final Logger LOG = LoggerFactory.getLogger(AbstractOperationTcpChannel.class);
+
+    private static final Map<TransportType, ChannelDirection> SUPPORTED_TYPES = new HashMap<TransportType, ChannelDirection>();
+
+    static {
+        SUPPORTED_TYPES.put(TransportType.PROFILE, ChannelDirection.BIDIRECTIONAL);
+        SUPPORTED_TYPES.put(TransportType.CONFIGURATION, ChannelDirection.BIDIRECTIONAL);
+        SUPPORTED_TYPES.put(TransportType.NOTIFICATION, ChannelDirection.BIDIRECTIONAL);
+        SUPPORTED_TYPES.put(TransportType.USER, ChannelDirection.BIDIRECTIONAL);
+        SUPPORTED_TYPES.put(TransportType.EVENT, ChannelDirection.BIDIRECTIONAL);
+        SUPPORTED_TYPES.put(TransportType.LOGGING, ChannelDirection.BIDIRECTIONAL);
+    }
+
+    protected static final int CHANNEL_TIMEOUT = 200;
+    protected static final int PING_TIMEOUT = CHANNEL_TIMEOUT / 2;
+
+    private static final int SYNC_WINDOW_SIZE = 8;
+    private static final long SYNC_RESPONSE_TIMEOUT = TimeUnit.SECONDS.toMillis(CHANNEL_TIMEOUT);
+
+    private static final PayloadCompressor DEFAULT_COMPRESSOR = new PayloadCompressor();
+
+    private final FailureListener failureListener;
+
+    private volatile IPTransportInfo currentServer;
+    private final KaaClientState state;
+
+    private volatile State channelState = State.CLOSED;
+
+    private volatile KaaDataDemultiplexer demultiplexer;
+    private volatile KaaDataMultiplexer multiplexer;
+
+    private MessageEncoderDecoder encDec;
+    private volatile PayloadCompressor compressor;
+    private volatile SessionCipherMode sessionCipherMode = SessionCipherMode.AES_ECB;
+    private volatile SessionCipherMode proposedCipherMode = SessionCipherMode.AES_ECB;
+    private final Set<Integer> gcmRejectingAccessPoints = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    private final FailoverManager failoverManager;
+
+    private volatile ConnectivityChecker connectivityChecker;
+
+    private final MessageFactory messageFactory = new MessageFactory();
+    private final KaaSyncRequestWindow syncWindow = new KaaSyncRequestWindow(SYNC_WINDOW_SIZE, SYNC_RESPONSE_TIMEOUT);
+
+    private final ConnAckListener connAckListener = new ConnAckListener() {
+
+        @Override
+        public void onMessage(ConnAck message) {
+            LOG.info("ConnAck ({}) message received for channel [{}]", message.getReturnCode(), getId());
+
+            if (proposedCipherMode == SessionCipherMode.AES_GCM && isGcmRejected(message)) {
+                LOG.warn("Server {} doesn't support AES/GCM sessions, channel [{}] falls back to AES/ECB", currentServer, getId());
+                gcmRejectingAccessPoints.add(currentServer.getAccessPointId());
+                closeConnection();
+                scheduleOpenConnectionTask(0);
+                return;
+            }
+
+            if (message.getReturnCode() != ReturnCode.ACCEPTED) {
+                LOG.error("Connection for channel [{}] was rejected: {}", getId(), message.getReturnCode());
+
+                LOG.info("Cleaning client state");
+                state.clean();
+
+                if (message.getReturnCode() == ReturnCode.REFUSE_VERIFICATION_FAILED) {
+                    onServerFailed(FailoverStatus.ENDPOINT_VERIFICATION_FAILED);
+                } else {
+                    onServerFailed();
+                }
+            }
+        }
+
+    };
+
+    private final PingResponseListener pingResponseListener = new PingResponseListener() {
+
+        @Override
+        public void onMessage(PingResponse message) {
+            LOG.info("PingResponse message received for channel [{}]", getId());
+        }
+
+    };
+
+    private final SyncResponseListener kaaSyncResponseListener = new SyncResponseListener() {
+
+        @Override
+        public void onMessage(SyncResponse message) {
+            LOG.info("KaaSync message (zipped={}, encrypted={}) received for channel [{}]", message.isZipped(), message.isEncrypted(),
+                    getId());
+            if (syncWindow.acknowledge(message.getMessageId()) == null) {
+                LOG.debug("KaaSync message [{}] for channel [{}] doesn't match any outstanding request", message.getMessageId(), getId());
+            }
+            byte[] resultBody = null;
+            if (message.isEncrypted()) {
+                synchronized (AbstractOperationTcpChannel.this) {
+                    try {
+                        resultBody = encDec.decodeData(message.getAvroObject());
+                    } catch (GeneralSecurityException e) {
+                        LOG.error("Failed to decrypt message body for channel [{}]", getId(), e);
+                    }
+                }
+            } else {
+                resultBody = message.getAvroObject();
+            }
+            if (resultBody != null && message.isZipped()) {
+                resultBody = decompress(resultBody);
+            }
+            if (resultBody != null) {
+                try {
+                    demultiplexer.preProcess();
+                    demultiplexer.processResponse(resultBody);
+                    demultiplexer.postProcess();
+                } catch (Exception e) {
+                    LOG.error("Failed to process response for channel [{}]", getId(), e);
+                }
+
+                synchronized (AbstractOperationTcpChannel.this) {
+                    channelState = State.OPENED;
+                    if (syncWindow.hasDeferred()) {
+                        scheduleDeferredSyncRequest();
+                    }
+                }
+                failoverManager.onServerConnected(currentServer);
+            }
+        }
+    };
+
+    private final DisconnectListener disconnectListener = new DisconnectListener() {
+
+        @Override
+        public void onMessage(Disconnect message) {
+            LOG.info("Disconnect message (reason={}) received for channel [{}]", message.getReason(), getId());
+            switch (message.getReason()) {
+                case NONE:
+                    closeConnection();
+                    break;
+                case CREDENTIALS_REVOKED:
+                    LOG.error("Endpoint credentials been revoked");
+                    onServerFailed(FailoverStatus.ENDPOINT_CREDENTIALS_REVOKED);
+                    break;
+                default:
+                    LOG.error("Server error occurred: {}", message.getReason());
+                    onServerFailed();
+                    break;
+            }
+        }
+    };
+
+    protected AbstractOperationTcpChannel(KaaClientState state, FailoverManager failoverManager, FailureListener failureListener) {
+        this.state = state;
+        this.failoverManager = failoverManager;
+        this.failureListener = failureListener;
+        messageFactory.registerMessageListener(connAckListener);
+        messageFactory.registerMessageListener(kaaSyncResponseListener);
+        messageFactory.registerMessageListener(pingResponseListener);
+        messageFactory.registerMessageListener(disconnectListener);
+    }
+
+    /**
+     * Sends the frame over the current connection.
+     *
+     * @param frame the frame
+     * @throws IOException if the frame can't be written
+     */
+    protected abstract void sendFrame(MqttFrame frame) throws IOException;
+
+    /**
+     * Closes the current connection, if any, and moves the channel to the {@link State#CLOSED} state unless it is
+     * shut down.
+     */
+    protected abstract void closeConnection();
+
+    /**
+     * Schedules an attempt to open a connection to the current server.
+     *
+     * @param retryPeriod the delay in milliseconds
+     */
+    protected abstract void scheduleOpenConnectionTask(long retryPeriod);
+
+    /**
+     * Schedules {@link #sendDeferredSyncRequest()} after a response has freed a slot of the sync window.
+     */
+    protected abstract void scheduleDeferredSyncRequest();
+
+    /**
+     * Schedules {@link #expireSyncRequests()} after the delay, replacing the expiry scheduled before, if any.
+     * The scheduled expiry is cancelled when the connection is closed.
+     *
+     * @param delay the delay in milliseconds
+     */
+    protected abstract void scheduleSyncRequestExpiry(long delay);
+
+    /**
+     * @return true if the channel has a connection to send requests over
+     */
+    protected abstract boolean isConnectionOpen();
+
+    protected void sendKaaSyncRequest(Map<TransportType, ChannelDirection> types) throws Exception {
+        Set<TransportType> requestedTypes = new HashSet<>();
+        for (Map.Entry<TransportType, ChannelDirection> entry : types.entrySet()) {
+            if (entry.getValue() != ChannelDirection.DOWN) {
+                requestedTypes.add(entry.getKey());
+            }
+        }
+        int messageId = syncWindow.register(requestedTypes);
+        if (messageId < 0) {
+            LOG.debug("Deferring KaaSync for channel [{}]: {} request(s) are outstanding", getId(), syncWindow.getOutstandingCount());
+            return;
+        }
+        if (syncWindow.getOutstandingCount() == 1) {
+            scheduleSyncRequestExpiry(SYNC_RESPONSE_TIMEOUT);
+        }
+        LOG.debug("Sending KaaSync [{}] from channel [{}]", messageId, getId());
+        byte[] body = multiplexer.compileRequest(types);
+        byte[] compressedBody = compressor != null ? compressor.compress(body) : null;
+        boolean isZipped = compressedBody != null;
+        byte[] requestBodyEncoded = encDec.encodeData(isZipped ? compressedBody : body);
+        SyncRequest request = new SyncRequest(requestBodyEncoded, isZipped, true);
+        request.setMessageId(messageId);
+        sendFrame(request);
+    }
+
+    protected synchronized void sendDeferredSyncRequest() {
+        if (channelState != State.OPENED || !isConnectionOpen() || multiplexer == null) {
+            return;
+        }
+        Set<TransportType> types = syncWindow.pollDeferred();
+        if (types.isEmpty()) {
+            return;
+        }
+        try {
+            sendKaaSyncRequest(buildTypeMap(types));
+        } catch (Exception e) {
+            LOG.error("Failed to send deferred sync for channel [{}]", getId(), e);
+        }
+    }
+
+    /**
+     * Frees the slots of the requests whose responses didn't arrive in time and requests their types again.
+     * Runs at the deadline of the oldest outstanding request and is scheduled again for the next one.
+     */
+    protected void expireSyncRequests() {
+        long delay = syncWindow.expireOverdue();
+        if (syncWindow.hasDeferred()) {
+            sendDeferredSyncRequest();
+        }
+        if (delay >= 0) {
+            scheduleSyncRequestExpiry(delay);
+        }
+    }
+
+    /**
+     * Compiles the initial sync of all the supported types and signs the session key into a Connect message.
+     *
+     * @return the Connect message
+     * @throws Exception if the request can't be compiled or encrypted
+     */
+    protected synchronized Connect buildConnect() throws Exception {
+        byte[] body = multiplexer.compileRequest(getSupportedTransportTypes());
+        SessionCipherMode cipherMode = sessionCipherMode == SessionCipherMode.AES_GCM
+                && !gcmRejectingAccessPoints.contains(currentServer.getAccessPointId()) ? SessionCipherMode.AES_GCM : SessionCipherMode.AES_ECB;
+        encDec.setSessionCipherMode(cipherMode);
+        byte[] requestBodyEncoded = encDec.encodeData(body);
+        byte[] sessionKey = encDec.getEncodedSessionKey();
+        byte[] signature = encDec.sign(sessionKey);
+        Connect connect = new Connect(CHANNEL_TIMEOUT, Constants.KAA_PLATFORM_PROTOCOL_AVRO_ID, sessionKey, requestBodyEncoded, signature,
+                encDec.getRemotePublicKey().getAlgorithm(), encDec.getPrivateKey().getAlgorithm());
+        connect.setSessionCipherMode(cipherMode);
+        proposedCipherMode = cipherMode;
+        return connect;
+    }
+
+    /**
+     * A server that supports AES/GCM confirms it in the ConnAck. One that doesn't either accepts the Connect
+     * without the confirmation or refuses the unknown session key flags.
+     */
+    private static boolean isGcmRejected(ConnAck message) {
+        if (message.getReturnCode() == ReturnCode.ACCEPTED) {
+            return message.getSessionCipherMode() != SessionCipherMode.AES_GCM;
+        }
+        return message.getReturnCode() == ReturnCode.REFUSE_BAD_PROTOCOL;
+    }
+
+    private byte[] decompress(byte[] body) {
+        PayloadCompressor currentCompressor = compressor != null ? compressor : DEFAULT_COMPRESSOR;
+        try {
+            return currentCompressor.decompress(body);
+        } catch (IOException e) {
+            LOG.error("Failed to decompress message body for channel [{}]", getId(), e);
+            return null;
+        }
+    }
+
+    protected void onServerFailed() {
+        this.onServerFailed(FailoverStatus.NO_CONNECTIVITY);
+    }
+
+    protected void onServerFailed(FailoverStatus status) {
+        LOG.info("[{}] has failed", getId());
+        closeConnection();
+        processFailover(status);
+    }
+
+    /**
+     * Asks the failover manager what to do after the connection to the current server has failed.
+     *
+     * @param status the failover status
+     */
+    protected void processFailover(FailoverStatus status) {
+        if (connectivityChecker != null && !connectivityChecker.checkConnectivity()) {
+            LOG.warn("Loss of connectivity detected");
+
+            FailoverDecision decision = failoverManager.onFailover(status);
+            switch (decision.getAction()) {
+                case NOOP:
+                    LOG.warn("No operation is performed according to failover strategy decision");
+                    break;
+                case RETRY:
+                    long retryPeriod = decision.getRetryPeriod();
+                    LOG.warn("Attempt to reconnect will be made in {} ms " +
+                            "according to failover strategy decision", retryPeriod);
+                    scheduleOpenConnectionTask(retryPeriod);
+                    break;
+                case FAILURE:
+                    LOG.warn("Calling failure listener according to failover strategy decision!");
+                    failureListener.onFailure();
+                    break;
+                default:
+                    break;
+            }
+        } else {
+            failoverManager.onServerFailed(currentServer, status);
+        }
+    }
+
+    protected Map<TransportType, ChannelDirection> buildTypeMap(Set<TransportType> types) {
+        Map<TransportType, ChannelDirection> typeMap = new HashMap<>(getSupportedTransportTypes().size());
+        for (TransportType type : getSupportedTransportTypes().keySet()) {
+            typeMap.put(type, ChannelDirection.DOWN);
+        }
+        for (TransportType type : types) {
+            LOG.info("Processing sync {} for channel [{}]", type, getId());
+            ChannelDirection direction = getSupportedTransportTypes().get(type);
+            if (direction != null) {
+                typeMap.put(type, direction);
+            } else {
+                LOG.error("Unsupported type {} for channel [{}]", type, getId());
+            }
+        }
+        return typeMap;
+    }
+
+    @Override
+    public synchronized void sync(TransportType type) {
+        sync(Collections.singleton(type));
+    }
+
+    @Override
+    public synchronized void sync(Set<TransportType> types) {
+        if (channelState == State.SHUTDOWN) {
+            LOG.info("Can't sync. Channel [{}] is down", getId());
+            return;
+        }
+        if (channelState == State.PAUSE) {
+            LOG.info("Can't sync. Channel [{}] is paused", getId());
+            return;
+        }
+        if (channelState != State.OPENED) {
+            LOG.info("Can't sync. Channel [{}] is waiting for CONNACK message + KAASYNC message", getId());
+            return;
+        }
+        if (multiplexer == null) {
+            LOG.warn("Can't sync. Channel {} multiplexer is not set", getId());
+            return;
+        }
+        if (demultiplexer == null) {
+            LOG.warn("Can't sync. Channel {} demultiplexer is not set", getId());
+            return;
+        }
+        if (currentServer == null || !isConnectionOpen()) {
+            LOG.warn("Can't sync. Server is {}, connection is open: {}", currentServer, isConnectionOpen());
+            return;
+        }
+
+        try {
+            sendKaaSyncRequest(buildTypeMap(types));
+        } catch (Exception e) {
+            LOG.error("Failed to sync channel [{}]", getId(), e);
+        }
+    }
+
+    @Override
+    public synchronized void syncAll() {
+        if (channelState == State.SHUTDOWN) {
+            LOG.info("Can't sync. Channel [{}] is down", getId());
+            return;
+        }
+        if (channelState == State.PAUSE) {
+            LOG.info("Can't sync. Channel [{}] is paused", getId());
+            return;
+        }
+        if (channelState != State.OPENED) {
+            LOG.info("Can't sync. Channel [{}] is waiting for CONNACK + KAASYNC message", getId());
+            return;
+        }
+        LOG.info("Processing sync all for channel [{}]", getId());
+        if (multiplexer != null && demultiplexer != null) {
+            if (currentServer != null && isConnectionOpen()) {
+                try {
+                    sendKaaSyncRequest(getSupportedTransportTypes());
+                } catch (Exception e) {
+                    LOG.error("Failed to sync channel [{}]: {}", getId(), e);
+                    onServerFailed();
+                }
+            } else {
+                LOG.warn("Can't sync. Server is {}, connection is open: {}", currentServer, isConnectionOpen());
+            }
+        }
+    }
+
+    @Override
+    public void syncAck(TransportType type) {
+        LOG.info("Adding sync acknowledgement for type {} as a regular sync for channel [{}]", type, getId());
+        syncAck(Collections.singleton(type));
+    }
+
+    @Override
+    public void syncAck(Set<TransportType> types) {
+        synchronized (this) {
+            if (channelState != State.OPENED) {
+                LOG.info("First KaaSync message received and processed for channel [{}]", getId());
+                channelState = State.OPENED;
+                failoverManager.onServerConnected(currentServer);
+                LOG.debug("There are pending requests for channel [{}] -> starting sync", getId());
+                syncAll();
+            } else {
+                LOG.debug("Acknowledgment is pending for channel [{}] -> starting sync", getId());
+                if (types.size() == 1) {
+                    sync(types.iterator().next());
+                } else {
+                    syncAll();
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setDemultiplexer(KaaDataDemultiplexer demultiplexer) {
+        if (demultiplexer != null) {
+            this.demultiplexer = demultiplexer;
+        }
+    }
+
+    @Override
+    public synchronized void setMultiplexer(KaaDataMultiplexer multiplexer) {
+        if (multiplexer != null) {
+            this.multiplexer = multiplexer;
+        }
+    }
+
+    @Override
+    public synchronized void setServer(TransportConnectionInfo server) {
+        LOG.info("Setting server [{}] for channel [{}]", server, getId());
+        if (server == null) {
+            LOG.warn("Server is null for Channel [{}].", getId());
+            return;
+        }
+        if (channelState == State.SHUTDOWN) {
+            LOG.info("Can't set server. Channel [{}] is down", getId());
+            return;
+        }
+        IPTransportInfo oldServer = currentServer;
+        this.currentServer = new IPTransportInfo(server);
+        this.encDec = new MessageEncoderDecoder(state.getPrivateKey(), state.getPublicKey(), currentServer.getPublicKey());
+        if (channelState != State.PAUSE) {
+            if (oldServer == null
+                        || !isConnectionOpen()
+                        || !oldServer.getHost().equals(currentServer.getHost())
+                        || oldServer.getPort() != currentServer.getPort()) {
+                LOG.info("New server's: {} host or ip is different from the old {}, reconnecting", currentServer, oldServer);
+                closeConnection();
+                scheduleOpenConnectionTask(0);
+            }
+        } else {
+            LOG.info("Can't start new session. Channel [{}] is paused", getId());
+        }
+    }
+
+    /**
+     * Enables compression of sync requests. Responses flagged as zipped are decompressed regardless of this setting.
+     *
+     * @param compressor the compressor of request bodies, or null to send them uncompressed
+     */
+    public void setPayloadCompressor(PayloadCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    /**
+     * Sets the cipher used with the session key, announced to the server in the Connect message.
+     * Takes effect on the next connection.
+     * <p>
+     * AES/GCM is only proposed: if the server doesn't confirm it in the ConnAck, the channel reconnects with
+     * AES/ECB and keeps using AES/ECB with that access point.
+     *
+     * @param sessionCipherMode the session cipher mode, {@link SessionCipherMode#AES_ECB} by default
+     */
+    public void setSessionCipherMode(SessionCipherMode sessionCipherMode) {
+        this.sessionCipherMode = sessionCipherMode;
+    }
+
+    @Override
+    public TransportConnectionInfo getServer() {
+        return currentServer;
+    }
+
+    protected IPTransportInfo getCurrentServer() {
+        return currentServer;
+    }
+
+    @Override
+    public void setConnectivityChecker(ConnectivityChecker checker) {
+        connectivityChecker = checker;
+    }
+
+    @Override
+    public TransportProtocolId getTransportProtocolId() {
+        return TransportProtocolIdConstants.TCP_TRANSPORT_ID;
+    }
+
+    @Override
+    public ServerType getServerType() {
+        return ServerType.OPERATIONS;
+    }
+
+    @Override
+    public Map<TransportType, ChannelDirection> getSupportedTransportTypes() {
+        return SUPPORTED_TYPES;
+    }
+
+    protected State getChannelState() {
+        return channelState;
+    }
+
+    protected void setChannelState(State channelState) {
+        this.channelState = channelState;
+    }
+
+    protected MessageFactory getMessageFactory() {
+        return messageFactory;
+    }
+
+    KaaSyncRequestWindow getSyncWindow() {
+        return syncWindow;
+    }
+
+    protected enum State {
+        SHUTDOWN, PAUSE, CLOSED, OPENED
+    }
+}
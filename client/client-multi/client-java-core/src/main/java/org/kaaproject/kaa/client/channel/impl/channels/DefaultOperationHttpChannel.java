@@ -73,6 +73,9 @@ public class DefaultOperationHttpChannel extends AbstractHttpChannel {
         byte[] requestBodyRaw = getMultiplexer().compileRequest(types);
         byte [] decodedResponse = null;
         synchronized (this) {
+            if (requestBodyRaw != null) {
+                getHttpClient().checkSessionKeyRotation(requestBodyRaw.length);
+            }
             LinkedHashMap<String, byte[]> requestEntity = HttpRequestCreator.createOperationHttpRequest(requestBodyRaw, getHttpClient().getEncoderDecoder());
             byte [] responseDataRaw = getHttpClient().executeHttpRequest("", requestEntity, false);
             decodedResponse = getHttpClient().getEncoderDecoder().decodeData(responseDataRaw);
@@ -16,6 +16,10 @@
 
 package org.kaaproject.kaa.client.channel.impl.channels;
 
+import org.apache.commons.codec.binary.Hex;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.kaaproject.kaa.client.FailureListener;
 import org.kaaproject.kaa.client.channel.*;
@@ -24,33 +28,45 @@ import org.kaaproject.kaa.client.channel.failover.FailoverDecision;
 import org.kaaproject.kaa.client.channel.failover.FailoverManager;
 import org.kaaproject.kaa.client.channel.failover.FailoverStatus;
 import org.kaaproject.kaa.client.persistence.KaaClientState;
-import org.kaaproject.kaa.common.Constants;
 import org.kaaproject.kaa.common.TransportType;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.KaaTcpProtocolException;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.ConnAckListener;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.DisconnectListener;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.PingResponseListener;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.SyncResponseListener;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.*;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck.ReturnCode;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Disconnect.DisconnectReason;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.KaaMqttClient;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.KaaMqttGateway;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.MqttQosPolicy;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.ConnectionLostListener;
 import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.DeliveryCompleteListener;
 import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.MessageArrivedListener;
+import org.kaaproject.kaa.common.endpoint.compression.PayloadCompressor;
 import org.kaaproject.kaa.common.endpoint.security.MessageEncoderDecoder;
+import org.kaaproject.kaa.common.hash.EndpointObjectHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.NetworkInterface;
-import java.net.Socket;
-import java.net.UnknownHostException;
-import java.security.GeneralSecurityException;
 import java.util.*;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Operations channel that talks to the server through {@link KaaMqttClient}.
+ * <p>
+ * Sync requests are published asynchronously, so the calling thread never waits for the broker.
+ * Up to {@link KaaMqttClient#MAX_IN_FLIGHT} requests may be unacknowledged at once; syncs requested
+ * while the window is full are merged and sent as soon as one of the deliveries completes.
+ * <p>
+ * Each sync is split into one publish per QoS level as defined by {@link MqttQosPolicy}, and every type,
+ * including the ones that are only polled ({@link ChannelDirection#DOWN}), goes out at its own QoS. Each
+ * publish is compiled by the multiplexer into a separate SyncRequest with its own request id and is
+ * answered by a separate SyncResponse, so a sync of types with N QoS levels consumes N request ids and
+ * N slots of the in-flight window.
+ * <p>
+ * If a session persistence is set, the broker session is kept across reconnects. Once the server has
+ * answered the first request of the session, later reconnects to the same server resume it: Paho resends
+ * the unacknowledged publishes and the full initial sync is skipped.
+ * <p>
+ * If a {@link KaaMqttGateway} is set, the channel runs over the connection of the gateway as one of its
+ * endpoints, and the connection settings of the channel are left to the gateway.
+ */
 //TODO add encryption
 public class DefaultOperationMqttChannel implements KaaDataChannel {
 
@@ -72,6 +88,10 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
 
     private static final String CHANNEL_ID = "default_operation_mqtt_channel";
 
+    private static final String BROKER_URI_PREFIX = "tcp://";
+
+    private static final PayloadCompressor DEFAULT_COMPRESSOR = new PayloadCompressor();
+
     private FailureListener failureListener;
 
     private IPTransportInfo currentServer;
@@ -84,13 +104,23 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
     private KaaDataDemultiplexer demultiplexer;
     private KaaDataMultiplexer multiplexer;
 
-
+    private volatile KaaMqttClient mqttClient;
     private MessageEncoderDecoder encDec;
 
     private final FailoverManager failoverManager;
 
     private volatile ConnectivityChecker connectivityChecker;
 
+    private MqttQosPolicy qosPolicy = MqttQosPolicy.createDefault();
+    private volatile PayloadCompressor compressor;
+
+    private volatile KaaMqttGateway gateway;
+    private MqttClientPersistence sessionPersistence;
+    private boolean isSessionEstablished;
+
+    private int inFlightRequests;
+    private final Set<TransportType> deferredTypes = new HashSet<TransportType>();
+
     private final Runnable openConnectionTask = new Runnable() {
         @Override
         public void run() {
@@ -98,33 +128,46 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
         }
     };
 
-    private final ConnAckListener connAckListener = new ConnAckListener() {
-
+    private final Runnable deferredSyncTask = new Runnable() {
         @Override
-        public void onMessage(ConnAck message) {
-            LOG.info("ConnAck ({}) message received for channel [{}]", message.getReturnCode(), getId());
-
-            if (message.getReturnCode() != ReturnCode.ACCEPTED) {
-                LOG.error("Connection for channel [{}] was rejected: {}", getId(), message.getReturnCode());
+        public void run() {
+            sendDeferredSyncRequest();
+        }
+    };
 
-                LOG.info("Cleaning client state");
-                state.clean();
-                if (message.getReturnCode() == ReturnCode.REFUSE_VERIFICATION_FAILED) {
-                    onServerFailed(FailoverStatus.ENDPOINT_VERIFICATION_FAILED);
-                } else {
-                    onServerFailed();
+    private final DeliveryCompleteListener deliveryCompleteListener = new DeliveryCompleteListener() {
+        @Override
+        public void deliveryComplete(IMqttDeliveryToken token) {
+            synchronized (DefaultOperationMqttChannel.this) {
+                if (inFlightRequests > 0) {
+                    inFlightRequests--;
+                }
+                LOG.debug("Delivery completed for channel [{}], {} request(s) in flight", getId(), inFlightRequests);
+                if (!deferredTypes.isEmpty() && executor != null) {
+                    executor.submit(deferredSyncTask);
                 }
             }
         }
-
     };
 
+    private class MqttMessageArrivedListener implements MessageArrivedListener {
+        private final KaaMqttClient listenedClient;
+
+        public MqttMessageArrivedListener(KaaMqttClient listenedClient) {
+            this.listenedClient = listenedClient;
+        }
 
-    private final MessageArrivedListener messageArrivedListener = new MessageArrivedListener() {
         @Override
         public void messageArrived(String topic, MqttMessage message) {
+            if (!listenedClient.equals(mqttClient)) {
+                LOG.debug("Stale client: {} is detected, ignoring message", listenedClient);
+                return;
+            }
             LOG.info("KaaSync message  received for channel [{}]", getId());
             byte[] resultBody = message.getPayload();
+            if (resultBody != null && KaaMqttClient.isZippedTopic(topic)) {
+                resultBody = decompress(resultBody);
+            }
 
             if (resultBody != null) {
                 try {
@@ -135,83 +178,42 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
                     LOG.error("Failed to process response for channel [{}]", getId(), e);
                 }
 
+                boolean isOpened;
                 synchronized (DefaultOperationMqttChannel.this) {
-                    channelState = State.OPENED;
+                    if (!listenedClient.equals(mqttClient)) {
+                        return;
+                    }
+                    if (channelState == State.CLOSED) {
+                        channelState = State.OPENED;
+                    }
+                    isSessionEstablished = true;
+                    isOpened = channelState == State.OPENED;
+                }
+                if (isOpened) {
+                    failoverManager.onServerConnected(currentServer);
                 }
-                failoverManager.onServerConnected(currentServer);
-            }
-        }
-    };
-
-    private final DisconnectListener disconnectListener = new DisconnectListener() {
-
-        @Override
-        public void onMessage(Disconnect message) {
-            LOG.info("Disconnect message (reason={}) received for channel [{}]", message.getReason(), getId());
-            switch (message.getReason()) {
-                case NONE:
-                    closeConnection();
-                    break;
-                case CREDENTIALS_REVOKED:
-                    LOG.error("Endpoint credentials been revoked");
-                    onServerFailed(FailoverStatus.ENDPOINT_CREDENTIALS_REVOKED);
-                    break;
-                default:
-                    LOG.error("Server error occurred: {}", message.getReason());
-                    onServerFailed();
-                    break;
             }
         }
-    };
+    }
 
-    private class SocketReadTask implements Runnable {
-        private final Socket readTaskSocket;
-        private final byte[] buffer;
+    private class MqttConnectionLostListener implements ConnectionLostListener {
+        private final KaaMqttClient listenedClient;
 
-        public SocketReadTask(Socket readTaskSocket) {
-            this.readTaskSocket = readTaskSocket;
-            this.buffer = new byte[1024];
+        public MqttConnectionLostListener(KaaMqttClient listenedClient) {
+            this.listenedClient = listenedClient;
         }
 
         @Override
-        public void run() {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    LOG.info("Channel [{}] is reading data from stream using [{}] byte buffer", getId(), buffer.length);
-
-                    int size = readTaskSocket.getInputStream().read(buffer);
-
-                    if (size > 0) {
-                        messageFactory.getFramer().pushBytes(Arrays.copyOf(buffer, size));
-                    } else if (size == -1) {
-                        LOG.info("Channel [{}] received end of stream ({})", getId(), size);
-                        onServerFailed();
-                    }
-
-                } catch (IOException | KaaTcpProtocolException | RuntimeException e) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        if (channelState != State.SHUTDOWN) {
-                            LOG.warn("Failed to read from the socket for channel [{}]. Stack trace: ", getId(), e);
-                            LOG.warn("Socket connection for channel [{}] was interrupted: ", e);
-                        } else {
-                            LOG.debug("Failed to read from the socket for channel [{}]. Stack trace: ", getId(), e);
-                            LOG.debug("Socket connection for channel [{}] was interrupted: ", e);
-                        }
-                    }
-
-                    if (readTaskSocket.equals(socket)) {
-                        onServerFailed();
-                    } else {
-                        LOG.debug("Stale socket: {} is detected, killing read task...", readTaskSocket);
-                    }
-                    break;
-                }
+        public void connectionLost(Throwable e) {
+            if (listenedClient.equals(mqttClient)) {
+                LOG.warn("Connection for channel [{}] was lost: ", getId(), e);
+                onServerFailed();
+            } else {
+                LOG.debug("Stale client: {} is detected, ignoring connection loss", listenedClient);
             }
-            LOG.info("Read Task is interrupted for channel [{}]", getId());
         }
     }
 
-
     private volatile boolean isOpenConnectionScheduled;
 
     public DefaultOperationMqttChannel(KaaClientState state, FailoverManager failoverManager, FailureListener failureListener) {
@@ -220,45 +222,174 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
         this.failureListener = failureListener;
     }
 
+    private void sendRequest(byte[] body, int qos) throws MqttException {
+        if (mqttClient != null) {
+            byte[] compressedBody = compressor != null ? compressor.compress(body) : null;
+            if (compressedBody != null) {
+                mqttClient.sendRequest(compressedBody, qos, true);
+            } else {
+                mqttClient.sendRequest(body, qos);
+            }
+            inFlightRequests++;
+        }
+    }
 
-    private void sendDisconnect()  {
+    private byte[] decompress(byte[] body) {
+        PayloadCompressor currentCompressor = compressor != null ? compressor : DEFAULT_COMPRESSOR;
+        try {
+            return currentCompressor.decompress(body);
+        } catch (IOException e) {
+            LOG.error("Failed to decompress message body for channel [{}]", getId(), e);
+            return null;
+        }
+    }
+
+    private void sendDisconnect() throws MqttException {
         LOG.debug("Sending Disconnect from channel [{}]", getId());
+        mqttClient.disconnect();
     }
 
     private void sendKaaSyncRequest(Map<TransportType, ChannelDirection> types) throws Exception {
-        LOG.debug("Sending KaaSync from channel [{}]", getId());
-        byte[] body = multiplexer.compileRequest(types);
-
+        Map<Integer, Map<TransportType, ChannelDirection>> requests = splitByQos(types);
+        if (inFlightRequests + requests.size() > KaaMqttClient.MAX_IN_FLIGHT) {
+            LOG.debug("Channel [{}] has {} requests in flight, deferring sync of {}", getId(), inFlightRequests, types.keySet());
+            deferredTypes.addAll(types.keySet());
+            return;
+        }
+        LOG.debug("Sending KaaSync from channel [{}] in {} publish(es)", getId(), requests.size());
+        for (Map.Entry<Integer, Map<TransportType, ChannelDirection>> request : requests.entrySet()) {
+            byte[] body = multiplexer.compileRequest(request.getValue());
+            sendRequest(body, request.getKey());
+        }
     }
 
+    /**
+     * The first request registers the endpoint on the server, so it is never split and goes out
+     * with the highest QoS of all supported types.
+     */
     private void sendConnect() throws Exception {
         LOG.debug("Sending Connect to channel [{}]", getId());
         byte[] body = multiplexer.compileRequest(getSupportedTransportTypes());
+        sendRequest(body, qosPolicy.getMaxQos(getSupportedTransportTypes().keySet()));
+    }
 
+    private Map<Integer, Map<TransportType, ChannelDirection>> splitByQos(Map<TransportType, ChannelDirection> types) {
+        Map<Integer, Map<TransportType, ChannelDirection>> requests =
+                new TreeMap<Integer, Map<TransportType, ChannelDirection>>(Collections.reverseOrder());
+        for (Map.Entry<TransportType, ChannelDirection> type : types.entrySet()) {
+            int qos = qosPolicy.getQos(type.getKey());
+            Map<TransportType, ChannelDirection> request = requests.get(qos);
+            if (request == null) {
+                request = new HashMap<>();
+                requests.put(qos, request);
+            }
+            request.put(type.getKey(), type.getValue());
+        }
+        return requests;
+    }
+
+    private synchronized void sendDeferredSyncRequest() {
+        if (deferredTypes.isEmpty() || channelState != State.OPENED || mqttClient == null) {
+            return;
+        }
+        Set<TransportType> types = new HashSet<TransportType>(deferredTypes);
+        deferredTypes.clear();
+        try {
+            sendKaaSyncRequest(buildTypeMap(types));
+        } catch (Exception e) {
+            LOG.error("Failed to send deferred sync for channel [{}]", getId(), e);
+        }
     }
 
     private synchronized void closeConnection() {
-        sendDisconnect();
-        if (channelState != State.SHUTDOWN) {
-            channelState = State.CLOSED;
+        if (mqttClient != null) {
+            LOG.info("Channel \"{}\": closing current connection", getId());
+            try {
+                sendDisconnect();
+            } catch (MqttException e) {
+                LOG.error("Failed to send Disconnect to server: {}", e);
+            } finally {
+                mqttClient = null;
+                inFlightRequests = 0;
+                if (sessionPersistence == null) {
+                    deferredTypes.clear();
+                }
+                if (channelState != State.SHUTDOWN) {
+                    channelState = State.CLOSED;
+                }
+            }
         }
+    }
 
+    protected KaaMqttClient createMqttClient(String broker, String clientId) {
+        KaaMqttGateway currentGateway = gateway;
+        return currentGateway != null ? currentGateway.createEndpointClient(clientId) : new KaaMqttClient(broker, clientId);
     }
 
+    private String getClientId() {
+        return Hex.encodeHexString(EndpointObjectHash.fromSHA1(state.getPublicKey().getEncoded()).getData());
+    }
 
-    private synchronized void openConnection() {
-        if (channelState == State.PAUSE || channelState == State.SHUTDOWN) {
-            LOG.info("Can't open connection, as channel is in the {} state", channelState);
-            return;
-        }
-        try {
+    /**
+     * Connects outside of the channel lock, as the connect blocks until the broker answers. A client that was
+     * replaced or closed in the meantime is dropped once its connect returns.
+     */
+    private void openConnection() {
+        KaaMqttClient client;
+        synchronized (this) {
+            if (channelState == State.PAUSE || channelState == State.SHUTDOWN) {
+                LOG.info("Can't open connection, as channel is in the {} state", channelState);
+                return;
+            }
             LOG.info("Channel [{}]: opening connection to server {}", getId(), currentServer);
             isOpenConnectionScheduled = false;
-            socket = createSocket(currentServer.getHost(), currentServer.getPort());
-            sendConnect();
-
+            client = createMqttClient(BROKER_URI_PREFIX + currentServer.getHost() + ":" + currentServer.getPort(), getClientId());
+            client.setKeepAliveInterval(PING_TIMEOUT);
+            client.onMessageArrived(new MqttMessageArrivedListener(client));
+            client.onDeliveryComplete(deliveryCompleteListener);
+            client.onConnectionLost(new MqttConnectionLostListener(client));
+            if (sessionPersistence != null) {
+                client.setPersistence(sessionPersistence);
+                client.setCleanSession(false);
+            }
+            mqttClient = client;
+        }
+        try {
+            client.connect();
+            synchronized (this) {
+                if (!client.equals(mqttClient)) {
+                    LOG.info("Channel [{}]: connection was closed while connecting, dropping it", getId());
+                    client.disconnect();
+                    return;
+                }
+                if (sessionPersistence != null && isSessionEstablished) {
+                    LOG.info("Channel [{}]: resuming session with server {}", getId(), currentServer);
+                    channelState = State.OPENED;
+                    failoverManager.onServerConnected(currentServer);
+                    sendDeferredSyncRequest();
+                } else {
+                    sendConnect();
+                }
+            }
+        } catch (MqttException e) {
+            if (!client.equals(mqttClient)) {
+                LOG.debug("Stale client: {} is detected, ignoring connection failure", client);
+                return;
+            }
+            LOG.error("Failed to connect to broker {}:{}. Stack trace: ", currentServer.getHost(), currentServer.getPort(), e);
+            if (e.getReasonCode() == MqttException.REASON_CODE_FAILED_AUTHENTICATION
+                    || e.getReasonCode() == MqttException.REASON_CODE_NOT_AUTHORIZED) {
+                LOG.info("Cleaning client state");
+                synchronized (this) {
+                    state.clean();
+                    isSessionEstablished = false;
+                }
+                onServerFailed(FailoverStatus.ENDPOINT_VERIFICATION_FAILED);
+            } else {
+                onServerFailed();
+            }
         } catch (Exception e) {
-            LOG.error("Failed to create a socket for server {}:{}. Stack trace: ", currentServer.getHost(), currentServer.getPort(), e);
+            LOG.error("Failed to open connection to server {}:{}. Stack trace: ", currentServer.getHost(), currentServer.getPort(), e);
             onServerFailed();
         }
     }
@@ -316,6 +447,23 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
         return new ScheduledThreadPoolExecutor(2);
     }
 
+    private Map<TransportType, ChannelDirection> buildTypeMap(Set<TransportType> types) {
+        Map<TransportType, ChannelDirection> typeMap = new HashMap<>(getSupportedTransportTypes().size());
+        for (TransportType type : getSupportedTransportTypes().keySet()) {
+            typeMap.put(type, ChannelDirection.DOWN);
+        }
+        for (TransportType type : types) {
+            LOG.info("Processing sync {} for channel [{}]", type, getId());
+            ChannelDirection direction = getSupportedTransportTypes().get(type);
+            if (direction != null) {
+                typeMap.put(type, direction);
+            } else {
+                LOG.error("Unsupported type {} for channel [{}]", type, getId());
+            }
+        }
+        return typeMap;
+    }
+
     @Override
     public synchronized void sync(TransportType type) {
         sync(Collections.singleton(type));
@@ -343,28 +491,13 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
             LOG.warn("Can't sync. Channel {} demultiplexer is not set", getId());
             return;
         }
-        if (currentServer == null || socket == null) {
-            LOG.warn("Can't sync. Server is {}, socket is \"{}\"", currentServer, socket);
+        if (currentServer == null || mqttClient == null) {
+            LOG.warn("Can't sync. Server is {}, client is \"{}\"", currentServer, mqttClient);
             return;
         }
 
-        Map<TransportType, ChannelDirection> typeMap = new HashMap<>(getSupportedTransportTypes().size());
-        for (TransportType type : types) {
-            LOG.info("Processing sync {} for channel [{}]", type, getId());
-            ChannelDirection direction = getSupportedTransportTypes().get(type);
-            if (direction != null) {
-                typeMap.put(type, direction);
-            } else {
-                LOG.error("Unsupported type {} for channel [{}]", type, getId());
-            }
-            for (Map.Entry<TransportType, ChannelDirection> typeIt : getSupportedTransportTypes().entrySet()) {
-                if (!typeIt.getKey().equals(type)) {
-                    typeMap.put(typeIt.getKey(), ChannelDirection.DOWN);
-                }
-            }
-        }
         try {
-            sendKaaSyncRequest(typeMap);
+            sendKaaSyncRequest(buildTypeMap(types));
         } catch (Exception e) {
             LOG.error("Failed to sync channel [{}]", getId(), e);
         }
@@ -386,7 +519,7 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
         }
         LOG.info("Processing sync all for channel [{}]", getId());
         if (multiplexer != null && demultiplexer != null) {
-            if (currentServer != null && socket != null) {
+            if (currentServer != null && mqttClient != null) {
                 try {
                     sendKaaSyncRequest(getSupportedTransportTypes());
                 } catch (Exception e) {
@@ -394,7 +527,7 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
                     onServerFailed();
                 }
             } else {
-                LOG.warn("Can't sync. Server is {}, socket is {}", currentServer, socket);
+                LOG.warn("Can't sync. Server is {}, client is {}", currentServer, mqttClient);
             }
         }
     }
@@ -458,10 +591,13 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
                 executor = createExecutor();
             }
             if (oldServer == null
-                    || socket == null
+                    || mqttClient == null
                     || !oldServer.getHost().equals(currentServer.getHost())
                     || oldServer.getPort() != currentServer.getPort()) {
                 LOG.info("New server's: {} host or ip is different from the old {}, reconnecting", currentServer, oldServer);
+                if (oldServer != null && !currentServer.getURL().equals(oldServer.getURL())) {
+                    isSessionEstablished = false;
+                }
                 closeConnection();
                 scheduleOpenConnectionTask(0);
             }
@@ -470,6 +606,40 @@ public class DefaultOperationMqttChannel implements KaaDataChannel {
         }
     }
 
+    /**
+     * Enables durable broker sessions stored in the given persistence. Takes effect on the next connect.
+     *
+     * @param sessionPersistence the persistence for in-flight messages, or null to use clean sessions
+     */
+    public synchronized void setSessionPersistence(MqttClientPersistence sessionPersistence) {
+        this.sessionPersistence = sessionPersistence;
+        this.isSessionEstablished = false;
+    }
+
+    /**
+     * Makes the channel talk to the server through the connection of the gateway. Takes effect on the next connect.
+     *
+     * @param gateway the gateway to run over, or null to open a connection of the channel's own
+     */
+    public void setGateway(KaaMqttGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    /**
+     * Enables compression of sync requests. Responses on the zipped topic are decompressed regardless of this setting.
+     *
+     * @param compressor the compressor of request bodies, or null to send them uncompressed
+     */
+    public void setPayloadCompressor(PayloadCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    public synchronized void setQosPolicy(MqttQosPolicy qosPolicy) {
+        if (qosPolicy != null) {
+            this.qosPolicy = qosPolicy;
+        }
+    }
+
     @Override
     public TransportConnectionInfo getServer() {
         return currentServer;
@@ -19,92 +19,37 @@ package org.kaaproject.kaa.client.channel.impl.channels;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.security.GeneralSecurityException;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.nio.ByteBuffer;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.kaaproject.kaa.client.FailureListener;
-import org.kaaproject.kaa.client.channel.ChannelDirection;
-import org.kaaproject.kaa.client.channel.failover.FailoverDecision;
-import org.kaaproject.kaa.client.channel.failover.FailoverManager;
-import org.kaaproject.kaa.client.channel.failover.FailoverStatus;
 import org.kaaproject.kaa.client.channel.IPTransportInfo;
-import org.kaaproject.kaa.client.channel.KaaDataChannel;
-import org.kaaproject.kaa.client.channel.KaaDataDemultiplexer;
-import org.kaaproject.kaa.client.channel.KaaDataMultiplexer;
-import org.kaaproject.kaa.client.channel.ServerType;
 import org.kaaproject.kaa.client.channel.TransportConnectionInfo;
-import org.kaaproject.kaa.client.channel.TransportProtocolId;
-import org.kaaproject.kaa.client.channel.TransportProtocolIdConstants;
-import org.kaaproject.kaa.client.channel.connectivity.ConnectivityChecker;
+import org.kaaproject.kaa.client.channel.failover.FailoverManager;
 import org.kaaproject.kaa.client.persistence.KaaClientState;
-import org.kaaproject.kaa.common.Constants;
-import org.kaaproject.kaa.common.TransportType;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.FrameBufferPool;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.KaaTcpProtocolException;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.ConnAckListener;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.DisconnectListener;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.PingResponseListener;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.SyncResponseListener;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck.ReturnCode;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Connect;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Disconnect;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Disconnect.DisconnectReason;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MessageFactory;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MqttFrame;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.PingRequest;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.PingResponse;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncRequest;
-import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncResponse;
-import org.kaaproject.kaa.common.endpoint.security.MessageEncoderDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class DefaultOperationTcpChannel implements KaaDataChannel {
+public class DefaultOperationTcpChannel extends AbstractOperationTcpChannel {
 
     public static final Logger LOG = LoggerFactory.getLogger(DefaultOperationTcpChannel.class);
 
-    private static final Map<TransportType, ChannelDirection> SUPPORTED_TYPES = new HashMap<TransportType, ChannelDirection>();
-
-    static {
-        SUPPORTED_TYPES.put(TransportType.PROFILE, ChannelDirection.BIDIRECTIONAL);
-        SUPPORTED_TYPES.put(TransportType.CONFIGURATION, ChannelDirection.BIDIRECTIONAL);
-        SUPPORTED_TYPES.put(TransportType.NOTIFICATION, ChannelDirection.BIDIRECTIONAL);
-        SUPPORTED_TYPES.put(TransportType.USER, ChannelDirection.BIDIRECTIONAL);
-        SUPPORTED_TYPES.put(TransportType.EVENT, ChannelDirection.BIDIRECTIONAL);
-        SUPPORTED_TYPES.put(TransportType.LOGGING, ChannelDirection.BIDIRECTIONAL);
-    }
-
-    private static final int CHANNEL_TIMEOUT = 200;
-    private static final int PING_TIMEOUT = CHANNEL_TIMEOUT / 2;
-
     private static final String CHANNEL_ID = "default_operation_tcp_channel";
 
-    private FailureListener failureListener;
-
-    private IPTransportInfo currentServer;
-    private final KaaClientState state;
+    private static final int WRITE_BUFFER_POOL_SIZE = 2;
 
     private ScheduledExecutorService executor;
 
-    private volatile State channelState = State.CLOSED;
-
-    private KaaDataDemultiplexer demultiplexer;
-    private KaaDataMultiplexer multiplexer;
-
     private volatile Socket socket;
-    private MessageEncoderDecoder encDec;
-
-    private final FailoverManager failoverManager;
-
-    private volatile ConnectivityChecker connectivityChecker;
 
     private final Runnable openConnectionTask = new Runnable() {
         @Override
@@ -113,91 +58,17 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
         }
     };
 
-    private final ConnAckListener connAckListener = new ConnAckListener() {
-
+    private final Runnable deferredSyncTask = new Runnable() {
         @Override
-        public void onMessage(ConnAck message) {
-            LOG.info("ConnAck ({}) message received for channel [{}]", message.getReturnCode(), getId());
-
-            if (message.getReturnCode() != ReturnCode.ACCEPTED) {
-                LOG.error("Connection for channel [{}] was rejected: {}", getId(), message.getReturnCode());
-
-                LOG.info("Cleaning client state");
-                state.clean();
-
-                if (message.getReturnCode() == ReturnCode.REFUSE_VERIFICATION_FAILED) {
-                    onServerFailed(FailoverStatus.ENDPOINT_VERIFICATION_FAILED);
-                } else {
-                    onServerFailed();
-                }
-            }
-        }
-
-    };
-
-    private final PingResponseListener pingResponseListener = new PingResponseListener() {
-
-        @Override
-        public void onMessage(PingResponse message) {
-            LOG.info("PingResponse message received for channel [{}]", getId());
-        }
-
-    };
-
-    private final SyncResponseListener kaaSyncResponseListener = new SyncResponseListener() {
-
-        @Override
-        public void onMessage(SyncResponse message) {
-            LOG.info("KaaSync message (zipped={}, encrypted={}) received for channel [{}]", message.isZipped(), message.isEncrypted(),
-                    getId());
-            byte[] resultBody = null;
-            if (message.isEncrypted()) {
-                synchronized (this) {
-                    try {
-                        resultBody = encDec.decodeData(message.getAvroObject());
-                    } catch (GeneralSecurityException e) {
-                        LOG.error("Failed to decrypt message body for channel [{}]: {}", getId());
-                        LOG.error("Stack Trace: ", e);
-                    }
-                }
-            } else {
-                resultBody = message.getAvroObject();
-            }
-            if (resultBody != null) {
-                try {
-                    demultiplexer.preProcess();
-                    demultiplexer.processResponse(resultBody);
-                    demultiplexer.postProcess();
-                } catch (Exception e) {
-                    LOG.error("Failed to process response for channel [{}]", getId(), e);
-                }
-
-                synchronized (DefaultOperationTcpChannel.this) {
-                    channelState = State.OPENED;
-                }
-                failoverManager.onServerConnected(currentServer);
-            }
+        public void run() {
+            sendDeferredSyncRequest();
         }
     };
 
-    private final DisconnectListener disconnectListener = new DisconnectListener() {
-
+    private final Runnable syncExpiryTask = new Runnable() {
         @Override
-        public void onMessage(Disconnect message) {
-            LOG.info("Disconnect message (reason={}) received for channel [{}]", message.getReason(), getId());
-            switch (message.getReason()) {
-                case NONE:
-                    closeConnection();
-                    break;
-                case CREDENTIALS_REVOKED:
-                    LOG.error("Endpoint credentials been revoked");
-                    onServerFailed(FailoverStatus.ENDPOINT_CREDENTIALS_REVOKED);
-                    break;
-                default:
-                    LOG.error("Server error occurred: {}", message.getReason());
-                    onServerFailed();
-                    break;
-            }
+        public void run() {
+            expireSyncRequests();
         }
     };
 
@@ -219,7 +90,7 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
                     int size = readTaskSocket.getInputStream().read(buffer);
 
                     if (size > 0) {
-                        messageFactory.getFramer().pushBytes(Arrays.copyOf(buffer, size));
+                        getMessageFactory().getFramer().pushBytes(buffer, 0, size);
                     } else if (size == -1) {
                         LOG.info("Channel [{}] received end of stream ({})", getId(), size);
                         onServerFailed();
@@ -227,7 +98,7 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
 
                 } catch (IOException | KaaTcpProtocolException | RuntimeException e) {
                     if (Thread.currentThread().isInterrupted()) {
-                        if (channelState != State.SHUTDOWN) {
+                        if (getChannelState() != State.SHUTDOWN) {
                             LOG.warn("Failed to read from the socket for channel [{}]. Stack trace: ", getId(), e);
                             LOG.warn("Socket connection for channel [{}] was interrupted: ", e);
                         } else {
@@ -271,27 +142,29 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
         }
     };
 
-    private final MessageFactory messageFactory = new MessageFactory();
+    private final FrameBufferPool writeBufferPool = new FrameBufferPool(WRITE_BUFFER_POOL_SIZE, FrameBufferPool.DEFAULT_MAX_RETAINED_CAPACITY);
 
     private volatile Future<?> pingTaskFuture;
     private volatile Future<?> readTaskFuture;
+    private Future<?> syncExpiryTaskFuture;
 
     private volatile boolean isOpenConnectionScheduled;
 
     public DefaultOperationTcpChannel(KaaClientState state, FailoverManager failoverManager, FailureListener failureListener) {
-        this.state = state;
-        this.failoverManager = failoverManager;
-        this.failureListener = failureListener;
-        messageFactory.registerMessageListener(connAckListener);
-        messageFactory.registerMessageListener(kaaSyncResponseListener);
-        messageFactory.registerMessageListener(pingResponseListener);
-        messageFactory.registerMessageListener(disconnectListener);
+        super(state, failoverManager, failureListener);
     }
 
-    private void sendFrame(MqttFrame frame) throws IOException {
+    @Override
+    protected void sendFrame(MqttFrame frame) throws IOException {
         if (socket != null) {
-            synchronized (socket) {
-                socket.getOutputStream().write(frame.getFrame().array());
+            ByteBuffer buffer = writeBufferPool.acquire(frame.getFrameLength());
+            try {
+                int length = frame.encode(buffer);
+                synchronized (socket) {
+                    socket.getOutputStream().write(buffer.array(), buffer.arrayOffset(), length);
+                }
+            } finally {
+                writeBufferPool.release(buffer);
             }
         }
     }
@@ -306,23 +179,40 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
         sendFrame(new Disconnect(DisconnectReason.NONE));
     }
 
-    private void sendKaaSyncRequest(Map<TransportType, ChannelDirection> types) throws Exception {
-        LOG.debug("Sending KaaSync from channel [{}]", getId());
-        byte[] body = multiplexer.compileRequest(types);
-        byte[] requestBodyEncoded = encDec.encodeData(body);
-        sendFrame(new SyncRequest(requestBodyEncoded, false, true));
-    }
-
     private void sendConnect() throws Exception {
         LOG.debug("Sending Connect to channel [{}]", getId());
-        byte[] body = multiplexer.compileRequest(getSupportedTransportTypes());
-        byte[] requestBodyEncoded = encDec.encodeData(body);
-        byte[] sessionKey = encDec.getEncodedSessionKey();
-        byte[] signature = encDec.sign(sessionKey);
-        sendFrame(new Connect(CHANNEL_TIMEOUT, Constants.KAA_PLATFORM_PROTOCOL_AVRO_ID, sessionKey, requestBodyEncoded, signature));
+        sendFrame(buildConnect());
+    }
+
+    @Override
+    protected synchronized void scheduleDeferredSyncRequest() {
+        if (executor != null) {
+            executor.submit(deferredSyncTask);
+        }
+    }
+
+    @Override
+    protected synchronized void scheduleSyncRequestExpiry(long delay) {
+        cancelSyncExpiryTask();
+        if (executor != null) {
+            syncExpiryTaskFuture = executor.schedule(syncExpiryTask, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancelSyncExpiryTask() {
+        if (syncExpiryTaskFuture != null) {
+            syncExpiryTaskFuture.cancel(false);
+            syncExpiryTaskFuture = null;
+        }
+    }
+
+    @Override
+    protected boolean isConnectionOpen() {
+        return socket != null;
     }
 
-    private synchronized void closeConnection() {
+    @Override
+    protected synchronized void closeConnection() {
         if (pingTaskFuture != null && !pingTaskFuture.isCancelled()) {
             pingTaskFuture.cancel(true);
         }
@@ -330,6 +220,7 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
         if (readTaskFuture != null && !readTaskFuture.isCancelled()) {
             readTaskFuture.cancel(true);
         }
+        cancelSyncExpiryTask();
 
         if (socket != null) {
             LOG.info("Channel \"{}\": closing current connection", getId());
@@ -344,9 +235,10 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
                     LOG.error("Failed to close socket: {}", e);
                 }
                 socket = null;
-                messageFactory.getFramer().flush();
-                if (channelState != State.SHUTDOWN) {
-                    channelState = State.CLOSED;
+                getSyncWindow().clear();
+                getMessageFactory().getFramer().flush();
+                if (getChannelState() != State.SHUTDOWN) {
+                    setChannelState(State.CLOSED);
                 }
             }
         }
@@ -357,10 +249,11 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
     }
 
     private synchronized void openConnection() {
-        if (channelState == State.PAUSE || channelState == State.SHUTDOWN) {
-            LOG.info("Can't open connection, as channel is in the {} state", channelState);
+        if (getChannelState() == State.PAUSE || getChannelState() == State.SHUTDOWN) {
+            LOG.info("Can't open connection, as channel is in the {} state", getChannelState());
             return;
         }
+        IPTransportInfo currentServer = getCurrentServer();
         try {
             LOG.info("Channel [{}]: opening connection to server {}", getId(), currentServer);
             isOpenConnectionScheduled = false;
@@ -374,40 +267,8 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
         }
     }
 
-    private void onServerFailed() {
-        this.onServerFailed(FailoverStatus.NO_CONNECTIVITY);
-    }
-
-    private void onServerFailed(FailoverStatus status) {
-        LOG.info("[{}] has failed", getId());
-        closeConnection();
-        if (connectivityChecker != null && !connectivityChecker.checkConnectivity()) {
-            LOG.warn("Loss of connectivity detected");
-
-            FailoverDecision decision = failoverManager.onFailover(status);
-            switch (decision.getAction()) {
-                case NOOP:
-                    LOG.warn("No operation is performed according to failover strategy decision");
-                    break;
-                case RETRY:
-                    long retryPeriod = decision.getRetryPeriod();
-                    LOG.warn("Attempt to reconnect will be made in {} ms " +
-                            "according to failover strategy decision", retryPeriod);
-                    scheduleOpenConnectionTask(retryPeriod);
-                    break;
-                case FAILURE:
-                    LOG.warn("Calling failure listener according to failover strategy decision!");
-                    failureListener.onFailure();
-                    break;
-                default:
-                    break;
-            }
-        } else {
-            failoverManager.onServerFailed(currentServer, status);
-        }
-    }
-
-    private synchronized void scheduleOpenConnectionTask(long retryPeriod) {
+    @Override
+    protected synchronized void scheduleOpenConnectionTask(long retryPeriod) {
         if (!isOpenConnectionScheduled) {
             if (executor != null) {
                 LOG.info("Scheduling open connection task");
@@ -444,183 +305,27 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
         return new ScheduledThreadPoolExecutor(2);
     }
 
-    @Override
-    public synchronized void sync(TransportType type) {
-        sync(Collections.singleton(type));
-    }
-
-    @Override
-    public synchronized void sync(Set<TransportType> types) {
-        if (channelState == State.SHUTDOWN) {
-            LOG.info("Can't sync. Channel [{}] is down", getId());
-            return;
-        }
-        if (channelState == State.PAUSE) {
-            LOG.info("Can't sync. Channel [{}] is paused", getId());
-            return;
-        }
-        if (channelState != State.OPENED) {
-            LOG.info("Can't sync. Channel [{}] is waiting for CONNACK message + KAASYNC message", getId());
-            return;
-        }
-        if (multiplexer == null) {
-            LOG.warn("Can't sync. Channel {} multiplexer is not set", getId());
-            return;
-        }
-        if (demultiplexer == null) {
-            LOG.warn("Can't sync. Channel {} demultiplexer is not set", getId());
-            return;
-        }
-        if (currentServer == null || socket == null) {
-            LOG.warn("Can't sync. Server is {}, socket is \"{}\"", currentServer, socket);
-            return;
-        }
-
-        Map<TransportType, ChannelDirection> typeMap = new HashMap<>(getSupportedTransportTypes().size());
-        for (TransportType type : types) {
-            LOG.info("Processing sync {} for channel [{}]", type, getId());
-            ChannelDirection direction = getSupportedTransportTypes().get(type);
-            if (direction != null) {
-                typeMap.put(type, direction);
-            } else {
-                LOG.error("Unsupported type {} for channel [{}]", type, getId());
-            }
-            for (Map.Entry<TransportType, ChannelDirection> typeIt : getSupportedTransportTypes().entrySet()) {
-                if (!typeIt.getKey().equals(type)) {
-                    typeMap.put(typeIt.getKey(), ChannelDirection.DOWN);
-                }
-            }
-        }
-        try {
-            sendKaaSyncRequest(typeMap);
-        } catch (Exception e) {
-            LOG.error("Failed to sync channel [{}]", getId(), e);
-        }
-    }
-
-    @Override
-    public synchronized void syncAll() {
-        if (channelState == State.SHUTDOWN) {
-            LOG.info("Can't sync. Channel [{}] is down", getId());
-            return;
-        }
-        if (channelState == State.PAUSE) {
-            LOG.info("Can't sync. Channel [{}] is paused", getId());
-            return;
-        }
-        if (channelState != State.OPENED) {
-            LOG.info("Can't sync. Channel [{}] is waiting for CONNACK + KAASYNC message", getId());
-            return;
-        }
-        LOG.info("Processing sync all for channel [{}]", getId());
-        if (multiplexer != null && demultiplexer != null) {
-            if (currentServer != null && socket != null) {
-                try {
-                    sendKaaSyncRequest(getSupportedTransportTypes());
-                } catch (Exception e) {
-                    LOG.error("Failed to sync channel [{}]: {}", getId(), e);
-                    onServerFailed();
-                }
-            } else {
-                LOG.warn("Can't sync. Server is {}, socket is {}", currentServer, socket);
-            }
-        }
-    }
-
-    @Override
-    public void syncAck(TransportType type) {
-        LOG.info("Adding sync acknowledgement for type {} as a regular sync for channel [{}]", type, getId());
-        syncAck(Collections.singleton(type));
-    }
-
-    @Override
-    public void syncAck(Set<TransportType> types) {
-        synchronized (this) {
-            if (channelState != State.OPENED) {
-                LOG.info("First KaaSync message received and processed for channel [{}]", getId());
-                channelState = State.OPENED;
-                failoverManager.onServerConnected(currentServer);
-                LOG.debug("There are pending requests for channel [{}] -> starting sync", getId());
-                syncAll();
-            } else {
-                LOG.debug("Acknowledgment is pending for channel [{}] -> starting sync", getId());
-                if (types.size() == 1) {
-                    sync(types.iterator().next());
-                } else {
-                    syncAll();
-                }
-            }
-        }
-    }
-
-    @Override
-    public synchronized void setDemultiplexer(KaaDataDemultiplexer demultiplexer) {
-        if (demultiplexer != null) {
-            this.demultiplexer = demultiplexer;
-        }
-    }
-
-    @Override
-    public synchronized void setMultiplexer(KaaDataMultiplexer multiplexer) {
-        if (multiplexer != null) {
-            this.multiplexer = multiplexer;
-        }
-    }
-
     @Override
     public synchronized void setServer(TransportConnectionInfo server) {
-        LOG.info("Setting server [{}] for channel [{}]", server, getId());
-        if (server == null) {
-            LOG.warn("Server is null for Channel [{}].", getId());
-            return;
-        }
-        if (channelState == State.SHUTDOWN) {
-            LOG.info("Can't set server. Channel [{}] is down", getId());
-            return;
-        }
-        IPTransportInfo oldServer = currentServer;
-        this.currentServer = new IPTransportInfo(server);
-        this.encDec = new MessageEncoderDecoder(state.getPrivateKey(), state.getPublicKey(), currentServer.getPublicKey());
-        if (channelState != State.PAUSE) {
-            if (executor == null) {
-                executor = createExecutor();
-            }
-            if (oldServer == null
-                        || socket == null
-                        || !oldServer.getHost().equals(currentServer.getHost())
-                        || oldServer.getPort() != currentServer.getPort()) {
-                LOG.info("New server's: {} host or ip is different from the old {}, reconnecting", currentServer, oldServer);
-                closeConnection();
-                scheduleOpenConnectionTask(0);
-            }
-        } else {
-            LOG.info("Can't start new session. Channel [{}] is paused", getId());
+        if (server != null && executor == null && getChannelState() != State.PAUSE && getChannelState() != State.SHUTDOWN) {
+            executor = createExecutor();
         }
-    }
-
-    @Override
-    public TransportConnectionInfo getServer() {
-        return currentServer;
-    }
-
-    @Override
-    public void setConnectivityChecker(ConnectivityChecker checker) {
-        connectivityChecker = checker;
+        super.setServer(server);
     }
 
     @Override
     public synchronized void shutdown() {
         LOG.info("Shutting down...");
-        channelState = State.SHUTDOWN;
+        setChannelState(State.SHUTDOWN);
         closeConnection();
         destroyExecutor();
     }
 
     @Override
     public synchronized void pause() {
-        if (channelState != State.PAUSE) {
+        if (getChannelState() != State.PAUSE) {
             LOG.info("Pausing...");
-            channelState = State.PAUSE;
+            setChannelState(State.PAUSE);
             closeConnection();
             destroyExecutor();
         }
@@ -636,9 +341,9 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
 
     @Override
     public synchronized void resume() {
-        if (channelState == State.PAUSE) {
+        if (getChannelState() == State.PAUSE) {
             LOG.info("Resuming...");
-            channelState = State.CLOSED;
+            setChannelState(State.CLOSED);
             if (executor == null) {
                 executor = createExecutor();
             }
@@ -650,23 +355,4 @@ public class DefaultOperationTcpChannel implements KaaDataChannel {
     public String getId() {
         return CHANNEL_ID;
     }
-
-    @Override
-    public TransportProtocolId getTransportProtocolId() {
-        return TransportProtocolIdConstants.TCP_TRANSPORT_ID;
-    }
-
-    @Override
-    public ServerType getServerType() {
-        return ServerType.OPERATIONS;
-    }
-
-    @Override
-    public Map<TransportType, ChannelDirection> getSupportedTransportTypes() {
-        return SUPPORTED_TYPES;
-    }
-
-    private enum State {
-        SHUTDOWN, PAUSE, CLOSED, OPENED
-    }
 }
@@ -174,6 +174,9 @@ public class DefaultOperationsChannel implements KaaDataChannel, RawDataProcesso
         try {
             byte[] requestBodyRaw = multiplexer.compileRequest(types);
             synchronized (httpClientLock) {
+                if (requestBodyRaw != null) {
+                    httpClient.checkSessionKeyRotation(requestBodyRaw.length);
+                }
                 request = HttpRequestCreator.createOperationHttpRequest(requestBodyRaw, httpClient.getEncoderDecoder());
             }
         } catch (Exception e) {
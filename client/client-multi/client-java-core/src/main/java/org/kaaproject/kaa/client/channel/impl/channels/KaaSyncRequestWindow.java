@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl.channels;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.kaaproject.kaa.common.TransportType;
+
+/**
+ * Bounded window of KaaSync requests that were sent but not answered yet.
+ * <p>
+ * Every request gets a 16-bit message id, which the server echoes in the matching response, so several requests
+ * can be in flight on one connection. When the window is full, the transport types of further syncs are merged
+ * and sent as one request once a response frees a slot. A response with message id 0 comes from a server that
+ * doesn't echo ids and acknowledges the oldest outstanding request.
+ * <p>
+ * A request that stays unanswered for longer than the response timeout gives its slot up, and its transport
+ * types are deferred to be requested again, so a lost response can't hold a slot for the rest of the connection.
+ * The channel calls {@link #expireOverdue()} at the deadline of the oldest request, so the deferred types don't
+ * wait for the next sync.
+ */
+class KaaSyncRequestWindow {
+
+    static final int UNCORRELATED_MESSAGE_ID = 0;
+
+    private static final int MAX_MESSAGE_ID = 0xFFFF;
+
+    private final int capacity;
+    private final long responseTimeoutMillis;
+    private final Map<Integer, OutstandingRequest> outstandingRequests = new LinkedHashMap<>();
+    private final Set<TransportType> deferredTypes = new HashSet<>();
+    private int lastMessageId = UNCORRELATED_MESSAGE_ID;
+
+    /**
+     * @param capacity the maximum number of outstanding requests
+     * @param responseTimeoutMillis the time after which an unanswered request frees its slot
+     */
+    KaaSyncRequestWindow(int capacity, long responseTimeoutMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Window capacity must be positive: " + capacity);
+        }
+        if (responseTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Response timeout must be positive: " + responseTimeoutMillis);
+        }
+        this.capacity = capacity;
+        this.responseTimeoutMillis = responseTimeoutMillis;
+    }
+
+    /**
+     * Takes a slot for the request.
+     *
+     * @param types the transport types of the request
+     * @return the message id of the request, or -1 if the window is full and the types were deferred
+     */
+    synchronized int register(Collection<TransportType> types) {
+        expire();
+        if (outstandingRequests.size() >= capacity) {
+            deferredTypes.addAll(types);
+            return -1;
+        }
+        int messageId = nextMessageId();
+        outstandingRequests.put(messageId, new OutstandingRequest(types, currentTimeMillis()));
+        return messageId;
+    }
+
+    /**
+     * Frees the slot of the answered request.
+     *
+     * @param messageId the message id of the response
+     * @return the transport types of the answered request, or null if no outstanding request matches
+     */
+    synchronized Set<TransportType> acknowledge(int messageId) {
+        if (messageId == UNCORRELATED_MESSAGE_ID) {
+            Iterator<OutstandingRequest> oldest = outstandingRequests.values().iterator();
+            if (!oldest.hasNext()) {
+                return null;
+            }
+            Set<TransportType> types = oldest.next().types;
+            oldest.remove();
+            return types;
+        }
+        OutstandingRequest request = outstandingRequests.remove(messageId);
+        return request != null ? request.types : null;
+    }
+
+    /**
+     * Returns the deferred transport types and forgets them, if the window has a free slot.
+     *
+     * @return the deferred types, empty if there are none or the window is still full
+     */
+    synchronized Set<TransportType> pollDeferred() {
+        expire();
+        if (deferredTypes.isEmpty() || outstandingRequests.size() >= capacity) {
+            return Collections.emptySet();
+        }
+        Set<TransportType> types = new HashSet<>(deferredTypes);
+        deferredTypes.clear();
+        return types;
+    }
+
+    /**
+     * Frees the slots of the requests that were not answered in time and defers their transport types.
+     *
+     * @return the time in milliseconds until the next outstanding request expires, or -1 if there are none
+     */
+    synchronized long expireOverdue() {
+        expire();
+        Iterator<OutstandingRequest> oldest = outstandingRequests.values().iterator();
+        if (!oldest.hasNext()) {
+            return -1;
+        }
+        return oldest.next().sentTime + responseTimeoutMillis - currentTimeMillis();
+    }
+
+    synchronized boolean hasDeferred() {
+        return !deferredTypes.isEmpty();
+    }
+
+    synchronized int getOutstandingCount() {
+        return outstandingRequests.size();
+    }
+
+    /**
+     * Forgets all outstanding and deferred requests, e.g. when the connection is closed.
+     */
+    synchronized void clear() {
+        outstandingRequests.clear();
+        deferredTypes.clear();
+    }
+
+    /**
+     * Frees the slots of the requests that were not answered in time and defers their transport types.
+     */
+    private void expire() {
+        long expiredBefore = currentTimeMillis() - responseTimeoutMillis;
+        Iterator<OutstandingRequest> requests = outstandingRequests.values().iterator();
+        while (requests.hasNext()) {
+            OutstandingRequest request = requests.next();
+            if (request.sentTime > expiredBefore) {
+                break;
+            }
+            deferredTypes.addAll(request.types);
+            requests.remove();
+        }
+    }
+
+    long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private int nextMessageId() {
+        do {
+            lastMessageId = lastMessageId >= MAX_MESSAGE_ID ? 1 : lastMessageId + 1;
+        } while (outstandingRequests.containsKey(lastMessageId));
+        return lastMessageId;
+    }
+
+    private static final class OutstandingRequest {
+        private final Set<TransportType> types;
+        private final long sentTime;
+
+        private OutstandingRequest(Collection<TransportType> types, long sentTime) {
+            this.types = new HashSet<>(types);
+            this.sentTime = sentTime;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl.channels;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single thread that drives socket I/O and timers of many {@link NioOperationTcpChannel}s.
+ * <p>
+ * Reads, writes, connects and scheduled tasks (pings, reconnects) of every registered channel run on the loop
+ * thread, so the number of threads doesn't grow with the number of channels. Tasks may be submitted from any
+ * thread; handlers and tasks must not block, as they delay every other channel of the loop.
+ * <p>
+ * Work that may block, such as name resolution, public key cryptography or the processing of responses, is
+ * handed over to a small pool of {@link #getWorkerExecutor() worker threads} shared by the channels of the loop.
+ */
+public class KaaTcpEventLoop {
+
+    public static final Logger LOG = LoggerFactory.getLogger(KaaTcpEventLoop.class);
+
+    private static final String DEFAULT_LOOP_NAME = "kaa-tcp-event-loop";
+
+    private static final int WORKER_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60L;
+
+    private static KaaTcpEventLoop defaultLoop;
+
+    /**
+     * Receives the readiness events of a channel registered in the loop.
+     */
+    public interface SelectionHandler {
+
+        /**
+         * Called on the loop thread when the channel is ready for the operations of the key.
+         *
+         * @param key the selection key of the channel
+         */
+        void onSelected(SelectionKey key);
+    }
+
+    /**
+     * Task scheduled for later execution on the loop thread.
+     */
+    public static final class ScheduledTask implements Comparable<ScheduledTask> {
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        private final Runnable task;
+        private final long deadline;
+        private final long sequence = SEQUENCE.getAndIncrement();
+        private volatile boolean cancelled;
+
+        private ScheduledTask(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            if (deadline != other.deadline) {
+                return deadline < other.deadline ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private final String name;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<ScheduledTask> scheduledTasks = new PriorityQueue<>();
+
+    private final ThreadPoolExecutor workers;
+
+    private volatile Selector selector;
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    public KaaTcpEventLoop(final String name) {
+        this.name = name;
+        this.workers = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger counter = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable task) {
+                        Thread worker = new Thread(task, name + "-worker-" + counter.incrementAndGet());
+                        worker.setDaemon(true);
+                        return worker;
+                    }
+                });
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the loop shared by all channels of the JVM, starting it on first use.
+     *
+     * @return the default loop
+     */
+    public static synchronized KaaTcpEventLoop getDefault() {
+        if (defaultLoop == null || !defaultLoop.isRunning()) {
+            defaultLoop = new KaaTcpEventLoop(DEFAULT_LOOP_NAME);
+            defaultLoop.start();
+        }
+        return defaultLoop;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open selector for event loop " + name, e);
+        }
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        LOG.info("Event loop [{}] started", name);
+    }
+
+    public synchronized void shutdown() {
+        if (running) {
+            LOG.info("Shutting down event loop [{}]", name);
+            running = false;
+            selector.wakeup();
+            workers.shutdown();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Runs the task on the loop thread as soon as possible.
+     *
+     * @param task the task
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (!inLoop()) {
+            Selector currentSelector = selector;
+            if (currentSelector != null) {
+                currentSelector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * Returns the executor for the work of the channels that must not run on the loop thread. The tasks may run
+     * concurrently and in any order.
+     *
+     * @return the worker executor
+     */
+    public Executor getWorkerExecutor() {
+        return workers;
+    }
+
+    /**
+     * Runs the task on the loop thread after the delay.
+     *
+     * @param task the task
+     * @param delay the delay
+     * @param unit the unit of the delay
+     * @return the handle to cancel the task
+     */
+    public ScheduledTask schedule(final Runnable task, long delay, TimeUnit unit) {
+        final ScheduledTask scheduledTask = new ScheduledTask(task, System.nanoTime() + unit.toNanos(delay));
+        if (inLoop()) {
+            scheduledTasks.add(scheduledTask);
+        } else {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    scheduledTasks.add(scheduledTask);
+                }
+            });
+        }
+        return scheduledTask;
+    }
+
+    /**
+     * Registers the channel in the selector. Must be called on the loop thread.
+     *
+     * @param channel the non-blocking channel
+     * @param ops the interest set
+     * @param handler the handler of readiness events
+     * @return the selection key
+     * @throws ClosedChannelException if the channel is closed
+     */
+    public SelectionKey register(SelectableChannel channel, int ops, SelectionHandler handler) throws ClosedChannelException {
+        if (!inLoop()) {
+            throw new IllegalStateException("Channels can only be registered on the loop thread");
+        }
+        return channel.register(selector, ops, handler);
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                selector.select(getSelectTimeout());
+                processSelectedKeys();
+                runScheduledTasks();
+                runTasks();
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Unexpected error in event loop [{}]", name, e);
+            }
+        }
+        closeSelector();
+        LOG.info("Event loop [{}] is stopped", name);
+    }
+
+    private long getSelectTimeout() {
+        if (!tasks.isEmpty()) {
+            return 1;
+        }
+        ScheduledTask next = scheduledTasks.peek();
+        if (next == null) {
+            return 0;
+        }
+        long timeout = TimeUnit.NANOSECONDS.toMillis(next.deadline - System.nanoTime());
+        return timeout > 0 ? timeout : 1;
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (key.isValid()) {
+                try {
+                    ((SelectionHandler) key.attachment()).onSelected(key);
+                } catch (RuntimeException e) {
+                    LOG.error("Selection handler failed in event loop [{}]", name, e);
+                }
+            }
+        }
+    }
+
+    private void runScheduledTasks() {
+        long now = System.nanoTime();
+        ScheduledTask next;
+        while ((next = scheduledTasks.peek()) != null && next.deadline - now <= 0) {
+            scheduledTasks.poll();
+            if (!next.isCancelled()) {
+                runTask(next.task);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            runTask(task);
+        }
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOG.error("Task failed in event loop [{}]", name, e);
+        }
+    }
+
+    private void closeSelector() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                LOG.debug("Failed to close channel on event loop [{}] shutdown", name, e);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close selector of event loop [{}]", name, e);
+        }
+        scheduledTasks.clear();
+        tasks.clear();
+    }
+}
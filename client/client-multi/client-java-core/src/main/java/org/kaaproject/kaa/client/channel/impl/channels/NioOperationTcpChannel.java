@@ -0,0 +1,623 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl.channels;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.kaaproject.kaa.client.FailureListener;
+import org.kaaproject.kaa.client.channel.IPTransportInfo;
+import org.kaaproject.kaa.client.channel.failover.FailoverManager;
+import org.kaaproject.kaa.client.channel.failover.FailoverStatus;
+import org.kaaproject.kaa.client.persistence.KaaClientState;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.FrameBufferPool;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.KaaTcpProtocolException;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Disconnect;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Disconnect.DisconnectReason;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MqttFrame;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.PingRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Kaatcp operations channel on top of a non-blocking {@link SocketChannel}.
+ * <p>
+ * Unlike {@link DefaultOperationTcpChannel}, the channel owns no threads: connects, reads, writes, pings and
+ * reconnects run on a {@link KaaTcpEventLoop} that is shared by all channels of the JVM unless another loop
+ * is given. The loop thread only moves bytes and never takes the lock of the channel. The work that may block
+ * runs on the {@link KaaTcpEventLoop#getWorkerExecutor() workers} of the loop, one task of the channel at a time:
+ * the server address is resolved and the Connect message is compiled and signed there before the loop opens the
+ * socket, and the received bytes are decoded and passed to the demultiplexer there as well. Sync requests are
+ * compiled and encrypted on the calling thread and queued for the loop to write.
+ */
+public class NioOperationTcpChannel extends AbstractOperationTcpChannel {
+
+    public static final Logger LOG = LoggerFactory.getLogger(NioOperationTcpChannel.class);
+
+    private static final String CHANNEL_ID = "nio_operation_tcp_channel";
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int READ_BUFFER_POOL_SIZE = 4;
+    private static final int WRITE_BUFFER_POOL_SIZE = 4;
+
+    private final Object eventLoopLock = new Object();
+    private volatile KaaTcpEventLoop eventLoop;
+
+    /** Written on the loop thread only. */
+    private volatile SocketChannel socketChannel;
+    /** Accessed on the loop thread only. */
+    private SelectionKey selectionKey;
+    /** Accessed on the loop thread only. */
+    private KaaTcpEventLoop.ScheduledTask pingTask;
+
+    private final FrameBufferPool readBufferPool = new FrameBufferPool(READ_BUFFER_POOL_SIZE, READ_BUFFER_SIZE);
+    private final FrameBufferPool writeBufferPool = new FrameBufferPool(WRITE_BUFFER_POOL_SIZE, FrameBufferPool.DEFAULT_MAX_RETAINED_CAPACITY);
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+
+    private final SerialWorker worker = new SerialWorker();
+
+    private volatile KaaTcpEventLoop.ScheduledTask openConnectionTask;
+    private volatile KaaTcpEventLoop.ScheduledTask syncExpiryTask;
+
+    private volatile boolean isOpenConnectionScheduled;
+
+    private final Runnable openConnectionRunnable = new Runnable() {
+        @Override
+        public void run() {
+            worker.execute(prepareConnectionTask);
+        }
+    };
+
+    private final Runnable prepareConnectionTask = new Runnable() {
+        @Override
+        public void run() {
+            prepareConnection();
+        }
+    };
+
+    private final Runnable deferredSyncTask = new Runnable() {
+        @Override
+        public void run() {
+            sendDeferredSyncRequest();
+        }
+    };
+
+    private final Runnable syncExpiryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            worker.execute(expireSyncRequestsTask);
+        }
+    };
+
+    private final Runnable expireSyncRequestsTask = new Runnable() {
+        @Override
+        public void run() {
+            expireSyncRequests();
+        }
+    };
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushWrites();
+        }
+    };
+
+    private final Runnable closeConnectionTask = new Runnable() {
+        @Override
+        public void run() {
+            closeConnectionInLoop();
+        }
+    };
+
+    private final Runnable flushFramerTask = new Runnable() {
+        @Override
+        public void run() {
+            getMessageFactory().getFramer().flush();
+        }
+    };
+
+    private final Runnable pingRunnable = new Runnable() {
+        @Override
+        public void run() {
+            LOG.info("Executing ping task for channel [{}]", getId());
+            sendPingRequest();
+            schedulePingTask();
+        }
+    };
+
+    private class ConnectionHandler implements KaaTcpEventLoop.SelectionHandler {
+        private final SocketChannel handledChannel;
+
+        public ConnectionHandler(SocketChannel handledChannel) {
+            this.handledChannel = handledChannel;
+        }
+
+        @Override
+        public void onSelected(SelectionKey key) {
+            if (handledChannel != socketChannel) {
+                LOG.debug("Stale socket channel: {} is detected, closing it", handledChannel);
+                key.cancel();
+                closeQuietly(handledChannel);
+                return;
+            }
+            try {
+                if (key.isConnectable()) {
+                    handledChannel.finishConnect();
+                    key.interestOps(SelectionKey.OP_READ);
+                    onConnected();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    readBytes();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    flushWrites();
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("I/O failure on channel [{}]", getId(), e);
+                if (handledChannel == socketChannel) {
+                    onServerFailed();
+                }
+            }
+        }
+
+        /**
+         * Reads into the buffers taken from the pool and hands them over to the worker as they are, the worker
+         * returns them to the pool once the framer is done with them.
+         */
+        private void readBytes() throws IOException {
+            int size;
+            while (true) {
+                ByteBuffer buffer = readBufferPool.acquire(READ_BUFFER_SIZE);
+                size = handledChannel.read(buffer);
+                if (size <= 0) {
+                    readBufferPool.release(buffer);
+                    break;
+                }
+                buffer.flip();
+                worker.execute(new ReceiveTask(handledChannel, buffer));
+            }
+            if (size == -1) {
+                LOG.info("Channel [{}] received end of stream", getId());
+                onServerFailed();
+            }
+        }
+    }
+
+    /**
+     * Pushes the bytes read from the connection into the framer, which decodes and handles the messages.
+     */
+    private class ReceiveTask implements Runnable {
+        private final SocketChannel receivedChannel;
+        private final ByteBuffer buffer;
+
+        ReceiveTask(SocketChannel receivedChannel, ByteBuffer buffer) {
+            this.receivedChannel = receivedChannel;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (receivedChannel != socketChannel) {
+                    LOG.debug("Dropping {} byte(s) received from stale socket channel: {}", buffer.remaining(), receivedChannel);
+                    return;
+                }
+                getMessageFactory().getFramer().pushBytes(buffer);
+            } catch (KaaTcpProtocolException | RuntimeException e) {
+                LOG.warn("Failed to process data received by channel [{}]", getId(), e);
+                if (receivedChannel == socketChannel) {
+                    onServerFailed();
+                }
+            } finally {
+                readBufferPool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Opens the socket to the resolved address and queues the prepared Connect frame. Runs on the loop thread.
+     */
+    private class ConnectTask implements Runnable {
+        private final InetSocketAddress address;
+        private final ByteBuffer connectFrame;
+
+        ConnectTask(InetSocketAddress address, ByteBuffer connectFrame) {
+            this.address = address;
+            this.connectFrame = connectFrame;
+        }
+
+        @Override
+        public void run() {
+            if (getChannelState() == State.PAUSE || getChannelState() == State.SHUTDOWN) {
+                LOG.info("Can't open connection, as channel is in the {} state", getChannelState());
+                writeBufferPool.release(connectFrame);
+                return;
+            }
+            closeConnectionInLoop();
+            clearWriteQueue();
+            try {
+                SocketChannel newChannel = createSocketChannel();
+                newChannel.configureBlocking(false);
+                boolean connected = newChannel.connect(address);
+                socketChannel = newChannel;
+                selectionKey = getEventLoop().register(newChannel,
+                        connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, new ConnectionHandler(newChannel));
+                writeQueue.add(connectFrame);
+                if (connected) {
+                    onConnected();
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Failed to connect to server {}. Stack trace: ", address, e);
+                onServerFailed();
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks of the channel on the workers of the loop one at a time, in the order of submission.
+     */
+    private class SerialWorker implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    getEventLoop().getWorkerExecutor().execute(this);
+                } catch (RejectedExecutionException e) {
+                    LOG.warn("Workers of the event loop rejected the tasks of channel [{}]", getId(), e);
+                    tasks.clear();
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        LOG.error("Task of channel [{}] failed", getId(), e);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                schedule();
+            }
+        }
+    }
+
+    public NioOperationTcpChannel(KaaClientState state, FailoverManager failoverManager, FailureListener failureListener) {
+        this(state, failoverManager, failureListener, null);
+    }
+
+    /**
+     * @param eventLoop the loop to run the channel on, or null to use {@link KaaTcpEventLoop#getDefault()}
+     */
+    public NioOperationTcpChannel(KaaClientState state, FailoverManager failoverManager, FailureListener failureListener,
+                                  KaaTcpEventLoop eventLoop) {
+        super(state, failoverManager, failureListener);
+        this.eventLoop = eventLoop;
+    }
+
+    private KaaTcpEventLoop getEventLoop() {
+        KaaTcpEventLoop loop = eventLoop;
+        if (loop == null) {
+            synchronized (eventLoopLock) {
+                loop = eventLoop;
+                if (loop == null) {
+                    loop = KaaTcpEventLoop.getDefault();
+                    eventLoop = loop;
+                }
+            }
+        }
+        return loop;
+    }
+
+    private ByteBuffer encode(MqttFrame frame) {
+        ByteBuffer buffer = writeBufferPool.acquire(frame.getFrameLength());
+        frame.encode(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    protected void sendFrame(MqttFrame frame) {
+        writeQueue.add(encode(frame));
+        KaaTcpEventLoop loop = getEventLoop();
+        if (loop.inLoop()) {
+            flushWrites();
+        } else {
+            loop.execute(flushTask);
+        }
+    }
+
+    /**
+     * Writes as much of the queued frames as the socket accepts. Runs on the loop thread only.
+     */
+    private void flushWrites() {
+        SocketChannel currentChannel = socketChannel;
+        SelectionKey key = selectionKey;
+        if (currentChannel == null || key == null || !currentChannel.isConnected() || !key.isValid()) {
+            return;
+        }
+        try {
+            ByteBuffer buffer;
+            while ((buffer = writeQueue.peek()) != null) {
+                currentChannel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                writeQueue.poll();
+                writeBufferPool.release(buffer);
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to write to the socket channel for channel [{}]", getId(), e);
+            if (currentChannel == socketChannel) {
+                onServerFailed();
+            }
+        }
+    }
+
+    /**
+     * Drops the queued frames, so that the frames queued for a closed connection are not written to the next one
+     * ahead of its Connect.
+     */
+    private void clearWriteQueue() {
+        ByteBuffer buffer;
+        while ((buffer = writeQueue.poll()) != null) {
+            writeBufferPool.release(buffer);
+        }
+    }
+
+    private void sendPingRequest() {
+        LOG.debug("Sending PinRequest from channel [{}]", getId());
+        sendFrame(new PingRequest());
+    }
+
+    @Override
+    protected void scheduleDeferredSyncRequest() {
+        worker.execute(deferredSyncTask);
+    }
+
+    /**
+     * The expiry fires on the loop and runs on a worker, as it compiles and sends the deferred sync.
+     */
+    @Override
+    protected synchronized void scheduleSyncRequestExpiry(long delay) {
+        cancelSyncExpiryTask();
+        syncExpiryTask = getEventLoop().schedule(syncExpiryRunnable, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelSyncExpiryTask() {
+        KaaTcpEventLoop.ScheduledTask task = syncExpiryTask;
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    @Override
+    protected boolean isConnectionOpen() {
+        return socketChannel != null;
+    }
+
+    /**
+     * Closes the connection on the loop thread, right away if called there.
+     */
+    @Override
+    protected void closeConnection() {
+        KaaTcpEventLoop loop = getEventLoop();
+        if (loop.inLoop()) {
+            closeConnectionInLoop();
+        } else {
+            loop.execute(closeConnectionTask);
+        }
+    }
+
+    private void closeConnectionInLoop() {
+        cancelPingTask();
+        cancelSyncExpiryTask();
+        SocketChannel currentChannel = socketChannel;
+        if (currentChannel != null) {
+            LOG.info("Channel \"{}\": closing current connection", getId());
+            socketChannel = null;
+            if (selectionKey != null) {
+                selectionKey.cancel();
+                selectionKey = null;
+            }
+            clearWriteQueue();
+            getSyncWindow().clear();
+            if (currentChannel.isConnected()) {
+                try {
+                    ByteBuffer disconnect = new Disconnect(DisconnectReason.NONE).getFrame();
+                    currentChannel.write(disconnect);
+                } catch (IOException e) {
+                    LOG.error("Failed to send Disconnect to server: {}", e);
+                }
+            }
+            closeQuietly(currentChannel);
+            worker.execute(flushFramerTask);
+            if (getChannelState() != State.SHUTDOWN) {
+                setChannelState(State.CLOSED);
+            }
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("Failed to close socket channel: {}", e);
+        }
+    }
+
+    protected SocketChannel createSocketChannel() throws IOException {
+        return SocketChannel.open();
+    }
+
+    /**
+     * Resolves the address of the server. Runs on a worker thread, as the lookup may block.
+     */
+    protected InetSocketAddress resolveAddress(String host, int port) throws UnknownHostException {
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (address.isUnresolved()) {
+            throw new UnknownHostException(host);
+        }
+        return address;
+    }
+
+    /**
+     * Resolves the server address and builds the Connect frame, then hands both over to the loop to connect.
+     * Runs on a worker thread.
+     */
+    private void prepareConnection() {
+        synchronized (this) {
+            isOpenConnectionScheduled = false;
+            openConnectionTask = null;
+        }
+        if (getChannelState() == State.PAUSE || getChannelState() == State.SHUTDOWN) {
+            LOG.info("Can't open connection, as channel is in the {} state", getChannelState());
+            return;
+        }
+        IPTransportInfo currentServer = getCurrentServer();
+        try {
+            LOG.info("Channel [{}]: opening connection to server {}", getId(), currentServer);
+            InetSocketAddress address = resolveAddress(currentServer.getHost(), currentServer.getPort());
+            LOG.debug("Preparing Connect for channel [{}]", getId());
+            ByteBuffer connectFrame = encode(buildConnect());
+            getEventLoop().execute(new ConnectTask(address, connectFrame));
+        } catch (Exception e) {
+            LOG.error("Failed to connect to server {}:{}. Stack trace: ", currentServer.getHost(), currentServer.getPort(), e);
+            onServerFailed();
+        }
+    }
+
+    /**
+     * Sends the queued Connect frame and starts pinging. Runs on the loop thread.
+     */
+    private void onConnected() {
+        LOG.info("Channel [{}]: connected to server {}", getId(), getCurrentServer());
+        flushWrites();
+        schedulePingTask();
+    }
+
+    /**
+     * Closes the connection and lets the workers process the failover, as the failover manager and the
+     * failure listener may block or call back into the channel.
+     */
+    @Override
+    protected void onServerFailed(final FailoverStatus status) {
+        LOG.info("[{}] has failed", getId());
+        closeConnection();
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                processFailover(status);
+            }
+        });
+    }
+
+    @Override
+    protected synchronized void scheduleOpenConnectionTask(long retryPeriod) {
+        if (!isOpenConnectionScheduled) {
+            LOG.info("Scheduling open connection task");
+            isOpenConnectionScheduled = true;
+            openConnectionTask = getEventLoop().schedule(openConnectionRunnable, retryPeriod, TimeUnit.MILLISECONDS);
+        } else {
+            LOG.info("Reconnect is already scheduled, ignoring the call");
+        }
+    }
+
+    private synchronized void cancelOpenConnectionTask() {
+        if (openConnectionTask != null) {
+            openConnectionTask.cancel();
+            openConnectionTask = null;
+        }
+        isOpenConnectionScheduled = false;
+    }
+
+    /**
+     * Runs on the loop thread.
+     */
+    private void schedulePingTask() {
+        LOG.debug("Scheduling a ping task ({} seconds) for channel [{}]", PING_TIMEOUT, getId());
+        cancelPingTask();
+        pingTask = getEventLoop().schedule(pingRunnable, PING_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs on the loop thread.
+     */
+    private void cancelPingTask() {
+        if (pingTask != null) {
+            pingTask.cancel();
+            pingTask = null;
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        LOG.info("Shutting down...");
+        setChannelState(State.SHUTDOWN);
+        cancelOpenConnectionTask();
+        closeConnection();
+    }
+
+    @Override
+    public synchronized void pause() {
+        if (getChannelState() != State.PAUSE) {
+            LOG.info("Pausing...");
+            setChannelState(State.PAUSE);
+            cancelOpenConnectionTask();
+            closeConnection();
+        }
+    }
+
+    @Override
+    public synchronized void resume() {
+        if (getChannelState() == State.PAUSE) {
+            LOG.info("Resuming...");
+            setChannelState(State.CLOSED);
+            scheduleOpenConnectionTask(0);
+        }
+    }
+
+    @Override
+    public String getId() {
+        return CHANNEL_ID;
+    }
+}
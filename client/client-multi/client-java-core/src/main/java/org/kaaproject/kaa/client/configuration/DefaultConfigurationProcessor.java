@@ -25,6 +25,7 @@ import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericRecord;
 import org.kaaproject.kaa.client.schema.SchemaUpdatesReceiver;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 
 /**
@@ -51,7 +52,7 @@ public class DefaultConfigurationProcessor implements
             if (schema == null) {
                 throw new ConfigurationRuntimeException("Can't process configuration update. Schema is null");
             }
-            GenericAvroConverter<GenericArray<GenericRecord>> converter = new GenericAvroConverter<GenericArray<GenericRecord>>(schema);
+            GenericAvroConverter<GenericArray<GenericRecord>> converter = AvroSchemaCache.getConverter(schema);
             GenericArray<GenericRecord> deltaArray = converter.decodeBinary(buffer.array());
 
             for (GenericRecord delta : deltaArray) {
@@ -20,7 +20,7 @@ import java.io.IOException;
 
 import javax.annotation.Generated;
 
-import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.avro.AvroCodec;
 import org.kaaproject.kaa.schema.base.Log;
 
 /**
@@ -31,15 +31,9 @@ import org.kaaproject.kaa.schema.base.Log;
 @Generated("LogRecord.java.template")
 public class LogRecord {
     /**
-     * Thread-local converter of log records to bytes.
+     * Shared thread safe codec of log records.
      */
-    private static final ThreadLocal<AvroByteArrayConverter<Log>> CONVERTER
-                            = new ThreadLocal<AvroByteArrayConverter<Log>>() {
-        @Override
-        protected AvroByteArrayConverter<Log> initialValue() {
-            return new AvroByteArrayConverter<>(Log.class);
-        }
-    };
+    private static final AvroCodec<Log> CODEC = AvroCodec.forClass(Log.class);
 
     /**
      * Avro-encoded log record.
@@ -54,7 +48,7 @@ public class LogRecord {
     }
 
     public LogRecord(Log record) throws IOException {
-        encodedRecord = CONVERTER.get().toByteArray(record);
+        encodedRecord = CODEC.encode(record);
     }
 
     LogRecord(byte[] avroEncodedRecord) {
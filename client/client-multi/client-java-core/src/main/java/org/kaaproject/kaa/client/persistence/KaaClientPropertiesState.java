@@ -89,6 +89,7 @@ public class KaaClientPropertiesState implements KaaClientState {
     private final String stateFileLocation;
     private final String clientPrivateKeyFileLocation;
     private final String clientPublicKeyFileLocation;
+    private final String clientKeyAlgorithm;
     private final Map<Long, Topic> topicMap = new HashMap<>();
     private final Map<Long, Integer> nfSubscriptions = new HashMap<>();
     private final Map<EndpointAccessToken, EndpointKeyHash> attachedEndpoints = new HashMap<>();
@@ -113,6 +114,8 @@ public class KaaClientPropertiesState implements KaaClientState {
 
         clientPublicKeyFileLocation = properties.getPublicKeyFileFullName();
 
+        clientKeyAlgorithm = properties.getKeyAlgorithm();
+
         LOG.info("Version: '{}', commit hash: '{}'", properties.getBuildVersion(), properties.getCommitHash());
 
         state = new Properties();
@@ -352,9 +355,9 @@ public class KaaClientPropertiesState implements KaaClientState {
                 }
             } catch (InvalidKeyException e) {
                 keyPair = null;
-                LOG.error("Unable to parse client RSA keypair. Generating new keys.. Reason {}", e);
+                LOG.error("Unable to parse client keypair. Generating new keys.. Reason {}", e);
             } catch (Exception e) {
-                LOG.error("Error loading client RSA keypair. Reason {}", e);
+                LOG.error("Error loading client keypair. Reason {}", e);
                 throw new RuntimeException(e); // NOSONAR
             } finally {
                 IOUtils.closeQuietly(publicKeyInput);
@@ -362,13 +365,13 @@ public class KaaClientPropertiesState implements KaaClientState {
             }
         }
         if (keyPair == null) {
-            LOG.debug("Generating Client Key pair");
+            LOG.debug("Generating Client {} Key pair", clientKeyAlgorithm);
             OutputStream privateKeyOutput = null;
             OutputStream publicKeyOutput = null;
             try {
                 privateKeyOutput = storage.openForWrite(clientPrivateKeyFileLocation);
                 publicKeyOutput = storage.openForWrite(clientPublicKeyFileLocation);
-                keyPair = KeyUtil.generateKeyPair(privateKeyOutput, publicKeyOutput);
+                keyPair = KeyUtil.generateKeyPair(clientKeyAlgorithm, privateKeyOutput, publicKeyOutput);
             } catch (IOException e) {
                 LOG.error("Error generating Client Key pair", e);
                 throw new RuntimeException(e);
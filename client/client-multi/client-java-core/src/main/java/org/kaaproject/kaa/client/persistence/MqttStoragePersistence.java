@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.persistence;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.kaaproject.kaa.client.KaaClientProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MQTT session persistence on top of {@link PersistentStorage}.
+ * <p>
+ * Every persisted message is kept in its own file. As {@link PersistentStorage} can't list a directory,
+ * the keys of the stored messages are tracked in a separate index file. The index is written to a temporary
+ * file first and then renamed over the old one, so a crash in the middle of the write never leaves a
+ * truncated index behind.
+ */
+public class MqttStoragePersistence implements MqttClientPersistence {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MqttStoragePersistence.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String INDEX_FILE_NAME = "keys";
+    private static final String INDEX_TMP_FILE_NAME = INDEX_FILE_NAME + ".tmp";
+
+    private final PersistentStorage storage;
+    private final String baseDirectory;
+
+    private final Set<String> keys = new LinkedHashSet<>();
+    private String directory;
+
+    public MqttStoragePersistence(PersistentStorage storage, String baseDirectory) {
+        this.storage = storage;
+        this.baseDirectory = baseDirectory.endsWith(KaaClientProperties.FILE_SEPARATOR)
+                ? baseDirectory : baseDirectory + KaaClientProperties.FILE_SEPARATOR;
+    }
+
+    @Override
+    public synchronized void open(String clientId, String serverURI) throws MqttPersistenceException {
+        directory = baseDirectory + toFileName(clientId + "-" + serverURI) + KaaClientProperties.FILE_SEPARATOR;
+        keys.clear();
+        String indexLocation = directory + INDEX_FILE_NAME;
+        if (storage.exists(indexLocation)) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new InputStreamReader(storage.openForRead(indexLocation), UTF8));
+                String key;
+                while ((key = reader.readLine()) != null) {
+                    if (!key.isEmpty() && storage.exists(directory + toFileName(key))) {
+                        keys.add(key);
+                    }
+                }
+            } catch (IOException e) {
+                throw new MqttPersistenceException(e);
+            } finally {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+        LOG.debug("Opened MQTT persistence in {} with {} stored message(s)", directory, keys.size());
+    }
+
+    @Override
+    public synchronized void close() throws MqttPersistenceException {
+        directory = null;
+        keys.clear();
+    }
+
+    @Override
+    public synchronized void put(String key, MqttPersistable persistable) throws MqttPersistenceException {
+        checkIsOpen();
+        DataOutputStream os = null;
+        try {
+            os = new DataOutputStream(storage.openForWrite(directory + toFileName(key)));
+            os.writeInt(persistable.getHeaderLength());
+            os.write(persistable.getHeaderBytes(), persistable.getHeaderOffset(), persistable.getHeaderLength());
+            if (persistable.getPayloadBytes() != null) {
+                os.write(persistable.getPayloadBytes(), persistable.getPayloadOffset(), persistable.getPayloadLength());
+            }
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+        if (keys.add(key)) {
+            persistIndex();
+        }
+    }
+
+    @Override
+    public synchronized MqttPersistable get(String key) throws MqttPersistenceException {
+        checkIsOpen();
+        DataInputStream is = null;
+        try {
+            is = new DataInputStream(storage.openForRead(directory + toFileName(key)));
+            byte[] header = new byte[is.readInt()];
+            is.readFully(header);
+            byte[] payload = IOUtils.toByteArray(is);
+            return new StoredMessage(header, payload);
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key) throws MqttPersistenceException {
+        checkIsOpen();
+        try {
+            storage.delete(directory + toFileName(key));
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        }
+        if (keys.remove(key)) {
+            persistIndex();
+        }
+    }
+
+    @Override
+    public synchronized Enumeration keys() throws MqttPersistenceException {
+        checkIsOpen();
+        return Collections.enumeration(new ArrayList<>(keys));
+    }
+
+    @Override
+    public synchronized void clear() throws MqttPersistenceException {
+        checkIsOpen();
+        try {
+            for (String key : keys) {
+                storage.delete(directory + toFileName(key));
+            }
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        }
+        keys.clear();
+        persistIndex();
+    }
+
+    @Override
+    public synchronized boolean containsKey(String key) throws MqttPersistenceException {
+        checkIsOpen();
+        return keys.contains(key);
+    }
+
+    private void persistIndex() throws MqttPersistenceException {
+        String indexLocation = directory + INDEX_FILE_NAME;
+        String tmpLocation = directory + INDEX_TMP_FILE_NAME;
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(storage.openForWrite(tmpLocation), UTF8);
+            for (String key : keys) {
+                writer.write(key);
+                writer.write('\n');
+            }
+            writer.close();
+            writer = null;
+            if (!storage.renameTo(tmpLocation, indexLocation)) {
+                // some platforms can't rename over an existing file
+                storage.delete(indexLocation);
+                if (!storage.renameTo(tmpLocation, indexLocation)) {
+                    throw new IOException("Failed to rename " + tmpLocation + " to " + indexLocation);
+                }
+            }
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    private void checkIsOpen() throws MqttPersistenceException {
+        if (directory == null) {
+            throw new MqttPersistenceException(MqttPersistenceException.REASON_CODE_CLIENT_CLOSED);
+        }
+    }
+
+    private static String toFileName(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_.-]", "_");
+    }
+
+    private static final class StoredMessage implements MqttPersistable {
+        private final byte[] header;
+        private final byte[] payload;
+
+        private StoredMessage(byte[] header, byte[] payload) {
+            this.header = header;
+            this.payload = payload;
+        }
+
+        @Override
+        public byte[] getHeaderBytes() {
+            return header;
+        }
+
+        @Override
+        public int getHeaderLength() {
+            return header.length;
+        }
+
+        @Override
+        public int getHeaderOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getPayloadBytes() {
+            return payload;
+        }
+
+        @Override
+        public int getPayloadLength() {
+            return payload.length;
+        }
+
+        @Override
+        public int getPayloadOffset() {
+            return 0;
+        }
+    }
+}
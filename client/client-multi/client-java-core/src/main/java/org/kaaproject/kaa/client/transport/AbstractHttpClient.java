@@ -26,14 +26,68 @@ import org.kaaproject.kaa.common.endpoint.security.MessageEncoderDecoder;
 
 public abstract class AbstractHttpClient {
 
+    public static final long NO_LIMIT = -1;
+
     protected final String url;
     private final MessageEncoderDecoder messageEncDec;
     private boolean verificationEnabled = true;
 
+    private long sessionKeyMaxAge = NO_LIMIT;
+    private long sessionKeyMaxBytes = NO_LIMIT;
+    private long sessionKeyCreationTime;
+    private long sessionKeyEncodedBytes;
+    private volatile boolean sessionKeyRenewalRequested;
+
     public AbstractHttpClient(String url, PrivateKey privateKey,
             PublicKey publicKey, PublicKey remotePublicKey) {
         this.url = url;
         this.messageEncDec = new MessageEncoderDecoder(privateKey, publicKey, remotePublicKey);
+        this.sessionKeyCreationTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Sets when the session key is replaced by a new one. The encoded session key and its signature are
+     * computed once per session key, so rotating less often saves RSA operations on every request.
+     *
+     * @param maxAge the lifetime of a session key in milliseconds, or {@link #NO_LIMIT}
+     * @param maxBytes the number of request bytes a session key encodes, or {@link #NO_LIMIT}
+     */
+    public synchronized void setSessionKeyRotation(long maxAge, long maxBytes) {
+        this.sessionKeyMaxAge = maxAge;
+        this.sessionKeyMaxBytes = maxBytes;
+    }
+
+    /**
+     * Rotates the session key if it is expired, its byte budget is spent or the server asked for
+     * a new one, then counts the request towards the budget. Has to be called before the request
+     * is encoded, and not while a response to the old key is still expected.
+     *
+     * @param requestSize the size of the request body
+     */
+    public synchronized void checkSessionKeyRotation(int requestSize) {
+        boolean expired = sessionKeyMaxAge >= 0
+                && System.currentTimeMillis() - sessionKeyCreationTime >= sessionKeyMaxAge;
+        boolean exhausted = sessionKeyMaxBytes >= 0 && sessionKeyEncodedBytes > 0
+                && sessionKeyEncodedBytes + requestSize > sessionKeyMaxBytes;
+        if (sessionKeyRenewalRequested || expired || exhausted) {
+            rotateSessionKey();
+        }
+        sessionKeyEncodedBytes += requestSize;
+    }
+
+    /**
+     * Asks for a new session key before the next request, e.g. when the server signals a re-key.
+     * The current key is kept until then, as the response in progress is still encoded with it.
+     */
+    public void requestSessionKeyRenewal() {
+        sessionKeyRenewalRequested = true;
+    }
+
+    private void rotateSessionKey() {
+        messageEncDec.rotateSessionKey();
+        sessionKeyRenewalRequested = false;
+        sessionKeyCreationTime = System.currentTimeMillis();
+        sessionKeyEncodedBytes = 0;
     }
 
     protected void disableVerification() {
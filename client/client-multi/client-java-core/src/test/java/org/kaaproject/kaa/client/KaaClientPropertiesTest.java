@@ -17,7 +17,9 @@
 package org.kaaproject.kaa.client;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.List;
@@ -117,6 +119,35 @@ public class KaaClientPropertiesTest {
         properties.setWorkingDirectory(requestedWorkDir);
     }
 
+    @Test
+    public void testGetCompressionThreshold() throws IOException {
+        System.setProperty(KaaClientProperties.KAA_CLIENT_PROPERTIES_FILE, "client-test.properties");
+        KaaClientProperties properties = new KaaClientProperties();
+        assertEquals(-1, properties.getCompressionThreshold());
+        properties.setCompressionThreshold(512);
+        assertEquals(512, properties.getCompressionThreshold());
+        properties.setProperty(KaaClientProperties.TRANSPORT_COMPRESSION_THRESHOLD, "512b");
+        assertEquals(-1, properties.getCompressionThreshold());
+    }
+
+    @Test
+    public void testIsTcpGcmEnabled() throws IOException {
+        System.setProperty(KaaClientProperties.KAA_CLIENT_PROPERTIES_FILE, "client-test.properties");
+        KaaClientProperties properties = new KaaClientProperties();
+        assertFalse(properties.isTcpGcmEnabled());
+        properties.setTcpGcmEnabled(true);
+        assertTrue(properties.isTcpGcmEnabled());
+    }
+
+    @Test
+    public void testIsTcpNioEnabled() throws IOException {
+        System.setProperty(KaaClientProperties.KAA_CLIENT_PROPERTIES_FILE, "client-test.properties");
+        KaaClientProperties properties = new KaaClientProperties();
+        assertFalse(properties.isTcpNioEnabled());
+        properties.setTcpNioEnabled(true);
+        assertTrue(properties.isTcpNioEnabled());
+    }
+
     @Test
     public void testGetStateFileName() throws IOException {
         System.setProperty(KaaClientProperties.KAA_CLIENT_PROPERTIES_FILE, "client-test.properties");
@@ -86,6 +86,7 @@ public class KaaClientTest {
 
         Mockito.when(clientProperties.getBootstrapServers()).thenReturn(buildDummyConnectionInfo());
         Mockito.when(clientProperties.getPropertiesHash()).thenReturn("test".getBytes());
+        Mockito.when(clientProperties.getKeyAlgorithm()).thenReturn(KeyUtil.RSA);
 
         initStorageMock(storage);
 
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.Test;
+import org.kaaproject.kaa.client.channel.failover.FailoverManager;
+import org.kaaproject.kaa.client.channel.impl.channels.DefaultOperationMqttChannel;
+import org.kaaproject.kaa.client.persistence.KaaClientState;
+import org.kaaproject.kaa.common.TransportType;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.KaaMqttClient;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.MqttQosPolicy;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.ConnectionLostListener;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.DeliveryCompleteListener;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.MessageArrivedListener;
+import org.kaaproject.kaa.common.endpoint.compression.DeflatePayloadCodec;
+import org.kaaproject.kaa.common.endpoint.compression.PayloadCompressor;
+import org.kaaproject.kaa.common.endpoint.security.KeyUtil;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class DefaultOperationMqttChannelTest {
+
+    private final KeyPair clientKeys;
+
+    public DefaultOperationMqttChannelTest() throws Exception {
+        clientKeys = KeyUtil.generateKeyPair();
+    }
+
+    class TestOperationMqttChannel extends DefaultOperationMqttChannel {
+        public KaaMqttClient clientMock = Mockito.mock(KaaMqttClient.class);
+        public List<Runnable> scheduledTasks = new ArrayList<>();
+
+        public TestOperationMqttChannel(KaaClientState state, FailoverManager failoverManager) {
+            super(state, failoverManager, null);
+        }
+
+        @Override
+        protected KaaMqttClient createMqttClient(String broker, String clientId) {
+            return clientMock;
+        }
+
+        @Override
+        protected ScheduledExecutorService createExecutor() {
+            return new FakeExecutorService() {
+                @Override
+                public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+                    scheduledTasks.add(command);
+                    return null;
+                }
+            };
+        }
+
+        public void runScheduledTasks() {
+            List<Runnable> tasks = new ArrayList<>(scheduledTasks);
+            scheduledTasks.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultOperationMqttChannel() {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        KaaDataChannel mqttChannel = new DefaultOperationMqttChannel(clientState, failoverManager, null);
+        assertNotNull("New channel's id is null", mqttChannel.getId());
+        assertNotNull("New channel does not support any of transport types", mqttChannel.getSupportedTransportTypes());
+        assertNotEquals(0, mqttChannel.getSupportedTransportTypes().size());
+    }
+
+    @Test
+    public void testPipelinedSync() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        TestOperationMqttChannel mqttChannel = new TestOperationMqttChannel(clientState, failoverManager);
+
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+        mqttChannel.setMultiplexer(multiplexer);
+        mqttChannel.setDemultiplexer(demultiplexer);
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", 1883, KeyUtil.generateKeyPair().getPublic());
+        mqttChannel.setServer(server);
+        mqttChannel.runScheduledTasks(); // connects and sends the initial sync
+
+        Mockito.verify(mqttChannel.clientMock).connect();
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(1)).sendRequest(Mockito.any(byte[].class), Mockito.anyInt());
+
+        ArgumentCaptor<MessageArrivedListener> arrivedCaptor = ArgumentCaptor.forClass(MessageArrivedListener.class);
+        Mockito.verify(mqttChannel.clientMock).onMessageArrived(arrivedCaptor.capture());
+        ArgumentCaptor<DeliveryCompleteListener> deliveryCaptor = ArgumentCaptor.forClass(DeliveryCompleteListener.class);
+        Mockito.verify(mqttChannel.clientMock).onDeliveryComplete(deliveryCaptor.capture());
+
+        arrivedCaptor.getValue().messageArrived("server", new MqttMessage(new byte[]{1}));
+        Mockito.verify(demultiplexer).processResponse(Mockito.any(byte[].class));
+        deliveryCaptor.getValue().deliveryComplete(Mockito.mock(IMqttDeliveryToken.class));
+
+        // each sync has types of two QoS levels, so it takes two slots of the window
+        for (int i = 0; i < KaaMqttClient.MAX_IN_FLIGHT / 2; i++) {
+            mqttChannel.sync(TransportType.LOGGING);
+        }
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(KaaMqttClient.MAX_IN_FLIGHT + 1)).sendRequest(Mockito.any(byte[].class), Mockito.anyInt());
+
+        // the window is full, so these are merged and deferred
+        mqttChannel.sync(TransportType.EVENT);
+        mqttChannel.sync(TransportType.USER);
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(KaaMqttClient.MAX_IN_FLIGHT + 1)).sendRequest(Mockito.any(byte[].class), Mockito.anyInt());
+
+        // the deferred sync needs two free slots
+        deliveryCaptor.getValue().deliveryComplete(Mockito.mock(IMqttDeliveryToken.class));
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(KaaMqttClient.MAX_IN_FLIGHT + 1)).sendRequest(Mockito.any(byte[].class), Mockito.anyInt());
+        deliveryCaptor.getValue().deliveryComplete(Mockito.mock(IMqttDeliveryToken.class));
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(KaaMqttClient.MAX_IN_FLIGHT + 3)).sendRequest(Mockito.any(byte[].class), Mockito.anyInt());
+
+        mqttChannel.shutdown();
+        Mockito.verify(mqttChannel.clientMock).disconnect();
+    }
+
+    @Test
+    public void testSyncSplitByQos() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        TestOperationMqttChannel mqttChannel = new TestOperationMqttChannel(clientState, failoverManager);
+        mqttChannel.setQosPolicy(new MqttQosPolicy().setQos(TransportType.LOGGING, MqttQosPolicy.AT_MOST_ONCE));
+
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        mqttChannel.setMultiplexer(multiplexer);
+        mqttChannel.setDemultiplexer(Mockito.mock(KaaDataDemultiplexer.class));
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", 1883, KeyUtil.generateKeyPair().getPublic());
+        mqttChannel.setServer(server);
+        mqttChannel.runScheduledTasks();
+        Mockito.verify(mqttChannel.clientMock).sendRequest(Mockito.any(byte[].class), Mockito.eq(MqttQosPolicy.EXACTLY_ONCE));
+
+        ArgumentCaptor<MessageArrivedListener> arrivedCaptor = ArgumentCaptor.forClass(MessageArrivedListener.class);
+        Mockito.verify(mqttChannel.clientMock).onMessageArrived(arrivedCaptor.capture());
+        arrivedCaptor.getValue().messageArrived("server", new MqttMessage(new byte[]{1}));
+
+        // the log upload goes at QoS 0 and the polled types at their own QoS 2,
+        // as two SyncRequests, each with its own request id
+        Mockito.reset(multiplexer);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        mqttChannel.sync(TransportType.LOGGING);
+        Mockito.verify(mqttChannel.clientMock).sendRequest(Mockito.any(byte[].class), Mockito.eq(MqttQosPolicy.AT_MOST_ONCE));
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(2)).sendRequest(Mockito.any(byte[].class), Mockito.eq(MqttQosPolicy.EXACTLY_ONCE));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<TransportType, ChannelDirection>> requestsCaptor = (ArgumentCaptor) ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(multiplexer, Mockito.times(2)).compileRequest(requestsCaptor.capture());
+        List<Map<TransportType, ChannelDirection>> requests = requestsCaptor.getAllValues();
+        assertEquals(EnumSet.of(TransportType.PROFILE, TransportType.CONFIGURATION, TransportType.NOTIFICATION,
+                TransportType.USER, TransportType.EVENT), requests.get(0).keySet());
+        assertEquals(Collections.singleton(TransportType.LOGGING), requests.get(1).keySet());
+
+        Mockito.reset(multiplexer);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        mqttChannel.syncAll();
+        Mockito.verify(multiplexer, Mockito.times(2)).compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class));
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(3)).sendRequest(Mockito.any(byte[].class), Mockito.eq(MqttQosPolicy.EXACTLY_ONCE));
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(2)).sendRequest(Mockito.any(byte[].class), Mockito.eq(MqttQosPolicy.AT_MOST_ONCE));
+
+        mqttChannel.shutdown();
+    }
+
+    @Test
+    public void testSessionResume() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        TestOperationMqttChannel mqttChannel = new TestOperationMqttChannel(clientState, failoverManager);
+        MqttClientPersistence persistence = Mockito.mock(MqttClientPersistence.class);
+        mqttChannel.setSessionPersistence(persistence);
+
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        mqttChannel.setMultiplexer(multiplexer);
+        mqttChannel.setDemultiplexer(Mockito.mock(KaaDataDemultiplexer.class));
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", 1883, KeyUtil.generateKeyPair().getPublic());
+        mqttChannel.setServer(server);
+        mqttChannel.runScheduledTasks();
+        Mockito.verify(mqttChannel.clientMock).setPersistence(persistence);
+        Mockito.verify(mqttChannel.clientMock).setCleanSession(false);
+        Mockito.verify(multiplexer, Mockito.times(1)).compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class));
+
+        ArgumentCaptor<MessageArrivedListener> arrivedCaptor = ArgumentCaptor.forClass(MessageArrivedListener.class);
+        Mockito.verify(mqttChannel.clientMock).onMessageArrived(arrivedCaptor.capture());
+        arrivedCaptor.getValue().messageArrived("server", new MqttMessage(new byte[]{1}));
+
+        ArgumentCaptor<ConnectionLostListener> lostCaptor = ArgumentCaptor.forClass(ConnectionLostListener.class);
+        Mockito.verify(mqttChannel.clientMock).onConnectionLost(lostCaptor.capture());
+        lostCaptor.getValue().connectionLost(new Exception());
+
+        // reconnect to the same server resumes the session without the initial full sync
+        mqttChannel.setServer(server);
+        mqttChannel.runScheduledTasks();
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(2)).connect();
+        Mockito.verify(multiplexer, Mockito.times(1)).compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class));
+
+        // the profile goes at QoS 2 and the polled QoS 1 types in a request of their own
+        mqttChannel.sync(TransportType.PROFILE);
+        Mockito.verify(multiplexer, Mockito.times(3)).compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class));
+
+        mqttChannel.shutdown();
+    }
+
+    @Test
+    public void testMessageOfClosedConnectionIsIgnored() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+        final TestOperationMqttChannel mqttChannel = new TestOperationMqttChannel(clientState, failoverManager);
+        final AtomicBoolean isConnectedUnderLock = new AtomicBoolean();
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                isConnectedUnderLock.set(Thread.holdsLock(mqttChannel));
+                return null;
+            }
+        }).when(mqttChannel.clientMock).connect();
+
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+        mqttChannel.setMultiplexer(multiplexer);
+        mqttChannel.setDemultiplexer(demultiplexer);
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", 1883, KeyUtil.generateKeyPair().getPublic());
+        mqttChannel.setServer(server);
+        mqttChannel.runScheduledTasks();
+        Mockito.verify(mqttChannel.clientMock).connect();
+        assertFalse("Connect blocks sync while holding the channel lock", isConnectedUnderLock.get());
+
+        ArgumentCaptor<MessageArrivedListener> arrivedCaptor = ArgumentCaptor.forClass(MessageArrivedListener.class);
+        Mockito.verify(mqttChannel.clientMock).onMessageArrived(arrivedCaptor.capture());
+
+        // a late response of the closed connection neither reaches the demultiplexer nor reopens the channel
+        mqttChannel.pause();
+        Mockito.verify(mqttChannel.clientMock).disconnect();
+        arrivedCaptor.getValue().messageArrived("server", new MqttMessage(new byte[]{1}));
+        Mockito.verify(demultiplexer, Mockito.never()).processResponse(Mockito.any(byte[].class));
+        Mockito.verify(failoverManager, Mockito.never()).onServerConnected(Mockito.any(TransportConnectionInfo.class));
+
+        mqttChannel.sync(TransportType.LOGGING);
+        Mockito.verify(mqttChannel.clientMock, Mockito.times(1)).sendRequest(Mockito.any(byte[].class), Mockito.anyInt());
+
+        mqttChannel.shutdown();
+    }
+
+    @Test
+    public void testCompressedSync() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+
+        TestOperationMqttChannel mqttChannel = new TestOperationMqttChannel(clientState, Mockito.mock(FailoverManager.class));
+        mqttChannel.setPayloadCompressor(new PayloadCompressor(new DeflatePayloadCodec(), 64));
+
+        byte[] body = new byte[1024];
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(body);
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+        mqttChannel.setMultiplexer(multiplexer);
+        mqttChannel.setDemultiplexer(demultiplexer);
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", 1883, KeyUtil.generateKeyPair().getPublic());
+        mqttChannel.setServer(server);
+        mqttChannel.runScheduledTasks();
+
+        ArgumentCaptor<byte[]> bodyCaptor = ArgumentCaptor.forClass(byte[].class);
+        Mockito.verify(mqttChannel.clientMock).sendRequest(bodyCaptor.capture(), Mockito.anyInt(), Mockito.eq(true));
+        assertArrayEquals(body, new DeflatePayloadCodec().decompress(bodyCaptor.getValue()));
+
+        ArgumentCaptor<MessageArrivedListener> arrivedCaptor = ArgumentCaptor.forClass(MessageArrivedListener.class);
+        Mockito.verify(mqttChannel.clientMock).onMessageArrived(arrivedCaptor.capture());
+        arrivedCaptor.getValue().messageArrived("server" + KaaMqttClient.ZIPPED_TOPIC_SUFFIX,
+                new MqttMessage(new DeflatePayloadCodec().compress(new byte[]{1, 2, 3})));
+        Mockito.verify(demultiplexer).processResponse(new byte[]{1, 2, 3});
+
+        mqttChannel.shutdown();
+    }
+}
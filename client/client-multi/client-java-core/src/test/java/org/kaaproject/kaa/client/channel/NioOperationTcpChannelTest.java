@@ -0,0 +1,333 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.security.KeyPair;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.client.channel.failover.FailoverManager;
+import org.kaaproject.kaa.client.channel.failover.FailoverStatus;
+import org.kaaproject.kaa.client.channel.impl.channels.KaaTcpEventLoop;
+import org.kaaproject.kaa.client.channel.impl.channels.NioOperationTcpChannel;
+import org.kaaproject.kaa.client.persistence.KaaClientState;
+import org.kaaproject.kaa.common.TransportType;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.KaaTcpProtocolException;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.ConnectListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.SyncRequestListener;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck.ReturnCode;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Connect;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MessageFactory;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MqttFrame;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncRequest;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncResponse;
+import org.kaaproject.kaa.common.endpoint.security.KeyUtil;
+import org.kaaproject.kaa.common.endpoint.security.SessionCipherMode;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class NioOperationTcpChannelTest {
+
+    private static final int TIMEOUT = 5000;
+
+    private final KeyPair clientKeys;
+    private final KeyPair serverKeys;
+
+    private KaaTcpEventLoop eventLoop;
+    private ServerSocket serverSocket;
+
+    public NioOperationTcpChannelTest() throws Exception {
+        clientKeys = KeyUtil.generateKeyPair();
+        serverKeys = KeyUtil.generateKeyPair();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        eventLoop = new KaaTcpEventLoop("test-event-loop");
+        eventLoop.start();
+        serverSocket = new ServerSocket(0);
+        serverSocket.setSoTimeout(TIMEOUT);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        eventLoop.shutdown();
+        serverSocket.close();
+    }
+
+    @Test
+    public void testEventLoopSchedule() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        Runnable countDown = new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+        eventLoop.schedule(countDown, 50, TimeUnit.MILLISECONDS);
+        eventLoop.execute(countDown);
+        eventLoop.schedule(countDown, 10, TimeUnit.MILLISECONDS).cancel();
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testConnectAndSync() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+
+        NioOperationTcpChannel channel = new NioOperationTcpChannel(clientState, failoverManager, null, eventLoop);
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1, 2, 3});
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+        channel.setMultiplexer(multiplexer);
+        channel.setDemultiplexer(demultiplexer);
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", serverSocket.getLocalPort(), serverKeys.getPublic());
+        channel.setServer(server);
+
+        Socket endpointSocket = serverSocket.accept();
+        endpointSocket.setSoTimeout(TIMEOUT);
+        FrameReader reader = new FrameReader(endpointSocket.getInputStream());
+        assertTrue(reader.next() instanceof Connect);
+
+        OutputStream os = endpointSocket.getOutputStream();
+        os.write(new ConnAck(ReturnCode.ACCEPTED).getFrame().array());
+        os.write(new SyncResponse(new byte[]{4, 5}, false, false).getFrame().array());
+        os.flush();
+        Mockito.verify(demultiplexer, Mockito.timeout(TIMEOUT)).processResponse(new byte[]{4, 5});
+        Mockito.verify(failoverManager, Mockito.timeout(TIMEOUT)).onServerConnected(Mockito.any(TransportConnectionInfo.class));
+
+        channel.sync(TransportType.EVENT);
+        MqttFrame frame = reader.next();
+        assertTrue(frame instanceof SyncRequest);
+        assertTrue(((SyncRequest) frame).isEncrypted());
+
+        channel.shutdown();
+        endpointSocket.close();
+    }
+
+    @Test
+    public void testServerClosesConnection() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+
+        NioOperationTcpChannel channel = new NioOperationTcpChannel(clientState, failoverManager, null, eventLoop);
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        channel.setMultiplexer(multiplexer);
+        channel.setDemultiplexer(Mockito.mock(KaaDataDemultiplexer.class));
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", serverSocket.getLocalPort(), serverKeys.getPublic());
+        channel.setServer(server);
+
+        Socket endpointSocket = serverSocket.accept();
+        assertNotNull(new FrameReader(endpointSocket.getInputStream()).next());
+        endpointSocket.close();
+
+        Mockito.verify(failoverManager, Mockito.timeout(TIMEOUT)).onServerFailed(Mockito.any(TransportConnectionInfo.class),
+                Mockito.eq(FailoverStatus.NO_CONNECTIVITY));
+        channel.shutdown();
+    }
+
+    @Test
+    public void testEventLoopNeverBlocksOnChannel() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+        FailoverManager failoverManager = Mockito.mock(FailoverManager.class);
+
+        final AtomicBoolean blockingWorkInLoop = new AtomicBoolean();
+        NioOperationTcpChannel channel = new NioOperationTcpChannel(clientState, failoverManager, null, eventLoop) {
+            @Override
+            protected InetSocketAddress resolveAddress(String host, int port) throws UnknownHostException {
+                blockingWorkInLoop.compareAndSet(false, eventLoop.inLoop());
+                return super.resolveAddress(host, port);
+            }
+        };
+        Answer<byte[]> compile = new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) {
+                blockingWorkInLoop.compareAndSet(false, eventLoop.inLoop());
+                return new byte[]{1};
+            }
+        };
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenAnswer(compile);
+        KaaDataDemultiplexer demultiplexer = Mockito.mock(KaaDataDemultiplexer.class);
+        channel.setMultiplexer(multiplexer);
+        channel.setDemultiplexer(demultiplexer);
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", serverSocket.getLocalPort(), serverKeys.getPublic());
+        channel.setServer(server);
+
+        Socket endpointSocket = serverSocket.accept();
+        assertTrue(new FrameReader(endpointSocket.getInputStream()).next() instanceof Connect);
+        OutputStream os = endpointSocket.getOutputStream();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        synchronized (channel) {
+            os.write(new ConnAck(ReturnCode.ACCEPTED).getFrame().array());
+            os.write(new SyncResponse(new byte[]{4, 5}, false, false).getFrame().array());
+            os.flush();
+            Thread.sleep(100);
+            eventLoop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            assertTrue("Event loop is blocked by the channel lock", latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+        Mockito.verify(demultiplexer, Mockito.timeout(TIMEOUT)).processResponse(new byte[]{4, 5});
+        Mockito.verify(failoverManager, Mockito.timeout(TIMEOUT)).onServerConnected(Mockito.any(TransportConnectionInfo.class));
+        assertFalse("Blocking work was done on the event loop thread", blockingWorkInLoop.get());
+
+        channel.shutdown();
+        endpointSocket.close();
+    }
+
+    @Test
+    public void testGcmFallbackWithoutConfirmation() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+
+        NioOperationTcpChannel channel = new NioOperationTcpChannel(clientState, Mockito.mock(FailoverManager.class), null, eventLoop);
+        channel.setSessionCipherMode(SessionCipherMode.AES_GCM);
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        channel.setMultiplexer(multiplexer);
+        channel.setDemultiplexer(Mockito.mock(KaaDataDemultiplexer.class));
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", serverSocket.getLocalPort(), serverKeys.getPublic());
+        channel.setServer(server);
+
+        Socket gcmSocket = serverSocket.accept();
+        Connect gcmConnect = (Connect) new FrameReader(gcmSocket.getInputStream()).next();
+        assertEquals(SessionCipherMode.AES_GCM, gcmConnect.getSessionCipherMode());
+        gcmSocket.getOutputStream().write(new ConnAck(ReturnCode.ACCEPTED).getFrame().array());
+
+        Socket ecbSocket = serverSocket.accept();
+        Connect ecbConnect = (Connect) new FrameReader(ecbSocket.getInputStream()).next();
+        assertEquals(SessionCipherMode.AES_ECB, ecbConnect.getSessionCipherMode());
+
+        channel.shutdown();
+        gcmSocket.close();
+        ecbSocket.close();
+    }
+
+    @Test
+    public void testFramesQueuedWhileClosedAreNotSentBeforeConnect() throws Exception {
+        KaaClientState clientState = Mockito.mock(KaaClientState.class);
+        Mockito.when(clientState.getPrivateKey()).thenReturn(clientKeys.getPrivate());
+        Mockito.when(clientState.getPublicKey()).thenReturn(clientKeys.getPublic());
+
+        FrameSendingChannel channel = new FrameSendingChannel(clientState, Mockito.mock(FailoverManager.class), eventLoop);
+        KaaDataMultiplexer multiplexer = Mockito.mock(KaaDataMultiplexer.class);
+        Mockito.when(multiplexer.compileRequest(Mockito.anyMapOf(TransportType.class, ChannelDirection.class))).thenReturn(new byte[]{1});
+        channel.setMultiplexer(multiplexer);
+        channel.setDemultiplexer(Mockito.mock(KaaDataDemultiplexer.class));
+        channel.send(new SyncRequest(new byte[]{1}, false, true));
+
+        TransportConnectionInfo server = IPTransportInfoTest.createTestServerInfo(ServerType.OPERATIONS, TransportProtocolIdConstants.TCP_TRANSPORT_ID,
+                "localhost", serverSocket.getLocalPort(), serverKeys.getPublic());
+        channel.setServer(server);
+
+        Socket endpointSocket = serverSocket.accept();
+        endpointSocket.setSoTimeout(TIMEOUT);
+        assertTrue(new FrameReader(endpointSocket.getInputStream()).next() instanceof Connect);
+
+        channel.shutdown();
+        endpointSocket.close();
+    }
+
+    /**
+     * Lets the test queue a frame directly.
+     */
+    private static class FrameSendingChannel extends NioOperationTcpChannel {
+        FrameSendingChannel(KaaClientState state, FailoverManager failoverManager, KaaTcpEventLoop eventLoop) {
+            super(state, failoverManager, null, eventLoop);
+        }
+
+        void send(MqttFrame frame) {
+            sendFrame(frame);
+        }
+    }
+
+    /**
+     * Decodes frames sent by the channel on the server side of the test connection.
+     */
+    private static class FrameReader {
+        private final InputStream is;
+        private final MessageFactory factory = new MessageFactory();
+        private final BlockingQueue<MqttFrame> frames = new LinkedBlockingQueue<>();
+        private final byte[] buffer = new byte[1024];
+
+        FrameReader(InputStream is) {
+            this.is = is;
+            factory.registerMessageListener(new ConnectListener() {
+                @Override
+                public void onMessage(Connect message) {
+                    frames.add(message);
+                }
+            });
+            factory.registerMessageListener(new SyncRequestListener() {
+                @Override
+                public void onMessage(SyncRequest message) {
+                    frames.add(message);
+                }
+            });
+        }
+
+        MqttFrame next() throws IOException, KaaTcpProtocolException {
+            while (frames.isEmpty()) {
+                int size = is.read(buffer);
+                assertTrue("Connection closed before a frame was received", size > 0);
+                factory.getFramer().pushBytes(buffer, 0, size);
+            }
+            return frames.poll();
+        }
+    }
+}
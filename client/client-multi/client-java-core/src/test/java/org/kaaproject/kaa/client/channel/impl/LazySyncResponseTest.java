@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kaaproject.kaa.common.avro.AvroCodec;
+import org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.SyncResponse;
+import org.kaaproject.kaa.common.endpoint.gen.SyncResponseResultType;
+import org.kaaproject.kaa.common.endpoint.gen.SyncResponseStatus;
+
+public class LazySyncResponseTest {
+
+    @Test
+    public void testSectionsOnDemand() throws Exception {
+        ConfigurationSyncResponse configuration = new ConfigurationSyncResponse(SyncResponseStatus.DELTA,
+                ByteBuffer.wrap(new byte[]{1, 2}), ByteBuffer.wrap(new byte[]{3, 4, 5}));
+        SyncResponse response = new SyncResponse();
+        response.setRequestId(42);
+        response.setStatus(SyncResponseResultType.SUCCESS);
+        response.setProfileSyncResponse(new ProfileSyncResponse(SyncResponseStatus.DELTA));
+        response.setConfigurationSyncResponse(configuration);
+        response.setEventSyncResponse(new EventSyncResponse());
+        response.setRedirectSyncResponse(new RedirectSyncResponse(7));
+        byte[] data = AvroCodec.forClass(SyncResponse.class).encode(response);
+
+        LazySyncResponse lazyResponse = LazySyncResponse.decode(data,
+                new HashSet<>(Arrays.asList("eventSyncResponse", "notificationSyncResponse")));
+
+        SyncResponse decoded = lazyResponse.getResponse();
+        Assert.assertEquals(42, decoded.getRequestId().intValue());
+        Assert.assertEquals(SyncResponseResultType.SUCCESS, decoded.getStatus());
+        Assert.assertEquals(response.getProfileSyncResponse(), decoded.getProfileSyncResponse());
+        Assert.assertEquals(response.getRedirectSyncResponse(), decoded.getRedirectSyncResponse());
+        Assert.assertNull(decoded.getEventSyncResponse());
+        Assert.assertEquals(configuration, decoded.getConfigurationSyncResponse());
+        Assert.assertNull(decoded.getNotificationSyncResponse());
+    }
+}
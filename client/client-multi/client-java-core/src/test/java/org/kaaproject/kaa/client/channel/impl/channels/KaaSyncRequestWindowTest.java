@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.channel.impl.channels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.kaaproject.kaa.common.TransportType;
+
+public class KaaSyncRequestWindowTest {
+
+    private static final long TIMEOUT = 1000;
+
+    @Test
+    public void testCorrelatedResponses() {
+        KaaSyncRequestWindow window = new KaaSyncRequestWindow(2, TIMEOUT);
+        int profileId = window.register(Collections.singleton(TransportType.PROFILE));
+        int eventId = window.register(Collections.singleton(TransportType.EVENT));
+        assertNotEquals(KaaSyncRequestWindow.UNCORRELATED_MESSAGE_ID, profileId);
+        assertNotEquals(profileId, eventId);
+
+        assertEquals(Collections.singleton(TransportType.EVENT), window.acknowledge(eventId));
+        assertNull(window.acknowledge(eventId));
+        assertEquals(1, window.getOutstandingCount());
+
+        assertEquals(Collections.singleton(TransportType.PROFILE),
+                window.acknowledge(KaaSyncRequestWindow.UNCORRELATED_MESSAGE_ID));
+        assertNull(window.acknowledge(KaaSyncRequestWindow.UNCORRELATED_MESSAGE_ID));
+    }
+
+    @Test
+    public void testDeferWhenFull() {
+        KaaSyncRequestWindow window = new KaaSyncRequestWindow(1, TIMEOUT);
+        int messageId = window.register(Collections.singleton(TransportType.PROFILE));
+        assertEquals(-1, window.register(Collections.singleton(TransportType.LOGGING)));
+        assertEquals(-1, window.register(Collections.singleton(TransportType.EVENT)));
+        assertTrue(window.hasDeferred());
+        assertTrue(window.pollDeferred().isEmpty());
+
+        window.acknowledge(messageId);
+        assertEquals(EnumSet.of(TransportType.LOGGING, TransportType.EVENT), window.pollDeferred());
+        assertFalse(window.hasDeferred());
+    }
+
+    @Test
+    public void testClear() {
+        KaaSyncRequestWindow window = new KaaSyncRequestWindow(1, TIMEOUT);
+        window.register(Collections.singleton(TransportType.PROFILE));
+        window.register(Collections.singleton(TransportType.EVENT));
+        window.clear();
+        assertEquals(0, window.getOutstandingCount());
+        assertFalse(window.hasDeferred());
+        assertNotEquals(-1, window.register(Collections.singleton(TransportType.USER)));
+    }
+
+    @Test
+    public void testUnansweredRequestExpires() {
+        final AtomicLong time = new AtomicLong();
+        KaaSyncRequestWindow window = new KaaSyncRequestWindow(1, TIMEOUT) {
+            @Override
+            long currentTimeMillis() {
+                return time.get();
+            }
+        };
+        int lostId = window.register(Collections.singleton(TransportType.PROFILE));
+        time.set(TIMEOUT - 1);
+        assertEquals(-1, window.register(Collections.singleton(TransportType.EVENT)));
+
+        time.set(TIMEOUT);
+        int messageId = window.register(Collections.singleton(TransportType.LOGGING));
+        assertNotEquals(-1, messageId);
+        assertEquals(1, window.getOutstandingCount());
+        assertNull(window.acknowledge(lostId));
+
+        window.acknowledge(messageId);
+        assertEquals(EnumSet.of(TransportType.PROFILE, TransportType.EVENT), window.pollDeferred());
+    }
+
+    @Test
+    public void testExpireOverdue() {
+        final AtomicLong time = new AtomicLong();
+        KaaSyncRequestWindow window = new KaaSyncRequestWindow(2, TIMEOUT) {
+            @Override
+            long currentTimeMillis() {
+                return time.get();
+            }
+        };
+        assertEquals(-1, window.expireOverdue());
+
+        window.register(Collections.singleton(TransportType.PROFILE));
+        time.set(TIMEOUT / 2);
+        int messageId = window.register(Collections.singleton(TransportType.EVENT));
+        assertEquals(TIMEOUT / 2, window.expireOverdue());
+
+        // the oldest request expires at its deadline, and the next deadline is the one of the younger request
+        time.set(TIMEOUT);
+        assertEquals(TIMEOUT / 2, window.expireOverdue());
+        assertEquals(1, window.getOutstandingCount());
+        assertTrue(window.hasDeferred());
+        assertEquals(Collections.singleton(TransportType.PROFILE), window.pollDeferred());
+
+        window.acknowledge(messageId);
+        assertEquals(-1, window.expireOverdue());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.client.persistance;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.junit.After;
+import org.junit.Test;
+import org.kaaproject.kaa.client.persistence.FilePersistentStorage;
+import org.kaaproject.kaa.client.persistence.MqttStoragePersistence;
+import org.kaaproject.kaa.client.persistence.PersistentStorage;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class MqttStoragePersistenceTest {
+
+    private static final String WORK_DIR = "mqtt_work_dir";
+    private static final String CLIENT_ID = "client";
+    private static final String SERVER_URI = "tcp://localhost:1883";
+
+    @After
+    public void cleanUp() throws Exception {
+        FileUtils.deleteDirectory(new File(WORK_DIR));
+    }
+
+    @Test
+    public void testPutAndRestore() throws Exception {
+        MqttStoragePersistence persistence = new MqttStoragePersistence(new FilePersistentStorage(), WORK_DIR);
+        persistence.open(CLIENT_ID, SERVER_URI);
+        persistence.put("s-1", createPersistable(new byte[]{1, 2}, new byte[]{3, 4, 5}));
+        persistence.put("s-2", createPersistable(new byte[]{6}, null));
+        persistence.remove("s-2");
+        persistence.close();
+
+        MqttStoragePersistence restored = new MqttStoragePersistence(new FilePersistentStorage(), WORK_DIR);
+        restored.open(CLIENT_ID, SERVER_URI);
+        assertEquals(Collections.singletonList("s-1"), Collections.list(restored.keys()));
+        assertTrue(restored.containsKey("s-1"));
+        assertFalse(restored.containsKey("s-2"));
+
+        MqttPersistable message = restored.get("s-1");
+        assertArrayEquals(new byte[]{1, 2}, message.getHeaderBytes());
+        assertArrayEquals(new byte[]{3, 4, 5}, message.getPayloadBytes());
+
+        restored.clear();
+        assertFalse(restored.keys().hasMoreElements());
+    }
+
+    @Test
+    public void testIndexIsReplacedByRename() throws Exception {
+        PersistentStorage storage = Mockito.spy(new FilePersistentStorage());
+        MqttStoragePersistence persistence = new MqttStoragePersistence(storage, WORK_DIR);
+        persistence.open(CLIENT_ID, SERVER_URI);
+        persistence.put("s-1", createPersistable(new byte[]{1}, null));
+
+        ArgumentCaptor<String> tmpCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> indexCaptor = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(storage).renameTo(tmpCaptor.capture(), indexCaptor.capture());
+        Mockito.verify(storage, Mockito.never()).openForWrite(indexCaptor.getValue());
+        assertFalse(new File(tmpCaptor.getValue()).exists());
+        assertTrue(new File(indexCaptor.getValue()).exists());
+        persistence.close();
+    }
+
+    @Test(expected = MqttPersistenceException.class)
+    public void testClosed() throws Exception {
+        MqttStoragePersistence persistence = new MqttStoragePersistence(new FilePersistentStorage(), WORK_DIR);
+        persistence.keys();
+    }
+
+    private static MqttPersistable createPersistable(byte[] header, byte[] payload) throws Exception {
+        MqttPersistable persistable = Mockito.mock(MqttPersistable.class);
+        Mockito.when(persistable.getHeaderBytes()).thenReturn(header);
+        Mockito.when(persistable.getHeaderLength()).thenReturn(header.length);
+        Mockito.when(persistable.getPayloadBytes()).thenReturn(payload);
+        Mockito.when(persistable.getPayloadLength()).thenReturn(payload != null ? payload.length : 0);
+        return persistable;
+    }
+}
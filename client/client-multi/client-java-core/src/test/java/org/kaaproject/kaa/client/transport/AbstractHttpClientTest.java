@@ -96,4 +96,31 @@ public class AbstractHttpClientTest {
         Assert.assertArrayEquals(message, client.verifyResponse(message, signature));
         Assert.assertTrue(client.getEncoderDecoder().verify(message, signature));
     }
+
+    @Test
+    public void testSessionKeyRotation() throws NoSuchAlgorithmException, GeneralSecurityException {
+        KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+        gen.initialize(512);
+
+        KeyPair clientKeyPair = gen.generateKeyPair();
+        KeyPair remoteKeyPair = gen.generateKeyPair();
+
+        TestHttpClient client = new TestHttpClient("test_url", clientKeyPair.getPrivate()
+                , clientKeyPair.getPublic(), remoteKeyPair.getPublic());
+        client.setSessionKeyRotation(AbstractHttpClient.NO_LIMIT, 100);
+
+        client.checkSessionKeyRotation(60);
+        byte[] sessionKey = client.getEncoderDecoder().getEncodedSessionKey();
+        client.checkSessionKeyRotation(40);
+        Assert.assertSame(sessionKey, client.getEncoderDecoder().getEncodedSessionKey());
+
+        client.checkSessionKeyRotation(1);
+        byte[] rotatedKey = client.getEncoderDecoder().getEncodedSessionKey();
+        Assert.assertNotSame(sessionKey, rotatedKey);
+
+        client.requestSessionKeyRenewal();
+        Assert.assertSame(rotatedKey, client.getEncoderDecoder().getEncodedSessionKey());
+        client.checkSessionKeyRotation(1);
+        Assert.assertNotSame(rotatedKey, client.getEncoderDecoder().getEncodedSessionKey());
+    }
 }
@@ -72,6 +72,10 @@ public class DesktopHttpClient extends AbstractHttpClient {
                 int status = response.getStatusLine().getStatusCode();
                 if (status >= 200 && status < 300) {
                     responseDataRaw = getResponseBody(response, verifyResponse);
+                    if (response.containsHeader(CommonEPConstans.SESSION_KEY_RENEWAL_HEADER_NAME)) {
+                        LOG.debug("Server requested a new session key");
+                        requestSessionKeyRenewal();
+                    }
                 } else {
                     throw new TransportException(status);
                 }
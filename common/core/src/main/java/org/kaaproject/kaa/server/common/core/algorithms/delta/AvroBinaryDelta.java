@@ -27,6 +27,7 @@ import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -100,7 +101,7 @@ public final class AvroBinaryDelta implements RawBinaryDelta {
                 deltaT.put(DELTA, deltaQueue.poll());
                 deltaArray.add(deltaT);
             }
-            GenericAvroConverter<GenericArray> converter = new GenericAvroConverter<>(schema);
+            GenericAvroConverter<GenericArray> converter = AvroSchemaCache.getConverter(schema);
             serializedData = converter.encode(deltaArray);
             if(LOG.isTraceEnabled()){
                 LOG.trace("Delta array: {}", deltaArray.toString());
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.delta;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+import org.kaaproject.kaa.server.common.core.schema.ProtocolSchema;
+
+/**
+ * Calculates the deltas of many endpoint configurations to one new configuration.
+ * <p>
+ * The new configuration is parsed and its subtrees are hashed once per batch. Identical endpoint
+ * configurations share one delta, and the distinct ones are processed in parallel in the fork/join pool.
+ * The full delta for the endpoints without a configuration is calculated after the others complete,
+ * because its canonization must not reorder the new configuration while the other tasks read it and
+ * rely on its subtree hashes. Instances are thread safe.
+ */
+public class BatchDeltaCalculator {
+
+    private final Schema protocolSchema;
+    private final Schema baseSchema;
+    private final ForkJoinPool pool;
+
+    /**
+     * Instantiates a new batch delta calculator.
+     *
+     * @param protocolSchemaBody the protocol schema
+     * @param baseDataSchema the base schema
+     * @param pool the pool that runs the calculations
+     */
+    public BatchDeltaCalculator(ProtocolSchema protocolSchemaBody, BaseSchema baseDataSchema, ForkJoinPool pool) {
+        this.protocolSchema = AvroSchemaCache.getSchema(protocolSchemaBody.getRawSchema());
+        this.baseSchema = AvroSchemaCache.getSchema(baseDataSchema.getRawSchema());
+        this.pool = pool;
+    }
+
+    /**
+     * Calculates the deltas of the endpoint configurations to the new configuration.
+     *
+     * @param endpointConfigurations the endpoint configurations, a null item stands for an endpoint without
+     *            a configuration that receives the whole new configuration
+     * @param newConfigurationBody the new configuration
+     * @return the deltas in the order of the endpoint configurations
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws DeltaCalculatorException the delta calculator exception
+     */
+    public List<RawBinaryDelta> calculate(List<BaseData> endpointConfigurations, BaseData newConfigurationBody)
+            throws IOException, DeltaCalculatorException {
+        GenericAvroConverter<GenericRecord> converter = AvroSchemaCache.getConverter(baseSchema);
+        GenericRecord newRoot = newConfigurationBody.decode(converter);
+        SubtreeHashes newHashes = new SubtreeHashes();
+        newHashes.hashAll(newRoot);
+
+        Map<Object, DeltaTask> tasks = new LinkedHashMap<>();
+        List<DeltaTask> taskByEndpoint = new ArrayList<>(endpointConfigurations.size());
+        for (BaseData endpointConfiguration : endpointConfigurations) {
+            Object key = getKey(endpointConfiguration);
+            DeltaTask task = tasks.get(key);
+            if (task == null) {
+                task = new DeltaTask(converter, key != null ? endpointConfiguration : null, newRoot, newHashes);
+                tasks.put(key, task);
+            }
+            taskByEndpoint.add(task);
+        }
+
+        DeltaTask fullDeltaTask = tasks.remove(null);
+        pool.invoke(new BatchTask(new ArrayList<>(tasks.values())));
+        if (fullDeltaTask != null) {
+            fullDeltaTask.invoke();
+        }
+
+        List<RawBinaryDelta> deltas = new ArrayList<>(taskByEndpoint.size());
+        for (DeltaTask task : taskByEndpoint) {
+            deltas.add(task.getDelta());
+        }
+        return deltas;
+    }
+
+    /**
+     * Returns the key of the endpoint configuration in the form the configuration was created in,
+     * so that identical configurations are found without converting them. The key is null for
+     * an endpoint without a configuration.
+     */
+    private static Object getKey(BaseData endpointConfiguration) {
+        if (endpointConfiguration == null) {
+            return null;
+        }
+        return endpointConfiguration.isBinary()
+                ? ByteBuffer.wrap(endpointConfiguration.getBinaryData())
+                : endpointConfiguration.getRawData();
+    }
+
+    /**
+     * Runs the delta tasks in parallel.
+     */
+    private static final class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<DeltaTask> tasks;
+
+        private BatchTask(List<DeltaTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Calculates the delta of one distinct endpoint configuration.
+     */
+    private final class DeltaTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final GenericAvroConverter<GenericRecord> converter;
+        private final BaseData oldData;
+        private final GenericRecord newRoot;
+        private final SubtreeHashes newHashes;
+
+        private RawBinaryDelta delta;
+        private Exception error;
+
+        private DeltaTask(GenericAvroConverter<GenericRecord> converter, BaseData oldData, GenericRecord newRoot,
+                SubtreeHashes newHashes) {
+            this.converter = converter;
+            this.oldData = oldData;
+            this.newRoot = newRoot;
+            this.newHashes = newHashes;
+        }
+
+        @Override
+        protected void compute() {
+            DefaultDeltaCalculationAlgorithm algorithm = new DefaultDeltaCalculationAlgorithm(protocolSchema, baseSchema);
+            try {
+                if (oldData == null) {
+                    delta = algorithm.calculate(newRoot);
+                } else {
+                    delta = algorithm.calculate(oldData.decode(converter), newRoot, newHashes);
+                }
+            } catch (IOException | DeltaCalculatorException e) {
+                error = e;
+            }
+        }
+
+        private RawBinaryDelta getDelta() throws IOException, DeltaCalculatorException {
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error != null) {
+                throw (DeltaCalculatorException) error;
+            }
+            return delta;
+        }
+    }
+}
@@ -24,8 +24,10 @@ import static org.kaaproject.kaa.server.common.core.algorithms.CommonConstants.U
 import static org.kaaproject.kaa.server.common.core.algorithms.CommonConstants.UUID_TYPE;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -43,6 +45,7 @@ import org.apache.avro.generic.GenericEnumSymbol;
 import org.apache.avro.generic.GenericFixed;
 import org.apache.avro.generic.GenericRecord;
 import org.kaaproject.kaa.common.avro.AvroDataCanonizationUtils;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.kaaproject.kaa.server.common.core.configuration.BaseData;
 import org.slf4j.Logger;
@@ -67,6 +70,9 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
 
     private Set<RecordTuple> processedRecords;
 
+    /** The digests of the compared subtrees. */
+    private SubtreeHashes subtreeHashes;
+
     /** The last uuid delta. */
     private RecordTuple lastUuidDelta;
 
@@ -513,7 +519,10 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
             GenericRecord subDelta = createSubDelta(delta, field, (GenericRecord) newRecordValue);
             if (subDelta != null) {
                 boolean hasChanges = false;
-                if (oldRecordValue != null && oldRecordValue.getSchema().getFullName().equals(newRecordValue.getSchema().getFullName())) {
+                if (oldRecordValue != null && subtreeHashes.isSame(oldRecordValue, newRecordValue)) {
+                    // The whole subtree is unchanged
+                    hasChanges = false;
+                } else if (oldRecordValue != null && oldRecordValue.getSchema().getFullName().equals(newRecordValue.getSchema().getFullName())) {
                     FieldAttribute fieldPair = new FieldAttribute(getSchemaByFullName(delta, field,
                             getFullName(newRecordValue)), field);
                     Queue<FieldAttribute> newFieldQueue = new LinkedList<FieldAttribute>(fieldQueue);
@@ -612,6 +621,9 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
                     if (newArrayItems.get(0) instanceof GenericRecord) {
                         // Item is a complex type
                         if (oldArrayItems != null && !oldArrayItems.isEmpty() && oldArrayItems.get(0) instanceof GenericRecord) {
+                            UuidIndex newItemsByUuid = null;
+                            // New items matched by uuid, removed from the list after the loop
+                            Set<Object> matchedItems = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
                             for (Object oldItem : oldArrayItems) {
                                 GenericRecord oldItemRecord = (GenericRecord) oldItem;
                                 Schema oldItemSchema = oldItemRecord.getSchema();
@@ -620,17 +632,15 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
                                     // record with the same uuid in new items
                                     boolean isRecordExists = false;
                                     GenericFixed uuid = (GenericFixed) oldItemRecord.get(UUID_FIELD);
-                                    Iterator it = newArrayItems.iterator();
-                                    while (it.hasNext()) {
-                                        GenericRecord newItemRecord = (GenericRecord) it.next();
-                                        if (uuid.equals(newItemRecord.get(UUID_FIELD))) {
-                                            processDifferences(oldItemRecord, newItemRecord);
-                                            isRecordExists = true;
-                                            // This new item has been processed.
-                                            // Removing it from the list
-                                            it.remove();
-                                            break;
-                                        }
+                                    if (newItemsByUuid == null) {
+                                        newItemsByUuid = new UuidIndex(newArrayItems);
+                                    }
+                                    GenericRecord newItemRecord = newItemsByUuid.remove(uuid);
+                                    if (newItemRecord != null) {
+                                        processDifferences(oldItemRecord, newItemRecord);
+                                        isRecordExists = true;
+                                        // This new item has been processed
+                                        matchedItems.add(newItemRecord);
                                     }
                                     if (!isRecordExists) {
                                         // Adding uuid to list to remove this
@@ -644,11 +654,12 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
                                     // Non-addressable complex item. We can't
                                     // create the partial update delta for it
                                     boolean itemChanged = true;
-                                    if (oldArrayItems.size() == newArrayItems.size()) {
+                                    if (oldArrayItems.size() == newArrayItems.size() - matchedItems.size()) {
                                         Iterator it = newArrayItems.iterator();
                                         while (it.hasNext()) {
                                             GenericRecord newItemRecord = (GenericRecord) it.next();
-                                            if (newItemRecord.equals(oldItemRecord)) {
+                                            if (!matchedItems.contains(newItemRecord)
+                                                    && subtreeHashes.isSame(newItemRecord, oldItemRecord)) {
                                                 // This new item has been
                                                 // processed. Removing it from
                                                 // the list
@@ -661,11 +672,20 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
                                     if (itemChanged) {
                                         resetFields.add(newField.name());
                                         newArrayItems = new LinkedList<Object>((List<Object>) newValue);
+                                        matchedItems.clear();
                                         hasChanges = true;
                                         break;
                                     }
                                 }
                             }
+                            if (!matchedItems.isEmpty()) {
+                                Iterator it = newArrayItems.iterator();
+                                while (it.hasNext()) {
+                                    if (matchedItems.contains(it.next())) {
+                                        it.remove();
+                                    }
+                                }
+                            }
                         } else if (oldArrayItems != null && !oldArrayItems.isEmpty()) {
                             resetFields.add(newField.name());
                         }
@@ -684,7 +704,7 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
                         }
                     } else {
                         // Item is a primitive type
-                        if (!newArrayItems.equals(oldArrayItems)) {
+                        if (!subtreeHashes.isSame(newValue, oldArrayItems)) {
                             // Field should be reseted
                             if (oldArrayItems != null) {
                                 resetFields.add(newField.name());
@@ -753,6 +773,10 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
      */
     private void processDifferences(GenericRecord oldRoot, GenericRecord newRoot)
             throws DeltaCalculatorException {
+        if (subtreeHashes.isSame(oldRoot, newRoot)) {
+            // Nothing to look for in an unchanged subtree
+            return;
+        }
         Schema oldSchema = oldRoot.getSchema();
 
         boolean hasDifferences = false;
@@ -788,19 +812,16 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
                             GenericRecord uuidCheckRecord = (GenericRecord) newArray.get(0);
                             Schema uuidCheckSchema = uuidCheckRecord.getSchema();
                             if (uuidCheckSchema.getField(UUID_FIELD) != null) {
+                                UuidIndex newItemsByUuid = new UuidIndex(newArray);
                                 for (Object oldItem : oldArray) {
                                     GenericRecord oldItemRecord = (GenericRecord) oldItem;
                                     boolean isRecordExists = false;
                                     GenericFixed uuid = (GenericFixed) oldItemRecord.get(UUID_FIELD);
                                     if (uuid != null) {
-                                        for (Object it : newArray) {
-                                            GenericRecord newItemRecord = (GenericRecord) it;
-                                            GenericFixed newUuid = (GenericFixed) newItemRecord.get(UUID_FIELD);
-                                            if (uuid.equals(newUuid)) {
-                                                nextRecords.offer(new RecordTuple(oldItemRecord, newItemRecord));
-                                                isRecordExists = true;
-                                                break;
-                                            }
+                                        GenericRecord newItemRecord = newItemsByUuid.get(uuid);
+                                        if (newItemRecord != null) {
+                                            nextRecords.offer(new RecordTuple(oldItemRecord, newItemRecord));
+                                            isRecordExists = true;
                                         }
                                         if (!isRecordExists) {
                                             hasDifferences = true;
@@ -812,12 +833,12 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
                                     }
                                 }
                             } else {
-                                hasDifferences = !newArray.equals(oldArray);
+                                hasDifferences = !subtreeHashes.isSame(newArray, oldArray);
                             }
                             if (hasDifferences) {
                                 break;
                             }
-                        } else if (!newArray.equals(oldArray)) {
+                        } else if (!subtreeHashes.isSame(newArray, oldArray)) {
                             hasDifferences = true;
                             break;
                         }
@@ -867,8 +888,24 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
     }
 
     public RawBinaryDelta calculate(GenericRecord oldConfig, GenericRecord newConfig) throws DeltaCalculatorException {
+        return calculate(oldConfig, newConfig, null);
+    }
+
+    /**
+     * Calculates delta merging new and old configurations, reusing the digests of the configuration
+     * subtrees computed in advance.
+     *
+     * @param oldConfig the old configuration
+     * @param newConfig the new configuration
+     * @param knownHashes the digests computed in advance, may be null
+     * @return the raw binary delta
+     * @throws DeltaCalculatorException the delta calculator exception
+     */
+    RawBinaryDelta calculate(GenericRecord oldConfig, GenericRecord newConfig, SubtreeHashes knownHashes)
+            throws DeltaCalculatorException {
         resultDelta = new AvroBinaryDelta(deltaSchema);
         processedRecords = new HashSet<>();
+        subtreeHashes = new SubtreeHashes(knownHashes);
         processDifferences(oldConfig, newConfig);
         return resultDelta;
     }
@@ -894,8 +931,8 @@ public class DefaultDeltaCalculationAlgorithm implements DeltaCalculationAlgorit
      * @return the root node
      */
     private GenericRecord getRootNode(BaseData data, Schema schema) throws IOException {
-        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<GenericRecord>(schema);
-        return converter.decodeJson(data.getRawData());
+        GenericAvroConverter<GenericRecord> converter = AvroSchemaCache.getConverter(schema);
+        return data.decode(converter);
     }
 
 }
\ No newline at end of file
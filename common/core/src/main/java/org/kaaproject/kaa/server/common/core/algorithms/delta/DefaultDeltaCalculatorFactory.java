@@ -17,6 +17,7 @@
 package org.kaaproject.kaa.server.common.core.algorithms.delta;
 
 import org.apache.avro.Schema;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
 import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
 import org.kaaproject.kaa.server.common.core.schema.ProtocolSchema;
 
@@ -31,8 +32,8 @@ public class DefaultDeltaCalculatorFactory implements DeltaCalculatorFactory {
      */
     @Override
     public DeltaCalculationAlgorithm createDeltaCalculator(ProtocolSchema protocolSchemaBody, BaseSchema baseDataSchema) {
-        Schema protocolSchema = new Schema.Parser().parse(protocolSchemaBody.getRawSchema());
-        Schema baseSchema = new Schema.Parser().parse(baseDataSchema.getRawSchema());
+        Schema protocolSchema = AvroSchemaCache.getSchema(protocolSchemaBody.getRawSchema());
+        Schema baseSchema = AvroSchemaCache.getSchema(baseDataSchema.getRawSchema());
         return new DefaultDeltaCalculationAlgorithm(protocolSchema, baseSchema);
     }
 
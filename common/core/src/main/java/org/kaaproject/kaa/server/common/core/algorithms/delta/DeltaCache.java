@@ -0,0 +1,250 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.delta;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kaaproject.kaa.common.hash.EndpointObjectHash;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+
+/**
+ * Cache of the calculated deltas by the configuration schema and the hashes of the old and the new
+ * configuration bodies.
+ * <p>
+ * The cache is bounded by the total size of the serialized deltas and evicts the least recently used
+ * deltas first. The cached deltas are serialized when they are added and shared by all the callers,
+ * so the arrays returned by their {@link RawBinaryDelta#getData()} must not be modified. Concurrent
+ * misses of the same delta may calculate it more than once. Instances are thread safe.
+ */
+public class DeltaCache {
+
+    /** Estimated memory taken by an entry besides the delta data. */
+    static final int ENTRY_OVERHEAD = 128;
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<DeltaKey, CachedDelta> deltas = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Instantiates a new delta cache.
+     *
+     * @param maxBytes the maximum total size of the cached deltas
+     */
+    public DeltaCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size should be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached delta or calculates and caches it.
+     *
+     * @param schemaId the id of the configuration schema the deltas are calculated with
+     * @param oldHash the hash of the endpoint configuration, null if the endpoint has no configuration
+     * @param endpointConfiguration the endpoint configuration, null if the endpoint has no configuration
+     * @param newHash the hash of the new configuration
+     * @param newConfigurationBody the new configuration
+     * @param algorithm the algorithm that calculates the delta on a miss
+     * @return the delta
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws DeltaCalculatorException the delta calculator exception
+     */
+    public RawBinaryDelta calculate(String schemaId, EndpointObjectHash oldHash, BaseData endpointConfiguration,
+            EndpointObjectHash newHash, BaseData newConfigurationBody, DeltaCalculationAlgorithm algorithm)
+            throws IOException, DeltaCalculatorException {
+        RawBinaryDelta delta = get(schemaId, oldHash, newHash);
+        if (delta == null) {
+            delta = endpointConfiguration != null
+                    ? algorithm.calculate(endpointConfiguration, newConfigurationBody)
+                    : algorithm.calculate(newConfigurationBody);
+            delta = put(schemaId, oldHash, newHash, delta);
+        }
+        return delta;
+    }
+
+    /**
+     * Returns the cached delta.
+     *
+     * @param schemaId the id of the configuration schema
+     * @param oldHash the hash of the endpoint configuration, null if the endpoint has no configuration
+     * @param newHash the hash of the new configuration
+     * @return the delta or null if it is not cached
+     */
+    public RawBinaryDelta get(String schemaId, EndpointObjectHash oldHash, EndpointObjectHash newHash) {
+        CachedDelta delta;
+        synchronized (deltas) {
+            delta = deltas.get(new DeltaKey(schemaId, oldHash, newHash));
+        }
+        (delta != null ? hitCount : missCount).incrementAndGet();
+        return delta;
+    }
+
+    /**
+     * Caches the delta. A delta larger than the cache is not cached.
+     *
+     * @param schemaId the id of the configuration schema
+     * @param oldHash the hash of the endpoint configuration, null if the endpoint has no configuration
+     * @param newHash the hash of the new configuration
+     * @param delta the delta
+     * @return the delta to use instead of the given one
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public RawBinaryDelta put(String schemaId, EndpointObjectHash oldHash, EndpointObjectHash newHash,
+            RawBinaryDelta delta) throws IOException {
+        CachedDelta cached = new CachedDelta(delta.getData());
+        if (cached.weight() > maxBytes) {
+            return cached;
+        }
+        synchronized (deltas) {
+            CachedDelta previous = deltas.put(new DeltaKey(schemaId, oldHash, newHash), cached);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += cached.weight();
+            Iterator<CachedDelta> eldest = deltas.values().iterator();
+            while (weight > maxBytes) {
+                weight -= eldest.next().weight();
+                eldest.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Removes all the cached deltas.
+     */
+    public void clear() {
+        synchronized (deltas) {
+            deltas.clear();
+            weight = 0;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the number of the cached deltas.
+     *
+     * @return the number of the cached deltas
+     */
+    public int size() {
+        synchronized (deltas) {
+            return deltas.size();
+        }
+    }
+
+    /**
+     * Returns the estimated total size of the cached deltas.
+     *
+     * @return the size in bytes
+     */
+    public long getWeight() {
+        synchronized (deltas) {
+            return weight;
+        }
+    }
+
+    /**
+     * The configuration schema and the pair of the configuration hashes.
+     */
+    private static final class DeltaKey {
+
+        private final String schemaId;
+        private final EndpointObjectHash oldHash;
+        private final EndpointObjectHash newHash;
+
+        private DeltaKey(String schemaId, EndpointObjectHash oldHash, EndpointObjectHash newHash) {
+            this.schemaId = schemaId;
+            this.oldHash = oldHash;
+            this.newHash = newHash;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((schemaId == null) ? 0 : schemaId.hashCode());
+            result = prime * result + ((oldHash == null) ? 0 : oldHash.hashCode());
+            result = prime * result + ((newHash == null) ? 0 : newHash.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            DeltaKey other = (DeltaKey) obj;
+            return (schemaId == null ? other.schemaId == null : schemaId.equals(other.schemaId))
+                    && (oldHash == null ? other.oldHash == null : oldHash.equals(other.oldHash))
+                    && (newHash == null ? other.newHash == null : newHash.equals(other.newHash));
+        }
+    }
+
+    /**
+     * Serialized delta. The data is not copied, the callers share it read-only.
+     */
+    private static final class CachedDelta implements RawBinaryDelta {
+
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] data;
+
+        private CachedDelta(byte[] data) {
+            this.data = data;
+        }
+
+        private long weight() {
+            return ENTRY_OVERHEAD + (data != null ? data.length : 0);
+        }
+
+        @Override
+        public byte[] getData() {
+            return data;
+        }
+
+        @Override
+        public boolean hasChanges() {
+            return data != null;
+        }
+    }
+}
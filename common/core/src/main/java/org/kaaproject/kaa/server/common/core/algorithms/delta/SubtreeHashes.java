@@ -0,0 +1,207 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.delta;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * Structural digests of the records, arrays and maps of Avro data, used to find equal subtrees of two
+ * configurations without comparing them value by value.
+ * <p>
+ * The digest of a record, array or map is computed from the digests of its children, like in a Merkle
+ * tree, and is memoized per instance, so each node of the data is hashed once. Arrays are hashed in order
+ * and maps regardless of the order of their entries, which matches the equality of Avro generic data.
+ * Instances are not thread safe, but a {@link #SubtreeHashes(SubtreeHashes) base} instance that is no
+ * longer modified may be shared by the instances of several threads.
+ */
+final class SubtreeHashes {
+
+    private static final String ALGORITHM = "SHA-1";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte NULL = 0;
+    private static final byte RECORD = 1;
+    private static final byte ARRAY = 2;
+    private static final byte MAP = 3;
+    private static final byte STRING = 4;
+    private static final byte BYTES = 5;
+    private static final byte FIXED = 6;
+    private static final byte ENUM = 7;
+    private static final byte PRIMITIVE = 8;
+
+    private final Map<Object, byte[]> digests = new IdentityHashMap<>();
+
+    /** Digests computed in advance, not modified. */
+    private final SubtreeHashes base;
+
+    /** Digests in use by the nodes being hashed, by their depth. */
+    private final List<MessageDigest> digestsByDepth = new ArrayList<>();
+
+    SubtreeHashes() {
+        this(null);
+    }
+
+    /**
+     * Creates the digests that reuse the digests of the base.
+     *
+     * @param base the digests computed in advance, must not be modified while used by this instance
+     */
+    SubtreeHashes(SubtreeHashes base) {
+        this.base = base;
+    }
+
+    /**
+     * Computes the digests of all the subtrees of the data.
+     *
+     * @param root the data
+     */
+    void hashAll(GenericRecord root) {
+        digest(root, 0);
+    }
+
+    /**
+     * Checks whether two values have the same structure and content.
+     *
+     * @param first the first value
+     * @param second the second value
+     * @return true if the values are equal
+     */
+    boolean isSame(Object first, Object second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null) {
+            return false;
+        }
+        if (isNode(first) && isNode(second)) {
+            return Arrays.equals(digest(first, 0), digest(second, 0));
+        }
+        return first.equals(second);
+    }
+
+    private static boolean isNode(Object value) {
+        return value instanceof GenericRecord || value instanceof List || value instanceof Map;
+    }
+
+    private byte[] digest(Object node, int depth) {
+        byte[] digest = base != null ? base.digests.get(node) : null;
+        if (digest == null) {
+            digest = digests.get(node);
+        }
+        if (digest == null) {
+            MessageDigest md = getDigest(depth);
+            if (node instanceof GenericRecord) {
+                GenericRecord record = (GenericRecord) node;
+                md.update(RECORD);
+                updateString(md, record.getSchema().getFullName());
+                for (Schema.Field field : record.getSchema().getFields()) {
+                    update(md, record.get(field.pos()), depth);
+                }
+            } else if (node instanceof List) {
+                List<?> array = (List<?>) node;
+                md.update(ARRAY);
+                updateLength(md, array.size());
+                for (Object item : array) {
+                    update(md, item, depth);
+                }
+            } else {
+                Map<?, ?> map = (Map<?, ?>) node;
+                Map<String, Object> sorted = new TreeMap<>();
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    sorted.put(entry.getKey().toString(), entry.getValue());
+                }
+                md.update(MAP);
+                updateLength(md, sorted.size());
+                for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                    updateString(md, entry.getKey());
+                    update(md, entry.getValue(), depth);
+                }
+            }
+            digest = md.digest();
+            digests.put(node, digest);
+        }
+        return digest;
+    }
+
+    private void update(MessageDigest md, Object value, int depth) {
+        if (value == null) {
+            md.update(NULL);
+        } else if (isNode(value)) {
+            md.update(digest(value, depth + 1));
+        } else if (value instanceof CharSequence) {
+            md.update(STRING);
+            updateString(md, value.toString());
+        } else if (value instanceof ByteBuffer) {
+            ByteBuffer bytes = ((ByteBuffer) value).duplicate();
+            md.update(BYTES);
+            updateLength(md, bytes.remaining());
+            md.update(bytes);
+        } else if (value instanceof GenericFixed) {
+            byte[] bytes = ((GenericFixed) value).bytes();
+            md.update(FIXED);
+            updateString(md, ((GenericFixed) value).getSchema().getFullName());
+            updateLength(md, bytes.length);
+            md.update(bytes);
+        } else if (value instanceof GenericContainer) {
+            md.update(ENUM);
+            updateString(md, ((GenericContainer) value).getSchema().getFullName());
+            updateString(md, value.toString());
+        } else {
+            md.update(PRIMITIVE);
+            updateString(md, value.getClass().getName());
+            updateString(md, value.toString());
+        }
+    }
+
+    private static void updateString(MessageDigest md, String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        updateLength(md, bytes.length);
+        md.update(bytes);
+    }
+
+    private static void updateLength(MessageDigest md, int length) {
+        md.update((byte) (length >>> 24));
+        md.update((byte) (length >>> 16));
+        md.update((byte) (length >>> 8));
+        md.update((byte) length);
+    }
+
+    private MessageDigest getDigest(int depth) {
+        while (digestsByDepth.size() <= depth) {
+            try {
+                digestsByDepth.add(MessageDigest.getInstance(ALGORITHM));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return digestsByDepth.get(depth);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.delta;
+
+import static org.kaaproject.kaa.server.common.core.algorithms.CommonConstants.UUID_FIELD;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * Index of the records of an array by their uuid field.
+ * <p>
+ * Lookups find the same record as a scan of the array for the first item with an equal uuid. Items
+ * without a uuid are not indexed, items with a duplicate uuid are returned in array order as the
+ * preceding ones are removed.
+ */
+final class UuidIndex {
+
+    private final Map<Object, GenericRecord> firstItems;
+
+    /** Items that share the uuid with a preceding item, created only for arrays that have such items. */
+    private Map<Object, Deque<GenericRecord>> duplicates;
+
+    /**
+     * Indexes the records of the array.
+     *
+     * @param items the array items
+     */
+    UuidIndex(List<?> items) {
+        firstItems = new HashMap<>(items.size() * 4 / 3 + 1);
+        for (Object item : items) {
+            GenericRecord record = (GenericRecord) item;
+            Object uuid = record.get(UUID_FIELD);
+            if (uuid != null && firstItems.containsKey(uuid)) {
+                if (duplicates == null) {
+                    duplicates = new HashMap<>();
+                }
+                Deque<GenericRecord> sameUuid = duplicates.get(uuid);
+                if (sameUuid == null) {
+                    sameUuid = new ArrayDeque<>();
+                    duplicates.put(uuid, sameUuid);
+                }
+                sameUuid.add(record);
+            } else if (uuid != null) {
+                firstItems.put(uuid, record);
+            }
+        }
+    }
+
+    /**
+     * Returns the first record with the uuid.
+     *
+     * @param uuid the uuid
+     * @return the record or null if there is none
+     */
+    GenericRecord get(Object uuid) {
+        return uuid != null ? firstItems.get(uuid) : null;
+    }
+
+    /**
+     * Removes the first record with the uuid from the index.
+     *
+     * @param uuid the uuid
+     * @return the removed record or null if there is none
+     */
+    GenericRecord remove(Object uuid) {
+        GenericRecord record = get(uuid);
+        if (record != null) {
+            Deque<GenericRecord> sameUuid = duplicates != null ? duplicates.get(uuid) : null;
+            if (sameUuid != null && !sameUuid.isEmpty()) {
+                firstItems.put(uuid, sameUuid.poll());
+            } else {
+                firstItems.remove(uuid);
+            }
+        }
+        return record;
+    }
+}
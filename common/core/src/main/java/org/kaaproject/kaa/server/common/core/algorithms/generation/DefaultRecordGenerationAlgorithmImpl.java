@@ -24,17 +24,23 @@ import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.Schema.Type;
+import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericEnumSymbol;
 import org.apache.avro.generic.GenericFixed;
 import org.apache.avro.generic.GenericRecord;
 import org.codehaus.jackson.JsonNode;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
+import org.kaaproject.kaa.common.avro.BoundedCacheUtils;
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.kaaproject.kaa.server.common.core.algorithms.AvroUtils;
+import org.kaaproject.kaa.server.common.core.configuration.BinaryKaaDataFactory;
 import org.kaaproject.kaa.server.common.core.configuration.KaaData;
 import org.kaaproject.kaa.server.common.core.configuration.KaaDataFactory;
 import org.kaaproject.kaa.server.common.core.schema.KaaSchema;
@@ -44,18 +50,26 @@ import org.slf4j.LoggerFactory;
 /**
  * Default implementation of
  * {@link org.kaaproject.kaa.server.common.dao.configuration.DefaultRecordGenerationAlgorithm}
- *
+ * <p>
+ * The default record of each type is generated once per schema and kept as a shared template. Every
+ * instance of the algorithm returns its own copies of the templates with newly generated uuid fields.
  */
 public class DefaultRecordGenerationAlgorithmImpl<U extends KaaSchema, T extends KaaData<U>> implements DefaultRecordGenerationAlgorithm<T> {
 
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(DefaultRecordGenerationAlgorithmImpl.class);
 
+    /** The maximum number of the schemas with cached templates. */
+    static final int MAX_TEMPLATE_SCHEMAS = 256;
+
+    /** The templates of the default records by schema and by record name. */
+    private static final ConcurrentMap<Schema, ConcurrentMap<String, GenericRecord>> TEMPLATES = new ConcurrentHashMap<>();
+
     /** The processed types. */
     private final Map<String, GenericRecord> processedTypes = new HashMap<>();
 
-    /** The avro schema parser. */
-    private final Schema.Parser avroSchemaParser;
+    /** The named types of the avro base schema. */
+    private final Map<String, Schema> avroSchemaTypes;
 
     /** The avro base schema. */
     private final Schema avroBaseSchema;
@@ -73,12 +87,12 @@ public class DefaultRecordGenerationAlgorithmImpl<U extends KaaSchema, T extends
      * @throws ConfigurationGenerationException the configuration processing exception
      */
     public DefaultRecordGenerationAlgorithmImpl(U kaaSchema, KaaDataFactory<U, T> factory) throws ConfigurationGenerationException {
-        LOG.debug("Generating default configuration for configuration schema: " + kaaSchema.getRawSchema());
+        LOG.debug("Generating default configuration for configuration schema: {}", kaaSchema.getRawSchema());
 
         this.rootSchema = kaaSchema;
         this.dataFactory = factory;
-        this.avroSchemaParser = new Schema.Parser();
-        this.avroBaseSchema = this.avroSchemaParser.parse(kaaSchema.getRawSchema());
+        this.avroBaseSchema = AvroSchemaCache.getSchema(kaaSchema.getRawSchema());
+        this.avroSchemaTypes = AvroSchemaCache.getNamedTypes(avroBaseSchema);
     }
 
 
@@ -199,7 +213,6 @@ public class DefaultRecordGenerationAlgorithmImpl<U extends KaaSchema, T extends
      */
     private Object processRecord(Schema schemaNode) throws ConfigurationGenerationException {
         GenericRecord result = new GenericData.Record(schemaNode);
-        processedTypes.put(schemaNode.getFullName(), result);
 
         // process each field
         List<Field> fields = schemaNode.getFields();
@@ -284,8 +297,11 @@ public class DefaultRecordGenerationAlgorithmImpl<U extends KaaSchema, T extends
     @Override
     public final T getRootData() throws IOException, ConfigurationGenerationException {
         GenericRecord root = getRootConfiguration();
-        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<>(root.getSchema());
+        GenericAvroConverter<GenericRecord> converter = AvroSchemaCache.getConverter(root.getSchema());
         try {
+            if (dataFactory instanceof BinaryKaaDataFactory) {
+                return ((BinaryKaaDataFactory<U, T>) dataFactory).createBinaryData(rootSchema, converter.encode(root));
+            }
             return dataFactory.createData(rootSchema, converter.encodeToJson(root));
         } catch (RuntimeException e) {
             // NPE is thrown if "null" was written into a field that is not nullable
@@ -303,10 +319,90 @@ public class DefaultRecordGenerationAlgorithmImpl<U extends KaaSchema, T extends
         if (processedTypes.containsKey(namespace + "." + name)) {
             return processedTypes.get(namespace + "." + name);
         }
-        Schema schema = avroSchemaParser.getTypes().get(namespace + "." + name);
-        if (schema != null) {
+        Schema schema = avroSchemaTypes.get(namespace + "." + name);
+        if (schema == null) {
+            return null;
+        }
+        if (schema.getType() != Type.RECORD) {
             return (GenericRecord) processType(schema, null);
         }
-        return null;
+        return copyRecord(getTemplate(schema));
+    }
+
+    /**
+     * Returns the shared template of the default record, generating it on the first use.
+     *
+     * @param schemaNode schema of the record.
+     * @return the template, must not be modified.
+     * @throws ConfigurationGenerationException configuration processing
+     * exception
+     */
+    private GenericRecord getTemplate(Schema schemaNode) throws ConfigurationGenerationException {
+        ConcurrentMap<String, GenericRecord> templates = TEMPLATES.get(avroBaseSchema);
+        if (templates == null) {
+            templates = new ConcurrentHashMap<>();
+            ConcurrentMap<String, GenericRecord> existing = BoundedCacheUtils.putIfAbsent(TEMPLATES,
+                    MAX_TEMPLATE_SCHEMAS, avroBaseSchema, templates);
+            if (existing != null) {
+                templates = existing;
+            }
+        }
+        GenericRecord template = templates.get(schemaNode.getFullName());
+        if (template == null) {
+            template = (GenericRecord) processRecord(schemaNode);
+            GenericRecord existing = templates.putIfAbsent(schemaNode.getFullName(), template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Copies the template of the default record and generates new uuid fields.
+     * The copied records are registered as processed types.
+     *
+     * @param template the template.
+     * @return the copy.
+     */
+    private GenericRecord copyRecord(GenericRecord template) {
+        Schema schemaNode = template.getSchema();
+        GenericRecord result = new GenericData.Record(schemaNode);
+        processedTypes.put(schemaNode.getFullName(), result);
+        for (Field field : schemaNode.getFields()) {
+            Object value = template.get(field.pos());
+            if (UUID_FIELD.equals(field.name())) {
+                value = new GenericData.Fixed(((GenericFixed) value).getSchema(), AvroUtils.generateUUIDBytes());
+            } else {
+                value = copyValue(value);
+            }
+            result.put(field.pos(), value);
+        }
+        return result;
+    }
+
+    /**
+     * Copies the mutable parts of the template value.
+     *
+     * @param template the template value.
+     * @return the copy.
+     */
+    private Object copyValue(Object template) {
+        if (template instanceof GenericRecord) {
+            return copyRecord((GenericRecord) template);
+        } else if (template instanceof GenericArray) {
+            return new GenericData.Array<>(0, ((GenericArray<?>) template).getSchema());
+        } else if (template instanceof GenericFixed) {
+            GenericFixed fixed = (GenericFixed) template;
+            return new GenericData.Fixed(fixed.getSchema(), fixed.bytes().clone());
+        } else if (template instanceof ByteBuffer) {
+            ByteBuffer source = ((ByteBuffer) template).duplicate();
+            ByteBuffer copy = ByteBuffer.allocate(source.remaining());
+            copy.put(source);
+            copy.flip();
+            return copy;
+        }
+        // strings, enum symbols and boxed primitives are immutable
+        return template;
     }
 }
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.override;
+
+import static org.kaaproject.kaa.server.common.core.algorithms.CommonConstants.UNCHANGED;
+import static org.kaaproject.kaa.server.common.core.algorithms.CommonConstants.UUID_FIELD;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericArray;
+import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.avro.generic.GenericRecord;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
+import org.kaaproject.kaa.common.avro.BoundedCacheUtils;
+import org.kaaproject.kaa.server.common.core.algorithms.generation.ConfigurationGenerationException;
+import org.kaaproject.kaa.server.common.core.algorithms.generation.DefaultRecordGenerationAlgorithm;
+import org.kaaproject.kaa.server.common.core.algorithms.generation.DefaultRecordGenerationAlgorithmImpl;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+import org.kaaproject.kaa.server.common.core.configuration.BaseDataFactory;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+
+/**
+ * Merge plan of the override data of one override schema into the base data of one base schema.
+ * <p>
+ * The plan is compiled once per pair of schemas: for each record of the override schema it keeps the
+ * matching record of the base schema, the positions of the fields in the base record, the array override
+ * strategies and the uuid fields, so that applying the override layers does not look up the schemas.
+ * Plans are immutable and shared by all the threads.
+ */
+final class OverridePlan {
+
+    static final int MAX_PLANS = 256;
+
+    private static final ConcurrentMap<PlanKey, OverridePlan> PLANS = new ConcurrentHashMap<>();
+
+    private final Map<String, RecordPlan> records = new HashMap<>();
+
+    private final ArrayOverrideStrategyResolver resolver;
+
+    private OverridePlan(Schema baseSchema, Schema overrideSchema) throws OverrideException {
+        Map<String, Schema> baseTypes = AvroSchemaCache.getNamedTypes(baseSchema);
+        try {
+            resolver = new ArrayOverrideStrategyResolver(baseTypes);
+        } catch (IOException e) {
+            throw new OverrideException(e);
+        }
+        for (Schema type : AvroSchemaCache.getNamedTypes(overrideSchema).values()) {
+            if (type.getType() == Schema.Type.RECORD) {
+                records.put(type.getFullName(), new RecordPlan(type, baseTypes.get(type.getFullName()), resolver));
+            }
+        }
+    }
+
+    /**
+     * Returns the shared plan for the pair of schemas, compiling it on the first use.
+     *
+     * @param baseSchema the base schema
+     * @param overrideSchema the override schema
+     * @return the plan
+     * @throws OverrideException the override exception
+     */
+    static OverridePlan forSchemas(Schema baseSchema, Schema overrideSchema) throws OverrideException {
+        PlanKey key = new PlanKey(baseSchema, overrideSchema);
+        OverridePlan plan = PLANS.get(key);
+        if (plan == null) {
+            plan = new OverridePlan(baseSchema, overrideSchema);
+            OverridePlan existing = BoundedCacheUtils.putIfAbsent(PLANS, MAX_PLANS, key, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Applies the override layers to the base data in their order.
+     *
+     * @param baseSchema the schema of the base data, used to generate the default values of the
+     *            unchanged fields that are empty in the base data
+     * @param destination the base data, modified in place
+     * @param layers the override data
+     * @throws OverrideException the override exception
+     * @throws ConfigurationGenerationException the configuration generation exception
+     */
+    void apply(BaseSchema baseSchema, GenericRecord destination, List<GenericRecord> layers)
+            throws OverrideException, ConfigurationGenerationException {
+        Merge merge = new Merge(baseSchema);
+        for (GenericRecord layer : layers) {
+            merge.applyRecord(destination, layer);
+        }
+    }
+
+    private RecordPlan getRecordPlan(Schema overrideRecordSchema) throws OverrideException {
+        RecordPlan plan = records.get(overrideRecordSchema.getFullName());
+        if (plan == null) {
+            throw new OverrideException("Failed to find override Schema with name " + overrideRecordSchema.getFullName());
+        }
+        return plan;
+    }
+
+    /**
+     * The state of one application of the plan.
+     */
+    private final class Merge {
+
+        private final BaseSchema baseSchema;
+
+        private DefaultRecordGenerationAlgorithm<BaseData> defaults;
+
+        private Merge(BaseSchema baseSchema) {
+            this.baseSchema = baseSchema;
+        }
+
+        private DefaultRecordGenerationAlgorithm<BaseData> getDefaults() throws ConfigurationGenerationException {
+            if (defaults == null) {
+                defaults = new DefaultRecordGenerationAlgorithmImpl<>(baseSchema, new BaseDataFactory());
+            }
+            return defaults;
+        }
+
+        private void applyRecord(GenericRecord destinationRoot, GenericRecord sourceRoot)
+                throws OverrideException, ConfigurationGenerationException {
+            RecordPlan plan = getRecordPlan(sourceRoot.getSchema());
+
+            for (FieldPlan field : plan.fields) {
+                Object sourceChild = sourceRoot.get(field.sourcePos);
+
+                // If the field's value is "unchanged" and this field is empty
+                // in destination data we should generate the default value for it
+                if (sourceChild instanceof GenericEnumSymbol && UNCHANGED.equals(sourceChild.toString())) {
+                    if (destinationRoot.get(field.pos) == null) {
+                        GenericRecord defRec = getDefaults().getConfigurationByName(plan.name, plan.namespace);
+                        destinationRoot.put(field.pos, defRec.get(field.pos));
+                    }
+                    continue;
+                }
+
+                Object destinationChild = destinationRoot.get(field.pos);
+                if (sourceChild instanceof GenericRecord) {
+                    GenericRecord sourceRecord = (GenericRecord) sourceChild;
+                    RecordPlan childPlan = getRecordPlan(sourceRecord.getSchema());
+                    GenericRecord destinationRecord = null;
+                    if (destinationChild instanceof GenericRecord
+                            && ((GenericRecord) destinationChild).getSchema().getFullName().equals(childPlan.fullName)) {
+                        destinationRecord = (GenericRecord) destinationChild;
+                    }
+                    if (destinationRecord == null) {
+                        destinationRecord = new GenericData.Record(childPlan.baseSchema);
+                        destinationRoot.put(field.pos, destinationRecord);
+                    }
+                    applyRecord(destinationRecord, sourceRecord);
+                } else if (sourceChild instanceof GenericArray) {
+                    applyArray(destinationRoot, destinationChild, (GenericArray<?>) sourceChild, plan, field);
+                } else if (!field.uuid || destinationChild == null) {
+                    // simple node is just copied to destination node
+                    destinationRoot.put(field.pos, sourceChild);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void applyArray(GenericRecord destinationRoot, Object destinationChild, GenericArray<?> sourceArray,
+                RecordPlan plan, FieldPlan field) throws OverrideException, ConfigurationGenerationException {
+            ArrayOverrideStrategy mergeStrategy = ArrayOverrideStrategy.REPLACE;
+            if (!sourceArray.isEmpty() && destinationChild instanceof GenericArray) {
+                GenericArray<?> destArray = (GenericArray<?>) destinationChild;
+                // Checking if first elements have same type
+                if (!destArray.isEmpty() && isSameType(destArray.get(0), sourceArray.get(0))) {
+                    mergeStrategy = field.arrayStrategy != null
+                            ? field.arrayStrategy
+                            : resolver.resolve(plan.name, plan.namespace, field.name);
+                }
+            }
+
+            boolean records = sourceArray.getSchema().getElementType().getType() == Schema.Type.RECORD;
+            GenericArray<Object> destArray;
+            switch (mergeStrategy) {
+                case REPLACE:
+                    if (!records) {
+                        destinationRoot.put(field.pos, sourceArray);
+                        return;
+                    }
+                    destArray = new GenericData.Array<>(sourceArray.size(), sourceArray.getSchema());
+                    destinationRoot.put(field.pos, destArray);
+                    break;
+                case APPEND:
+                    destArray = (GenericArray<Object>) destinationChild;
+                    if (!records) {
+                        destArray.addAll(sourceArray);
+                        return;
+                    }
+                    break;
+                default:
+                    return;
+            }
+            for (Object item : sourceArray) {
+                GenericRecord recordItem = (GenericRecord) item;
+                GenericRecord destRecord = new GenericData.Record(getRecordPlan(recordItem.getSchema()).baseSchema);
+                applyRecord(destRecord, recordItem);
+                destArray.add(destRecord);
+            }
+        }
+
+        private boolean isSameType(Object destination, Object source) {
+            if (destination.getClass() != source.getClass()) {
+                return false;
+            }
+            if (destination instanceof GenericContainer) {
+                return ((GenericContainer) destination).getSchema().getFullName()
+                        .equals(((GenericContainer) source).getSchema().getFullName());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The compiled record of the override schema.
+     */
+    private static final class RecordPlan {
+
+        private final String fullName;
+        private final String name;
+        private final String namespace;
+
+        /** The record of the base schema with the same name. */
+        private final Schema baseSchema;
+
+        private final FieldPlan[] fields;
+
+        private RecordPlan(Schema overrideSchema, Schema baseSchema, ArrayOverrideStrategyResolver resolver) {
+            this.fullName = overrideSchema.getFullName();
+            this.name = overrideSchema.getName();
+            this.namespace = overrideSchema.getNamespace();
+            this.baseSchema = baseSchema;
+            List<Schema.Field> overrideFields = overrideSchema.getFields();
+            this.fields = new FieldPlan[overrideFields.size()];
+            for (int i = 0; i < fields.length; i++) {
+                Schema.Field field = overrideFields.get(i);
+                Schema.Field baseField = baseSchema != null ? baseSchema.getField(field.name()) : null;
+                ArrayOverrideStrategy arrayStrategy = null;
+                if (baseSchema != null) {
+                    try {
+                        arrayStrategy = resolver.resolve(name, namespace, field.name());
+                    } catch (OverrideException e) {
+                        // resolved again when the field is applied
+                    }
+                }
+                fields[i] = new FieldPlan(field, baseField != null ? baseField.pos() : field.pos(), arrayStrategy);
+            }
+        }
+    }
+
+    /**
+     * The compiled field of an override record.
+     */
+    private static final class FieldPlan {
+
+        private final String name;
+
+        /** The position of the field in the override record. */
+        private final int sourcePos;
+
+        /** The position of the field in the base record. */
+        private final int pos;
+
+        private final boolean uuid;
+
+        private final ArrayOverrideStrategy arrayStrategy;
+
+        private FieldPlan(Schema.Field field, int pos, ArrayOverrideStrategy arrayStrategy) {
+            this.name = field.name();
+            this.sourcePos = field.pos();
+            this.pos = pos;
+            this.uuid = UUID_FIELD.equals(field.name());
+            this.arrayStrategy = arrayStrategy;
+        }
+    }
+
+    /**
+     * The pair of the base and the override schemas.
+     */
+    private static final class PlanKey {
+
+        private final Schema baseSchema;
+        private final Schema overrideSchema;
+
+        private PlanKey(Schema baseSchema, Schema overrideSchema) {
+            this.baseSchema = baseSchema;
+            this.overrideSchema = overrideSchema;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * baseSchema.hashCode() + overrideSchema.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            PlanKey other = (PlanKey) obj;
+            return baseSchema.equals(other.baseSchema) && overrideSchema.equals(other.overrideSchema);
+        }
+    }
+}
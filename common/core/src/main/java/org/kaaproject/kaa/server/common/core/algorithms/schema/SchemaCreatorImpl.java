@@ -36,6 +36,7 @@ import java.util.Set;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.Schema.Type;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
 import org.kaaproject.kaa.server.common.core.algorithms.AvroUtils;
 import org.kaaproject.kaa.server.common.core.schema.DataSchema;
 import org.kaaproject.kaa.server.common.core.schema.KaaSchema;
@@ -257,7 +258,7 @@ public class SchemaCreatorImpl<T extends KaaSchema> implements SchemaCreator<T>
     public T createSchema(DataSchema configSchema) throws SchemaCreationException {
         addressableRecords.clear();
         processedRecords.clear();
-        Schema avroSchema = new Schema.Parser().parse(configSchema.getRawSchema());
+        Schema avroSchema = AvroSchemaCache.getSchema(configSchema.getRawSchema());
         rootSchemaName = avroSchema.getFullName();
         Schema resultSchema = convert(avroSchema);
         return strategy.createSchema(strategy.onSchemaProcessed(resultSchema, addressableRecords));
@@ -18,10 +18,13 @@ package org.kaaproject.kaa.server.common.core.algorithms.schema;
 
 import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
 import org.kaaproject.kaa.server.common.core.schema.DataSchema;
-import org.kaaproject.kaa.server.common.core.schema.KaaSchema;
 import org.kaaproject.kaa.server.common.core.schema.OverrideSchema;
 import org.kaaproject.kaa.server.common.core.schema.ProtocolSchema;
 
+/**
+ * Default implementation of {@link SchemaGenerationAlgorithm}. The schemas are taken from the
+ * {@link SchemaGenerationCache}.
+ */
 public class SchemaGenerationAlgorithmImpl implements SchemaGenerationAlgorithm{
 
     private final DataSchema initialSchema;
@@ -30,10 +33,6 @@ public class SchemaGenerationAlgorithmImpl implements SchemaGenerationAlgorithm{
     private OverrideSchema overrideSchema;
     private ProtocolSchema protocolSchema;
 
-    private <T extends KaaSchema> SchemaCreator<T> getSchemaCreator(SchemaCreationStrategy<T> strategy) {
-        return new SchemaCreatorImpl<T>(strategy);
-    }
-
     public SchemaGenerationAlgorithmImpl(DataSchema schema) {
         this.initialSchema = schema;
     }
@@ -41,7 +40,7 @@ public class SchemaGenerationAlgorithmImpl implements SchemaGenerationAlgorithm{
     @Override
     public BaseSchema getBaseSchema() throws SchemaCreationException {
         if (baseSchema == null) {
-            baseSchema = getSchemaCreator(new BaseDataSchemaStrategy()).createSchema(initialSchema);
+            baseSchema = SchemaGenerationCache.getSchema(initialSchema, new BaseDataSchemaStrategy());
         }
         return baseSchema;
     }
@@ -49,7 +48,7 @@ public class SchemaGenerationAlgorithmImpl implements SchemaGenerationAlgorithm{
     @Override
     public OverrideSchema getOverrideSchema() throws SchemaCreationException {
         if (overrideSchema == null) {
-            overrideSchema = getSchemaCreator(new OverrideDataSchemaStrategy()).createSchema(initialSchema);
+            overrideSchema = SchemaGenerationCache.getSchema(initialSchema, new OverrideDataSchemaStrategy());
         }
         return overrideSchema;
     }
@@ -57,7 +56,7 @@ public class SchemaGenerationAlgorithmImpl implements SchemaGenerationAlgorithm{
     @Override
     public ProtocolSchema getProtocolSchema() throws SchemaCreationException {
         if (protocolSchema == null) {
-            protocolSchema = getSchemaCreator(new ProtocolSchemaStrategy()).createSchema(initialSchema);
+            protocolSchema = SchemaGenerationCache.getSchema(initialSchema, new ProtocolSchemaStrategy());
         }
         return protocolSchema;
     }
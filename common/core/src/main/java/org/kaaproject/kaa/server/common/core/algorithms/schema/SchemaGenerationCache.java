@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.schema;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
+import org.kaaproject.kaa.common.avro.BoundedCacheUtils;
+import org.kaaproject.kaa.server.common.core.schema.DataSchema;
+import org.kaaproject.kaa.server.common.core.schema.KaaSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide cache of the schemas generated from the data schemas.
+ * <p>
+ * The generated schemas are looked up by the source of the data schema and by the class of the
+ * {@link SchemaCreationStrategy strategy}. The parsed schema is not used as the key, because its
+ * equality ignores the documentation that is copied to the generated schemas.
+ * <p>
+ * The generated schemas are also parsed into the {@link AvroSchemaCache}, so the algorithms that use
+ * them share the parsed instances. The cache is bounded, an arbitrary part of the entries is dropped
+ * when it is full.
+ */
+public final class SchemaGenerationCache {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaGenerationCache.class);
+
+    static final int MAX_ENTRIES = 1024;
+
+    private static final ConcurrentMap<CacheKey, KaaSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private SchemaGenerationCache() {
+    }
+
+    /**
+     * Returns the schema generated from the data schema by the strategy, generating it on the first use.
+     *
+     * @param dataSchema the data schema
+     * @param strategy the schema creation strategy
+     * @return the shared generated schema
+     * @throws SchemaCreationException the schema creation exception
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends KaaSchema> T getSchema(DataSchema dataSchema, SchemaCreationStrategy<T> strategy)
+            throws SchemaCreationException {
+        CacheKey key = new CacheKey(dataSchema.getRawSchema(), strategy.getClass());
+        T schema = (T) SCHEMAS.get(key);
+        if (schema == null) {
+            schema = new SchemaCreatorImpl<T>(strategy).createSchema(dataSchema);
+            AvroSchemaCache.getSchema(schema.getRawSchema());
+            T existing = (T) BoundedCacheUtils.putIfAbsent(SCHEMAS, MAX_ENTRIES, key, schema);
+            if (existing != null) {
+                schema = existing;
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Generates the base, override and protocol schemas of the data schemas in advance. The data schemas
+     * that fail to be processed are logged and skipped.
+     *
+     * @param dataSchemas the data schemas, e.g. all the known versions of the configuration schemas
+     * @return the number of the data schemas processed successfully
+     */
+    public static int warmUp(Collection<DataSchema> dataSchemas) {
+        int processed = 0;
+        for (DataSchema dataSchema : dataSchemas) {
+            try {
+                getSchema(dataSchema, new BaseDataSchemaStrategy());
+                getSchema(dataSchema, new OverrideDataSchemaStrategy());
+                getSchema(dataSchema, new ProtocolSchemaStrategy());
+                processed++;
+            } catch (SchemaCreationException | RuntimeException e) {
+                LOG.warn("Failed to generate schemas for data schema {}", dataSchema, e);
+            }
+        }
+        return processed;
+    }
+
+    static int size() {
+        return SCHEMAS.size();
+    }
+
+    static void clear() {
+        SCHEMAS.clear();
+    }
+
+    /**
+     * The pair of the data schema source and the strategy class.
+     */
+    private static final class CacheKey {
+
+        private final String dataSchema;
+        private final Class<?> strategyClass;
+
+        private CacheKey(String dataSchema, Class<?> strategyClass) {
+            this.dataSchema = dataSchema;
+            this.strategyClass = strategyClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * dataSchema.hashCode() + strategyClass.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return dataSchema.equals(other.dataSchema) && strategyClass == other.strategyClass;
+        }
+    }
+}
@@ -19,8 +19,10 @@ package org.kaaproject.kaa.server.common.core.algorithms.validator;
 import static org.kaaproject.kaa.server.common.core.algorithms.CommonConstants.UUID_FIELD;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.avro.Schema;
@@ -28,8 +30,11 @@ import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericFixed;
 import org.apache.avro.generic.GenericRecord;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
 import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.kaaproject.kaa.server.common.core.algorithms.AvroUtils;
+import org.kaaproject.kaa.server.common.core.configuration.AbstractKaaData;
+import org.kaaproject.kaa.server.common.core.configuration.BinaryKaaDataFactory;
 import org.kaaproject.kaa.server.common.core.configuration.KaaData;
 import org.kaaproject.kaa.server.common.core.configuration.KaaDataFactory;
 import org.kaaproject.kaa.server.common.core.schema.KaaSchema;
@@ -47,6 +52,9 @@ public class DefaultUuidValidator<U extends KaaSchema, T extends KaaData> implem
 
     private final Set<GenericFixed> processedUuids = new HashSet<>();
 
+    /** Records of the previous configuration by uuid, indexed on the first lookup. */
+    private Map<Object, GenericRecord> previousRecordsByUuid;
+
     public DefaultUuidValidator(U schema, KaaDataFactory<U, T> factory) {
         this.schema = schema;
         this.dataFactory = factory;
@@ -60,40 +68,45 @@ public class DefaultUuidValidator<U extends KaaSchema, T extends KaaData> implem
         return false;
     }
 
-    @SuppressWarnings({"rawtypes"})
-    private static GenericRecord findRecordByUuid(GenericRecord rootRecord, Object uuid) {
+    private GenericRecord findRecordByUuid(GenericRecord rootRecord, Object uuid) {
         if (rootRecord != null && uuid != null) {
-            if (isRecordHaveUuid(rootRecord)) {
-                Object uuidValue = rootRecord.get(UUID_FIELD);
-                if (uuid.equals(uuidValue)) {
-                    return rootRecord;
-                }
+            if (previousRecordsByUuid == null) {
+                previousRecordsByUuid = new HashMap<>();
+                indexRecordsByUuid(rootRecord, previousRecordsByUuid);
             }
-            List<Schema.Field> fields = rootRecord.getSchema().getFields();
-            if (fields != null && !fields.isEmpty()) {
-                for (Schema.Field field : fields) {
-                    int position = field.pos();
-                    Object value = rootRecord.get(position);
-                    if (value instanceof GenericRecord) {
-                        GenericRecord record = (GenericRecord) value;
-                        return findRecordByUuid(record, uuid);
-                    } else if (value instanceof GenericArray) {
-                        GenericArray array = (GenericArray) value;
-                        if (array != null) {
-                            for (Object item : array) {
-                                if (item instanceof GenericRecord) {
-                                    GenericRecord result = findRecordByUuid((GenericRecord) item, uuid);
-                                    if (result != null) {
-                                        return result;
-                                    }
-                                }
-                            }
+            return previousRecordsByUuid.get(uuid);
+        }
+        return null;
+    }
+
+    /**
+     * Indexes the records by uuid in the order they were searched for one by one, so the first found
+     * record is kept for a duplicate uuid. The search does not go past the first record field of a record.
+     */
+    @SuppressWarnings({"rawtypes"})
+    private static void indexRecordsByUuid(GenericRecord record, Map<Object, GenericRecord> index) {
+        if (isRecordHaveUuid(record)) {
+            Object uuidValue = record.get(UUID_FIELD);
+            if (uuidValue != null && !index.containsKey(uuidValue)) {
+                index.put(uuidValue, record);
+            }
+        }
+        List<Schema.Field> fields = record.getSchema().getFields();
+        if (fields != null && !fields.isEmpty()) {
+            for (Schema.Field field : fields) {
+                Object value = record.get(field.pos());
+                if (value instanceof GenericRecord) {
+                    indexRecordsByUuid((GenericRecord) value, index);
+                    return;
+                } else if (value instanceof GenericArray) {
+                    for (Object item : (GenericArray) value) {
+                        if (item instanceof GenericRecord) {
+                            indexRecordsByUuid((GenericRecord) item, index);
                         }
                     }
                 }
             }
         }
-        return null;
     }
 
     private void generateUuidForRecord(GenericRecord record) {
@@ -210,19 +223,20 @@ public class DefaultUuidValidator<U extends KaaSchema, T extends KaaData> implem
     @Override
     public T validateUuidFields(T configurationToValidate, T previousConfiguration) throws IOException {
         processedUuids.clear();
-        String config = null;
-        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<>(schema.getRawSchema());
-        GenericRecord currentRecord = converter.decodeJson(configurationToValidate.getRawData());
+        previousRecordsByUuid = null;
+        byte[] config = null;
+        GenericAvroConverter<GenericRecord> converter = AvroSchemaCache.getConverter(schema.getRawSchema());
+        GenericRecord currentRecord = decode(configurationToValidate, converter);
         GenericRecord previousRecord = null;
         if (previousConfiguration != null) {
-            previousRecord = converter.decodeJson(previousConfiguration.getRawData());
+            previousRecord = decode(previousConfiguration, converter);
         }
         validateRecord(currentRecord, previousRecord, previousRecord);
         if(currentRecord != null) {
-            config = converter.encodeToJson(currentRecord);
+            config = converter.encode(currentRecord);
         }
         LOG.trace("Generated uuid fields for records {}", currentRecord);
-        return dataFactory.createData(schema, config);
+        return createData(config);
     }
 
     /* (non-Javadoc)
@@ -231,14 +245,30 @@ public class DefaultUuidValidator<U extends KaaSchema, T extends KaaData> implem
     @Override
     public T validateUuidFields(GenericRecord configurationToValidate, GenericRecord previousConfiguration) throws IOException {
         processedUuids.clear();
-        String config = null;
-        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<>(schema.getRawSchema());
+        previousRecordsByUuid = null;
+        byte[] config = null;
+        GenericAvroConverter<GenericRecord> converter = AvroSchemaCache.getConverter(schema.getRawSchema());
         validateRecord(configurationToValidate, previousConfiguration, previousConfiguration);
         if(configurationToValidate != null) {
-            config = converter.encodeToJson(configurationToValidate);
+            config = converter.encode(configurationToValidate);
         }
         LOG.trace("Generated uuid fields for records {}", configurationToValidate);
-        return dataFactory.createData(schema, config);
+        return createData(config);
+    }
+
+    private GenericRecord decode(T data, GenericAvroConverter<GenericRecord> converter) throws IOException {
+        if (data instanceof AbstractKaaData) {
+            return ((AbstractKaaData<?>) data).decode(converter);
+        }
+        return converter.decodeJson(data.getRawData());
+    }
+
+    private T createData(byte[] binaryData) {
+        if (dataFactory instanceof BinaryKaaDataFactory) {
+            return ((BinaryKaaDataFactory<U, T>) dataFactory).createBinaryData(schema, binaryData);
+        }
+        String data = binaryData != null ? GenericAvroConverter.toJson(binaryData, schema.getRawSchema()) : null;
+        return dataFactory.createData(schema, data);
     }
 
 }
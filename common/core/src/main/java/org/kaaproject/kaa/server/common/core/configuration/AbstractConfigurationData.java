@@ -26,4 +26,8 @@ public abstract class AbstractConfigurationData<T extends KaaSchema> extends Abs
         super(schema, data);
     }
 
+    protected AbstractConfigurationData(T schema, String data, byte[] binaryData) {
+        super(schema, data, binaryData);
+    }
+
 }
@@ -16,18 +16,49 @@
 
 package org.kaaproject.kaa.server.common.core.configuration;
 
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericRecord;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
 import org.kaaproject.kaa.server.common.core.schema.KaaSchema;
 
+/**
+ * Data held either as JSON or in the Avro binary form. The other form is converted lazily on the first
+ * request, so the data produced and consumed by the algorithms stays binary and is converted to JSON only
+ * when it is needed as JSON.
+ * <p>
+ * The data is compared by its binary form, so the JSON documents that differ only in formatting are equal.
+ * The form to compare JSON by is converted once, and JSON that is not valid for the schema is compared
+ * as it is.
+ */
 public abstract class AbstractKaaData<T extends KaaSchema> implements KaaData<T> {
 
-    private static final long serialVersionUID = -2634202801757181444L;
+    private static final long serialVersionUID = 4017405837262951634L;
+
+    private static final byte[] NOT_COMPARABLE = new byte[0];
 
     protected final T schema;
+
+    /** The JSON the data was created with, null if the data was created in the binary form. */
     protected final String data;
 
+    private final byte[] binaryData;
+
+    private transient volatile String convertedData;
+    private transient volatile byte[] convertedBinaryData;
+    private transient volatile byte[] comparableData;
+
     public AbstractKaaData(T schema, String data){
+        this(schema, data, null);
+    }
+
+    protected AbstractKaaData(T schema, String data, byte[] binaryData){
         this.schema = schema;
         this.data = data;
+        this.binaryData = binaryData;
     }
 
     @Override
@@ -37,14 +68,93 @@ public abstract class AbstractKaaData<T extends KaaSchema> implements KaaData<T>
 
     @Override
     public String getRawData() {
-        return data;
+        if (data != null || binaryData == null) {
+            return data;
+        }
+        String json = convertedData;
+        if (json == null) {
+            json = GenericAvroConverter.toJson(binaryData, schema.getRawSchema());
+            convertedData = json;
+        }
+        return json;
+    }
+
+    /**
+     * Returns the data in the Avro binary form, converting it from JSON on the first call.
+     *
+     * @return the binary data, must not be modified
+     */
+    public byte[] getBinaryData() {
+        if (binaryData != null || data == null) {
+            return binaryData;
+        }
+        byte[] binary = convertedBinaryData;
+        if (binary == null) {
+            binary = GenericAvroConverter.toRawData(data, schema.getRawSchema());
+            convertedBinaryData = binary;
+        }
+        return binary;
+    }
+
+    /**
+     * Checks whether the data was created in the Avro binary form rather than as JSON.
+     *
+     * @return true if the data was created in the Avro binary form
+     */
+    public boolean isBinary() {
+        return binaryData != null;
+    }
+
+    /**
+     * Decodes the data from the Avro binary form if the data was created in it, or from JSON otherwise.
+     *
+     * @param converter the converter for the schema of the data
+     * @return the new record
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public GenericRecord decode(GenericAvroConverter<GenericRecord> converter) throws IOException {
+        if (binaryData != null) {
+            return converter.decodeBinary(binaryData);
+        }
+        return converter.decodeJson(data);
+    }
+
+    /**
+     * Returns the binary form to compare the data by, or null if the data is absent or is not valid for
+     * the schema. Such data is compared by its JSON. Unlike {@link #getBinaryData()}, a failed conversion
+     * is remembered and not logged.
+     */
+    private byte[] getComparableData() {
+        if (binaryData != null || data == null) {
+            return binaryData;
+        }
+        byte[] comparable = comparableData;
+        if (comparable == null) {
+            comparable = convertedBinaryData;
+            if (comparable == null) {
+                try {
+                    GenericAvroConverter<GenericContainer> converter = AvroSchemaCache.getConverter(schema.getRawSchema());
+                    comparable = converter.encode(converter.decodeJson(data));
+                    convertedBinaryData = comparable;
+                } catch (IOException | RuntimeException e) {
+                    comparable = NOT_COMPARABLE;
+                }
+            }
+            comparableData = comparable;
+        }
+        return comparable != NOT_COMPARABLE ? comparable : null;
     }
 
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((data == null) ? 0 : data.hashCode());
+        byte[] binary = getComparableData();
+        if (binary != null) {
+            result = prime * result + Arrays.hashCode(binary);
+        } else {
+            result = prime * result + ((data == null) ? 0 : data.hashCode());
+        }
         return result;
     }
 
@@ -60,6 +170,11 @@ public abstract class AbstractKaaData<T extends KaaSchema> implements KaaData<T>
             return false;
         }
         AbstractKaaData<T> other = (AbstractKaaData<T>) obj;
+        byte[] binary = getComparableData();
+        byte[] otherBinary = other.getComparableData();
+        if (binary != null || otherBinary != null) {
+            return Arrays.equals(binary, otherBinary);
+        }
         if (data == null) {
             if (other.data != null) {
                 return false;
@@ -72,7 +187,7 @@ public abstract class AbstractKaaData<T extends KaaSchema> implements KaaData<T>
 
     @Override
     public String toString() {
-        return "AbstractKaaData [data=" + data + "]";
+        return "AbstractKaaData [data=" + getRawData() + "]";
     }
 
 }
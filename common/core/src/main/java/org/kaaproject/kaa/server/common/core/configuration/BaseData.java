@@ -26,4 +26,12 @@ public class BaseData extends AbstractConfigurationData<BaseSchema>{
         super(schema, data);
     }
 
+    protected BaseData(BaseSchema schema, String data, byte[] binaryData) {
+        super(schema, data, binaryData);
+    }
+
+    public static BaseData fromBinary(BaseSchema schema, byte[] binaryData) {
+        return new BaseData(schema, null, binaryData);
+    }
+
 }
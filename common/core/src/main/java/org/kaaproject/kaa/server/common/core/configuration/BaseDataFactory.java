@@ -18,13 +18,18 @@ package org.kaaproject.kaa.server.common.core.configuration;
 
 import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
 
-public class BaseDataFactory implements KaaDataFactory<BaseSchema, BaseData> {
+public class BaseDataFactory implements BinaryKaaDataFactory<BaseSchema, BaseData> {
 
     @Override
     public BaseData createData(BaseSchema schema, String data) {
         return new BaseData(schema, data);
     }
 
+    @Override
+    public BaseData createBinaryData(BaseSchema schema, byte[] binaryData) {
+        return BaseData.fromBinary(schema, binaryData);
+    }
+
 
 
 }
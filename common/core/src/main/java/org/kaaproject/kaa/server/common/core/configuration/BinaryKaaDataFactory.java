@@ -0,0 +1,29 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.configuration;
+
+import org.kaaproject.kaa.server.common.core.schema.KaaSchema;
+
+/**
+ * The factory that also creates the data from the Avro binary form, so the data does not have to be
+ * converted to JSON.
+ */
+public interface BinaryKaaDataFactory<U extends KaaSchema, T extends KaaData> extends KaaDataFactory<U, T> {
+
+    T createBinaryData(U schema, byte[] binaryData);
+
+}
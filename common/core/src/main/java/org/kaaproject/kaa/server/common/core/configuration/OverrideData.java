@@ -26,4 +26,12 @@ public class OverrideData extends AbstractConfigurationData<OverrideSchema> {
         super(schema, data);
     }
 
+    protected OverrideData(OverrideSchema schema, String data, byte[] binaryData) {
+        super(schema, data, binaryData);
+    }
+
+    public static OverrideData fromBinary(OverrideSchema schema, byte[] binaryData) {
+        return new OverrideData(schema, null, binaryData);
+    }
+
 }
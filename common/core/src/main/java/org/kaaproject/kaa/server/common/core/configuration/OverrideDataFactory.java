@@ -18,11 +18,16 @@ package org.kaaproject.kaa.server.common.core.configuration;
 
 import org.kaaproject.kaa.server.common.core.schema.OverrideSchema;
 
-public class OverrideDataFactory implements KaaDataFactory<OverrideSchema, OverrideData> {
+public class OverrideDataFactory implements BinaryKaaDataFactory<OverrideSchema, OverrideData> {
 
     @Override
     public OverrideData createData(OverrideSchema schema, String data) {
         return new OverrideData(schema, data);
     }
 
+    @Override
+    public OverrideData createBinaryData(OverrideSchema schema, byte[] binaryData) {
+        return OverrideData.fromBinary(schema, binaryData);
+    }
+
 }
@@ -26,4 +26,12 @@ public class ProfileData extends AbstractKaaData<DataSchema> {
         super(schema, data);
     }
 
+    protected ProfileData(DataSchema schema, String data, byte[] binaryData) {
+        super(schema, data, binaryData);
+    }
+
+    public static ProfileData fromBinary(DataSchema schema, byte[] binaryData) {
+        return new ProfileData(schema, null, binaryData);
+    }
+
 }
@@ -18,11 +18,16 @@ package org.kaaproject.kaa.server.common.core.configuration;
 
 import org.kaaproject.kaa.server.common.core.schema.DataSchema;
 
-public class ProfileDataFactory implements KaaDataFactory<DataSchema, ProfileData> {
+public class ProfileDataFactory implements BinaryKaaDataFactory<DataSchema, ProfileData> {
 
     @Override
     public ProfileData createData(DataSchema schema, String data) {
         return new ProfileData(schema, data);
     }
 
+    @Override
+    public ProfileData createBinaryData(DataSchema schema, byte[] binaryData) {
+        return ProfileData.fromBinary(schema, binaryData);
+    }
+
 }
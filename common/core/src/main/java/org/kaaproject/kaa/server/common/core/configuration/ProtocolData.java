@@ -26,5 +26,13 @@ public class ProtocolData extends AbstractConfigurationData<ProtocolSchema>{
         super(schema, data);
     }
 
+    protected ProtocolData(ProtocolSchema schema, String data, byte[] binaryData) {
+        super(schema, data, binaryData);
+    }
+
+    public static ProtocolData fromBinary(ProtocolSchema schema, byte[] binaryData) {
+        return new ProtocolData(schema, null, binaryData);
+    }
+
 
 }
@@ -18,11 +18,16 @@ package org.kaaproject.kaa.server.common.core.configuration;
 
 import org.kaaproject.kaa.server.common.core.schema.ProtocolSchema;
 
-public class ProtocolDataFactory implements KaaDataFactory<ProtocolSchema, ProtocolData> {
+public class ProtocolDataFactory implements BinaryKaaDataFactory<ProtocolSchema, ProtocolData> {
 
     @Override
     public ProtocolData createData(ProtocolSchema schema, String data) {
         return new ProtocolData(schema, data);
     }
 
+    @Override
+    public ProtocolData createBinaryData(ProtocolSchema schema, byte[] binaryData) {
+        return ProtocolData.fromBinary(schema, binaryData);
+    }
+
 }
@@ -26,4 +26,12 @@ public class RawData extends AbstractKaaData<RawSchema> {
         super(schema, data);
     }
 
+    protected RawData(RawSchema schema, String data, byte[] binaryData) {
+        super(schema, data, binaryData);
+    }
+
+    public static RawData fromBinary(RawSchema schema, byte[] binaryData) {
+        return new RawData(schema, null, binaryData);
+    }
+
 }
@@ -18,13 +18,18 @@ package org.kaaproject.kaa.server.common.core.configuration;
 
 import org.kaaproject.kaa.server.common.core.schema.RawSchema;
 
-public class RawDataFactory implements KaaDataFactory<RawSchema, RawData> {
+public class RawDataFactory implements BinaryKaaDataFactory<RawSchema, RawData> {
 
     @Override
     public RawData createData(RawSchema schema, String data) {
         return new RawData(schema, data);
     }
 
+    @Override
+    public RawData createBinaryData(RawSchema schema, byte[] binaryData) {
+        return RawData.fromBinary(schema, binaryData);
+    }
+
 
 
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.delta;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+import org.kaaproject.kaa.server.common.core.schema.ProtocolSchema;
+
+public class BatchDeltaCalculatorTest {
+
+    @Test
+    public void testBatchMatchesSingleCalculations() throws Exception {
+        BaseSchema baseSchema = new BaseSchema(read(DefaultDeltaCalculatorTest.COMPLEX_SCHEMA));
+        ProtocolSchema protocolSchema = new ProtocolSchema(read(DefaultDeltaCalculatorTest.COMPLEX_PROTOCOL_SCHEMA));
+        BaseData oldData = new BaseData(baseSchema, read(DefaultDeltaCalculatorTest.OLD_COMPLEX_CONFIG));
+        BaseData sameOldData = new BaseData(baseSchema, read(DefaultDeltaCalculatorTest.OLD_COMPLEX_CONFIG));
+        BaseData newData = new BaseData(baseSchema, read(DefaultDeltaCalculatorTest.NEW_COMPLEX_CONFIG));
+        BaseData binaryOldData = BaseData.fromBinary(baseSchema, oldData.getBinaryData());
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BatchDeltaCalculator batchCalculator = new BatchDeltaCalculator(protocolSchema, baseSchema, pool);
+            List<RawBinaryDelta> deltas = batchCalculator.calculate(
+                    Arrays.asList(oldData, newData, null, sameOldData, binaryOldData), newData);
+            assertEquals(5, deltas.size());
+
+            DeltaCalculationAlgorithm calculator = new DefaultDeltaCalculatorFactory()
+                    .createDeltaCalculator(protocolSchema, baseSchema);
+            assertArrayEquals(calculator.calculate(oldData, newData).getData(), deltas.get(0).getData());
+            assertFalse(deltas.get(1).hasChanges());
+            assertArrayEquals(calculator.calculate(newData).getData(), deltas.get(2).getData());
+            assertSame(deltas.get(0), deltas.get(3));
+            assertArrayEquals(deltas.get(0).getData(), deltas.get(4).getData());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFullDeltaDoesNotReorderNewConfiguration() throws Exception {
+        BaseSchema baseSchema = new BaseSchema(read("delta/arrayPrimitiveFieldsDeltaSchema.json"));
+        ProtocolSchema protocolSchema = new ProtocolSchema(read("delta/arrayPrimitiveFieldsDeltaProtocolSchema.json"));
+        String uuid = "\"__uuid\":{\"org.kaaproject.configuration.uuidT\":"
+                + "\"\\u0001\\u0002\\u0003\\u0004\\u0005\\u0006\\u0007\\b\\t\\n\\u000B\\f\\r\\u000E\\u000F\\u0010\"}";
+        BaseData oldData = new BaseData(baseSchema, "{\"testField1\":{\"array\":[321,456,654]}," + uuid + "}");
+        BaseData newData = new BaseData(baseSchema, "{\"testField1\":{\"array\":[654,321,456]}," + uuid + "}");
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BatchDeltaCalculator batchCalculator = new BatchDeltaCalculator(protocolSchema, baseSchema, pool);
+            List<RawBinaryDelta> deltas = batchCalculator.calculate(Arrays.asList(null, oldData), newData);
+
+            DeltaCalculationAlgorithm calculator = new DefaultDeltaCalculatorFactory()
+                    .createDeltaCalculator(protocolSchema, baseSchema);
+            assertArrayEquals(calculator.calculate(newData).getData(), deltas.get(0).getData());
+            RawBinaryDelta expected = calculator.calculate(oldData, newData);
+            assertEquals(expected.hasChanges(), deltas.get(1).hasChanges());
+            assertArrayEquals(expected.getData(), deltas.get(1).getData());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String read(String resource) throws IOException, URISyntaxException {
+        URL url = Thread.currentThread().getContextClassLoader().getResource(resource);
+        return new String(Files.readAllBytes(new File(url.toURI()).toPath()), "UTF-8");
+    }
+}
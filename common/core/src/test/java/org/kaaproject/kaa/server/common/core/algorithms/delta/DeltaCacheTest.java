@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.delta;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.kaaproject.kaa.common.hash.EndpointObjectHash;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+
+public class DeltaCacheTest {
+
+    private static final String SCHEMA_ID = "1";
+    private static final EndpointObjectHash OLD_HASH = EndpointObjectHash.fromSHA1("old");
+    private static final EndpointObjectHash NEW_HASH = EndpointObjectHash.fromSHA1("new");
+
+    @Test
+    public void testCalculateOnce() throws Exception {
+        DeltaCache cache = new DeltaCache(1024);
+        BaseData oldData = mock(BaseData.class);
+        BaseData newData = mock(BaseData.class);
+        DeltaCalculationAlgorithm algorithm = mock(DeltaCalculationAlgorithm.class);
+        when(algorithm.calculate(oldData, newData)).thenReturn(delta(new byte[] {1, 2, 3}));
+        when(algorithm.calculate(newData)).thenReturn(delta(null));
+
+        for (int i = 0; i < 3; i++) {
+            RawBinaryDelta delta = cache.calculate(SCHEMA_ID, OLD_HASH, oldData, NEW_HASH, newData, algorithm);
+            assertArrayEquals(new byte[] {1, 2, 3}, delta.getData());
+        }
+        assertFalse(cache.calculate(SCHEMA_ID, null, null, NEW_HASH, newData, algorithm).hasChanges());
+        assertFalse(cache.calculate(SCHEMA_ID, null, null, NEW_HASH, newData, algorithm).hasChanges());
+
+        verify(algorithm, times(1)).calculate(oldData, newData);
+        verify(algorithm, times(1)).calculate(newData);
+        assertEquals(3, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+        assertEquals(2 * DeltaCache.ENTRY_OVERHEAD + 3, cache.getWeight());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        DeltaCache cache = new DeltaCache(2 * (DeltaCache.ENTRY_OVERHEAD + 10));
+        EndpointObjectHash otherHash = EndpointObjectHash.fromSHA1("other");
+        cache.put(SCHEMA_ID, OLD_HASH, NEW_HASH, delta(new byte[10]));
+        cache.put(SCHEMA_ID, otherHash, NEW_HASH, delta(new byte[10]));
+        assertNotNull(cache.get(SCHEMA_ID, OLD_HASH, NEW_HASH));
+
+        cache.put(SCHEMA_ID, null, NEW_HASH, delta(new byte[10]));
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(SCHEMA_ID, otherHash, NEW_HASH));
+        assertNotNull(cache.get(SCHEMA_ID, OLD_HASH, NEW_HASH));
+        assertNotNull(cache.get(SCHEMA_ID, null, NEW_HASH));
+
+        RawBinaryDelta large = cache.put(SCHEMA_ID, otherHash, OLD_HASH, delta(new byte[1024]));
+        assertEquals(1024, large.getData().length);
+        assertNull(cache.get(SCHEMA_ID, otherHash, OLD_HASH));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testSchemaIsPartOfKey() throws Exception {
+        DeltaCache cache = new DeltaCache(1024);
+        RawBinaryDelta delta = cache.put(SCHEMA_ID, OLD_HASH, NEW_HASH, delta(new byte[] {1}));
+        assertSame(delta, cache.get(SCHEMA_ID, OLD_HASH, NEW_HASH));
+        assertNull(cache.get("2", OLD_HASH, NEW_HASH));
+        assertSame(delta.getData(), delta.getData());
+    }
+
+    private static RawBinaryDelta delta(final byte[] data) {
+        return new RawBinaryDelta() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public byte[] getData() throws IOException {
+                return data;
+            }
+
+            @Override
+            public boolean hasChanges() {
+                return data != null;
+            }
+        };
+    }
+}
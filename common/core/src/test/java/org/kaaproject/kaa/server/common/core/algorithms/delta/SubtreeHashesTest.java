@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.delta;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class SubtreeHashesTest {
+
+    private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"node\","
+            + "\"namespace\":\"org.kaa.config\",\"fields\":["
+            + "{\"name\":\"name\",\"type\":\"string\"},"
+            + "{\"name\":\"values\",\"type\":{\"type\":\"array\",\"items\":\"int\"}},"
+            + "{\"name\":\"child\",\"type\":[\"null\",\"node\"]}]}");
+
+    @Test
+    public void testEqualSubtrees() {
+        SubtreeHashes hashes = new SubtreeHashes();
+        GenericRecord first = node("root", node("leaf", null, 1, 2), 3);
+        GenericRecord second = node("root", node("leaf", null, 1, 2), 3);
+        assertTrue(hashes.isSame(first, second));
+        assertTrue(hashes.isSame(first.get("child"), second.get("child")));
+        assertTrue(hashes.isSame(first, first));
+    }
+
+    @Test
+    public void testChangedLeaf() {
+        SubtreeHashes hashes = new SubtreeHashes();
+        GenericRecord first = node("root", node("leaf", null, 1, 2), 3);
+        GenericRecord second = node("root", node("leaf", null, 1, 4), 3);
+        assertFalse(hashes.isSame(first, second));
+        assertTrue(hashes.isSame(first.get("values"), second.get("values")));
+        assertFalse(hashes.isSame(first, null));
+    }
+
+    @Test
+    public void testArrayOrder() {
+        SubtreeHashes hashes = new SubtreeHashes();
+        assertFalse(hashes.isSame(node("root", null, 1, 2), node("root", null, 2, 1)));
+        assertFalse(hashes.isSame(Arrays.asList(1, 2), Arrays.asList(1, 2, null)));
+    }
+
+    @Test
+    public void testStringsAndMaps() {
+        SubtreeHashes hashes = new SubtreeHashes();
+        GenericRecord utf8 = node("root", null);
+        utf8.put("name", new Utf8("root"));
+        assertTrue(hashes.isSame(node("root", null), utf8));
+
+        Map<String, Object> first = new HashMap<>();
+        Map<String, Object> second = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", 2);
+        second.put("b", 2);
+        second.put("a", 1);
+        assertTrue(hashes.isSame(first, second));
+        second.put("a", 3);
+        assertFalse(new SubtreeHashes().isSame(first, second));
+    }
+
+    private static GenericRecord node(String name, GenericRecord child, Integer... values) {
+        GenericRecord record = new GenericData.Record(SCHEMA);
+        record.put("name", name);
+        record.put("values", new GenericData.Array<>(SCHEMA.getField("values").schema(), Arrays.asList(values)));
+        record.put("child", child);
+        return record;
+    }
+}
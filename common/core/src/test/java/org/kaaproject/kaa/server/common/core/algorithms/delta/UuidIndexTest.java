@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.delta;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Test;
+
+public class UuidIndexTest {
+
+    private static final Schema UUID_SCHEMA = Schema.createFixed("uuidT", null, "org.kaaproject.configuration", 16);
+
+    private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"item\","
+            + "\"namespace\":\"org.kaa.config\",\"fields\":[{\"name\":\"__uuid\",\"type\":[" + UUID_SCHEMA + ",\"null\"]}]}");
+
+    @Test
+    public void testLookup() {
+        GenericRecord first = item(1);
+        GenericRecord second = item(2);
+        GenericRecord withoutUuid = item(0);
+        withoutUuid.put("__uuid", null);
+        UuidIndex index = new UuidIndex(Arrays.asList(first, withoutUuid, second));
+
+        assertSame(first, index.get(uuid(1)));
+        assertSame(second, index.get(uuid(2)));
+        assertNull(index.get(uuid(3)));
+        assertNull(index.get(null));
+
+        assertSame(first, index.remove(uuid(1)));
+        assertNull(index.get(uuid(1)));
+        assertNull(index.remove(uuid(1)));
+    }
+
+    @Test
+    public void testDuplicates() {
+        GenericRecord first = item(1);
+        GenericRecord second = item(1);
+        GenericRecord third = item(1);
+        UuidIndex index = new UuidIndex(Arrays.asList(first, item(2), second, third));
+
+        assertSame(first, index.get(uuid(1)));
+        assertSame(first, index.remove(uuid(1)));
+        assertSame(second, index.remove(uuid(1)));
+        assertSame(third, index.get(uuid(1)));
+        assertSame(third, index.remove(uuid(1)));
+        assertNull(index.remove(uuid(1)));
+    }
+
+    private static GenericRecord item(int id) {
+        GenericRecord record = new GenericData.Record(SCHEMA);
+        record.put("__uuid", uuid(id));
+        return record;
+    }
+
+    private static GenericFixed uuid(int id) {
+        byte[] bytes = new byte[16];
+        bytes[0] = (byte) id;
+        return new GenericData.Fixed(UUID_SCHEMA, bytes);
+    }
+}
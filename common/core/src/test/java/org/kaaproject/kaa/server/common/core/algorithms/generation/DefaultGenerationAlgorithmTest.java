@@ -227,4 +227,28 @@ public class DefaultGenerationAlgorithmTest {
         Assert.assertEquals(4, generatedConfiguration.get("testField4"));
     }
 
+
+    /**
+     * Verifies that each generator returns its own copy of the default configuration
+     * with new uuid values.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGeneratedConfigurationsAreIndependentCopies() throws Exception {
+        Path schemaPath = Paths.get(Thread.currentThread().getContextClassLoader().getResource("generation/complexSchema.json").toURI());
+        BaseSchema configuraionSchema = new BaseSchema(new String(Files.readAllBytes(schemaPath)));
+
+        GenericRecord first = new DefaultRecordGenerationAlgorithmImpl<>(configuraionSchema, new BaseDataFactory()).getRootConfiguration();
+        GenericRecord second = new DefaultRecordGenerationAlgorithmImpl<>(configuraionSchema, new BaseDataFactory()).getRootConfiguration();
+
+        Assert.assertNotSame(first, second);
+        Assert.assertNotEquals(first.get("__uuid"), second.get("__uuid"));
+        Assert.assertNotSame(first.get("test_array"), second.get("test_array"));
+        Assert.assertNotSame(first.get("testField2"), second.get("testField2"));
+
+        AvroDataCanonizationUtils.removeUuid(first);
+        AvroDataCanonizationUtils.removeUuid(second);
+        Assert.assertEquals(first, second);
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.override;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Test;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.server.common.core.algorithms.schema.SchemaGenerationAlgorithm;
+import org.kaaproject.kaa.server.common.core.algorithms.schema.SchemaGenerationAlgorithmFactoryImpl;
+import org.kaaproject.kaa.server.common.core.configuration.BaseData;
+import org.kaaproject.kaa.server.common.core.configuration.OverrideData;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+import org.kaaproject.kaa.server.common.core.schema.DataSchema;
+import org.kaaproject.kaa.server.common.core.schema.OverrideSchema;
+
+public class OverridePlanTest {
+
+    @Test
+    public void testPlanIsSharedBySchemas() throws Exception {
+        SchemaGenerationAlgorithm generator = new SchemaGenerationAlgorithmFactoryImpl()
+                .createSchemaGenerator(new DataSchema(read("override/schema.json")));
+        Schema baseSchema = new Schema.Parser().parse(generator.getBaseSchema().getRawSchema());
+        Schema overrideSchema = new Schema.Parser().parse(generator.getOverrideSchema().getRawSchema());
+
+        OverridePlan plan = OverridePlan.forSchemas(baseSchema, overrideSchema);
+        assertSame(plan, OverridePlan.forSchemas(AvroSchemaCache.getSchema(generator.getBaseSchema().getRawSchema()),
+                AvroSchemaCache.getSchema(generator.getOverrideSchema().getRawSchema())));
+    }
+
+    @Test
+    public void testAlgorithmIsReusable() throws Exception {
+        SchemaGenerationAlgorithm generator = new SchemaGenerationAlgorithmFactoryImpl()
+                .createSchemaGenerator(new DataSchema(read("override/schema.json")));
+        BaseSchema baseSchema = generator.getBaseSchema();
+        OverrideSchema overrideSchema = generator.getOverrideSchema();
+
+        BaseData baseData = new BaseData(baseSchema, read("override/config_weight_0.json"));
+        List<OverrideData> configurations = Arrays.asList(
+                new OverrideData(overrideSchema, read("override/config_weight_1.json")),
+                new OverrideData(overrideSchema, read("override/config_weight_2.json")));
+
+        GenericAvroConverter<GenericRecord> converter = new GenericAvroConverter<>(baseSchema.getRawSchema());
+        GenericRecord expected = converter.decodeJson(read("override/merged_config.json"));
+
+        OverrideAlgorithm merger = new DefaultOverrideAlgorithm();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected, converter.decodeJson(merger.override(baseData, configurations).getRawData()));
+        }
+    }
+
+    private static String read(String resource) throws Exception {
+        Path path = Paths.get(Thread.currentThread().getContextClassLoader().getResource(resource).toURI());
+        return new String(Files.readAllBytes(path), "UTF-8");
+    }
+}
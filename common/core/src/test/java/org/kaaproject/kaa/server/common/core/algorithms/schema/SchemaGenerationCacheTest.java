@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.algorithms.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+import org.kaaproject.kaa.server.common.core.schema.DataSchema;
+import org.kaaproject.kaa.server.common.core.schema.OverrideSchema;
+
+public class SchemaGenerationCacheTest {
+
+    @Test
+    public void testGeneratedSchemasAreShared() throws Exception {
+        DataSchema dataSchema = new DataSchema(read("override/schema.json"));
+        SchemaGenerationAlgorithm first = new SchemaGenerationAlgorithmFactoryImpl().createSchemaGenerator(dataSchema);
+        SchemaGenerationAlgorithm second = new SchemaGenerationAlgorithmFactoryImpl()
+                .createSchemaGenerator(new DataSchema(dataSchema.getRawSchema()));
+
+        assertSame(first.getBaseSchema(), second.getBaseSchema());
+        assertSame(first.getOverrideSchema(), second.getOverrideSchema());
+        assertSame(first.getProtocolSchema(), second.getProtocolSchema());
+
+        BaseSchema baseSchema = new SchemaCreatorImpl<>(new BaseDataSchemaStrategy()).createSchema(dataSchema);
+        OverrideSchema overrideSchema = new SchemaCreatorImpl<>(new OverrideDataSchemaStrategy()).createSchema(dataSchema);
+        assertEquals(baseSchema, first.getBaseSchema());
+        assertEquals(overrideSchema, first.getOverrideSchema());
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        SchemaGenerationCache.clear();
+        DataSchema dataSchema = new DataSchema(read("override/schema.json"));
+        DataSchema brokenSchema = new DataSchema(read("generation/schemaWithMapType.json"));
+
+        assertEquals(1, SchemaGenerationCache.warmUp(Arrays.asList(dataSchema, brokenSchema)));
+        assertEquals(3, SchemaGenerationCache.size());
+        BaseSchema baseSchema = new SchemaGenerationAlgorithmImpl(dataSchema).getBaseSchema();
+        assertSame(baseSchema, SchemaGenerationCache.getSchema(dataSchema, new BaseDataSchemaStrategy()));
+        assertEquals(3, SchemaGenerationCache.size());
+    }
+
+    private static String read(String resource) throws Exception {
+        Path path = Paths.get(Thread.currentThread().getContextClassLoader().getResource(resource).toURI());
+        return new String(Files.readAllBytes(path), "UTF-8");
+    }
+}
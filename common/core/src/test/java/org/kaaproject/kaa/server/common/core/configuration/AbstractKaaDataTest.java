@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.server.common.core.configuration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Test;
+import org.kaaproject.kaa.common.avro.AvroSchemaCache;
+import org.kaaproject.kaa.common.avro.GenericAvroConverter;
+import org.kaaproject.kaa.server.common.core.schema.BaseSchema;
+
+public class AbstractKaaDataTest {
+
+    private static final BaseSchema SCHEMA = new BaseSchema("{\"type\":\"record\",\"name\":\"testT\","
+            + "\"namespace\":\"org.kaa.config\",\"fields\":[{\"name\":\"value\",\"type\":\"string\"},"
+            + "{\"name\":\"count\",\"type\":\"int\"}]}");
+
+    @Test
+    public void testJsonAndBinaryForms() throws Exception {
+        GenericAvroConverter<GenericRecord> converter = AvroSchemaCache.getConverter(SCHEMA.getRawSchema());
+        BaseData jsonData = new BaseData(SCHEMA, "{\"value\":\"test\",\"count\":5}");
+        assertFalse(jsonData.isBinary());
+
+        BaseData binaryData = BaseData.fromBinary(SCHEMA, jsonData.getBinaryData());
+        assertFalse(jsonData.isBinary());
+        assertTrue(binaryData.isBinary());
+        assertArrayEquals(jsonData.getBinaryData(), binaryData.getBinaryData());
+        assertEquals(jsonData.decode(converter), binaryData.decode(converter));
+
+        assertEquals(jsonData.getRawData(), binaryData.getRawData());
+        assertEquals(jsonData, binaryData);
+        assertEquals(jsonData.hashCode(), binaryData.hashCode());
+    }
+
+    @Test
+    public void testFactoryCreatesBinaryData() throws Exception {
+        GenericAvroConverter<GenericRecord> converter = AvroSchemaCache.getConverter(SCHEMA.getRawSchema());
+        GenericRecord record = converter.decodeJson("{\"value\":\"test\",\"count\":5}");
+
+        BaseData data = new BaseDataFactory().createBinaryData(SCHEMA, converter.encode(record));
+        assertTrue(data.isBinary());
+        assertEquals(record, data.decode(converter));
+        assertEquals(record, converter.decodeJson(data.getRawData()));
+    }
+
+    @Test
+    public void testDataIsComparedByBinaryForm() throws Exception {
+        BaseData data = new BaseData(SCHEMA, "{\"value\":\"test\",\"count\":5}");
+        BaseData formattedData = new BaseData(SCHEMA, "{ \"value\" : \"test\",\n  \"count\" : 5 }");
+        assertEquals(data, formattedData);
+        assertEquals(data.hashCode(), formattedData.hashCode());
+        assertFalse(data.equals(new BaseData(SCHEMA, "{\"value\":\"test\",\"count\":6}")));
+
+        BaseData emptyData = new BaseDataFactory().createData(SCHEMA, null);
+        assertNull(emptyData.getRawData());
+        assertNull(emptyData.getBinaryData());
+        assertEquals(emptyData, new BaseData(SCHEMA, null));
+    }
+
+    @Test
+    public void testInvalidDataIsComparedByJson() throws Exception {
+        BaseData data = new BaseData(SCHEMA, "{\"value\":\"test\"}");
+        BaseData sameData = new BaseData(SCHEMA, "{\"value\":\"test\"}");
+        assertEquals(data, sameData);
+        assertEquals(data.hashCode(), sameData.hashCode());
+        assertEquals(data.hashCode(), data.hashCode());
+        assertFalse(data.equals(new BaseData(SCHEMA, "{ \"value\" : \"test\" }")));
+        assertFalse(data.equals(new BaseData(SCHEMA, "{\"value\":\"test\",\"count\":5}")));
+    }
+}
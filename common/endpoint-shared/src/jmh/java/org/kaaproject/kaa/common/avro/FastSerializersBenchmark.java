@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.kaaproject.kaa.common.endpoint.gen.Event;
+import org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest;
+import org.kaaproject.kaa.common.endpoint.gen.FastSerializers;
+import org.kaaproject.kaa.common.endpoint.gen.LogEntry;
+import org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest;
+import org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest;
+import org.kaaproject.kaa.common.endpoint.gen.SyncRequest;
+import org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData;
+import org.kaaproject.kaa.common.endpoint.gen.TopicState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the generated {@link FastSerializers} with the specific Avro datum writer and reader on a sync
+ * request carrying logs, events and notification states.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FastSerializersBenchmark {
+
+    private static final int LOG_ENTRIES = 32;
+    private static final int EVENTS = 8;
+    private static final int TOPICS = 16;
+
+    private final DatumWriter<SyncRequest> avroWriter = new SpecificDatumWriter<>(SyncRequest.class);
+    private final DatumReader<SyncRequest> avroReader = new SpecificDatumReader<>(SyncRequest.class);
+    private final FastSerializers.Serializer<SyncRequest> fastSerializer = FastSerializers.forClass(SyncRequest.class);
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private BinaryEncoder encoder;
+    private BinaryDecoder decoder;
+
+    private SyncRequest request;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] logData = new byte[64];
+        Arrays.fill(logData, (byte) 1);
+        List<LogEntry> logEntries = new ArrayList<>();
+        for (int i = 0; i < LOG_ENTRIES; i++) {
+            logEntries.add(new LogEntry(ByteBuffer.wrap(logData)));
+        }
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new Event(i, "org.kaaproject.kaa.demo.ThermostatEvent", ByteBuffer.wrap(logData), null,
+                    "target" + i));
+        }
+        List<TopicState> topicStates = new ArrayList<>();
+        for (int i = 0; i < TOPICS; i++) {
+            topicStates.add(new TopicState((long) i, i * 10));
+        }
+        request = new SyncRequest();
+        request.setRequestId(42);
+        request.setSyncRequestMetaData(new SyncRequestMetaData("sdkToken", ByteBuffer.wrap(new byte[20]),
+                ByteBuffer.wrap(new byte[20]), 60000L));
+        request.setNotificationSyncRequest(new NotificationSyncRequest(7, topicStates, null, null));
+        request.setEventSyncRequest(new EventSyncRequest(null, null, events));
+        request.setLogSyncRequest(new LogSyncRequest(1, logEntries));
+        encoded = encode(avroWriter);
+    }
+
+    @Benchmark
+    public byte[] encodeAvro() throws IOException {
+        return encode(avroWriter);
+    }
+
+    @Benchmark
+    public byte[] encodeFast() throws IOException {
+        return encode(fastSerializer);
+    }
+
+    @Benchmark
+    public SyncRequest decodeAvro() throws IOException {
+        return decode(avroReader);
+    }
+
+    @Benchmark
+    public SyncRequest decodeFast() throws IOException {
+        return decode(fastSerializer);
+    }
+
+    private byte[] encode(DatumWriter<SyncRequest> writer) throws IOException {
+        output.reset();
+        encoder = EncoderFactory.get().binaryEncoder(output, encoder);
+        writer.write(request, encoder);
+        encoder.flush();
+        return output.toByteArray();
+    }
+
+    private SyncRequest decode(DatumReader<SyncRequest> reader) throws IOException {
+        decoder = DecoderFactory.get().binaryDecoder(encoded, decoder);
+        return reader.read(null, decoder);
+    }
+}
@@ -16,30 +16,20 @@
 
 package org.kaaproject.kaa.common.avro;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
-import org.apache.avro.io.BinaryDecoder;
-import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.io.EncoderFactory;
-import org.apache.avro.specific.SpecificDatumReader;
-import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecordBase;
 
 /**
  * The Class AvroByteArrayConverter is used to convert {#link org.apache.avro.specific.SpecificRecordBase specific Avro records} to/from bytes.
- * NOT Thread safe.
+ * Thread safe, delegates to the shared {@link AvroCodec} of the record class.
  *
  * @param <T> the generic type that extends SpecificRecordBase
  *
  * @author Andrew Shvayka
  */
 public class AvroByteArrayConverter<T extends SpecificRecordBase> {
-    SpecificDatumReader<T> avroReader;
-    SpecificDatumWriter<T> avroWriter;
-    BinaryEncoder encoder;
-    BinaryDecoder decoder;
+    private final AvroCodec<T> codec;
 
     /**
      * Instantiates a new Avro byte array converter based on class.
@@ -48,8 +38,7 @@ public class AvroByteArrayConverter<T extends SpecificRecordBase> {
      */
     public AvroByteArrayConverter(Class<T> typeParameterClass) {
         super();
-        avroReader = new SpecificDatumReader<T>(typeParameterClass);
-        avroWriter = new SpecificDatumWriter<T>(typeParameterClass);
+        codec = AvroCodec.forClass(typeParameterClass);
     }
 
     /**
@@ -60,11 +49,7 @@ public class AvroByteArrayConverter<T extends SpecificRecordBase> {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public byte[] toByteArray(T avroObject) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        encoder = EncoderFactory.get().binaryEncoder(baos, encoder);
-        avroWriter.write(avroObject, encoder);
-        encoder.flush();
-        return baos.toByteArray();
+        return codec.encode(avroObject);
     }
 
     /**
@@ -87,7 +72,6 @@ public class AvroByteArrayConverter<T extends SpecificRecordBase> {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public T fromByteArray(byte[] data, T reuse) throws IOException {
-        decoder = DecoderFactory.get().binaryDecoder(data, decoder);
-        return avroReader.read(reuse, decoder);
+        return codec.decode(data, reuse);
     }
 }
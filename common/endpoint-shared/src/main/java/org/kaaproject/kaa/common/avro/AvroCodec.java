@@ -0,0 +1,273 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.kaaproject.kaa.common.endpoint.gen.FastSerializers;
+
+/**
+ * Thread safe binary codec of {@link org.apache.avro.specific.SpecificRecordBase specific Avro records}.
+ * <p>
+ * One codec is shared per record class, see {@link #forClass(Class)}. The datum reader and writer are
+ * immutable after creation, while the encoder, the decoder and a growable output buffer are pooled per
+ * thread and reused by all codecs, so encoding a record allocates only its result.
+ * <p>
+ * The endpoint protocol records are written and read by the generated {@link FastSerializers} that
+ * produce the same binary encoding without schema resolution and reflection. They can be switched off
+ * with the {@value #FAST_SERIALIZERS_PROPERTY} system property or {@link #setFastSerializersEnabled(boolean)}.
+ *
+ * @param <T> the generic type that extends SpecificRecordBase
+ */
+public final class AvroCodec<T extends SpecificRecordBase> {
+
+    /** Output buffers that grew above this size are not kept for reuse. */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    /** System property that disables the generated serializers if set to {@code false}. */
+    public static final String FAST_SERIALIZERS_PROPERTY = "kaa.avro.fast_serializers";
+
+    private static volatile boolean fastSerializersEnabled =
+            !"false".equalsIgnoreCase(System.getProperty(FAST_SERIALIZERS_PROPERTY));
+
+    private static final ConcurrentMap<Class<?>, AvroCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<CodecState> STATE = new ThreadLocal<CodecState>() {
+        @Override
+        protected CodecState initialValue() {
+            return new CodecState();
+        }
+    };
+
+    private final SpecificDatumReader<T> avroReader;
+    private final SpecificDatumWriter<T> avroWriter;
+    private final FastSerializers.Serializer<T> fastSerializer;
+
+    private AvroCodec(Class<T> typeParameterClass) {
+        avroReader = new SpecificDatumReader<T>(typeParameterClass);
+        avroWriter = new SpecificDatumWriter<T>(typeParameterClass);
+        fastSerializer = FastSerializers.forClass(typeParameterClass);
+    }
+
+    /**
+     * Returns the shared codec of the record class.
+     *
+     * @param typeParameterClass the record class
+     * @return the codec
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends SpecificRecordBase> AvroCodec<T> forClass(Class<T> typeParameterClass) {
+        AvroCodec<T> codec = (AvroCodec<T>) CODECS.get(typeParameterClass);
+        if (codec == null) {
+            codec = new AvroCodec<T>(typeParameterClass);
+            AvroCodec<T> existing = (AvroCodec<T>) CODECS.putIfAbsent(typeParameterClass, codec);
+            if (existing != null) {
+                codec = existing;
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * Switches between the generated serializers and the generic Avro ones for all codecs.
+     *
+     * @param enabled whether the generated serializers are used
+     */
+    public static void setFastSerializersEnabled(boolean enabled) {
+        fastSerializersEnabled = enabled;
+    }
+
+    public static boolean isFastSerializersEnabled() {
+        return fastSerializersEnabled;
+    }
+
+    /**
+     * Encodes the record to a new byte array of the exact size.
+     *
+     * @param avroObject the avro object
+     * @return the encoded record
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public byte[] encode(T avroObject) throws IOException {
+        CodecState state = STATE.get();
+        ReusableOutputStream output = state.output;
+        try {
+            write(avroObject, state, output);
+            return output.toByteArray();
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Encodes the record into the buffer, starting at its position. On success the position is moved past
+     * the encoded record, otherwise it is left unchanged.
+     *
+     * @param avroObject the avro object
+     * @param target the buffer to encode into
+     * @return the number of bytes written
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws BufferOverflowException if the record does not fit into the remaining space of the buffer
+     */
+    public int encode(T avroObject, ByteBuffer target) throws IOException {
+        int start = target.position();
+        try {
+            write(avroObject, STATE.get(), new ByteBufferOutputStream(target));
+        } catch (BufferOverflowException e) {
+            target.position(start);
+            throw e;
+        }
+        return target.position() - start;
+    }
+
+    /**
+     * Decodes the record from the byte array.
+     *
+     * @param data the data
+     * @return the decoded record
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public T decode(byte[] data) throws IOException {
+        return decode(data, 0, data.length, null);
+    }
+
+    /**
+     * Decodes the record from the byte array.
+     *
+     * @param data the data
+     * @param reuse object to reuse
+     * @return the decoded record
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public T decode(byte[] data, T reuse) throws IOException {
+        return decode(data, 0, data.length, reuse);
+    }
+
+    /**
+     * Decodes the record from the remaining bytes of the buffer without copying them if the buffer is backed
+     * by an array. The position of the buffer is not changed.
+     *
+     * @param data the data
+     * @return the decoded record
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public T decode(ByteBuffer data) throws IOException {
+        if (data.hasArray()) {
+            return decode(data.array(), data.arrayOffset() + data.position(), data.remaining(), null);
+        }
+        byte[] copy = new byte[data.remaining()];
+        data.duplicate().get(copy);
+        return decode(copy, 0, copy.length, null);
+    }
+
+    private T decode(byte[] data, int offset, int length, T reuse) throws IOException {
+        CodecState state = STATE.get();
+        state.decoder = DecoderFactory.get().binaryDecoder(data, offset, length, state.decoder);
+        return reader().read(reuse, state.decoder);
+    }
+
+    private DatumReader<T> reader() {
+        return fastSerializer != null && fastSerializersEnabled ? fastSerializer : avroReader;
+    }
+
+    private DatumWriter<T> writer() {
+        return fastSerializer != null && fastSerializersEnabled ? fastSerializer : avroWriter;
+    }
+
+    private void write(T avroObject, CodecState state, OutputStream output) throws IOException {
+        state.encoder = EncoderFactory.get().binaryEncoder(output, state.encoder);
+        try {
+            writer().write(avroObject, state.encoder);
+            state.encoder.flush();
+        } catch (IOException | RuntimeException e) {
+            // the encoder would flush the pending bytes to this output on reuse
+            state.encoder = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Encoder, decoder and output buffer of a thread.
+     */
+    private static final class CodecState {
+        private final ReusableOutputStream output = new ReusableOutputStream();
+        private BinaryEncoder encoder;
+        private BinaryDecoder decoder;
+    }
+
+    /**
+     * Byte array output stream that keeps its buffer between uses unless it grew too large.
+     */
+    private static final class ReusableOutputStream extends ByteArrayOutputStream {
+
+        private static final int INITIAL_SIZE = 1024;
+
+        private ReusableOutputStream() {
+            super(INITIAL_SIZE);
+        }
+
+        @Override
+        public synchronized byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        private void release() {
+            if (buf.length > MAX_POOLED_BUFFER_SIZE) {
+                buf = new byte[INITIAL_SIZE];
+            }
+            count = 0;
+        }
+    }
+
+    /**
+     * Output stream that writes to a byte buffer.
+     */
+    private static final class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer target;
+
+        private ByteBufferOutputStream(ByteBuffer target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            target.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            target.put(b, off, len);
+        }
+    }
+}
@@ -16,7 +16,12 @@
 
 package org.kaaproject.kaa.common.avro;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
@@ -25,11 +30,17 @@ import org.apache.avro.generic.GenericRecord;
 
 /**
  * Class containing algorithms for canonization Avro data.
+ * <p>
+ * The canonization is re-entrant: each array is sorted by its own comparator for the element schema. The
+ * arrays of at least {@link #PARALLEL_SORT_THRESHOLD} items are sorted in parallel when the canonization
+ * runs in a fork/join pool or is given one.
  */
 public class AvroDataCanonizationUtils {
 
     private static final String UUIDT = "org.kaaproject.configuration.uuidT";
-    private static final AvroDataComparator COMPARATOR = new AvroDataComparator();
+
+    /** The minimum size of the arrays that are sorted in parallel. */
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
 
     private AvroDataCanonizationUtils() {
     }
@@ -38,17 +49,45 @@ public class AvroDataCanonizationUtils {
      * Performs canonization of records in array if they are present.
      *
      * @param     baseArray the array to be canonized.
+     * @param     pool the pool that sorts large arrays, may be null.
      */
-    private static void canonizeArray(GenericArray baseArray) {
+    private static void canonizeArray(GenericArray baseArray, ForkJoinPool pool) {
         for (Object obj : baseArray) {
             if (obj instanceof GenericRecord) {
-                canonizeRecord((GenericRecord)obj);
+                canonizeRecord((GenericRecord)obj, pool);
             } else if (obj instanceof GenericArray) {
-                canonizeArray((GenericArray)obj);
+                canonizeArray((GenericArray)obj, pool);
             }
         }
     }
 
+    /**
+     * Sorts the array, in parallel if it is large and a fork/join pool is available.
+     * The sort is stable in both cases.
+     *
+     * @param     array the array to be sorted.
+     * @param     comparator the comparator.
+     * @param     pool the pool that sorts large arrays, may be null.
+     */
+    @SuppressWarnings("unchecked")
+    private static void sort(GenericArray array, AvroDataComparator comparator, ForkJoinPool pool) {
+        boolean inPool = ForkJoinTask.inForkJoinPool();
+        if (array.size() < PARALLEL_SORT_THRESHOLD || (pool == null && !inPool)) {
+            Collections.sort(array, comparator);
+            return;
+        }
+        Object[] items = array.toArray();
+        ParallelSort task = new ParallelSort(items, new Object[items.length], 0, items.length, comparator);
+        if (inPool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+        for (int i = 0; i < items.length; i++) {
+            array.set(i, items[i]);
+        }
+    }
+
     /**
      * Check if the field contains UUID and returns value which should be on its place.
      *
@@ -103,27 +142,92 @@ public class AvroDataCanonizationUtils {
      * @param     baseRecord The record to be canonized.
      */
     public static void canonizeRecord(GenericRecord baseRecord) {
+        canonizeRecord(baseRecord, null);
+    }
+
+    /**
+     * Performs canonization of the given record, sorting large arrays in the given pool.
+     *
+     * @param     baseRecord The record to be canonized.
+     * @param     pool the pool that sorts large arrays, may be null to sort them in parallel only
+     *            when the canonization runs in a fork/join pool.
+     */
+    public static void canonizeRecord(GenericRecord baseRecord, ForkJoinPool pool) {
         Schema recordSchema = baseRecord.getSchema();
 
         for (Schema.Field fieldSchema : recordSchema.getFields()) {
             if (baseRecord.get(fieldSchema.name()) != null) {
                 Object field = baseRecord.get(fieldSchema.name());
                 if (field instanceof GenericArray) {
+                    Schema elementSchema = null;
                     if (fieldSchema.schema().getType() == Schema.Type.UNION) {
                         for (Schema unoinedSchema : fieldSchema.schema().getTypes()) {
                             if  (unoinedSchema.getType() == Schema.Type.ARRAY) {
-                                COMPARATOR.setSchema(unoinedSchema.getElementType());
+                                elementSchema = unoinedSchema.getElementType();
                                 break;
                             }
                         }
                     } else {
-                        COMPARATOR.setSchema(fieldSchema.schema().getElementType());
+                        elementSchema = fieldSchema.schema().getElementType();
                     }
                     GenericArray arrayField = (GenericArray) baseRecord.get(fieldSchema.name());
-                    canonizeArray(arrayField);
-                    Collections.sort(arrayField, COMPARATOR);
+                    canonizeArray(arrayField, pool);
+                    if (elementSchema != null) {
+                        // the comparator only holds the schema, so it is not worth caching
+                        sort(arrayField, new AvroDataComparator(elementSchema), pool);
+                    }
                 } else if (field instanceof GenericRecord) {
-                    canonizeRecord((GenericRecord)field);
+                    canonizeRecord((GenericRecord)field, pool);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stable merge sort of a part of the items that sorts the halves in parallel.
+     */
+    private static final class ParallelSort extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] items;
+        private final Object[] buffer;
+        private final int from;
+        private final int to;
+        private final Comparator<Object> comparator;
+
+        private ParallelSort(Object[] items, Object[] buffer, int from, int to, Comparator<Object> comparator) {
+            this.items = items;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_SORT_THRESHOLD / 2) {
+                Arrays.sort(items, from, to, comparator);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParallelSort(items, buffer, from, middle, comparator),
+                    new ParallelSort(items, buffer, middle, to, comparator));
+            merge(middle);
+        }
+
+        private void merge(int middle) {
+            if (comparator.compare(items[middle - 1], items[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(items, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                    items[i] = buffer[left++];
+                } else {
+                    items[i] = buffer[right++];
                 }
             }
         }
@@ -21,6 +21,9 @@ import java.util.Comparator;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
 
+/**
+ * Compares Avro data of one schema. Instances with a fixed schema may be shared by several threads.
+ */
 public class AvroDataComparator implements Comparator<Object> {
     private Schema schema;
 
@@ -28,6 +31,10 @@ public class AvroDataComparator implements Comparator<Object> {
         super();
     }
 
+    public AvroDataComparator(Schema schema) {
+        this.schema = schema;
+    }
+
     @Override
     public int compare(Object o1, Object o2) {
         return GenericData.get().compare(o1, o2, schema);
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericContainer;
+
+/**
+ * Process-wide cache of parsed Avro schemas and the {@link GenericAvroConverter converters} for them.
+ * <p>
+ * Schemas are looked up by their source text or by the parsed {@link Schema}, which compares by full
+ * structure including defaults and custom properties. Both lookups lead to one entry per distinct schema,
+ * so a schema is parsed once per source text and its converter is built once. The cache is bounded, an
+ * arbitrary part of the entries is dropped when it is full.
+ * <p>
+ * The cached schemas are shared and must not be modified.
+ */
+public final class AvroSchemaCache {
+
+    static final int MAX_ENTRIES = 1024;
+
+    private static final ConcurrentMap<String, CachedSchema> BY_SOURCE = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Schema, CachedSchema> BY_SCHEMA = new ConcurrentHashMap<>();
+
+    private AvroSchemaCache() {
+    }
+
+    /**
+     * Returns the parsed schema.
+     *
+     * @param schemaSrc the schema source
+     * @return the shared schema
+     */
+    public static Schema getSchema(String schemaSrc) {
+        return getEntry(schemaSrc).schema;
+    }
+
+    /**
+     * Returns the shared converter for the schema.
+     *
+     * @param schemaSrc the schema source
+     * @return the converter
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends GenericContainer> GenericAvroConverter<T> getConverter(String schemaSrc) {
+        return (GenericAvroConverter<T>) getEntry(schemaSrc).converter;
+    }
+
+    /**
+     * Returns the shared converter for the schema.
+     *
+     * @param schema the schema
+     * @return the converter
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends GenericContainer> GenericAvroConverter<T> getConverter(Schema schema) {
+        return (GenericAvroConverter<T>) getEntry(schema).converter;
+    }
+
+    /**
+     * Returns the named types (records, enums and fixed) defined in the schema by their full names,
+     * as {@link Schema.Parser#getTypes()} does after parsing it.
+     *
+     * @param schema the schema
+     * @return the unmodifiable map of the named types
+     */
+    public static Map<String, Schema> getNamedTypes(Schema schema) {
+        CachedSchema entry = getEntry(schema);
+        if (entry.namedTypes == null) {
+            Map<String, Schema> namedTypes = new LinkedHashMap<>();
+            collectNamedTypes(schema, namedTypes);
+            entry.namedTypes = Collections.unmodifiableMap(namedTypes);
+        }
+        return entry.namedTypes;
+    }
+
+    static void clear() {
+        BY_SOURCE.clear();
+        BY_SCHEMA.clear();
+    }
+
+    private static CachedSchema getEntry(String schemaSrc) {
+        CachedSchema entry = BY_SOURCE.get(schemaSrc);
+        if (entry == null) {
+            entry = getEntry(new Schema.Parser().parse(schemaSrc));
+            put(BY_SOURCE, schemaSrc, entry);
+        }
+        return entry;
+    }
+
+    private static CachedSchema getEntry(Schema schema) {
+        CachedSchema entry = BY_SCHEMA.get(schema);
+        if (entry == null) {
+            entry = new CachedSchema(schema);
+            CachedSchema existing = put(BY_SCHEMA, schema, entry);
+            if (existing != null) {
+                entry = existing;
+            }
+        }
+        return entry;
+    }
+
+    private static <K> CachedSchema put(ConcurrentMap<K, CachedSchema> cache, K key, CachedSchema entry) {
+        return BoundedCacheUtils.putIfAbsent(cache, MAX_ENTRIES, key, entry);
+    }
+
+    private static void collectNamedTypes(Schema schema, Map<String, Schema> namedTypes) {
+        switch (schema.getType()) {
+            case RECORD:
+                if (namedTypes.put(schema.getFullName(), schema) == null) {
+                    for (Schema.Field field : schema.getFields()) {
+                        collectNamedTypes(field.schema(), namedTypes);
+                    }
+                }
+                break;
+            case ENUM:
+            case FIXED:
+                namedTypes.put(schema.getFullName(), schema);
+                break;
+            case ARRAY:
+                collectNamedTypes(schema.getElementType(), namedTypes);
+                break;
+            case MAP:
+                collectNamedTypes(schema.getValueType(), namedTypes);
+                break;
+            case UNION:
+                for (Schema type : schema.getTypes()) {
+                    collectNamedTypes(type, namedTypes);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static final class CachedSchema {
+        private final Schema schema;
+        private final GenericAvroConverter<GenericContainer> converter;
+        private volatile Map<String, Schema> namedTypes;
+
+        private CachedSchema(Schema schema) {
+            this.schema = schema;
+            this.converter = new GenericAvroConverter<>(schema);
+        }
+    }
+}
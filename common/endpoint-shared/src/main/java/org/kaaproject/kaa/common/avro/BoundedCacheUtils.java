@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Helpers for the process-wide caches that are bounded by the number of entries. When such a cache is
+ * full, an arbitrary quarter of its entries is dropped before a new entry is added.
+ */
+public final class BoundedCacheUtils {
+
+    private BoundedCacheUtils() {
+    }
+
+    /**
+     * Adds the entry to the cache unless the key is already present, evicting the entries first if the
+     * cache is full.
+     *
+     * @param cache the cache
+     * @param maxEntries the maximum number of the entries in the cache
+     * @param key the key
+     * @param value the value
+     * @return the value already present for the key, or null if the entry was added
+     */
+    public static <K, V> V putIfAbsent(ConcurrentMap<K, V> cache, int maxEntries, K key, V value) {
+        if (cache.size() >= maxEntries) {
+            Iterator<K> keys = cache.keySet().iterator();
+            for (int i = 0; i < maxEntries / 4 && keys.hasNext(); i++) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        return cache.putIfAbsent(key, value);
+    }
+}
@@ -37,7 +37,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The Class AvroByteArrayConverter is used to convert {#link org.apache.avro.generic.GenericContainer specific avro records} to/from bytes.
- * NOT Thread safe.
+ * Thread safe, instances for the same schema can be shared, see {@link AvroSchemaCache}.
  *
  * @param <T> the generic type that extends GenericContainer
  */
@@ -49,13 +49,12 @@ public class GenericAvroConverter<T extends GenericContainer> {
     private static final Charset ENCODING_CHARSET = Charset.forName("UTF-8");
     private static final Charset DECODING_CHARSET = Charset.forName("ISO-8859-1");
 
-    private Schema schema;
-    private DatumReader<T> datumReader;
-    private DatumWriter<T> datumWriter;
-    private BinaryDecoder binaryDecoder;
-    private BinaryEncoder binaryEncoder;
-    private JsonDecoder jsonDecoder;
-    private JsonEncoder jsonEncoder;
+    private static final ThreadLocal<BinaryDecoder> BINARY_DECODER = new ThreadLocal<>();
+    private static final ThreadLocal<BinaryEncoder> BINARY_ENCODER = new ThreadLocal<>();
+
+    private final Schema schema;
+    private final DatumReader<T> datumReader;
+    private final DatumWriter<T> datumWriter;
 
     /**
      * Instantiates a new generic Avro converter.
@@ -63,7 +62,7 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @param schemaSrc the schemaSrc
      */
     public GenericAvroConverter(String schemaSrc){
-        this(new Schema.Parser().parse(schemaSrc));
+        this(AvroSchemaCache.getSchema(schemaSrc));
     }
 
     /**
@@ -97,7 +96,8 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public T decodeBinary(byte[] data, T reuse) throws IOException{
-        binaryDecoder = DecoderFactory.get().binaryDecoder(data, binaryDecoder);
+        BinaryDecoder binaryDecoder = DecoderFactory.get().binaryDecoder(data, BINARY_DECODER.get());
+        BINARY_DECODER.set(binaryDecoder);
         return datumReader.read(reuse, binaryDecoder);
     }
 
@@ -132,7 +132,7 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public T decodeJson(String data, T reuse) throws IOException{
-        jsonDecoder = DecoderFactory.get().jsonDecoder(this.schema, data);
+        JsonDecoder jsonDecoder = DecoderFactory.get().jsonDecoder(this.schema, data);
         return datumReader.read(null, jsonDecoder);
     }
 
@@ -156,7 +156,7 @@ public class GenericAvroConverter<T extends GenericContainer> {
      */
     public byte[] encodeToJsonBytes(T record) throws IOException{
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        jsonEncoder = EncoderFactory.get().jsonEncoder(this.schema, baos);
+        JsonEncoder jsonEncoder = EncoderFactory.get().jsonEncoder(this.schema, baos);
         datumWriter.write(record, jsonEncoder);
         jsonEncoder.flush();
         baos.flush();
@@ -172,9 +172,12 @@ public class GenericAvroConverter<T extends GenericContainer> {
      */
     public byte[] encode(T record) throws IOException{
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        binaryEncoder = EncoderFactory.get().binaryEncoder(baos, binaryEncoder);
+        BinaryEncoder binaryEncoder = EncoderFactory.get().binaryEncoder(baos, BINARY_ENCODER.get());
+        // not reused if the write fails, it would flush the pending bytes to the next stream
+        BINARY_ENCODER.remove();
         datumWriter.write(record, binaryEncoder);
         binaryEncoder.flush();
+        BINARY_ENCODER.set(binaryEncoder);
         baos.flush();
         return baos.toByteArray();
     }
@@ -187,8 +190,7 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @return the string
      */
     public static String toJson(byte[] rawData, String dataSchema) {
-        Schema schema = new Schema.Parser().parse(dataSchema);
-        GenericAvroConverter<GenericContainer> converter = new GenericAvroConverter<GenericContainer>(schema);
+        GenericAvroConverter<GenericContainer> converter = AvroSchemaCache.getConverter(dataSchema);
 
         String json;
 
@@ -210,8 +212,7 @@ public class GenericAvroConverter<T extends GenericContainer> {
      * @return the byte[]
      */
     public static byte[] toRawData(String json, String dataSchema) {
-        Schema schema = new Schema.Parser().parse(dataSchema);
-        GenericAvroConverter<GenericContainer> converter = new GenericAvroConverter<GenericContainer>(schema);
+        GenericAvroConverter<GenericContainer> converter = AvroSchemaCache.getConverter(dataSchema);
 
         byte[] rawData;
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.channels.protocols.kaatcp;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Pool of heap buffers used to assemble Kaatcp frames that arrive in several reads
+ * and to encode outgoing frames.
+ * Buffers larger than the retained capacity are not kept, so a single huge frame
+ * doesn't pin its memory for the lifetime of the connection.
+ */
+public class FrameBufferPool {
+
+    /** Default number of buffers kept by the pool */
+    public static final int DEFAULT_MAX_BUFFERS = 4;
+
+    /** Default capacity of the largest buffer kept by the pool */
+    public static final int DEFAULT_MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private final Deque<ByteBuffer> buffers = new ArrayDeque<>();
+    private final int maxBuffers;
+    private final int maxRetainedCapacity;
+
+    /**
+     * Default constructor.
+     */
+    public FrameBufferPool() {
+        this(DEFAULT_MAX_BUFFERS, DEFAULT_MAX_RETAINED_CAPACITY);
+    }
+
+    /**
+     * @param maxBuffers max number of buffers kept by the pool
+     * @param maxRetainedCapacity capacity of the largest buffer kept by the pool
+     */
+    public FrameBufferPool(int maxBuffers, int maxRetainedCapacity) {
+        this.maxBuffers = maxBuffers;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    /**
+     * Returns a buffer with position 0 and limit set to size.
+     * The capacity of the buffer may be larger than size.
+     * @param size required number of bytes
+     * @return ByteBuffer from the pool or a newly allocated one
+     */
+    public synchronized ByteBuffer acquire(int size) {
+        Iterator<ByteBuffer> it = buffers.iterator();
+        while (it.hasNext()) {
+            ByteBuffer buffer = it.next();
+            if (buffer.capacity() >= size) {
+                it.remove();
+                buffer.clear();
+                buffer.limit(size);
+                return buffer;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(size, MIN_CAPACITY));
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool. The buffer must not be used by the caller afterwards.
+     * @param buffer ByteBuffer previously acquired from this pool
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() <= maxRetainedCapacity && buffers.size() < maxBuffers) {
+            buffers.push(buffer);
+        }
+    }
+}
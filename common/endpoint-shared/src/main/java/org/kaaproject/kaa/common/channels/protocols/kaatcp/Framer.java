@@ -16,8 +16,8 @@
 
 package org.kaaproject.kaa.common.channels.protocols.kaatcp;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck;
@@ -36,6 +36,9 @@ import org.slf4j.LoggerFactory;
  * Kaatcp Framer Class.
  * Used to cut incoming byte stream into MQTT frames, and deliver frames to {@link MqttFramelistener}.
  * Framer Class typically used from {@link MessageFactory} Class.
+ * Payloads that arrive in one piece are decoded in place, without copying.
+ * Frames split across several pushes are assembled in buffers taken from {@link FrameBufferPool}.
+ * Input bytes are not referenced after the push returns, so the caller may reuse its read buffer.
  *
  * @author Andrey Panasenko
  *
@@ -50,13 +53,23 @@ public class Framer {
 
     /** Current processing frame */
     private MqttFrame currentFrame;
-    
+
+    /** Pool of buffers for frames split across pushes */
+    private final FrameBufferPool bufferPool;
+
     /**
      * Default constructor.
      */
     public Framer() {
-        listeners = new ArrayList<>();
+        this(new FrameBufferPool());
+    }
 
+    /**
+     * @param bufferPool pool of buffers for frames split across pushes
+     */
+    public Framer(FrameBufferPool bufferPool) {
+        listeners = new ArrayList<>();
+        this.bufferPool = bufferPool;
     }
 
     /**
@@ -77,30 +90,55 @@ public class Framer {
      * @throws KaaTcpProtocolException throws in case of protocol errors.
      */
     public int pushBytes(byte[] bytes) throws KaaTcpProtocolException {
-        if(LOG.isTraceEnabled()){
-            if(bytes != null){
-                LOG.trace("Received bytes: {}", Arrays.toString(bytes));
-            }
+        return pushBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Process length bytes of incoming stream starting from offset.
+     * @param bytes byte[] to push
+     * @param offset offset of the first byte to push
+     * @param length number of bytes to push
+     * @return number of bytes processed from this array.
+     * @throws KaaTcpProtocolException throws in case of protocol errors.
+     */
+    public int pushBytes(byte[] bytes, int offset, int length) throws KaaTcpProtocolException {
+        return pushBytes(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * Process remaining bytes of incoming stream and advance position of the buffer.
+     * @param bytes ByteBuffer to push
+     * @return number of bytes processed from this buffer.
+     * @throws KaaTcpProtocolException throws in case of protocol errors.
+     */
+    public int pushBytes(ByteBuffer bytes) throws KaaTcpProtocolException {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Received {} bytes", bytes.remaining());
         }
-        int used = 0;
+        int start = bytes.position();
 
-        while (bytes.length > used) {
+        while (bytes.hasRemaining()) {
             if (currentFrame == null) {
-                if ((bytes.length - used) >= 1) { // 1 bytes minimum header length
-                    int intType = bytes[used] & 0xFF;
-                    currentFrame = getFrameByType((byte) (intType >> 4));
-                    ++used;
-                } else {
-                    break;
-                }
+                int intType = bytes.get() & 0xFF;
+                currentFrame = getFrameByType((byte) (intType >> 4));
             }
-            used += currentFrame.push(bytes, used);
+            currentFrame.push(bytes, bufferPool);
             if(currentFrame.decodeComplete()) {
-                callListeners(currentFrame.upgradeFrame());
+                MqttFrame frame = currentFrame;
                 currentFrame = null;
+                MqttFrame upgraded = null;
+                try {
+                    upgraded = frame.upgradeFrame();
+                    callListeners(upgraded);
+                } finally {
+                    if (upgraded != null) {
+                        upgraded.releaseBuffer();
+                    }
+                    frame.releaseBuffer();
+                }
             }
         }
-        return used;
+        return bytes.position() - start;
     }
 
     /**
@@ -144,6 +182,9 @@ public class Framer {
      * Reset Framer state by dropping currentFrame.
      */
     public void flush() {
+        if (currentFrame != null) {
+            currentFrame.releaseBuffer();
+        }
         currentFrame = null;
     }
 }
@@ -16,11 +16,15 @@
 
 package org.kaaproject.kaa.common.channels.protocols.kaatcp.messages;
 
+import org.kaaproject.kaa.common.endpoint.security.SessionCipherMode;
+
 /**
  * ConnAck message Class.
  * The CONNACK message is a message sent by the server in response to a CONNECT request from a client.
  * Variable header
- * byte 1  reserved (0)
+ * byte 1  Acknowledge flags
+ *           0x01 - the session uses AES/GCM, set if the server accepted the AES/GCM session key of the CONNECT.
+ *                  Servers that don't support AES/GCM send 0.
  * byte 2 Return Code see enum ReturnCode
  * @author Andrey Panasenko
  *
@@ -29,6 +33,8 @@ public class ConnAck extends MqttFrame {
 
     public static final int CONNACK_REMAINING_LEGTH_V1 = 2;
 
+    public static final byte CONNACK_GCM_SESSION_FLAG = 0x01;
+
     /**
      * CONNACK return code enum
      *  ACCEPTED                        0x01    Connection Accepted
@@ -67,6 +73,9 @@ public class ConnAck extends MqttFrame {
 
     private ReturnCode returnCode;
 
+    /** Cipher the server uses with the session key */
+    private SessionCipherMode sessionCipherMode = SessionCipherMode.AES_ECB;
+
     /**
      * Default constructor.
      * @param returnCode the return code
@@ -91,7 +100,7 @@ public class ConnAck extends MqttFrame {
      */
     @Override
     protected void pack() {
-        buffer.put((byte) 0);
+        buffer.put(sessionCipherMode == SessionCipherMode.AES_GCM ? CONNACK_GCM_SESSION_FLAG : 0);
         buffer.put(returnCode.getReturnCode());
     }
 
@@ -111,11 +120,28 @@ public class ConnAck extends MqttFrame {
         this.returnCode = returnCode;
     }
 
+    /**
+     * Session cipher mode getter.
+     * @return SessionCipherMode the cipher the server uses with the session key
+     */
+    public SessionCipherMode getSessionCipherMode() {
+        return sessionCipherMode;
+    }
+
+    /**
+     * Session cipher mode setter.
+     * @param sessionCipherMode SessionCipherMode
+     */
+    public void setSessionCipherMode(SessionCipherMode sessionCipherMode) {
+        this.sessionCipherMode = sessionCipherMode;
+    }
+
     /* (non-Javadoc)
      * @see org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.mqttFrame#decode(int)
      */
     @Override
     protected void decode() {
+        sessionCipherMode = (buffer.get(0) & CONNACK_GCM_SESSION_FLAG) != 0 ? SessionCipherMode.AES_GCM : SessionCipherMode.AES_ECB;
         byte code = buffer.get(1);
         if (code == ReturnCode.ACCEPTED.getReturnCode()) {
             returnCode = ReturnCode.ACCEPTED;
@@ -17,6 +17,8 @@
 package org.kaaproject.kaa.common.channels.protocols.kaatcp.messages;
 
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.KaaTcpProtocolException;
+import org.kaaproject.kaa.common.endpoint.security.KeyUtil;
+import org.kaaproject.kaa.common.endpoint.security.SessionCipherMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,10 +53,21 @@ import org.slf4j.LoggerFactory;
  *    byte 12 Keep alive LSB (200)
  *            Keep Alive timer - default value 200 seconds.
  *
+ * Session Key Flags
+ *    0x11 - session key for AES/ECB
+ *    0x12 - session key for AES/GCM
+ *    0x20 - set if the session key is agreed by ECDH (0x31, 0x32)
+ *
+ * Signature Flags
+ *    0x01 - SHA1withRSA signature
+ *    0x02 - SHA256withECDSA signature
+ *
  * Payload:
- *  Session Key:   AES Session encoding key (16 byte) - encrypted with the Operations server RSA Public Key
+ *  Session Key:   AES Session encoding key (16 byte) - encrypted with the Operations server RSA Public Key,
+ *                 or the X.509 encoded ephemeral EC public key prefixed with its length (2 byte)
  *  EndpointPublicKeyHash: SHA Hash of Endpoint Public Key (32 byte)
- *  Signature: RSA signature (32 byte) signed with the Endpoint Private Key of Session key (16 byte) + EndpointPublicKeyHash (32 byte)
+ *  Signature: RSA signature (32 byte) signed with the Endpoint Private Key of Session key (16 byte) + EndpointPublicKeyHash (32 byte),
+ *             or the DER encoded ECDSA signature prefixed with its length (2 byte)
  *
  * @author Andrey Panasenko
  *
@@ -70,7 +83,12 @@ public class Connect extends MqttFrame {
     public static final byte CONNECT_VERSION = 0x01;
     public static final byte CONNECT_FIXED_HEADER_FLAG = 0x02;
     public static final byte CONNECT_SESSION_KEY_FLAGS = 0x11;
+    public static final byte CONNECT_GCM_SESSION_KEY_FLAGS = 0x12;
+    public static final byte CONNECT_EC_SESSION_KEY_FLAG = 0x20;
     public static final byte CONNECT_SIGNATURE_FLAGS = 0x01;
+    public static final byte CONNECT_EC_SIGNATURE_FLAGS = 0x02;
+    private static final int SESSION_CIPHER_FLAGS_MASK = 0x0F;
+    private static final int LENGTH_PREFIX_SIZE = 2;
     private static final byte[] FIXED_HEADER_CONST = new byte[]{0x00,0x06,'K','a','a','t','c','p',
                                                                 CONNECT_VERSION,
                                                                 CONNECT_FIXED_HEADER_FLAG};
@@ -94,6 +112,15 @@ public class Connect extends MqttFrame {
 
     private boolean hasAesSessionKey = false;
 
+    /** Cipher the session key is used with */
+    private SessionCipherMode sessionCipherMode = SessionCipherMode.AES_ECB;
+
+    /** Key algorithm of the session key exchange, {@link KeyUtil#RSA} or {@link KeyUtil#EC} */
+    private String sessionKeyAlgorithm = KeyUtil.RSA;
+
+    /** Key algorithm of the signature, {@link KeyUtil#RSA} or {@link KeyUtil#EC} */
+    private String signatureAlgorithm = KeyUtil.RSA;
+
     /**
      * Default Constructor
      * @param keepAlive         the keep alive in seconds, max value 65535 seconds.
@@ -103,18 +130,35 @@ public class Connect extends MqttFrame {
      * @param signature         the byte[] of Signature of aesSessionKey and endpointPublicKeyHash, length 32 byte.
      */
     public Connect(int keepAlive, int nextProtocolId, byte[] aesSessionKey, byte[] syncRequest, byte[] signature) {
+        this(keepAlive, nextProtocolId, aesSessionKey, syncRequest, signature, KeyUtil.RSA, KeyUtil.RSA);
+    }
+
+    /**
+     * Constructor for the session keys and signatures of the given key algorithms.
+     * @param keepAlive           the keep alive in seconds, max value 65535 seconds.
+     * @param nextProtocolId      the next protocol id
+     * @param aesSessionKey       the byte[] of the encoded session key
+     * @param syncRequest         the byte[] of Avro SyncRequest object
+     * @param signature           the byte[] of Signature of aesSessionKey
+     * @param sessionKeyAlgorithm the algorithm of the server public key, {@link KeyUtil#RSA} or {@link KeyUtil#EC}
+     * @param signatureAlgorithm  the algorithm of the endpoint private key, {@link KeyUtil#RSA} or {@link KeyUtil#EC}
+     */
+    public Connect(int keepAlive, int nextProtocolId, byte[] aesSessionKey, byte[] syncRequest, byte[] signature,
+                   String sessionKeyAlgorithm, String signatureAlgorithm) {
         setMessageType(MessageType.CONNECT);
         this.setKeepAlive(keepAlive);
         this.setNextProtocolId(nextProtocolId);
         this.setAesSessionKey(aesSessionKey);
         this.setSyncRequest(syncRequest);
         this.setSignature(signature);
+        this.sessionKeyAlgorithm = sessionKeyAlgorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
         remainingLength = CONNECT_VERIABLE_HEADER_LENGTH_V1;
         if (aesSessionKey != null) {
-            remainingLength += CONNECT_AES_SESSION_KEY_LENGTH;
+            remainingLength += isEcSessionKey() ? LENGTH_PREFIX_SIZE + aesSessionKey.length : CONNECT_AES_SESSION_KEY_LENGTH;
         }
         if (signature != null) {
-            remainingLength += CONNECT_SIGNATURE_LENGTH;
+            remainingLength += isEcSignature() ? LENGTH_PREFIX_SIZE + signature.length : CONNECT_SIGNATURE_LENGTH;
         }
         if (syncRequest != null) {
             remainingLength += syncRequest.length;
@@ -143,9 +187,15 @@ public class Connect extends MqttFrame {
     protected void pack() {
         packVeriableHeader();
         if (getAesSessionKey() != null) {
+            if (isEcSessionKey()) {
+                buffer.putChar((char) getAesSessionKey().length);
+            }
             buffer.put(getAesSessionKey());
         }
         if (getSignature() != null) {
+            if (isEcSignature()) {
+                buffer.putChar((char) getSignature().length);
+            }
             buffer.put(getSignature());
         }
         if (getSyncRequest() != null) {
@@ -162,12 +212,16 @@ public class Connect extends MqttFrame {
         buffer.put(FIXED_HEADER_CONST);
         buffer.putInt(nextProtocolId);
         if (getAesSessionKey() != null) {
-            buffer.put(CONNECT_SESSION_KEY_FLAGS);
+            byte sessionKeyFlags = sessionCipherMode == SessionCipherMode.AES_GCM ? CONNECT_GCM_SESSION_KEY_FLAGS : CONNECT_SESSION_KEY_FLAGS;
+            if (isEcSessionKey()) {
+                sessionKeyFlags |= CONNECT_EC_SESSION_KEY_FLAG;
+            }
+            buffer.put(sessionKeyFlags);
         } else {
             buffer.put((byte) 0);
         }
         if (getSignature() != null) {
-            buffer.put(CONNECT_SIGNATURE_FLAGS);
+            buffer.put(isEcSignature() ? CONNECT_EC_SIGNATURE_FLAGS : CONNECT_SIGNATURE_FLAGS);
         } else {
             buffer.put((byte) 0);
         }
@@ -225,6 +279,46 @@ public class Connect extends MqttFrame {
         }
     }
 
+    /**
+     * Session cipher mode getter.
+     * @return SessionCipherMode the cipher the session key is used with
+     */
+    public SessionCipherMode getSessionCipherMode() {
+        return sessionCipherMode;
+    }
+
+    /**
+     * Session cipher mode setter. The server has to support the mode to decode the session.
+     * @param sessionCipherMode SessionCipherMode
+     */
+    public void setSessionCipherMode(SessionCipherMode sessionCipherMode) {
+        this.sessionCipherMode = sessionCipherMode;
+    }
+
+    /**
+     * Session key algorithm getter.
+     * @return String {@link KeyUtil#RSA} for an RSA wrapped session key, {@link KeyUtil#EC} for an ECDH agreed one
+     */
+    public String getSessionKeyAlgorithm() {
+        return sessionKeyAlgorithm;
+    }
+
+    /**
+     * Signature algorithm getter.
+     * @return String {@link KeyUtil#RSA} for a SHA1withRSA signature, {@link KeyUtil#EC} for a SHA256withECDSA one
+     */
+    public String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    private boolean isEcSessionKey() {
+        return KeyUtil.EC.equals(sessionKeyAlgorithm);
+    }
+
+    private boolean isEcSignature() {
+        return KeyUtil.EC.equals(signatureAlgorithm);
+    }
+
     /**
      * Signature getter.
      * @return byte[] signature
@@ -270,8 +364,14 @@ public class Connect extends MqttFrame {
     protected void decode() throws KaaTcpProtocolException {
         decodeVariableHeader();
         nextProtocolId = buffer.getInt();
-        hasAesSessionKey = buffer.get() != 0;
-        hasSignature = buffer.get() != 0;
+        byte sessionKeyFlags = buffer.get();
+        hasAesSessionKey = sessionKeyFlags != 0;
+        sessionCipherMode = (sessionKeyFlags & SESSION_CIPHER_FLAGS_MASK) == (CONNECT_GCM_SESSION_KEY_FLAGS & SESSION_CIPHER_FLAGS_MASK)
+                ? SessionCipherMode.AES_GCM : SessionCipherMode.AES_ECB;
+        sessionKeyAlgorithm = (sessionKeyFlags & CONNECT_EC_SESSION_KEY_FLAG) != 0 ? KeyUtil.EC : KeyUtil.RSA;
+        byte signatureFlags = buffer.get();
+        hasSignature = signatureFlags != 0;
+        signatureAlgorithm = signatureFlags == CONNECT_EC_SIGNATURE_FLAGS ? KeyUtil.EC : KeyUtil.RSA;
         decodeKeepAlive();
         if (hasAesSessionKey) {
             decodeSessionKey();
@@ -287,7 +387,7 @@ public class Connect extends MqttFrame {
      *
      */
     private void decodeSyncRequest() {
-        int syncRequestSize = buffer.capacity() - buffer.position();
+        int syncRequestSize = buffer.remaining();
         if (syncRequestSize > 0) {
             syncRequest = new byte[syncRequestSize];
             buffer.get(syncRequest);
@@ -299,7 +399,7 @@ public class Connect extends MqttFrame {
      *
      */
     private void decodeSignature() {
-        signature = new byte[CONNECT_SIGNATURE_LENGTH];
+        signature = new byte[isEcSignature() ? buffer.getChar() : CONNECT_SIGNATURE_LENGTH];
         buffer.get(signature);
     }
 
@@ -308,7 +408,7 @@ public class Connect extends MqttFrame {
      *
      */
     private void decodeSessionKey() {
-        aesSessionKey = new byte[CONNECT_AES_SESSION_KEY_LENGTH];
+        aesSessionKey = new byte[isEcSessionKey() ? buffer.getChar() : CONNECT_AES_SESSION_KEY_LENGTH];
         buffer.get(aesSessionKey);
     }
 
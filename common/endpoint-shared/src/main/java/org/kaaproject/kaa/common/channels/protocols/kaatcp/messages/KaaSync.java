@@ -135,7 +135,7 @@ public class KaaSync extends MqttFrame {
      */
     protected void packVeriableHeader() {
         buffer.put(FIXED_HEADER_CONST);
-        byte mId1 = (byte) (messageId & 0x0000FF00);
+        byte mId1 = (byte) ((messageId & 0x0000FF00) >> 8);
         buffer.put(mId1);
         byte mId2 = (byte) (messageId & 0x000000FF);
         buffer.put(mId2);
@@ -18,6 +18,7 @@ package org.kaaproject.kaa.common.channels.protocols.kaatcp.messages;
 
 import java.nio.ByteBuffer;
 
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.FrameBufferPool;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.KaaTcpProtocolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +56,10 @@ abstract public class MqttFrame {
     protected int remainingLength = 0;
     protected int multiplier = 1;
     protected FrameParsingState currentState = FrameParsingState.NONE;
+    /** Pool the payload buffer was taken from, null if the buffer is owned by the frame or borrowed from the input */
+    private FrameBufferPool bufferPool;
+    /** 'true' if the payload buffer is not owned by the frame and must be released after processing */
+    private boolean bufferShared = false;
 
     /**
      * @return the messageType
@@ -88,6 +93,10 @@ abstract public class MqttFrame {
         this.remainingLength = old.remainingLength;
         this.multiplier = old.multiplier;
         this.currentState = old.currentState;
+        this.bufferPool = old.bufferPool;
+        this.bufferShared = old.bufferShared;
+        // the new frame takes over returning the buffer to the pool
+        old.bufferPool = null;
     }
 
     /**
@@ -96,19 +105,50 @@ abstract public class MqttFrame {
      */
     public ByteBuffer getFrame() {
         if (buffer == null) {
-            int remainingLegth = getRemainingLegth();
-            byte [] kaaTcpHeader = new byte[6];
-            int headerSize = fillFixedHeader(remainingLegth, kaaTcpHeader);
-            int remainingSize = remainingLegth + headerSize;
-            LOG.trace("Allocating buffer size = {}", remainingSize);
-            buffer = ByteBuffer.allocate(remainingSize);
-            buffer.put(kaaTcpHeader, 0, headerSize);
-            pack();
-            buffer.position(0);
+            int frameLength = getFrameLength();
+            LOG.trace("Allocating buffer size = {}", frameLength);
+            ByteBuffer frame = ByteBuffer.allocate(frameLength);
+            encode(frame);
+            frame.position(0);
+            buffer = frame;
         }
         return buffer;
     }
 
+    /**
+     * Return full length of mqtt frame including fixed header.
+     * @return int frame length in bytes
+     */
+    public int getFrameLength() {
+        int remainingLegth = getRemainingLegth();
+        int size = 1;
+        do {
+            remainingLegth /= 0x00000080;
+            ++size;
+        } while (remainingLegth > 0);
+        return size + getRemainingLegth();
+    }
+
+    /**
+     * Pack mqtt frame into caller supplied buffer starting from its current position.
+     * Unlike {@link #getFrame()} nothing is allocated and the frame doesn't keep a reference to the buffer,
+     * so the same buffer can be reused for every outgoing frame.
+     * @param   dst     the buffer with at least {@link #getFrameLength()} bytes remaining
+     * @return  number of bytes written
+     */
+    public int encode(ByteBuffer dst) {
+        int start = dst.position();
+        fillFixedHeader(getRemainingLegth(), dst);
+        ByteBuffer frameBuffer = buffer;
+        buffer = dst;
+        try {
+            pack();
+        } finally {
+            buffer = frameBuffer;
+        }
+        return dst.position() - start;
+    }
+
     /**
      * Pack message into mqtt frame
      */
@@ -140,12 +180,12 @@ abstract public class MqttFrame {
      * @param   dst             the dst
      * @return  number of packet bytes
      */
-    private int fillFixedHeader(int remainingLegth, byte [] dst) {
+    private int fillFixedHeader(int remainingLegth, ByteBuffer dst) {
         int size = 1;
         byte byte1 = getMessageType().getType();
         byte1 = (byte) (byte1 & (byte) 0x0F);
         byte1 = (byte) (byte1 << 4);
-        dst[0] = byte1;
+        dst.put(byte1);
         byte digit = 0x00;
         do {
             digit = (byte) (remainingLegth % 0x00000080);
@@ -154,7 +194,7 @@ abstract public class MqttFrame {
             if (remainingLegth > 0) {
                 digit = (byte) (digit | 0x80);
             }
-            dst[size] = digit;
+            dst.put(digit);
             ++size;
         } while ( remainingLegth > 0 );
         return size;
@@ -180,7 +220,7 @@ abstract public class MqttFrame {
             if (((b & 0xFF) & 128) == 0) {
                 LOG.trace("Frame ({}): payload length = {}", getMessageType(), remainingLength);
                 if (remainingLength != 0) {
-                    buffer = ByteBuffer.allocate(remainingLength);
+                    buffer = null;
                     currentState = FrameParsingState.PROCESSING_PAYLOAD;
                 } else {
                     onFrameDone();
@@ -197,27 +237,77 @@ abstract public class MqttFrame {
      * @throws  KaaTcpProtocolException the kaa tcp protocol exception
      */
     public int push(byte[] bytes, int position) throws KaaTcpProtocolException {
-        int pos = position;
+        return push(ByteBuffer.wrap(bytes, position, bytes.length - position), null);
+    }
+
+    /**
+     * Push bytes of frame from the remaining bytes of the source buffer and advance its position.
+     * If the whole payload is already in the source, the frame decodes a slice of it without copying.
+     * Otherwise the payload is assembled in a buffer taken from the pool.
+     * In both cases the frame keeps a reference to the shared buffer until {@link #releaseBuffer()} is called,
+     * so the caller must not reuse the source or the pool buffer before that.
+     * @param   src     the source of bytes
+     * @param   pool    the pool of assembly buffers, if null the buffer is allocated
+     * @return  int used bytes from source
+     * @throws  KaaTcpProtocolException the kaa tcp protocol exception
+     */
+    public int push(ByteBuffer src, FrameBufferPool pool) throws KaaTcpProtocolException {
+        int start = src.position();
         if (currentState.equals(FrameParsingState.NONE)) {
             remainingLength = 0;
             currentState = FrameParsingState.PROCESSING_LENGTH;
         }
-        while (pos < bytes.length && !frameDecodeComplete) {
+        while (src.hasRemaining() && !frameDecodeComplete) {
             if (currentState.equals(FrameParsingState.PROCESSING_PAYLOAD)) {
-                int bytesToCopy = (remainingLength > bytes.length - pos) ? bytes.length - pos : remainingLength;
-                buffer.put(bytes, pos, bytesToCopy);
-                pos += bytesToCopy;
+                if (buffer == null && src.remaining() >= remainingLength) {
+                    buffer = src.slice();
+                    buffer.limit(remainingLength);
+                    bufferShared = true;
+                    src.position(src.position() + remainingLength);
+                    LOG.trace("Frame ({}): sliced {} bytes of payload", getMessageType(), remainingLength);
+                    remainingLength = 0;
+                    onFrameDone();
+                    continue;
+                }
+                if (buffer == null) {
+                    if (pool != null) {
+                        buffer = pool.acquire(remainingLength);
+                        bufferPool = pool;
+                        bufferShared = true;
+                    } else {
+                        buffer = ByteBuffer.allocate(remainingLength);
+                    }
+                }
+                int bytesToCopy = Math.min(remainingLength, src.remaining());
+                ByteBuffer chunk = src.slice();
+                chunk.limit(bytesToCopy);
+                buffer.put(chunk);
+                src.position(src.position() + bytesToCopy);
                 remainingLength -= bytesToCopy;
                 LOG.trace("Frame ({}): copied {} bytes of payload. {} bytes left", getMessageType(), bytesToCopy, remainingLength);
                 if (remainingLength == 0) {
                     onFrameDone();
                 }
             } else {
-                processByte(bytes[pos]);
-                ++pos;
+                processByte(src.get());
+            }
+        }
+        return src.position() - start;
+    }
+
+    /**
+     * Drop the reference to the payload buffer if it is shared with the input or taken from the pool.
+     * Must be called once the decoded frame is processed. Decoded fields stay available.
+     */
+    public void releaseBuffer() {
+        if (bufferShared) {
+            if (bufferPool != null) {
+                bufferPool.release(buffer);
+                bufferPool = null;
             }
+            buffer = null;
+            bufferShared = false;
         }
-        return pos - position;
     }
 
     /**
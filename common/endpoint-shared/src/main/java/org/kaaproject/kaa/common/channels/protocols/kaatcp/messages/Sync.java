@@ -72,7 +72,7 @@ public class Sync extends KaaSync {
      * Decode Avro Object
      */
     protected void decodeAvroObject() {
-        int avroObjectSize = buffer.capacity() - buffer.position();
+        int avroObjectSize = buffer.remaining();
         if (avroObjectSize > 0) {
             avroObject = new byte[avroObjectSize];
             buffer.get(avroObject);
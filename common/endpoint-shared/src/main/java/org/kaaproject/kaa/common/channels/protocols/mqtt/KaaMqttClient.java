@@ -11,19 +11,45 @@ import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.impl.SimpleMe
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-//TODO properly handle MgttException
-//TODO clientId what to set?
-//TODO method call forbid
+/**
+ * Thin wrapper around the Paho asynchronous client.
+ * <p>
+ * {@link #connect()} waits for the broker to accept the session, while {@link #sendRequest(byte[])} only
+ * hands the message over to Paho and returns, so several requests may be in flight at the same time.
+ * Completion of each publish is reported through {@link DeliveryCompleteListener}.
+ * <p>
+ * Compressed payloads travel on the topics with the {@link #ZIPPED_TOPIC_SUFFIX}, as MQTT has no header
+ * to carry the KaaSync zipped flag.
+ * <p>
+ * By default the session is clean and kept in memory. With a durable {@link MqttClientPersistence} and
+ * {@code cleanSession} turned off, unacknowledged publishes survive a reconnect and are resent by Paho.
+ */
 public class KaaMqttClient {
-    private static final Logger LOG = LoggerFactory.getLogger(MqttClient.class);
+    private static final Logger LOG = LoggerFactory.getLogger(KaaMqttClient.class);
+
+    /**
+     * Maximum number of publishes Paho keeps in flight before it starts rejecting new ones.
+     */
+    public static final int MAX_IN_FLIGHT = 10;
+
+    /**
+     * Suffix of the topics that carry compressed payloads.
+     */
+    public static final String ZIPPED_TOPIC_SUFFIX = "/zipped";
+
+    private static final long DISCONNECT_QUIESCE_TIMEOUT = 1000L;
+
     private final String SERVER_TOPIC = "server";
+    private final String CLIENT_TOPIC_PREFIX = "client/";
     private final String clientId;
     private final String broker;
     private String username;
     private String password;
-    private MemoryPersistence persistence = new MemoryPersistence();
-    private MqttClient client;
+    private MqttClientPersistence persistence = new MemoryPersistence();
+    private boolean cleanSession = true;
+    private volatile MqttAsyncClient client;
     private Integer qos = 2;
+    private Integer keepAliveInterval = MqttConnectOptions.KEEP_ALIVE_INTERVAL_DEFAULT;
     private ConnectionLostListener connectionLostListener = new SimpleConnectionLostListener();
     private MessageArrivedListener messageArrivedListener = new SimpleMessageArrivedListener();
     private DeliveryCompleteListener deliveryCompleteListener = new SimpleDeliveryCompleteListener();
@@ -41,11 +67,16 @@ public class KaaMqttClient {
         this.password = password;
     }
 
+    /**
+     * Opens the session and subscribes to the server topic. Blocks until both are acknowledged by the broker.
+     * A client that fails to connect is closed, and a client can be connected only once.
+     */
     public void connect() throws MqttException {
-        client = new MqttClient(broker, clientId, persistence);
-        client.connect(getOptions());
-        client.subscribe(SERVER_TOPIC, qos);
-        client.setCallback(new MqttCallback() {
+        if (client != null) {
+            throw new MqttException(MqttException.REASON_CODE_CLIENT_CONNECTED);
+        }
+        MqttAsyncClient newClient = new MqttAsyncClient(broker, clientId, persistence);
+        newClient.setCallback(new MqttCallback() {
             @Override
             public void connectionLost(Throwable cause) {
                 connectionLostListener.connectionLost(cause);
@@ -61,18 +92,85 @@ public class KaaMqttClient {
                 deliveryCompleteListener.deliveryComplete(token);
             }
         });
+        client = newClient;
+        try {
+            newClient.connect(getOptions()).waitForCompletion();
+            newClient.subscribe(new String[]{SERVER_TOPIC, SERVER_TOPIC + ZIPPED_TOPIC_SUFFIX}, new int[]{qos, qos})
+                    .waitForCompletion();
+        } catch (MqttException e) {
+            disconnect();
+            throw e;
+        }
+        LOG.info("Client [{}] connected to {}", clientId, broker);
     }
 
 
+    /**
+     * Disconnects from the broker, waiting at most for the quiesce timeout, and releases the Paho client
+     * and its persistence. Also called after a lost connection, when only the release is left to do.
+     */
     public void disconnect() throws MqttException {
-        client.disconnect();
+        MqttAsyncClient currentClient = client;
+        if (currentClient != null) {
+            try {
+                if (currentClient.isConnected()) {
+                    currentClient.disconnectForcibly(DISCONNECT_QUIESCE_TIMEOUT);
+                }
+                currentClient.close();
+                client = null;
+            } catch (MqttException e) {
+                LOG.debug("Failed to close client [{}]", clientId, e);
+            }
+        }
+    }
+
+    public boolean isConnected() {
+        return client != null && client.isConnected();
+    }
+
+    /**
+     * Publishes the request body to the client topic with the client's default QoS.
+     *
+     * @param body the request body
+     * @return the token that tracks the delivery of the message
+     */
+    public IMqttDeliveryToken sendRequest(byte[] body) throws MqttException {
+        return sendRequest(body, qos);
     }
 
-    public void sendRequest(byte[] body) throws MqttException {
+    /**
+     * Publishes the request body to the client topic without waiting for the delivery.
+     *
+     * @param body the request body
+     * @param qos the QoS level of the message
+     * @return the token that tracks the delivery of the message
+     */
+    public IMqttDeliveryToken sendRequest(byte[] body, int qos) throws MqttException {
+        return sendRequest(body, qos, false);
+    }
+
+    /**
+     * Publishes the request body without waiting for the delivery.
+     *
+     * @param body the request body
+     * @param qos the QoS level of the message
+     * @param zipped whether the body is compressed
+     * @return the token that tracks the delivery of the message
+     */
+    public IMqttDeliveryToken sendRequest(byte[] body, int qos, boolean zipped) throws MqttException {
         MqttMessage message = new MqttMessage();
         message.setPayload(body);
         message.setQos(qos);
-        client.publish("client/" + clientId, message);
+        MqttAsyncClient currentClient = client;
+        if (currentClient == null || !currentClient.isConnected()) {
+            throw new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED);
+        }
+        String topic = CLIENT_TOPIC_PREFIX + clientId;
+        return currentClient.publish(zipped ? topic + ZIPPED_TOPIC_SUFFIX : topic, message);
+    }
+
+    public static boolean isZippedTopic(String topic) {
+        return topic != null && topic.endsWith(ZIPPED_TOPIC_SUFFIX);
     }
 
 
@@ -92,9 +190,22 @@ public class KaaMqttClient {
         this.qos = qos;
     }
 
+    public void setKeepAliveInterval(Integer keepAliveInterval) {
+        this.keepAliveInterval = keepAliveInterval;
+    }
+
+    public void setPersistence(MqttClientPersistence persistence) {
+        this.persistence = persistence;
+    }
+
+    public void setCleanSession(boolean cleanSession) {
+        this.cleanSession = cleanSession;
+    }
+
     private MqttConnectOptions getOptions() {
         MqttConnectOptions connOpts = new MqttConnectOptions();
-        connOpts.setCleanSession(true);
+        connOpts.setCleanSession(cleanSession);
+        connOpts.setKeepAliveInterval(keepAliveInterval);
 
         if (username != null && password != null) {
             connOpts.setUserName(username);
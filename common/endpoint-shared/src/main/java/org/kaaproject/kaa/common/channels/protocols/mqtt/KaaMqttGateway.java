@@ -0,0 +1,436 @@
+package org.kaaproject.kaa.common.channels.protocols.mqtt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.ConnectionLostListener;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.DeliveryCompleteListener;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.MessageArrivedListener;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.impl.SimpleConnectionLostListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Carries many endpoint identities over a single broker connection.
+ * <p>
+ * Each registered endpoint publishes to {@code client/<endpointId>} and receives responses from
+ * {@code server/<endpointId>}, compressed payloads travel on the same topics with the
+ * {@link KaaMqttClient#ZIPPED_TOPIC_SUFFIX}. Incoming messages and delivery notifications are routed by topic
+ * to the listeners of the endpoint they belong to, so every endpoint keeps its own demultiplexer while the
+ * gateway pays for one socket and one keepalive.
+ * <p>
+ * {@link #createEndpointClient(String)} returns a {@link KaaMqttClient} view of one endpoint, which lets an
+ * MQTT operations channel run on top of the gateway unchanged. The connection settings of such a client are
+ * ignored, as the connection belongs to the gateway.
+ * <p>
+ * When the connection is lost, the gateway and every registered endpoint are notified. The next
+ * {@link #connect()}, made directly or by one of the endpoint clients, replaces the broken connection and
+ * subscribes all registered endpoints again.
+ * <p>
+ * Every gateway instance subscribes only the endpoints registered with it, as the responses of an endpoint
+ * can only be processed by the instance that holds its listeners. Shared subscriptions
+ * ({@code $share/<group>/...}) are not supported for the same reason.
+ */
+public class KaaMqttGateway {
+    private static final Logger LOG = LoggerFactory.getLogger(KaaMqttGateway.class);
+
+    private static final long DISCONNECT_QUIESCE_TIMEOUT = 1000L;
+
+    static final String SERVER_TOPIC_PREFIX = "server/";
+    static final String CLIENT_TOPIC_PREFIX = "client/";
+
+    private final String broker;
+    private final String gatewayId;
+    private String username;
+    private String password;
+    private MqttClientPersistence persistence = new MemoryPersistence();
+    private int qos = MqttQosPolicy.EXACTLY_ONCE;
+    private int keepAliveInterval = MqttConnectOptions.KEEP_ALIVE_INTERVAL_DEFAULT;
+    private boolean cleanSession = true;
+    private ConnectionLostListener connectionLostListener = new SimpleConnectionLostListener();
+    private volatile MqttAsyncClient client;
+
+    private final Map<String, EndpointListeners> endpoints = new ConcurrentHashMap<>();
+
+    public KaaMqttGateway(String broker, String gatewayId) {
+        this.broker = broker;
+        this.gatewayId = gatewayId;
+    }
+
+    public KaaMqttGateway(String broker, String gatewayId, String username, String password) {
+        this(broker, gatewayId);
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Opens the session and subscribes to the response topics of all registered endpoints in one request.
+     * Blocks until both are acknowledged by the broker. The previous connection, if any, is closed.
+     */
+    public synchronized void connect() throws MqttException {
+        if (client != null) {
+            closeQuietly(client);
+        }
+        final MqttAsyncClient newClient = createAsyncClient(broker, gatewayId, persistence);
+        client = newClient;
+        newClient.setCallback(new MqttCallback() {
+            @Override
+            public void connectionLost(Throwable cause) {
+                if (newClient == client) {
+                    notifyConnectionLost(cause);
+                } else {
+                    LOG.debug("Gateway [{}] ignores connection loss of a stale client", gatewayId);
+                }
+            }
+
+            @Override
+            public void messageArrived(String topic, MqttMessage message) throws Exception {
+                routeMessage(topic, message);
+            }
+
+            @Override
+            public void deliveryComplete(IMqttDeliveryToken token) {
+                routeDeliveryComplete(token);
+            }
+        });
+        newClient.connect(getOptions()).waitForCompletion();
+
+        List<String> endpointIds = new ArrayList<>(endpoints.keySet());
+        if (!endpointIds.isEmpty()) {
+            List<String> filters = new ArrayList<>(endpointIds.size() * 2);
+            for (String endpointId : endpointIds) {
+                filters.addAll(Arrays.asList(toSubscriptionFilters(endpointId)));
+            }
+            int[] qosLevels = new int[filters.size()];
+            Arrays.fill(qosLevels, qos);
+            newClient.subscribe(filters.toArray(new String[filters.size()]), qosLevels).waitForCompletion();
+        }
+        LOG.info("Gateway [{}] connected to {} with {} endpoint(s)", gatewayId, broker, endpointIds.size());
+    }
+
+    /**
+     * Starts disconnecting from the broker without waiting for it to finish.
+     */
+    public synchronized void disconnect() throws MqttException {
+        if (isConnected()) {
+            client.disconnect(DISCONNECT_QUIESCE_TIMEOUT);
+        }
+    }
+
+    public boolean isConnected() {
+        MqttAsyncClient current = client;
+        return current != null && current.isConnected();
+    }
+
+    /**
+     * Registers an endpoint behind the gateway. If the gateway is already connected, the endpoint's
+     * response topic is subscribed right away, otherwise on the next {@link #connect()}.
+     *
+     * @param endpointId the endpoint identity used in its topics
+     * @param messageArrivedListener receives the responses addressed to the endpoint
+     * @param deliveryCompleteListener notified when a request of the endpoint has been delivered
+     */
+    public void registerEndpoint(String endpointId, MessageArrivedListener messageArrivedListener,
+                                 DeliveryCompleteListener deliveryCompleteListener) throws MqttException {
+        registerEndpoint(endpointId, messageArrivedListener, deliveryCompleteListener, null);
+    }
+
+    /**
+     * Registers an endpoint behind the gateway. If the gateway is already connected, the endpoint's
+     * response topics are subscribed right away, otherwise on the next {@link #connect()}.
+     *
+     * @param endpointId the endpoint identity used in its topics
+     * @param messageArrivedListener receives the responses addressed to the endpoint
+     * @param deliveryCompleteListener notified when a request of the endpoint has been delivered
+     * @param connectionLostListener notified when the gateway loses the connection, may be null
+     */
+    public synchronized void registerEndpoint(String endpointId, MessageArrivedListener messageArrivedListener,
+                                              DeliveryCompleteListener deliveryCompleteListener,
+                                              ConnectionLostListener connectionLostListener) throws MqttException {
+        EndpointListeners previous = endpoints.put(endpointId,
+                new EndpointListeners(messageArrivedListener, deliveryCompleteListener, connectionLostListener));
+        if (previous == null && isConnected()) {
+            String[] filters = toSubscriptionFilters(endpointId);
+            int[] qosLevels = new int[filters.length];
+            Arrays.fill(qosLevels, qos);
+            client.subscribe(filters, qosLevels).waitForCompletion();
+        }
+        LOG.debug("Gateway [{}] registered endpoint [{}]", gatewayId, endpointId);
+    }
+
+    /**
+     * Registers the endpoint and connects the gateway unless it is connected already.
+     */
+    synchronized void connectEndpoint(String endpointId, MessageArrivedListener messageArrivedListener,
+                                      DeliveryCompleteListener deliveryCompleteListener,
+                                      ConnectionLostListener connectionLostListener) throws MqttException {
+        registerEndpoint(endpointId, messageArrivedListener, deliveryCompleteListener, connectionLostListener);
+        if (!isConnected()) {
+            connect();
+        }
+    }
+
+    /**
+     * Stops routing messages to the endpoint and drops its subscription.
+     *
+     * @param endpointId the endpoint identity
+     */
+    public synchronized void unregisterEndpoint(String endpointId) throws MqttException {
+        if (endpoints.remove(endpointId) != null && isConnected()) {
+            client.unsubscribe(toSubscriptionFilters(endpointId));
+        }
+        LOG.debug("Gateway [{}] unregistered endpoint [{}]", gatewayId, endpointId);
+    }
+
+    /**
+     * Unregisters the endpoint unless it has been registered again with other listeners since.
+     */
+    synchronized void disconnectEndpoint(String endpointId, MessageArrivedListener messageArrivedListener)
+            throws MqttException {
+        EndpointListeners listeners = endpoints.get(endpointId);
+        if (listeners != null && listeners.messageArrivedListener == messageArrivedListener) {
+            unregisterEndpoint(endpointId);
+        }
+    }
+
+    public boolean isRegistered(String endpointId) {
+        return endpoints.containsKey(endpointId);
+    }
+
+    /**
+     * Publishes a request on behalf of a registered endpoint without waiting for the delivery.
+     *
+     * @param endpointId the endpoint identity
+     * @param body the request body
+     * @param qos the QoS level of the message
+     * @return the token that tracks the delivery of the message
+     */
+    public IMqttDeliveryToken sendRequest(String endpointId, byte[] body, int qos) throws MqttException {
+        return sendRequest(endpointId, body, qos, false);
+    }
+
+    /**
+     * Publishes a request on behalf of a registered endpoint without waiting for the delivery.
+     *
+     * @param endpointId the endpoint identity
+     * @param body the request body
+     * @param qos the QoS level of the message
+     * @param zipped whether the body is compressed
+     * @return the token that tracks the delivery of the message
+     */
+    public IMqttDeliveryToken sendRequest(String endpointId, byte[] body, int qos, boolean zipped)
+            throws MqttException {
+        if (!endpoints.containsKey(endpointId)) {
+            throw new IllegalArgumentException("Endpoint [" + endpointId + "] is not registered");
+        }
+        MqttAsyncClient currentClient = client;
+        if (currentClient == null || !currentClient.isConnected()) {
+            throw new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED);
+        }
+        MqttMessage message = new MqttMessage();
+        message.setPayload(body);
+        message.setQos(qos);
+        String topic = CLIENT_TOPIC_PREFIX + endpointId;
+        return currentClient.publish(zipped ? topic + KaaMqttClient.ZIPPED_TOPIC_SUFFIX : topic, message);
+    }
+
+    public IMqttDeliveryToken sendRequest(String endpointId, byte[] body) throws MqttException {
+        return sendRequest(endpointId, body, qos);
+    }
+
+    public void onConnectionLost(ConnectionLostListener connectionLostListener) {
+        this.connectionLostListener = connectionLostListener;
+    }
+
+    /**
+     * Creates the client of one endpoint that works over the connection of this gateway. Connecting the
+     * client registers the endpoint and connects the gateway if needed, disconnecting it unregisters the
+     * endpoint.
+     *
+     * @param endpointId the endpoint identity used in its topics
+     * @return the endpoint client
+     */
+    public KaaMqttClient createEndpointClient(String endpointId) {
+        return new EndpointClient(endpointId);
+    }
+
+    public void setQos(int qos) {
+        this.qos = qos;
+    }
+
+    public void setKeepAliveInterval(int keepAliveInterval) {
+        this.keepAliveInterval = keepAliveInterval;
+    }
+
+    public void setPersistence(MqttClientPersistence persistence) {
+        this.persistence = persistence;
+    }
+
+    /**
+     * Sets whether the broker should drop the session of the gateway on connect. Takes effect on the next
+     * {@link #connect()}.
+     *
+     * @param cleanSession false to keep the subscriptions and the undelivered messages across reconnects
+     */
+    public void setCleanSession(boolean cleanSession) {
+        this.cleanSession = cleanSession;
+    }
+
+    protected MqttAsyncClient createAsyncClient(String broker, String clientId, MqttClientPersistence persistence)
+            throws MqttException {
+        return new MqttAsyncClient(broker, clientId, persistence);
+    }
+
+    void routeMessage(String topic, MqttMessage message) {
+        EndpointListeners listeners = findListeners(topic, SERVER_TOPIC_PREFIX);
+        if (listeners != null) {
+            listeners.messageArrivedListener.messageArrived(topic, message);
+        } else {
+            LOG.warn("Gateway [{}] dropped message on topic [{}]: no such endpoint", gatewayId, topic);
+        }
+    }
+
+    void routeDeliveryComplete(IMqttDeliveryToken token) {
+        String[] topics = token.getTopics();
+        if (topics == null || topics.length == 0) {
+            LOG.debug("Gateway [{}] got delivery token without topic", gatewayId);
+            return;
+        }
+        EndpointListeners listeners = findListeners(topics[0], CLIENT_TOPIC_PREFIX);
+        if (listeners != null) {
+            listeners.deliveryCompleteListener.deliveryComplete(token);
+        } else {
+            LOG.debug("Gateway [{}] got delivery for unknown topics {}", gatewayId, Arrays.toString(topics));
+        }
+    }
+
+    private void notifyConnectionLost(Throwable cause) {
+        connectionLostListener.connectionLost(cause);
+        for (Map.Entry<String, EndpointListeners> entry : endpoints.entrySet()) {
+            ConnectionLostListener listener = entry.getValue().connectionLostListener;
+            if (listener != null) {
+                try {
+                    listener.connectionLost(cause);
+                } catch (RuntimeException e) {
+                    LOG.warn("Gateway [{}] failed to notify endpoint [{}] of connection loss", gatewayId,
+                            entry.getKey(), e);
+                }
+            }
+        }
+    }
+
+    private EndpointListeners findListeners(String topic, String prefix) {
+        if (topic == null || !topic.startsWith(prefix)) {
+            return null;
+        }
+        String endpointId = topic.substring(prefix.length());
+        if (KaaMqttClient.isZippedTopic(endpointId)) {
+            endpointId = endpointId.substring(0, endpointId.length() - KaaMqttClient.ZIPPED_TOPIC_SUFFIX.length());
+        }
+        return endpoints.get(endpointId);
+    }
+
+    private static String[] toSubscriptionFilters(String endpointId) {
+        String topic = SERVER_TOPIC_PREFIX + endpointId;
+        return new String[]{topic, topic + KaaMqttClient.ZIPPED_TOPIC_SUFFIX};
+    }
+
+    private void closeQuietly(MqttAsyncClient oldClient) {
+        try {
+            if (oldClient.isConnected()) {
+                oldClient.disconnectForcibly(DISCONNECT_QUIESCE_TIMEOUT);
+            }
+            oldClient.close();
+        } catch (MqttException e) {
+            LOG.debug("Gateway [{}] failed to close the previous client", gatewayId, e);
+        }
+    }
+
+    private MqttConnectOptions getOptions() {
+        MqttConnectOptions connOpts = new MqttConnectOptions();
+        connOpts.setCleanSession(cleanSession);
+        connOpts.setKeepAliveInterval(keepAliveInterval);
+
+        if (username != null && password != null) {
+            connOpts.setUserName(username);
+            connOpts.setPassword(password.toCharArray());
+        }
+
+        return connOpts;
+    }
+
+    private static final class EndpointListeners {
+        private final MessageArrivedListener messageArrivedListener;
+        private final DeliveryCompleteListener deliveryCompleteListener;
+        private final ConnectionLostListener connectionLostListener;
+
+        private EndpointListeners(MessageArrivedListener messageArrivedListener,
+                                  DeliveryCompleteListener deliveryCompleteListener,
+                                  ConnectionLostListener connectionLostListener) {
+            this.messageArrivedListener = messageArrivedListener;
+            this.deliveryCompleteListener = deliveryCompleteListener;
+            this.connectionLostListener = connectionLostListener;
+        }
+    }
+
+    /**
+     * The {@link KaaMqttClient} view of one endpoint behind the gateway.
+     */
+    private final class EndpointClient extends KaaMqttClient {
+        private final String endpointId;
+        private MessageArrivedListener messageArrivedListener;
+        private DeliveryCompleteListener deliveryCompleteListener;
+        private ConnectionLostListener connectionLostListener;
+
+        private EndpointClient(String endpointId) {
+            super(broker, endpointId);
+            this.endpointId = endpointId;
+        }
+
+        @Override
+        public void connect() throws MqttException {
+            connectEndpoint(endpointId, messageArrivedListener, deliveryCompleteListener, connectionLostListener);
+        }
+
+        @Override
+        public void disconnect() throws MqttException {
+            disconnectEndpoint(endpointId, messageArrivedListener);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return KaaMqttGateway.this.isConnected() && isRegistered(endpointId);
+        }
+
+        @Override
+        public IMqttDeliveryToken sendRequest(byte[] body, int qos, boolean zipped) throws MqttException {
+            return KaaMqttGateway.this.sendRequest(endpointId, body, qos, zipped);
+        }
+
+        @Override
+        public void onMessageArrived(MessageArrivedListener messageArrivedListener) {
+            this.messageArrivedListener = messageArrivedListener;
+        }
+
+        @Override
+        public void onConnectionLost(ConnectionLostListener connectionLostListener) {
+            this.connectionLostListener = connectionLostListener;
+        }
+
+        @Override
+        public void onDeliveryComplete(DeliveryCompleteListener deliveryCompleteListener) {
+            this.deliveryCompleteListener = deliveryCompleteListener;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.kaaproject.kaa.common.channels.protocols.mqtt;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.kaaproject.kaa.common.TransportType;
+
+/**
+ * Maps each {@link TransportType} to the MQTT QoS level its data is published with.
+ * Types without an explicit level use the default QoS.
+ */
+public class MqttQosPolicy {
+
+    public static final int AT_MOST_ONCE = 0;
+    public static final int AT_LEAST_ONCE = 1;
+    public static final int EXACTLY_ONCE = 2;
+
+    private final Map<TransportType, Integer> qosByType = new EnumMap<TransportType, Integer>(TransportType.class);
+    private int defaultQos = EXACTLY_ONCE;
+
+    /**
+     * Creates the policy used by the operations channel unless another one is set:
+     * logs, events and notifications are published at least once, everything else exactly once.
+     *
+     * @return the default policy
+     */
+    public static MqttQosPolicy createDefault() {
+        MqttQosPolicy policy = new MqttQosPolicy();
+        policy.setQos(TransportType.LOGGING, AT_LEAST_ONCE);
+        policy.setQos(TransportType.EVENT, AT_LEAST_ONCE);
+        policy.setQos(TransportType.NOTIFICATION, AT_LEAST_ONCE);
+        return policy;
+    }
+
+    public MqttQosPolicy setQos(TransportType type, int qos) {
+        qosByType.put(type, validate(qos));
+        return this;
+    }
+
+    public MqttQosPolicy setDefaultQos(int qos) {
+        this.defaultQos = validate(qos);
+        return this;
+    }
+
+    public int getDefaultQos() {
+        return defaultQos;
+    }
+
+    public int getQos(TransportType type) {
+        Integer qos = qosByType.get(type);
+        return qos != null ? qos : defaultQos;
+    }
+
+    /**
+     * Returns the highest QoS among the given types, so that a message carrying all of them
+     * is delivered as reliably as the most demanding one requires.
+     *
+     * @param types the transport types
+     * @return the highest QoS, or the default QoS if no types are given
+     */
+    public int getMaxQos(Collection<TransportType> types) {
+        if (types.isEmpty()) {
+            return defaultQos;
+        }
+        int maxQos = AT_MOST_ONCE;
+        for (TransportType type : types) {
+            maxQos = Math.max(maxQos, getQos(type));
+        }
+        return maxQos;
+    }
+
+    private static int validate(int qos) {
+        if (qos < AT_MOST_ONCE || qos > EXACTLY_ONCE) {
+            throw new IllegalArgumentException("Invalid QoS level: " + qos);
+        }
+        return qos;
+    }
+
+    @Override
+    public String toString() {
+        return "MqttQosPolicy [qosByType=" + qosByType + ", defaultQos=" + defaultQos + "]";
+    }
+}
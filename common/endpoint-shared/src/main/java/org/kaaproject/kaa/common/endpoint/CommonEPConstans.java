@@ -57,6 +57,9 @@ public interface CommonEPConstans  extends Constants { //NOSONAR
     /** The Constant SIGNATURE_HEADER_NAME. */
     public static final String SIGNATURE_HEADER_NAME = "X-SIGNATURE"; //NOSONAR
 
+    /** The Constant SESSION_KEY_RENEWAL_HEADER_NAME. */
+    public static final String SESSION_KEY_RENEWAL_HEADER_NAME = "X-SESSION-KEY-RENEWAL"; //NOSONAR
+
     /** The Constant REQUEST_SIGNATURE_ATTR_NAME. */
     public static final String REQUEST_SIGNATURE_ATTR_NAME = "signature"; //NOSONAR
 
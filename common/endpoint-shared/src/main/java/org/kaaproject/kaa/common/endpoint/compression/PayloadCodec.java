@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.endpoint.compression;
+
+import java.io.IOException;
+
+/**
+ * Compression algorithm applied to sync payloads before they are encrypted.
+ */
+public interface PayloadCodec {
+
+    /**
+     * Compresses the data.
+     *
+     * @param data the data to compress
+     * @return the compressed data
+     * @throws IOException if the data can't be compressed
+     */
+    byte[] compress(byte[] data) throws IOException;
+
+    /**
+     * Restores the data produced by {@link #compress(byte[])}.
+     *
+     * @param data the compressed data
+     * @return the original data
+     * @throws IOException if the data is not a valid compressed payload
+     */
+    byte[] decompress(byte[] data) throws IOException;
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.endpoint.compression;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides whether a sync payload is worth compressing and applies the {@link PayloadCodec}.
+ * <p>
+ * Payloads smaller than the threshold are sent as is, since the codec header and the CPU time
+ * outweigh the saving. A payload is also sent as is when compression doesn't make it smaller.
+ */
+public class PayloadCompressor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PayloadCompressor.class);
+
+    public static final int DEFAULT_THRESHOLD = 256;
+
+    private final PayloadCodec codec;
+    private final int threshold;
+
+    public PayloadCompressor() {
+        this(new DeflatePayloadCodec(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param codec the compression algorithm
+     * @param threshold the minimal size in bytes of a payload to compress
+     */
+    public PayloadCompressor(PayloadCodec codec, int threshold) {
+        if (codec == null) {
+            throw new IllegalArgumentException("Codec can't be null");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold can't be negative: " + threshold);
+        }
+        this.codec = codec;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compresses the payload if it is large enough and compression pays off.
+     *
+     * @param payload the payload
+     * @return the compressed payload, or null if the payload should be sent uncompressed
+     */
+    public byte[] compress(byte[] payload) {
+        if (payload == null || payload.length < threshold) {
+            return null;
+        }
+        try {
+            byte[] compressed = codec.compress(payload);
+            if (compressed.length >= payload.length) {
+                LOG.trace("Compression doesn't reduce payload of {} bytes, sending it as is", payload.length);
+                return null;
+            }
+            LOG.trace("Compressed payload from {} to {} bytes", payload.length, compressed.length);
+            return compressed;
+        } catch (IOException e) {
+            LOG.warn("Failed to compress payload of {} bytes, sending it as is", payload.length, e);
+            return null;
+        }
+    }
+
+    public byte[] decompress(byte[] payload) throws IOException {
+        return codec.decompress(payload);
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+}
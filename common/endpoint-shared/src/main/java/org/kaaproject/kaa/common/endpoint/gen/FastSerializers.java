@@ -0,0 +1,2130 @@
+/**
+ * Autogenerated by FastSerializerGenerator
+ * 
+ * DO NOT EDIT DIRECTLY
+ */
+package org.kaaproject.kaa.common.endpoint.gen;
+
+/** Reflection-free binary serializers of the endpoint protocol records. */
+@SuppressWarnings("all")
+public final class FastSerializers {
+  private static final java.util.Map<java.lang.Class<?>, Serializer<?>> SERIALIZERS = new java.util.HashMap<java.lang.Class<?>, Serializer<?>>();
+  private static final org.kaaproject.kaa.common.endpoint.gen.SyncResponseStatus[] SYNC_RESPONSE_STATUS_VALUES = org.kaaproject.kaa.common.endpoint.gen.SyncResponseStatus.values();
+  private static final org.kaaproject.kaa.common.endpoint.gen.NotificationType[] NOTIFICATION_TYPE_VALUES = org.kaaproject.kaa.common.endpoint.gen.NotificationType.values();
+  private static final org.kaaproject.kaa.common.endpoint.gen.SubscriptionType[] SUBSCRIPTION_TYPE_VALUES = org.kaaproject.kaa.common.endpoint.gen.SubscriptionType.values();
+  private static final org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommandType[] SUBSCRIPTION_COMMAND_TYPE_VALUES = org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommandType.values();
+  private static final org.kaaproject.kaa.common.endpoint.gen.SyncResponseResultType[] SYNC_RESPONSE_RESULT_TYPE_VALUES = org.kaaproject.kaa.common.endpoint.gen.SyncResponseResultType.values();
+  private static final org.kaaproject.kaa.common.endpoint.gen.LogDeliveryErrorCode[] LOG_DELIVERY_ERROR_CODE_VALUES = org.kaaproject.kaa.common.endpoint.gen.LogDeliveryErrorCode.values();
+  private static final org.kaaproject.kaa.common.endpoint.gen.UserAttachErrorCode[] USER_ATTACH_ERROR_CODE_VALUES = org.kaaproject.kaa.common.endpoint.gen.UserAttachErrorCode.values();
+
+  static {
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.TopicState.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.TopicState>(0, org.kaaproject.kaa.common.endpoint.gen.TopicState.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand>(1, org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest>(2, org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse>(3, org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification>(4, org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification>(5, org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest>(6, org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse>(7, org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest>(8, org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse>(9, org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.Event.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.Event>(10, org.kaaproject.kaa.common.endpoint.gen.Event.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest>(11, org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse>(12, org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest>(13, org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse>(14, org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.Notification.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.Notification>(15, org.kaaproject.kaa.common.endpoint.gen.Notification.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.Topic.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.Topic>(16, org.kaaproject.kaa.common.endpoint.gen.Topic.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.LogEntry.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.LogEntry>(17, org.kaaproject.kaa.common.endpoint.gen.LogEntry.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData>(18, org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest>(19, org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair>(20, org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest>(21, org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest>(22, org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest>(23, org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest>(24, org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest>(25, org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest>(26, org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData>(27, org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse>(28, org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse>(29, org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse>(30, org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse>(31, org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse>(32, org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse>(33, org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus>(34, org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse>(35, org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse>(36, org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ExtensionSync.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync>(37, org.kaaproject.kaa.common.endpoint.gen.ExtensionSync.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.SyncRequest.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.SyncRequest>(38, org.kaaproject.kaa.common.endpoint.gen.SyncRequest.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.SyncResponse.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.SyncResponse>(39, org.kaaproject.kaa.common.endpoint.gen.SyncResponse.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo>(40, org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification>(41, org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification>(42, org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile>(43, org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild>(44, org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild.getClassSchema()));
+    SERIALIZERS.put(org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile.class, new Serializer<org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile>(45, org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile.getClassSchema()));
+  }
+
+  private FastSerializers() {}
+
+  /** Returns the serializer of the record class or null if there is none. */
+  @SuppressWarnings("unchecked")
+  public static <T> Serializer<T> forClass(java.lang.Class<T> type) {
+    return (Serializer<T>) SERIALIZERS.get(type);
+  }
+
+  /** Datum writer and reader of one record class. */
+  public static final class Serializer<T> implements org.apache.avro.io.DatumWriter<T>, org.apache.avro.io.DatumReader<T> {
+    private final int id;
+    private final org.apache.avro.Schema schema;
+
+    private Serializer(int id, org.apache.avro.Schema schema) {
+      this.id = id;
+      this.schema = schema;
+    }
+
+    @Override
+    public void setSchema(org.apache.avro.Schema schema) {
+      if (!this.schema.equals(schema)) {
+        throw new java.lang.UnsupportedOperationException("Schema resolution is not supported");
+      }
+    }
+
+    @Override
+    public void write(T datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+      switch (id) {
+        case 0: writeTopicState((org.kaaproject.kaa.common.endpoint.gen.TopicState) datum, out); break;
+        case 1: writeSubscriptionCommand((org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand) datum, out); break;
+        case 2: writeUserAttachRequest((org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest) datum, out); break;
+        case 3: writeUserAttachResponse((org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse) datum, out); break;
+        case 4: writeUserAttachNotification((org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification) datum, out); break;
+        case 5: writeUserDetachNotification((org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification) datum, out); break;
+        case 6: writeEndpointAttachRequest((org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest) datum, out); break;
+        case 7: writeEndpointAttachResponse((org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse) datum, out); break;
+        case 8: writeEndpointDetachRequest((org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest) datum, out); break;
+        case 9: writeEndpointDetachResponse((org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse) datum, out); break;
+        case 10: writeEvent((org.kaaproject.kaa.common.endpoint.gen.Event) datum, out); break;
+        case 11: writeEventListenersRequest((org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest) datum, out); break;
+        case 12: writeEventListenersResponse((org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse) datum, out); break;
+        case 13: writeEventSequenceNumberRequest((org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest) datum, out); break;
+        case 14: writeEventSequenceNumberResponse((org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse) datum, out); break;
+        case 15: writeNotification((org.kaaproject.kaa.common.endpoint.gen.Notification) datum, out); break;
+        case 16: writeTopic((org.kaaproject.kaa.common.endpoint.gen.Topic) datum, out); break;
+        case 17: writeLogEntry((org.kaaproject.kaa.common.endpoint.gen.LogEntry) datum, out); break;
+        case 18: writeSyncRequestMetaData((org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData) datum, out); break;
+        case 19: writeProfileSyncRequest((org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest) datum, out); break;
+        case 20: writeProtocolVersionPair((org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair) datum, out); break;
+        case 21: writeBootstrapSyncRequest((org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest) datum, out); break;
+        case 22: writeConfigurationSyncRequest((org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest) datum, out); break;
+        case 23: writeNotificationSyncRequest((org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest) datum, out); break;
+        case 24: writeUserSyncRequest((org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest) datum, out); break;
+        case 25: writeEventSyncRequest((org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest) datum, out); break;
+        case 26: writeLogSyncRequest((org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest) datum, out); break;
+        case 27: writeProtocolMetaData((org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData) datum, out); break;
+        case 28: writeBootstrapSyncResponse((org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse) datum, out); break;
+        case 29: writeProfileSyncResponse((org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse) datum, out); break;
+        case 30: writeConfigurationSyncResponse((org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse) datum, out); break;
+        case 31: writeNotificationSyncResponse((org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse) datum, out); break;
+        case 32: writeUserSyncResponse((org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse) datum, out); break;
+        case 33: writeEventSyncResponse((org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse) datum, out); break;
+        case 34: writeLogDeliveryStatus((org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus) datum, out); break;
+        case 35: writeLogSyncResponse((org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse) datum, out); break;
+        case 36: writeRedirectSyncResponse((org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse) datum, out); break;
+        case 37: writeExtensionSync((org.kaaproject.kaa.common.endpoint.gen.ExtensionSync) datum, out); break;
+        case 38: writeSyncRequest((org.kaaproject.kaa.common.endpoint.gen.SyncRequest) datum, out); break;
+        case 39: writeSyncResponse((org.kaaproject.kaa.common.endpoint.gen.SyncResponse) datum, out); break;
+        case 40: writeTopicSubscriptionInfo((org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo) datum, out); break;
+        case 41: writeBasicUserNotification((org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification) datum, out); break;
+        case 42: writeBasicSystemNotification((org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification) datum, out); break;
+        case 43: writeBasicEndpointProfile((org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile) datum, out); break;
+        case 44: writeExtendedEndpointProfileChild((org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild) datum, out); break;
+        case 45: writeExtendedEndpointProfile((org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile) datum, out); break;
+        default: throw new java.lang.IllegalStateException();
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read(T reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+      switch (id) {
+        case 0: return (T) readTopicState((org.kaaproject.kaa.common.endpoint.gen.TopicState) reuse, in);
+        case 1: return (T) readSubscriptionCommand((org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand) reuse, in);
+        case 2: return (T) readUserAttachRequest((org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest) reuse, in);
+        case 3: return (T) readUserAttachResponse((org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse) reuse, in);
+        case 4: return (T) readUserAttachNotification((org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification) reuse, in);
+        case 5: return (T) readUserDetachNotification((org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification) reuse, in);
+        case 6: return (T) readEndpointAttachRequest((org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest) reuse, in);
+        case 7: return (T) readEndpointAttachResponse((org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse) reuse, in);
+        case 8: return (T) readEndpointDetachRequest((org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest) reuse, in);
+        case 9: return (T) readEndpointDetachResponse((org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse) reuse, in);
+        case 10: return (T) readEvent((org.kaaproject.kaa.common.endpoint.gen.Event) reuse, in);
+        case 11: return (T) readEventListenersRequest((org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest) reuse, in);
+        case 12: return (T) readEventListenersResponse((org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse) reuse, in);
+        case 13: return (T) readEventSequenceNumberRequest((org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest) reuse, in);
+        case 14: return (T) readEventSequenceNumberResponse((org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse) reuse, in);
+        case 15: return (T) readNotification((org.kaaproject.kaa.common.endpoint.gen.Notification) reuse, in);
+        case 16: return (T) readTopic((org.kaaproject.kaa.common.endpoint.gen.Topic) reuse, in);
+        case 17: return (T) readLogEntry((org.kaaproject.kaa.common.endpoint.gen.LogEntry) reuse, in);
+        case 18: return (T) readSyncRequestMetaData((org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData) reuse, in);
+        case 19: return (T) readProfileSyncRequest((org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest) reuse, in);
+        case 20: return (T) readProtocolVersionPair((org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair) reuse, in);
+        case 21: return (T) readBootstrapSyncRequest((org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest) reuse, in);
+        case 22: return (T) readConfigurationSyncRequest((org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest) reuse, in);
+        case 23: return (T) readNotificationSyncRequest((org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest) reuse, in);
+        case 24: return (T) readUserSyncRequest((org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest) reuse, in);
+        case 25: return (T) readEventSyncRequest((org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest) reuse, in);
+        case 26: return (T) readLogSyncRequest((org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest) reuse, in);
+        case 27: return (T) readProtocolMetaData((org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData) reuse, in);
+        case 28: return (T) readBootstrapSyncResponse((org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse) reuse, in);
+        case 29: return (T) readProfileSyncResponse((org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse) reuse, in);
+        case 30: return (T) readConfigurationSyncResponse((org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse) reuse, in);
+        case 31: return (T) readNotificationSyncResponse((org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse) reuse, in);
+        case 32: return (T) readUserSyncResponse((org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse) reuse, in);
+        case 33: return (T) readEventSyncResponse((org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse) reuse, in);
+        case 34: return (T) readLogDeliveryStatus((org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus) reuse, in);
+        case 35: return (T) readLogSyncResponse((org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse) reuse, in);
+        case 36: return (T) readRedirectSyncResponse((org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse) reuse, in);
+        case 37: return (T) readExtensionSync((org.kaaproject.kaa.common.endpoint.gen.ExtensionSync) reuse, in);
+        case 38: return (T) readSyncRequest((org.kaaproject.kaa.common.endpoint.gen.SyncRequest) reuse, in);
+        case 39: return (T) readSyncResponse((org.kaaproject.kaa.common.endpoint.gen.SyncResponse) reuse, in);
+        case 40: return (T) readTopicSubscriptionInfo((org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo) reuse, in);
+        case 41: return (T) readBasicUserNotification((org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification) reuse, in);
+        case 42: return (T) readBasicSystemNotification((org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification) reuse, in);
+        case 43: return (T) readBasicEndpointProfile((org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile) reuse, in);
+        case 44: return (T) readExtendedEndpointProfileChild((org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild) reuse, in);
+        case 45: return (T) readExtendedEndpointProfile((org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile) reuse, in);
+        default: throw new java.lang.IllegalStateException();
+      }
+    }
+  }
+
+  public static void writeTopicState(org.kaaproject.kaa.common.endpoint.gen.TopicState datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeLong(datum.getTopicId());
+    out.writeInt(datum.getSeqNumber());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.TopicState readTopicState(org.kaaproject.kaa.common.endpoint.gen.TopicState reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.TopicState record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.TopicState();
+    record.setTopicId(in.readLong());
+    record.setSeqNumber(in.readInt());
+    return record;
+  }
+
+  public static void writeSubscriptionCommand(org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeLong(datum.getTopicId());
+    out.writeEnum(datum.getCommand().ordinal());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand readSubscriptionCommand(org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand();
+    record.setTopicId(in.readLong());
+    record.setCommand(SUBSCRIPTION_COMMAND_TYPE_VALUES[in.readEnum()]);
+    return record;
+  }
+
+  public static void writeUserAttachRequest(org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeString(datum.getUserVerifierId());
+    out.writeString(datum.getUserExternalId());
+    out.writeString(datum.getUserAccessToken());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest readUserAttachRequest(org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest();
+    record.setUserVerifierId(in.readString());
+    record.setUserExternalId(in.readString());
+    record.setUserAccessToken(in.readString());
+    return record;
+  }
+
+  public static void writeUserAttachResponse(org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeEnum(datum.getResult().ordinal());
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachErrorCode v0 = datum.getErrorCode();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeEnum(v0.ordinal());
+    }
+    java.lang.String v1 = datum.getErrorReason();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeString(v1);
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse readUserAttachResponse(org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse();
+    record.setResult(SYNC_RESPONSE_RESULT_TYPE_VALUES[in.readEnum()]);
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachErrorCode v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = USER_ATTACH_ERROR_CODE_VALUES[in.readEnum()];
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setErrorCode(v0);
+    java.lang.String v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = in.readString();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setErrorReason(v2);
+    return record;
+  }
+
+  public static void writeUserAttachNotification(org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeString(datum.getUserExternalId());
+    out.writeString(datum.getEndpointAccessToken());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification readUserAttachNotification(org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification();
+    record.setUserExternalId(in.readString());
+    record.setEndpointAccessToken(in.readString());
+    return record;
+  }
+
+  public static void writeUserDetachNotification(org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeString(datum.getEndpointAccessToken());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification readUserDetachNotification(org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification();
+    record.setEndpointAccessToken(in.readString());
+    return record;
+  }
+
+  public static void writeEndpointAttachRequest(org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    out.writeString(datum.getEndpointAccessToken());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest readEndpointAttachRequest(org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest();
+    record.setRequestId(in.readInt());
+    record.setEndpointAccessToken(in.readString());
+    return record;
+  }
+
+  public static void writeEndpointAttachResponse(org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    java.lang.String v0 = datum.getEndpointKeyHash();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeString(v0);
+    }
+    out.writeEnum(datum.getResult().ordinal());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse readEndpointAttachResponse(org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse();
+    record.setRequestId(in.readInt());
+    java.lang.String v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = in.readString();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setEndpointKeyHash(v0);
+    record.setResult(SYNC_RESPONSE_RESULT_TYPE_VALUES[in.readEnum()]);
+    return record;
+  }
+
+  public static void writeEndpointDetachRequest(org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    out.writeString(datum.getEndpointKeyHash());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest readEndpointDetachRequest(org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest();
+    record.setRequestId(in.readInt());
+    record.setEndpointKeyHash(in.readString());
+    return record;
+  }
+
+  public static void writeEndpointDetachResponse(org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    out.writeEnum(datum.getResult().ordinal());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse readEndpointDetachResponse(org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse();
+    record.setRequestId(in.readInt());
+    record.setResult(SYNC_RESPONSE_RESULT_TYPE_VALUES[in.readEnum()]);
+    return record;
+  }
+
+  public static void writeEvent(org.kaaproject.kaa.common.endpoint.gen.Event datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getSeqNum());
+    out.writeString(datum.getEventClassFQN());
+    out.writeBytes(datum.getEventData());
+    java.lang.String v0 = datum.getSource();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeString(v0);
+    }
+    java.lang.String v1 = datum.getTarget();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeString(v1);
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.Event readEvent(org.kaaproject.kaa.common.endpoint.gen.Event reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.Event record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.Event();
+    record.setSeqNum(in.readInt());
+    record.setEventClassFQN(in.readString());
+    record.setEventData(in.readBytes(null));
+    java.lang.String v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = in.readString();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setSource(v0);
+    java.lang.String v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = in.readString();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setTarget(v2);
+    return record;
+  }
+
+  public static void writeEventListenersRequest(org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    java.util.List<java.lang.String> v0 = datum.getEventClassFQNs();
+    out.writeArrayStart();
+    out.setItemCount(v0.size());
+    for (java.lang.String v1 : v0) {
+      out.startItem();
+      out.writeString(v1);
+    }
+    out.writeArrayEnd();
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest readEventListenersRequest(org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest();
+    record.setRequestId(in.readInt());
+    java.util.List<java.lang.String> v0 = new java.util.ArrayList<java.lang.String>();
+    for (long v1 = in.readArrayStart(); v1 != 0; v1 = in.arrayNext()) {
+      for (long v2 = 0; v2 < v1; v2++) {
+        v0.add(in.readString());
+      }
+    }
+    record.setEventClassFQNs(v0);
+    return record;
+  }
+
+  public static void writeEventListenersResponse(org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    java.util.List<java.lang.String> v0 = datum.getListeners();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v0.size());
+      for (java.lang.String v1 : v0) {
+        out.startItem();
+        out.writeString(v1);
+      }
+      out.writeArrayEnd();
+    }
+    out.writeEnum(datum.getResult().ordinal());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse readEventListenersResponse(org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse();
+    record.setRequestId(in.readInt());
+    java.util.List<java.lang.String> v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      java.util.List<java.lang.String> v2 = new java.util.ArrayList<java.lang.String>();
+      for (long v3 = in.readArrayStart(); v3 != 0; v3 = in.arrayNext()) {
+        for (long v4 = 0; v4 < v3; v4++) {
+          v2.add(in.readString());
+        }
+      }
+      v0 = v2;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setListeners(v0);
+    record.setResult(SYNC_RESPONSE_RESULT_TYPE_VALUES[in.readEnum()]);
+    return record;
+  }
+
+  public static void writeEventSequenceNumberRequest(org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest readEventSequenceNumberRequest(org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest();
+    return record;
+  }
+
+  public static void writeEventSequenceNumberResponse(org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getSeqNum());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse readEventSequenceNumberResponse(org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse();
+    record.setSeqNum(in.readInt());
+    return record;
+  }
+
+  public static void writeNotification(org.kaaproject.kaa.common.endpoint.gen.Notification datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeLong(datum.getTopicId());
+    out.writeEnum(datum.getType().ordinal());
+    java.lang.String v0 = datum.getUid();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeString(v0);
+    }
+    java.lang.Integer v1 = datum.getSeqNumber();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeInt(v1);
+    }
+    out.writeBytes(datum.getBody());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.Notification readNotification(org.kaaproject.kaa.common.endpoint.gen.Notification reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.Notification record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.Notification();
+    record.setTopicId(in.readLong());
+    record.setType(NOTIFICATION_TYPE_VALUES[in.readEnum()]);
+    java.lang.String v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = in.readString();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setUid(v0);
+    java.lang.Integer v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = in.readInt();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setSeqNumber(v2);
+    record.setBody(in.readBytes(null));
+    return record;
+  }
+
+  public static void writeTopic(org.kaaproject.kaa.common.endpoint.gen.Topic datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeLong(datum.getId());
+    out.writeString(datum.getName());
+    out.writeEnum(datum.getSubscriptionType().ordinal());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.Topic readTopic(org.kaaproject.kaa.common.endpoint.gen.Topic reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.Topic record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.Topic();
+    record.setId(in.readLong());
+    record.setName(in.readString());
+    record.setSubscriptionType(SUBSCRIPTION_TYPE_VALUES[in.readEnum()]);
+    return record;
+  }
+
+  public static void writeLogEntry(org.kaaproject.kaa.common.endpoint.gen.LogEntry datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeBytes(datum.getData());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.LogEntry readLogEntry(org.kaaproject.kaa.common.endpoint.gen.LogEntry reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.LogEntry record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.LogEntry();
+    record.setData(in.readBytes(null));
+    return record;
+  }
+
+  public static void writeSyncRequestMetaData(org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeString(datum.getSdkToken());
+    java.nio.ByteBuffer v0 = datum.getEndpointPublicKeyHash();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeBytes(v0);
+    }
+    java.nio.ByteBuffer v1 = datum.getProfileHash();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeBytes(v1);
+    }
+    java.lang.Long v2 = datum.getTimeout();
+    if (v2 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeLong(v2);
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData readSyncRequestMetaData(org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData();
+    record.setSdkToken(in.readString());
+    java.nio.ByteBuffer v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = in.readBytes(null);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setEndpointPublicKeyHash(v0);
+    java.nio.ByteBuffer v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = in.readBytes(null);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setProfileHash(v2);
+    java.lang.Long v4;
+    int v5 = in.readIndex();
+    if (v5 == 1) {
+      in.readNull();
+      v4 = null;
+    } else if (v5 == 0) {
+      v4 = in.readLong();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v5);
+    }
+    record.setTimeout(v4);
+    return record;
+  }
+
+  public static void writeProfileSyncRequest(org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    java.nio.ByteBuffer v0 = datum.getEndpointPublicKey();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeBytes(v0);
+    }
+    out.writeBytes(datum.getProfileBody());
+    java.lang.String v1 = datum.getEndpointAccessToken();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeString(v1);
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest readProfileSyncRequest(org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest();
+    java.nio.ByteBuffer v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = in.readBytes(null);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setEndpointPublicKey(v0);
+    record.setProfileBody(in.readBytes(null));
+    java.lang.String v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = in.readString();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setEndpointAccessToken(v2);
+    return record;
+  }
+
+  public static void writeProtocolVersionPair(org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getId());
+    out.writeInt(datum.getVersion());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair readProtocolVersionPair(org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair();
+    record.setId(in.readInt());
+    record.setVersion(in.readInt());
+    return record;
+  }
+
+  public static void writeBootstrapSyncRequest(org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair> v0 = datum.getSupportedProtocols();
+    out.writeArrayStart();
+    out.setItemCount(v0.size());
+    for (org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair v1 : v0) {
+      out.startItem();
+      writeProtocolVersionPair(v1, out);
+    }
+    out.writeArrayEnd();
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest readBootstrapSyncRequest(org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest();
+    record.setRequestId(in.readInt());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair> v0 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.ProtocolVersionPair>();
+    for (long v1 = in.readArrayStart(); v1 != 0; v1 = in.arrayNext()) {
+      for (long v2 = 0; v2 < v1; v2++) {
+        v0.add(readProtocolVersionPair(null, in));
+      }
+    }
+    record.setSupportedProtocols(v0);
+    return record;
+  }
+
+  public static void writeConfigurationSyncRequest(org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeBytes(datum.getConfigurationHash());
+    java.lang.Boolean v0 = datum.getResyncOnly();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeBoolean(v0);
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest readConfigurationSyncRequest(org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest();
+    record.setConfigurationHash(in.readBytes(null));
+    java.lang.Boolean v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = in.readBoolean();
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setResyncOnly(v0);
+    return record;
+  }
+
+  public static void writeNotificationSyncRequest(org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getTopicListHash());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.TopicState> v0 = datum.getTopicStates();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v0.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.TopicState v1 : v0) {
+        out.startItem();
+        writeTopicState(v1, out);
+      }
+      out.writeArrayEnd();
+    }
+    java.util.List<java.lang.String> v2 = datum.getAcceptedUnicastNotifications();
+    if (v2 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v2.size());
+      for (java.lang.String v3 : v2) {
+        out.startItem();
+        out.writeString(v3);
+      }
+      out.writeArrayEnd();
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand> v4 = datum.getSubscriptionCommands();
+    if (v4 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v4.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand v5 : v4) {
+        out.startItem();
+        writeSubscriptionCommand(v5, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest readNotificationSyncRequest(org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest();
+    record.setTopicListHash(in.readInt());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.TopicState> v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.TopicState> v2 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.TopicState>();
+      for (long v3 = in.readArrayStart(); v3 != 0; v3 = in.arrayNext()) {
+        for (long v4 = 0; v4 < v3; v4++) {
+          v2.add(readTopicState(null, in));
+        }
+      }
+      v0 = v2;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setTopicStates(v0);
+    java.util.List<java.lang.String> v5;
+    int v6 = in.readIndex();
+    if (v6 == 1) {
+      in.readNull();
+      v5 = null;
+    } else if (v6 == 0) {
+      java.util.List<java.lang.String> v7 = new java.util.ArrayList<java.lang.String>();
+      for (long v8 = in.readArrayStart(); v8 != 0; v8 = in.arrayNext()) {
+        for (long v9 = 0; v9 < v8; v9++) {
+          v7.add(in.readString());
+        }
+      }
+      v5 = v7;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v6);
+    }
+    record.setAcceptedUnicastNotifications(v5);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand> v10;
+    int v11 = in.readIndex();
+    if (v11 == 1) {
+      in.readNull();
+      v10 = null;
+    } else if (v11 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand> v12 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.SubscriptionCommand>();
+      for (long v13 = in.readArrayStart(); v13 != 0; v13 = in.arrayNext()) {
+        for (long v14 = 0; v14 < v13; v14++) {
+          v12.add(readSubscriptionCommand(null, in));
+        }
+      }
+      v10 = v12;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v11);
+    }
+    record.setSubscriptionCommands(v10);
+    return record;
+  }
+
+  public static void writeUserSyncRequest(org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest v0 = datum.getUserAttachRequest();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeUserAttachRequest(v0, out);
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest> v1 = datum.getEndpointAttachRequests();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v1.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest v2 : v1) {
+        out.startItem();
+        writeEndpointAttachRequest(v2, out);
+      }
+      out.writeArrayEnd();
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest> v3 = datum.getEndpointDetachRequests();
+    if (v3 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v3.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest v4 : v3) {
+        out.startItem();
+        writeEndpointDetachRequest(v4, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest readUserSyncRequest(org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest();
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachRequest v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = readUserAttachRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setUserAttachRequest(v0);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest> v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest> v4 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachRequest>();
+      for (long v5 = in.readArrayStart(); v5 != 0; v5 = in.arrayNext()) {
+        for (long v6 = 0; v6 < v5; v6++) {
+          v4.add(readEndpointAttachRequest(null, in));
+        }
+      }
+      v2 = v4;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setEndpointAttachRequests(v2);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest> v7;
+    int v8 = in.readIndex();
+    if (v8 == 1) {
+      in.readNull();
+      v7 = null;
+    } else if (v8 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest> v9 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachRequest>();
+      for (long v10 = in.readArrayStart(); v10 != 0; v10 = in.arrayNext()) {
+        for (long v11 = 0; v11 < v10; v11++) {
+          v9.add(readEndpointDetachRequest(null, in));
+        }
+      }
+      v7 = v9;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v8);
+    }
+    record.setEndpointDetachRequests(v7);
+    return record;
+  }
+
+  public static void writeEventSyncRequest(org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest v0 = datum.getEventSequenceNumberRequest();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeEventSequenceNumberRequest(v0, out);
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest> v1 = datum.getEventListenersRequests();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v1.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest v2 : v1) {
+        out.startItem();
+        writeEventListenersRequest(v2, out);
+      }
+      out.writeArrayEnd();
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.Event> v3 = datum.getEvents();
+    if (v3 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v3.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.Event v4 : v3) {
+        out.startItem();
+        writeEvent(v4, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest readEventSyncRequest(org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest();
+    org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberRequest v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = readEventSequenceNumberRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setEventSequenceNumberRequest(v0);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest> v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest> v4 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.EventListenersRequest>();
+      for (long v5 = in.readArrayStart(); v5 != 0; v5 = in.arrayNext()) {
+        for (long v6 = 0; v6 < v5; v6++) {
+          v4.add(readEventListenersRequest(null, in));
+        }
+      }
+      v2 = v4;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setEventListenersRequests(v2);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.Event> v7;
+    int v8 = in.readIndex();
+    if (v8 == 1) {
+      in.readNull();
+      v7 = null;
+    } else if (v8 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.Event> v9 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.Event>();
+      for (long v10 = in.readArrayStart(); v10 != 0; v10 = in.arrayNext()) {
+        for (long v11 = 0; v11 < v10; v11++) {
+          v9.add(readEvent(null, in));
+        }
+      }
+      v7 = v9;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v8);
+    }
+    record.setEvents(v7);
+    return record;
+  }
+
+  public static void writeLogSyncRequest(org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.LogEntry> v0 = datum.getLogEntries();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v0.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.LogEntry v1 : v0) {
+        out.startItem();
+        writeLogEntry(v1, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest readLogSyncRequest(org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest();
+    record.setRequestId(in.readInt());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.LogEntry> v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.LogEntry> v2 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.LogEntry>();
+      for (long v3 = in.readArrayStart(); v3 != 0; v3 = in.arrayNext()) {
+        for (long v4 = 0; v4 < v3; v4++) {
+          v2.add(readLogEntry(null, in));
+        }
+      }
+      v0 = v2;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setLogEntries(v0);
+    return record;
+  }
+
+  public static void writeProtocolMetaData(org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getAccessPointId());
+    writeProtocolVersionPair(datum.getProtocolVersionInfo(), out);
+    out.writeBytes(datum.getConnectionInfo());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData readProtocolMetaData(org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData();
+    record.setAccessPointId(in.readInt());
+    record.setProtocolVersionInfo(readProtocolVersionPair(null, in));
+    record.setConnectionInfo(in.readBytes(null));
+    return record;
+  }
+
+  public static void writeBootstrapSyncResponse(org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData> v0 = datum.getSupportedProtocols();
+    out.writeArrayStart();
+    out.setItemCount(v0.size());
+    for (org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData v1 : v0) {
+      out.startItem();
+      writeProtocolMetaData(v1, out);
+    }
+    out.writeArrayEnd();
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse readBootstrapSyncResponse(org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse();
+    record.setRequestId(in.readInt());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData> v0 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.ProtocolMetaData>();
+    for (long v1 = in.readArrayStart(); v1 != 0; v1 = in.arrayNext()) {
+      for (long v2 = 0; v2 < v1; v2++) {
+        v0.add(readProtocolMetaData(null, in));
+      }
+    }
+    record.setSupportedProtocols(v0);
+    return record;
+  }
+
+  public static void writeProfileSyncResponse(org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeEnum(datum.getResponseStatus().ordinal());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse readProfileSyncResponse(org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse();
+    record.setResponseStatus(SYNC_RESPONSE_STATUS_VALUES[in.readEnum()]);
+    return record;
+  }
+
+  public static void writeConfigurationSyncResponse(org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeEnum(datum.getResponseStatus().ordinal());
+    java.nio.ByteBuffer v0 = datum.getConfSchemaBody();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeBytes(v0);
+    }
+    java.nio.ByteBuffer v1 = datum.getConfDeltaBody();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeBytes(v1);
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse readConfigurationSyncResponse(org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse();
+    record.setResponseStatus(SYNC_RESPONSE_STATUS_VALUES[in.readEnum()]);
+    java.nio.ByteBuffer v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = in.readBytes(null);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setConfSchemaBody(v0);
+    java.nio.ByteBuffer v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = in.readBytes(null);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setConfDeltaBody(v2);
+    return record;
+  }
+
+  public static void writeNotificationSyncResponse(org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeEnum(datum.getResponseStatus().ordinal());
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.Notification> v0 = datum.getNotifications();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v0.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.Notification v1 : v0) {
+        out.startItem();
+        writeNotification(v1, out);
+      }
+      out.writeArrayEnd();
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.Topic> v2 = datum.getAvailableTopics();
+    if (v2 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v2.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.Topic v3 : v2) {
+        out.startItem();
+        writeTopic(v3, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse readNotificationSyncResponse(org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse();
+    record.setResponseStatus(SYNC_RESPONSE_STATUS_VALUES[in.readEnum()]);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.Notification> v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.Notification> v2 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.Notification>();
+      for (long v3 = in.readArrayStart(); v3 != 0; v3 = in.arrayNext()) {
+        for (long v4 = 0; v4 < v3; v4++) {
+          v2.add(readNotification(null, in));
+        }
+      }
+      v0 = v2;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setNotifications(v0);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.Topic> v5;
+    int v6 = in.readIndex();
+    if (v6 == 1) {
+      in.readNull();
+      v5 = null;
+    } else if (v6 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.Topic> v7 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.Topic>();
+      for (long v8 = in.readArrayStart(); v8 != 0; v8 = in.arrayNext()) {
+        for (long v9 = 0; v9 < v8; v9++) {
+          v7.add(readTopic(null, in));
+        }
+      }
+      v5 = v7;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v6);
+    }
+    record.setAvailableTopics(v5);
+    return record;
+  }
+
+  public static void writeUserSyncResponse(org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse v0 = datum.getUserAttachResponse();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeUserAttachResponse(v0, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification v1 = datum.getUserAttachNotification();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeUserAttachNotification(v1, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification v2 = datum.getUserDetachNotification();
+    if (v2 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeUserDetachNotification(v2, out);
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse> v3 = datum.getEndpointAttachResponses();
+    if (v3 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v3.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse v4 : v3) {
+        out.startItem();
+        writeEndpointAttachResponse(v4, out);
+      }
+      out.writeArrayEnd();
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse> v5 = datum.getEndpointDetachResponses();
+    if (v5 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v5.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse v6 : v5) {
+        out.startItem();
+        writeEndpointDetachResponse(v6, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse readUserSyncResponse(org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse();
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachResponse v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = readUserAttachResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setUserAttachResponse(v0);
+    org.kaaproject.kaa.common.endpoint.gen.UserAttachNotification v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = readUserAttachNotification(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setUserAttachNotification(v2);
+    org.kaaproject.kaa.common.endpoint.gen.UserDetachNotification v4;
+    int v5 = in.readIndex();
+    if (v5 == 1) {
+      in.readNull();
+      v4 = null;
+    } else if (v5 == 0) {
+      v4 = readUserDetachNotification(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v5);
+    }
+    record.setUserDetachNotification(v4);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse> v6;
+    int v7 = in.readIndex();
+    if (v7 == 1) {
+      in.readNull();
+      v6 = null;
+    } else if (v7 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse> v8 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.EndpointAttachResponse>();
+      for (long v9 = in.readArrayStart(); v9 != 0; v9 = in.arrayNext()) {
+        for (long v10 = 0; v10 < v9; v10++) {
+          v8.add(readEndpointAttachResponse(null, in));
+        }
+      }
+      v6 = v8;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v7);
+    }
+    record.setEndpointAttachResponses(v6);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse> v11;
+    int v12 = in.readIndex();
+    if (v12 == 1) {
+      in.readNull();
+      v11 = null;
+    } else if (v12 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse> v13 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.EndpointDetachResponse>();
+      for (long v14 = in.readArrayStart(); v14 != 0; v14 = in.arrayNext()) {
+        for (long v15 = 0; v15 < v14; v15++) {
+          v13.add(readEndpointDetachResponse(null, in));
+        }
+      }
+      v11 = v13;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v12);
+    }
+    record.setEndpointDetachResponses(v11);
+    return record;
+  }
+
+  public static void writeEventSyncResponse(org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse v0 = datum.getEventSequenceNumberResponse();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeEventSequenceNumberResponse(v0, out);
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse> v1 = datum.getEventListenersResponses();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v1.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse v2 : v1) {
+        out.startItem();
+        writeEventListenersResponse(v2, out);
+      }
+      out.writeArrayEnd();
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.Event> v3 = datum.getEvents();
+    if (v3 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v3.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.Event v4 : v3) {
+        out.startItem();
+        writeEvent(v4, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse readEventSyncResponse(org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse();
+    org.kaaproject.kaa.common.endpoint.gen.EventSequenceNumberResponse v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = readEventSequenceNumberResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setEventSequenceNumberResponse(v0);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse> v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse> v4 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.EventListenersResponse>();
+      for (long v5 = in.readArrayStart(); v5 != 0; v5 = in.arrayNext()) {
+        for (long v6 = 0; v6 < v5; v6++) {
+          v4.add(readEventListenersResponse(null, in));
+        }
+      }
+      v2 = v4;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setEventListenersResponses(v2);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.Event> v7;
+    int v8 = in.readIndex();
+    if (v8 == 1) {
+      in.readNull();
+      v7 = null;
+    } else if (v8 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.Event> v9 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.Event>();
+      for (long v10 = in.readArrayStart(); v10 != 0; v10 = in.arrayNext()) {
+        for (long v11 = 0; v11 < v10; v11++) {
+          v9.add(readEvent(null, in));
+        }
+      }
+      v7 = v9;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v8);
+    }
+    record.setEvents(v7);
+    return record;
+  }
+
+  public static void writeLogDeliveryStatus(org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    out.writeEnum(datum.getResult().ordinal());
+    org.kaaproject.kaa.common.endpoint.gen.LogDeliveryErrorCode v0 = datum.getErrorCode();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeEnum(v0.ordinal());
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus readLogDeliveryStatus(org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus();
+    record.setRequestId(in.readInt());
+    record.setResult(SYNC_RESPONSE_RESULT_TYPE_VALUES[in.readEnum()]);
+    org.kaaproject.kaa.common.endpoint.gen.LogDeliveryErrorCode v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = LOG_DELIVERY_ERROR_CODE_VALUES[in.readEnum()];
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setErrorCode(v0);
+    return record;
+  }
+
+  public static void writeLogSyncResponse(org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus> v0 = datum.getDeliveryStatuses();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v0.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus v1 : v0) {
+        out.startItem();
+        writeLogDeliveryStatus(v1, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse readLogSyncResponse(org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse();
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus> v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus> v2 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.LogDeliveryStatus>();
+      for (long v3 = in.readArrayStart(); v3 != 0; v3 = in.arrayNext()) {
+        for (long v4 = 0; v4 < v3; v4++) {
+          v2.add(readLogDeliveryStatus(null, in));
+        }
+      }
+      v0 = v2;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setDeliveryStatuses(v0);
+    return record;
+  }
+
+  public static void writeRedirectSyncResponse(org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getAccessPointId());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse readRedirectSyncResponse(org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse();
+    record.setAccessPointId(in.readInt());
+    return record;
+  }
+
+  public static void writeExtensionSync(org.kaaproject.kaa.common.endpoint.gen.ExtensionSync datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getExtensionId());
+    out.writeBytes(datum.getPayload());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ExtensionSync readExtensionSync(org.kaaproject.kaa.common.endpoint.gen.ExtensionSync reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ExtensionSync record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ExtensionSync();
+    record.setExtensionId(in.readInt());
+    record.setPayload(in.readBytes(null));
+    return record;
+  }
+
+  public static void writeSyncRequest(org.kaaproject.kaa.common.endpoint.gen.SyncRequest datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData v0 = datum.getSyncRequestMetaData();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeSyncRequestMetaData(v0, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest v1 = datum.getBootstrapSyncRequest();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeBootstrapSyncRequest(v1, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest v2 = datum.getProfileSyncRequest();
+    if (v2 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeProfileSyncRequest(v2, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest v3 = datum.getConfigurationSyncRequest();
+    if (v3 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeConfigurationSyncRequest(v3, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest v4 = datum.getNotificationSyncRequest();
+    if (v4 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeNotificationSyncRequest(v4, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest v5 = datum.getUserSyncRequest();
+    if (v5 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeUserSyncRequest(v5, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest v6 = datum.getEventSyncRequest();
+    if (v6 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeEventSyncRequest(v6, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest v7 = datum.getLogSyncRequest();
+    if (v7 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeLogSyncRequest(v7, out);
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync> v8 = datum.getExtensionSyncRequests();
+    if (v8 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v8.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.ExtensionSync v9 : v8) {
+        out.startItem();
+        writeExtensionSync(v9, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.SyncRequest readSyncRequest(org.kaaproject.kaa.common.endpoint.gen.SyncRequest reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.SyncRequest record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.SyncRequest();
+    record.setRequestId(in.readInt());
+    org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = readSyncRequestMetaData(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setSyncRequestMetaData(v0);
+    org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncRequest v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = readBootstrapSyncRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setBootstrapSyncRequest(v2);
+    org.kaaproject.kaa.common.endpoint.gen.ProfileSyncRequest v4;
+    int v5 = in.readIndex();
+    if (v5 == 1) {
+      in.readNull();
+      v4 = null;
+    } else if (v5 == 0) {
+      v4 = readProfileSyncRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v5);
+    }
+    record.setProfileSyncRequest(v4);
+    org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncRequest v6;
+    int v7 = in.readIndex();
+    if (v7 == 1) {
+      in.readNull();
+      v6 = null;
+    } else if (v7 == 0) {
+      v6 = readConfigurationSyncRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v7);
+    }
+    record.setConfigurationSyncRequest(v6);
+    org.kaaproject.kaa.common.endpoint.gen.NotificationSyncRequest v8;
+    int v9 = in.readIndex();
+    if (v9 == 1) {
+      in.readNull();
+      v8 = null;
+    } else if (v9 == 0) {
+      v8 = readNotificationSyncRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v9);
+    }
+    record.setNotificationSyncRequest(v8);
+    org.kaaproject.kaa.common.endpoint.gen.UserSyncRequest v10;
+    int v11 = in.readIndex();
+    if (v11 == 1) {
+      in.readNull();
+      v10 = null;
+    } else if (v11 == 0) {
+      v10 = readUserSyncRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v11);
+    }
+    record.setUserSyncRequest(v10);
+    org.kaaproject.kaa.common.endpoint.gen.EventSyncRequest v12;
+    int v13 = in.readIndex();
+    if (v13 == 1) {
+      in.readNull();
+      v12 = null;
+    } else if (v13 == 0) {
+      v12 = readEventSyncRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v13);
+    }
+    record.setEventSyncRequest(v12);
+    org.kaaproject.kaa.common.endpoint.gen.LogSyncRequest v14;
+    int v15 = in.readIndex();
+    if (v15 == 1) {
+      in.readNull();
+      v14 = null;
+    } else if (v15 == 0) {
+      v14 = readLogSyncRequest(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v15);
+    }
+    record.setLogSyncRequest(v14);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync> v16;
+    int v17 = in.readIndex();
+    if (v17 == 1) {
+      in.readNull();
+      v16 = null;
+    } else if (v17 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync> v18 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync>();
+      for (long v19 = in.readArrayStart(); v19 != 0; v19 = in.arrayNext()) {
+        for (long v20 = 0; v20 < v19; v20++) {
+          v18.add(readExtensionSync(null, in));
+        }
+      }
+      v16 = v18;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v17);
+    }
+    record.setExtensionSyncRequests(v16);
+    return record;
+  }
+
+  public static void writeSyncResponse(org.kaaproject.kaa.common.endpoint.gen.SyncResponse datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getRequestId());
+    out.writeEnum(datum.getStatus().ordinal());
+    org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse v0 = datum.getBootstrapSyncResponse();
+    if (v0 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeBootstrapSyncResponse(v0, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse v1 = datum.getProfileSyncResponse();
+    if (v1 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeProfileSyncResponse(v1, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse v2 = datum.getConfigurationSyncResponse();
+    if (v2 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeConfigurationSyncResponse(v2, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse v3 = datum.getNotificationSyncResponse();
+    if (v3 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeNotificationSyncResponse(v3, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse v4 = datum.getUserSyncResponse();
+    if (v4 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeUserSyncResponse(v4, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse v5 = datum.getEventSyncResponse();
+    if (v5 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeEventSyncResponse(v5, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse v6 = datum.getRedirectSyncResponse();
+    if (v6 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeRedirectSyncResponse(v6, out);
+    }
+    org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse v7 = datum.getLogSyncResponse();
+    if (v7 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeLogSyncResponse(v7, out);
+    }
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync> v8 = datum.getExtensionSyncResponses();
+    if (v8 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      out.writeArrayStart();
+      out.setItemCount(v8.size());
+      for (org.kaaproject.kaa.common.endpoint.gen.ExtensionSync v9 : v8) {
+        out.startItem();
+        writeExtensionSync(v9, out);
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.SyncResponse readSyncResponse(org.kaaproject.kaa.common.endpoint.gen.SyncResponse reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.SyncResponse record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.SyncResponse();
+    record.setRequestId(in.readInt());
+    record.setStatus(SYNC_RESPONSE_RESULT_TYPE_VALUES[in.readEnum()]);
+    org.kaaproject.kaa.common.endpoint.gen.BootstrapSyncResponse v0;
+    int v1 = in.readIndex();
+    if (v1 == 1) {
+      in.readNull();
+      v0 = null;
+    } else if (v1 == 0) {
+      v0 = readBootstrapSyncResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v1);
+    }
+    record.setBootstrapSyncResponse(v0);
+    org.kaaproject.kaa.common.endpoint.gen.ProfileSyncResponse v2;
+    int v3 = in.readIndex();
+    if (v3 == 1) {
+      in.readNull();
+      v2 = null;
+    } else if (v3 == 0) {
+      v2 = readProfileSyncResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v3);
+    }
+    record.setProfileSyncResponse(v2);
+    org.kaaproject.kaa.common.endpoint.gen.ConfigurationSyncResponse v4;
+    int v5 = in.readIndex();
+    if (v5 == 1) {
+      in.readNull();
+      v4 = null;
+    } else if (v5 == 0) {
+      v4 = readConfigurationSyncResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v5);
+    }
+    record.setConfigurationSyncResponse(v4);
+    org.kaaproject.kaa.common.endpoint.gen.NotificationSyncResponse v6;
+    int v7 = in.readIndex();
+    if (v7 == 1) {
+      in.readNull();
+      v6 = null;
+    } else if (v7 == 0) {
+      v6 = readNotificationSyncResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v7);
+    }
+    record.setNotificationSyncResponse(v6);
+    org.kaaproject.kaa.common.endpoint.gen.UserSyncResponse v8;
+    int v9 = in.readIndex();
+    if (v9 == 1) {
+      in.readNull();
+      v8 = null;
+    } else if (v9 == 0) {
+      v8 = readUserSyncResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v9);
+    }
+    record.setUserSyncResponse(v8);
+    org.kaaproject.kaa.common.endpoint.gen.EventSyncResponse v10;
+    int v11 = in.readIndex();
+    if (v11 == 1) {
+      in.readNull();
+      v10 = null;
+    } else if (v11 == 0) {
+      v10 = readEventSyncResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v11);
+    }
+    record.setEventSyncResponse(v10);
+    org.kaaproject.kaa.common.endpoint.gen.RedirectSyncResponse v12;
+    int v13 = in.readIndex();
+    if (v13 == 1) {
+      in.readNull();
+      v12 = null;
+    } else if (v13 == 0) {
+      v12 = readRedirectSyncResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v13);
+    }
+    record.setRedirectSyncResponse(v12);
+    org.kaaproject.kaa.common.endpoint.gen.LogSyncResponse v14;
+    int v15 = in.readIndex();
+    if (v15 == 1) {
+      in.readNull();
+      v14 = null;
+    } else if (v15 == 0) {
+      v14 = readLogSyncResponse(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v15);
+    }
+    record.setLogSyncResponse(v14);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync> v16;
+    int v17 = in.readIndex();
+    if (v17 == 1) {
+      in.readNull();
+      v16 = null;
+    } else if (v17 == 0) {
+      java.util.List<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync> v18 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.ExtensionSync>();
+      for (long v19 = in.readArrayStart(); v19 != 0; v19 = in.arrayNext()) {
+        for (long v20 = 0; v20 < v19; v20++) {
+          v18.add(readExtensionSync(null, in));
+        }
+      }
+      v16 = v18;
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v17);
+    }
+    record.setExtensionSyncResponses(v16);
+    return record;
+  }
+
+  public static void writeTopicSubscriptionInfo(org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    writeTopic(datum.getTopicInfo(), out);
+    out.writeInt(datum.getSeqNumber());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo readTopicSubscriptionInfo(org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.TopicSubscriptionInfo();
+    record.setTopicInfo(readTopic(null, in));
+    record.setSeqNumber(in.readInt());
+    return record;
+  }
+
+  public static void writeBasicUserNotification(org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeString(datum.getNotificationBody());
+    out.writeInt(datum.getUserNotificationParam());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification readBasicUserNotification(org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.BasicUserNotification();
+    record.setNotificationBody(in.readString());
+    record.setUserNotificationParam(in.readInt());
+    return record;
+  }
+
+  public static void writeBasicSystemNotification(org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeString(datum.getNotificationBody());
+    out.writeInt(datum.getSystemNotificationParam1());
+    out.writeInt(datum.getSystemNotificationParam2());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification readBasicSystemNotification(org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.BasicSystemNotification();
+    record.setNotificationBody(in.readString());
+    record.setSystemNotificationParam1(in.readInt());
+    record.setSystemNotificationParam2(in.readInt());
+    return record;
+  }
+
+  public static void writeBasicEndpointProfile(org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeString(datum.getProfileBody());
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile readBasicEndpointProfile(org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile();
+    record.setProfileBody(in.readString());
+    return record;
+  }
+
+  public static void writeExtendedEndpointProfileChild(org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeInt(datum.getOtherSimpleField());
+    out.writeString(datum.getStringField());
+    java.util.Map<java.lang.String, java.lang.Long> v0 = datum.getOtherMapSimpleField();
+    out.writeMapStart();
+    out.setItemCount(v0.size());
+    for (java.util.Map.Entry<java.lang.String, java.lang.Long> v1 : v0.entrySet()) {
+      out.startItem();
+      out.writeString(v1.getKey());
+      out.writeLong(v1.getValue());
+    }
+    out.writeMapEnd();
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild readExtendedEndpointProfileChild(org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild();
+    record.setOtherSimpleField(in.readInt());
+    record.setStringField(in.readString());
+    java.util.Map<java.lang.String, java.lang.Long> v0 = new java.util.HashMap<java.lang.String, java.lang.Long>();
+    for (long v1 = in.readMapStart(); v1 != 0; v1 = in.mapNext()) {
+      for (long v2 = 0; v2 < v1; v2++) {
+        java.lang.String v3 = in.readString();
+        v0.put(v3, in.readLong());
+      }
+    }
+    record.setOtherMapSimpleField(v0);
+    return record;
+  }
+
+  public static void writeExtendedEndpointProfile(org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile datum, org.apache.avro.io.Encoder out) throws java.io.IOException {
+    out.writeString(datum.getSimpleField());
+    writeExtendedEndpointProfileChild(datum.getRecordField(), out);
+    java.util.List<java.lang.String> v0 = datum.getArraySimpleField();
+    out.writeArrayStart();
+    out.setItemCount(v0.size());
+    for (java.lang.String v1 : v0) {
+      out.startItem();
+      out.writeString(v1);
+    }
+    out.writeArrayEnd();
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild> v2 = datum.getArrayRecordField();
+    out.writeArrayStart();
+    out.setItemCount(v2.size());
+    for (org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild v3 : v2) {
+      out.startItem();
+      writeExtendedEndpointProfileChild(v3, out);
+    }
+    out.writeArrayEnd();
+    java.util.Map<java.lang.String, java.lang.Long> v4 = datum.getMapSimpleField();
+    out.writeMapStart();
+    out.setItemCount(v4.size());
+    for (java.util.Map.Entry<java.lang.String, java.lang.Long> v5 : v4.entrySet()) {
+      out.startItem();
+      out.writeString(v5.getKey());
+      out.writeLong(v5.getValue());
+    }
+    out.writeMapEnd();
+    java.util.Map<java.lang.String, org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild> v6 = datum.getMapRecordField();
+    out.writeMapStart();
+    out.setItemCount(v6.size());
+    for (java.util.Map.Entry<java.lang.String, org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild> v7 : v6.entrySet()) {
+      out.startItem();
+      out.writeString(v7.getKey());
+      writeExtendedEndpointProfileChild(v7.getValue(), out);
+    }
+    out.writeMapEnd();
+    org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild v8 = datum.getNullableRecordField();
+    if (v8 == null) {
+      out.writeIndex(1);
+      out.writeNull();
+    } else {
+      out.writeIndex(0);
+      writeExtendedEndpointProfileChild(v8, out);
+    }
+  }
+
+  public static org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile readExtendedEndpointProfile(org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {
+    org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile record = reuse != null ? reuse : new org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfile();
+    record.setSimpleField(in.readString());
+    record.setRecordField(readExtendedEndpointProfileChild(null, in));
+    java.util.List<java.lang.String> v0 = new java.util.ArrayList<java.lang.String>();
+    for (long v1 = in.readArrayStart(); v1 != 0; v1 = in.arrayNext()) {
+      for (long v2 = 0; v2 < v1; v2++) {
+        v0.add(in.readString());
+      }
+    }
+    record.setArraySimpleField(v0);
+    java.util.List<org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild> v3 = new java.util.ArrayList<org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild>();
+    for (long v4 = in.readArrayStart(); v4 != 0; v4 = in.arrayNext()) {
+      for (long v5 = 0; v5 < v4; v5++) {
+        v3.add(readExtendedEndpointProfileChild(null, in));
+      }
+    }
+    record.setArrayRecordField(v3);
+    java.util.Map<java.lang.String, java.lang.Long> v6 = new java.util.HashMap<java.lang.String, java.lang.Long>();
+    for (long v7 = in.readMapStart(); v7 != 0; v7 = in.mapNext()) {
+      for (long v8 = 0; v8 < v7; v8++) {
+        java.lang.String v9 = in.readString();
+        v6.put(v9, in.readLong());
+      }
+    }
+    record.setMapSimpleField(v6);
+    java.util.Map<java.lang.String, org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild> v10 = new java.util.HashMap<java.lang.String, org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild>();
+    for (long v11 = in.readMapStart(); v11 != 0; v11 = in.mapNext()) {
+      for (long v12 = 0; v12 < v11; v12++) {
+        java.lang.String v13 = in.readString();
+        v10.put(v13, readExtendedEndpointProfileChild(null, in));
+      }
+    }
+    record.setMapRecordField(v10);
+    org.kaaproject.kaa.common.endpoint.gen.ExtendedEndpointProfileChild v14;
+    int v15 = in.readIndex();
+    if (v15 == 1) {
+      in.readNull();
+      v14 = null;
+    } else if (v15 == 0) {
+      v14 = readExtendedEndpointProfileChild(null, in);
+    } else {
+      throw new org.apache.avro.AvroRuntimeException("Unknown union branch: " + v15);
+    }
+    record.setNullableRecordField(v14);
+    return record;
+  }
+}
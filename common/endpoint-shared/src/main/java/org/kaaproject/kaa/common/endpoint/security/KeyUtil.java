@@ -27,6 +27,7 @@ import java.io.OutputStream;
 import java.security.*;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
@@ -44,7 +45,11 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class KeyUtil {
     private static final Logger LOG = LoggerFactory.getLogger(KeyUtil.class);
-    private static final String RSA = "RSA";
+    public static final String RSA = "RSA";
+    public static final String EC = "EC";
+
+    private static final int RSA_KEY_SIZE = 2048;
+    private static final String EC_CURVE = "secp256r1";
 
     private KeyUtil() {
     }
@@ -135,8 +140,20 @@ public abstract class KeyUtil {
      * @return the key pair
      */
     public static KeyPair generateKeyPair(OutputStream privateKeyOutput, OutputStream publicKeyOutput) {
+        return generateKeyPair(RSA, privateKeyOutput, publicKeyOutput);
+    }
+
+    /**
+     * Generate key pair of the given algorithm and saves it to specified streams.
+     *
+     * @param algorithm the key algorithm, {@link #RSA} or {@link #EC}
+     * @param privateKeyOutput the private key output stream
+     * @param publicKeyOutput the public key output stream
+     * @return the key pair
+     */
+    public static KeyPair generateKeyPair(String algorithm, OutputStream privateKeyOutput, OutputStream publicKeyOutput) {
         try {
-            KeyPair clientKeyPair = generateKeyPair();
+            KeyPair clientKeyPair = generateKeyPair(algorithm);
             saveKeyPair(clientKeyPair, privateKeyOutput, publicKeyOutput);
             return clientKeyPair;
         } catch (Exception e) {
@@ -146,8 +163,28 @@ public abstract class KeyUtil {
     }
 
     public static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
-        KeyPairGenerator clientKeyGen = KeyPairGenerator.getInstance(RSA);
-        clientKeyGen.initialize(2048);
+        return generateKeyPair(RSA);
+    }
+
+    /**
+     * Generate key pair of the given algorithm: a 2048-bit RSA pair or
+     * an EC pair on the P-256 curve.
+     *
+     * @param algorithm the key algorithm, {@link #RSA} or {@link #EC}
+     * @return the key pair
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     */
+    public static KeyPair generateKeyPair(String algorithm) throws NoSuchAlgorithmException {
+        KeyPairGenerator clientKeyGen = KeyPairGenerator.getInstance(algorithm);
+        if (EC.equals(algorithm)) {
+            try {
+                clientKeyGen.initialize(new ECGenParameterSpec(EC_CURVE));
+            } catch (InvalidAlgorithmParameterException e) {
+                throw new NoSuchAlgorithmException("Curve " + EC_CURVE + " is not supported", e);
+            }
+        } else {
+            clientKeyGen.initialize(RSA_KEY_SIZE);
+        }
         return clientKeyGen.genKeyPair();
     }
 
@@ -193,19 +230,22 @@ public abstract class KeyUtil {
     }
 
     /**
-     * Gets the public key from bytes.
+     * Gets the public key from bytes. RSA and EC keys are supported.
      *
      * @param keyBytes the key bytes
      * @return the public
      * @throws InvalidKeyException invalid key exception
      */
     public static PublicKey getPublic(byte[] keyBytes) throws InvalidKeyException {
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
         try {
-            X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
-            KeyFactory kf = KeyFactory.getInstance(RSA);
-            return kf.generatePublic(spec);
+            return KeyFactory.getInstance(RSA).generatePublic(spec);
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            throw new InvalidKeyException(e);
+            try {
+                return KeyFactory.getInstance(EC).generatePublic(spec);
+            } catch (NoSuchAlgorithmException | InvalidKeySpecException ecException) {
+                throw new InvalidKeyException(e);
+            }
         }
     }
 
@@ -251,29 +291,35 @@ public abstract class KeyUtil {
     }
 
     /**
-     * Gets the private key from bytes.
+     * Gets the private key from bytes. RSA and EC keys are supported.
      *
      * @param keyBytes the key bytes
      * @return the private
      * @throws InvalidKeyException invalid key exception
      */
     public static PrivateKey getPrivate(byte[] keyBytes) throws InvalidKeyException {
+        PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(keyBytes);
         try {
-            PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(keyBytes);
-            KeyFactory kf = KeyFactory.getInstance(RSA);
-            return kf.generatePrivate(spec);
+            return KeyFactory.getInstance(RSA).generatePrivate(spec);
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-            throw new InvalidKeyException(e);
+            try {
+                return KeyFactory.getInstance(EC).generatePrivate(spec);
+            } catch (NoSuchAlgorithmException | InvalidKeySpecException ecException) {
+                throw new InvalidKeyException(e);
+            }
         }
     }
 
     /**
-     * Validates RSA public and private key
+     * Validates public and private key
      *
      * @param keyPair the keypair
      * @return true if keys matches
      */
     public static boolean validateKeyPair(KeyPair keyPair) {
+        if (EC.equals(keyPair.getPublic().getAlgorithm())) {
+            return validateEcKeyPair(keyPair);
+        }
         RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
         RSAPrivateKey privateKey = (RSAPrivateKey) keyPair.getPrivate();
 
@@ -298,4 +344,22 @@ public abstract class KeyUtil {
         return Arrays.equals(rawPayload, decodedPayload);
     }
 
+    private static boolean validateEcKeyPair(KeyPair keyPair) {
+        if (!EC.equals(keyPair.getPrivate().getAlgorithm())) {
+            LOG.error("Keypair algorithm matching error");
+            return false;
+        }
+
+        byte[] rawPayload = new byte[64];
+        new Random().nextBytes(rawPayload);
+
+        MessageEncoderDecoder encDec = new MessageEncoderDecoder(keyPair.getPrivate(), keyPair.getPublic(), keyPair.getPublic());
+        try {
+            return encDec.verify(rawPayload, encDec.sign(rawPayload));
+        } catch (GeneralSecurityException e) {
+            LOG.error("Validation keypair error ", e);
+            return false;
+        }
+    }
+
 }
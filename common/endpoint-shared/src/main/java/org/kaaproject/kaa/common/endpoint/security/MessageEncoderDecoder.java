@@ -16,19 +16,27 @@
 
 package org.kaaproject.kaa.common.endpoint.security;
 
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
 
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.KeyAgreement;
 import javax.crypto.KeyGenerator;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.slf4j.Logger;
@@ -44,17 +52,26 @@ public class MessageEncoderDecoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(MessageEncoderDecoder.class);
 
-    private static final String SESSION_CRYPT_ALGORITHM = "AES/ECB/PKCS5PADDING";
     private static final String SESSION_KEY_ALGORITHM = "AES";
     private static final int SESSION_KEY_SIZE = 128;
     private static final String SHA1WITH_RSA = "SHA1withRSA";
+    private static final String SHA256WITH_ECDSA = "SHA256withECDSA";
+    private static final String ECDH = "ECDH";
+    private static final String SESSION_KEY_DIGEST = "SHA-256";
     private static final String RSA = "RSA/ECB/PKCS1Padding";
+    private static final int AES_BLOCK_SIZE = 16;
+
+    private static final SecureRandom IV_RANDOM = new SecureRandom();
 
     private final PrivateKey privateKey;
     private final PublicKey publicKey;
     private PublicKey remotePublicKey;
     private SecretKey sessionKey;
     private CipherPair sessionCipherPair;
+    private SessionCipherMode sessionCipherMode = SessionCipherMode.AES_ECB;
+    private byte[] encodedSessionKey;
+    private byte[] encodedSessionKeySignature;
+    private boolean sessionKeyAgreed;
 
     /**
      * Cipher Pair holds references for encoding and decoding Ciphers that are initialized with the same key
@@ -65,16 +82,19 @@ public class MessageEncoderDecoder {
         private Cipher encCipher;
 
         /**
-         * Creates enc/dec ciphers based on cipher algorithm and secret key 
-         * @param algorithm - Cipher algorithm
+         * Creates enc/dec ciphers based on cipher mode and secret key. Ciphers of modes
+         * that use an IV are initialized for every message instead.
+         * @param mode - Cipher mode
          * @param secretKey - Secret key
          * @throws InvalidKeyException
          */
-        private CipherPair(String algorithm, SecretKey secretKey) throws InvalidKeyException {
-            this.decCipher = cipherForAlgorithm(algorithm);
-            this.decCipher.init(Cipher.DECRYPT_MODE, secretKey);
-            this.encCipher = cipherForAlgorithm(algorithm);
-            this.encCipher.init(Cipher.ENCRYPT_MODE, secretKey);
+        private CipherPair(SessionCipherMode mode, SecretKey secretKey) throws InvalidKeyException {
+            this.decCipher = cipherForAlgorithm(mode.getAlgorithm());
+            this.encCipher = cipherForAlgorithm(mode.getAlgorithm());
+            if (mode.getIvLength() == 0) {
+                this.decCipher.init(Cipher.DECRYPT_MODE, secretKey);
+                this.encCipher.init(Cipher.ENCRYPT_MODE, secretKey);
+            }
         }
     }
 
@@ -92,6 +112,13 @@ public class MessageEncoderDecoder {
         }
     };
 
+    private static final ThreadLocal<Signature> SHA256WITH_ECDSA_SIGNATURE = new ThreadLocal<Signature>() {
+        @Override
+        protected Signature initialValue() {
+            return signatureForAlgorithm(SHA256WITH_ECDSA);
+        }
+    };
+
     private static final ThreadLocal<KeyGenerator> SESSION_KEY_GENERATOR = new ThreadLocal<KeyGenerator>() {
         @Override
         protected KeyGenerator initialValue() {
@@ -164,7 +191,11 @@ public class MessageEncoderDecoder {
     }
 
     /**
-     * Gets the encoded session key.
+     * Gets the session key encrypted with the remote public key. The key is
+     * encrypted once and reused until the session key or the remote public key
+     * changes. If the remote public key is an EC key, the session key is
+     * agreed by ECDH and the encoded session key is the ephemeral public key
+     * of the endpoint.
      * 
      * @return the encoded session key
      * @throws GeneralSecurityException
@@ -172,9 +203,43 @@ public class MessageEncoderDecoder {
      */
     public byte[] getEncodedSessionKey() throws GeneralSecurityException {
         SecretKey key = getSessionKey();
-        Cipher keyCipher = RSA_CIPHER.get();
-        keyCipher.init(Cipher.ENCRYPT_MODE, remotePublicKey);
-        return keyCipher.doFinal(key.getEncoded());
+        if (encodedSessionKey == null) {
+            Cipher keyCipher = RSA_CIPHER.get();
+            keyCipher.init(Cipher.ENCRYPT_MODE, remotePublicKey);
+            encodedSessionKey = keyCipher.doFinal(key.getEncoded());
+        }
+        return encodedSessionKey;
+    }
+
+    /**
+     * Gets the signature of the encoded session key. Like the encoded key, it
+     * is computed once per session key.
+     * 
+     * @return the signature of {@link #getEncodedSessionKey()}
+     * @throws GeneralSecurityException
+     *             the general security exception
+     */
+    public byte[] getEncodedSessionKeySignature() throws GeneralSecurityException {
+        if (encodedSessionKeySignature == null) {
+            encodedSessionKeySignature = sign(getEncodedSessionKey());
+        }
+        return encodedSessionKeySignature;
+    }
+
+    /**
+     * Replaces the session key with a newly generated one. Data encoded after
+     * the call can be decoded only with the new encoded session key.
+     */
+    public void rotateSessionKey() {
+        sessionKey = null;
+        sessionKeyAgreed = false;
+        sessionCipherPair = null;
+        resetEncodedSessionKey();
+    }
+
+    private void resetEncodedSessionKey() {
+        encodedSessionKey = null;
+        encodedSessionKeySignature = null;
     }
 
     /**
@@ -187,10 +252,52 @@ public class MessageEncoderDecoder {
      *             the general security exception
      */
     public byte[] encodeData(byte[] message) throws GeneralSecurityException {
-        if (sessionCipherPair == null) {
-            sessionCipherPair = new CipherPair(SESSION_CRYPT_ALGORITHM, getSessionKey());
+        if (sessionCipherMode.getIvLength() > 0) {
+            byte[] encoded = new byte[getEncodedDataSize(message.length)];
+            encodeData(ByteBuffer.wrap(message), ByteBuffer.wrap(encoded));
+            return encoded;
+        }
+        return getSessionCipherPairOrCreate().encCipher.doFinal(message);
+    }
+
+    /**
+     * Encode the remaining bytes of the message into the output buffer using
+     * sessionKey, e.g. straight into an outgoing frame.
+     * 
+     * @param message
+     *            the message, its position is advanced to the limit
+     * @param output
+     *            the buffer with at least {@link #getEncodedDataSize(int)}
+     *            bytes remaining
+     * @return the number of bytes written to the output
+     * @throws GeneralSecurityException
+     *             the general security exception
+     */
+    public int encodeData(ByteBuffer message, ByteBuffer output) throws GeneralSecurityException {
+        Cipher cipher = getSessionCipherPairOrCreate().encCipher;
+        int ivLength = sessionCipherMode.getIvLength();
+        if (ivLength > 0) {
+            byte[] iv = new byte[ivLength];
+            IV_RANDOM.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, getSessionKey(), new GCMParameterSpec(sessionCipherMode.getTagLength() * 8, iv));
+            output.put(iv);
+        }
+        return ivLength + cipher.doFinal(message, output);
+    }
+
+    /**
+     * Gets the size of the encoded data.
+     * 
+     * @param messageSize
+     *            the size of the message
+     * @return the number of bytes {@link #encodeData(ByteBuffer, ByteBuffer)}
+     *         writes for a message of the given size
+     */
+    public int getEncodedDataSize(int messageSize) {
+        if (sessionCipherMode.getIvLength() > 0) {
+            return sessionCipherMode.getIvLength() + messageSize + sessionCipherMode.getTagLength();
         }
-        return sessionCipherPair.encCipher.doFinal(message);
+        return (messageSize / AES_BLOCK_SIZE + 1) * AES_BLOCK_SIZE;
     }
 
     /**
@@ -210,12 +317,39 @@ public class MessageEncoderDecoder {
         return decodeData(message);
     }
 
-    private void decodeSessionKey(byte[] encodedKey) throws InvalidKeyException, IllegalBlockSizeException,
-            BadPaddingException {
-        Cipher sessionKeyCipher = RSA_CIPHER.get();
-        sessionKeyCipher.init(Cipher.DECRYPT_MODE, privateKey);
-        byte[] sessionKeyBytes = sessionKeyCipher.doFinal(encodedKey);
-        sessionKey = new SecretKeySpec(sessionKeyBytes, 0, SESSION_KEY_SIZE / 8, SESSION_KEY_ALGORITHM);
+    private void decodeSessionKey(byte[] encodedKey) throws GeneralSecurityException {
+        resetEncodedSessionKey();
+        if (isEcKey(privateKey)) {
+            sessionKey = agreeSessionKey(privateKey, KeyUtil.getPublic(encodedKey));
+            sessionKeyAgreed = true;
+            encodedSessionKey = encodedKey;
+        } else {
+            Cipher sessionKeyCipher = RSA_CIPHER.get();
+            sessionKeyCipher.init(Cipher.DECRYPT_MODE, privateKey);
+            byte[] sessionKeyBytes = sessionKeyCipher.doFinal(encodedKey);
+            sessionKey = new SecretKeySpec(sessionKeyBytes, 0, SESSION_KEY_SIZE / 8, SESSION_KEY_ALGORITHM);
+            sessionKeyAgreed = false;
+        }
+    }
+
+    /**
+     * Derives the session key from the ECDH shared secret: the first 128 bits
+     * of its SHA-256 digest.
+     */
+    private static SecretKey agreeSessionKey(PrivateKey privateKey, PublicKey publicKey) throws GeneralSecurityException {
+        KeyAgreement agreement = KeyAgreement.getInstance(ECDH);
+        agreement.init(privateKey);
+        agreement.doPhase(publicKey, true);
+        byte[] digest = MessageDigest.getInstance(SESSION_KEY_DIGEST).digest(agreement.generateSecret());
+        return new SecretKeySpec(digest, 0, SESSION_KEY_SIZE / 8, SESSION_KEY_ALGORITHM);
+    }
+
+    private static boolean isEcKey(Key key) {
+        return key != null && KeyUtil.EC.equals(key.getAlgorithm());
+    }
+
+    private static Signature signatureForKey(Key key) {
+        return isEcKey(key) ? SHA256WITH_ECDSA_SIGNATURE.get() : SHA1WITH_RSA_SIGNATURE.get();
     }
 
     /**
@@ -228,14 +362,59 @@ public class MessageEncoderDecoder {
      *             the general security exception
      */
     public byte[] decodeData(byte[] message) throws GeneralSecurityException {
+        Cipher cipher = getSessionCipherPairOrCreate().decCipher;
+        int ivLength = sessionCipherMode.getIvLength();
+        if (ivLength > 0) {
+            initDecryptCipher(cipher, ByteBuffer.wrap(message));
+            return cipher.doFinal(message, ivLength, message.length - ivLength);
+        }
+        return cipher.doFinal(message);
+    }
+
+    /**
+     * Decode the remaining bytes of the message in place using session key,
+     * e.g. straight from an incoming frame. The decoded data overwrites the
+     * encoded one starting at the current position of the message.
+     * 
+     * @param message
+     *            the encoded message, its position is advanced to the limit
+     * @return a view of the message buffer holding the decoded data
+     * @throws GeneralSecurityException
+     *             the general security exception
+     */
+    public ByteBuffer decodeDataInPlace(ByteBuffer message) throws GeneralSecurityException {
+        Cipher cipher = getSessionCipherPairOrCreate().decCipher;
+        int start = message.position();
+        ByteBuffer output = message.duplicate();
+        if (sessionCipherMode.getIvLength() > 0) {
+            initDecryptCipher(cipher, message);
+        }
+        int size = cipher.doFinal(message, output);
+        output.limit(start + size);
+        output.position(start);
+        return output;
+    }
+
+    private void initDecryptCipher(Cipher cipher, ByteBuffer message) throws GeneralSecurityException {
+        int ivLength = sessionCipherMode.getIvLength();
+        if (message.remaining() < ivLength + sessionCipherMode.getTagLength()) {
+            throw new IllegalBlockSizeException("Encoded message is too short: " + message.remaining());
+        }
+        byte[] iv = new byte[ivLength];
+        message.get(iv);
+        cipher.init(Cipher.DECRYPT_MODE, getSessionKey(), new GCMParameterSpec(sessionCipherMode.getTagLength() * 8, iv));
+    }
+
+    private CipherPair getSessionCipherPairOrCreate() throws GeneralSecurityException {
         if (sessionCipherPair == null) {
-            sessionCipherPair = new CipherPair(SESSION_CRYPT_ALGORITHM, getSessionKey());
+            sessionCipherPair = new CipherPair(sessionCipherMode, getSessionKey());
         }
-        return sessionCipherPair.decCipher.doFinal(message);
+        return sessionCipherPair;
     }
 
     /**
-     * Sign message using private key.
+     * Sign message using private key, with SHA1withRSA or SHA256withECDSA
+     * depending on the key.
      * 
      * @param message
      *            the message
@@ -244,7 +423,7 @@ public class MessageEncoderDecoder {
      *             the general security exception
      */
     public byte[] sign(byte[] message) throws GeneralSecurityException {
-        Signature signer = SHA1WITH_RSA_SIGNATURE.get();
+        Signature signer = signatureForKey(privateKey);
         signer.initSign(privateKey);
         signer.update(message);
         return signer.sign();
@@ -262,7 +441,7 @@ public class MessageEncoderDecoder {
      *             the general security exception
      */
     public boolean verify(byte[] message, byte[] signature) throws GeneralSecurityException {
-        Signature verifier = SHA1WITH_RSA_SIGNATURE.get();
+        Signature verifier = signatureForKey(remotePublicKey);
         verifier.initVerify(remotePublicKey);
         verifier.update(message);
         return verifier.verify(signature);
@@ -291,19 +470,46 @@ public class MessageEncoderDecoder {
     }
 
     /**
-     * Gets the session key.
+     * Gets the session key. A new key is generated at random, or agreed by
+     * ECDH with an ephemeral key pair if the remote public key is an EC key.
      * 
      * @return the session key
-     * @throws NoSuchAlgorithmException
-     *             the no such algorithm exception
+     * @throws GeneralSecurityException
+     *             the general security exception
      */
-    private SecretKey getSessionKey() throws NoSuchAlgorithmException {
+    private SecretKey getSessionKey() throws GeneralSecurityException {
         if (sessionKey == null) {
-            sessionKey = SESSION_KEY_GENERATOR.get().generateKey();
+            if (isEcKey(remotePublicKey)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance(KeyUtil.EC);
+                generator.initialize(((ECPublicKey) remotePublicKey).getParams());
+                KeyPair ephemeralKeyPair = generator.generateKeyPair();
+                sessionKey = agreeSessionKey(ephemeralKeyPair.getPrivate(), remotePublicKey);
+                sessionKeyAgreed = true;
+                encodedSessionKey = ephemeralKeyPair.getPublic().getEncoded();
+            } else {
+                sessionKey = SESSION_KEY_GENERATOR.get().generateKey();
+            }
         }
         return sessionKey;
     }
 
+    /**
+     * A session key agreed with the previous key, or one made for a remote key of another algorithm, can't be
+     * used with the new remote key, so the whole session key state is dropped. Otherwise only the encoded
+     * session key is, as it is encrypted with the remote key.
+     */
+    private void onRemotePublicKeyChanged(PublicKey previousRemotePublicKey) {
+        if (sessionKeyAgreed || isAlgorithmChanged(previousRemotePublicKey, remotePublicKey)) {
+            rotateSessionKey();
+        } else {
+            resetEncodedSessionKey();
+        }
+    }
+
+    private static boolean isAlgorithmChanged(PublicKey previous, PublicKey current) {
+        return previous != null && current != null && !previous.getAlgorithm().equals(current.getAlgorithm());
+    }
+
     /**
      * Sets the remote public key.
      * 
@@ -313,7 +519,9 @@ public class MessageEncoderDecoder {
      *             the general security exception
      */
     public void setRemotePublicKey(byte[] remotePublicKey) throws GeneralSecurityException {
+        PublicKey previousRemotePublicKey = this.remotePublicKey;
         this.remotePublicKey = KeyUtil.getPublic(remotePublicKey);
+        onRemotePublicKeyChanged(previousRemotePublicKey);
         if (LOG.isTraceEnabled()) {
             LOG.trace("RemotePublicKey {}",
                     this.remotePublicKey != null ? bytesToHex(this.remotePublicKey.getEncoded()) : "empty");
@@ -329,13 +537,33 @@ public class MessageEncoderDecoder {
      *             the general security exception
      */
     public void setRemotePublicKey(PublicKey remotePublicKey) throws GeneralSecurityException {
+        PublicKey previousRemotePublicKey = this.remotePublicKey;
         this.remotePublicKey = remotePublicKey;
+        onRemotePublicKeyChanged(previousRemotePublicKey);
         if (LOG.isTraceEnabled()) {
             LOG.trace("RemotePublicKey {}",
                     this.remotePublicKey != null ? bytesToHex(this.remotePublicKey.getEncoded()) : "empty");
         }
     }
 
+    public SessionCipherMode getSessionCipherMode() {
+        return sessionCipherMode;
+    }
+
+    /**
+     * Sets the cipher used with the session key. Both sides of the session
+     * have to use the same mode.
+     * 
+     * @param sessionCipherMode
+     *            the session cipher mode
+     */
+    public void setSessionCipherMode(SessionCipherMode sessionCipherMode) {
+        if (this.sessionCipherMode != sessionCipherMode) {
+            this.sessionCipherMode = sessionCipherMode;
+            this.sessionCipherPair = null;
+        }
+    }
+
     public CipherPair getSessionCipherPair() {
         return sessionCipherPair;
     }
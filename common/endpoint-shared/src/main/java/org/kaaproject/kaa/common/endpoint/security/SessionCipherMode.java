@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.endpoint.security;
+
+/**
+ * Cipher used to encrypt data with the session key. The mode is chosen by the endpoint and announced to the
+ * server together with the encoded session key.
+ */
+public enum SessionCipherMode {
+
+    /** AES in ECB mode with PKCS5 padding, supported by every server. */
+    AES_ECB("AES/ECB/PKCS5PADDING", 0, 0),
+
+    /** AES in GCM mode. Each message is prefixed with a random IV and ends with an authentication tag. */
+    AES_GCM("AES/GCM/NoPadding", 12, 16);
+
+    private final String algorithm;
+    private final int ivLength;
+    private final int tagLength;
+
+    private SessionCipherMode(String algorithm, int ivLength, int tagLength) {
+        this.algorithm = algorithm;
+        this.ivLength = ivLength;
+        this.tagLength = tagLength;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the length in bytes of the IV sent before each message, 0 if the mode doesn't use one
+     */
+    public int getIvLength() {
+        return ivLength;
+    }
+
+    /**
+     * @return the length in bytes of the authentication tag, 0 if the mode doesn't authenticate messages
+     */
+    public int getTagLength() {
+        return tagLength;
+    }
+
+    public boolean isAuthenticated() {
+        return tagLength > 0;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kaaproject.kaa.common.endpoint.gen.BasicEndpointProfile;
+
+public class AvroCodecTest {
+
+    @Test
+    public void testSharedCodec() {
+        Assert.assertSame(AvroCodec.forClass(BasicEndpointProfile.class), AvroCodec.forClass(BasicEndpointProfile.class));
+    }
+
+    @Test
+    public void testByteBufferEncoding() throws Exception {
+        AvroCodec<BasicEndpointProfile> codec = AvroCodec.forClass(BasicEndpointProfile.class);
+        BasicEndpointProfile profile = new BasicEndpointProfile("test");
+        byte[] data = codec.encode(profile);
+
+        ByteBuffer buffer = ByteBuffer.allocate(data.length + 2);
+        buffer.put((byte) 42);
+        Assert.assertEquals(data.length, codec.encode(profile, buffer));
+        Assert.assertEquals(data.length + 1, buffer.position());
+
+        buffer.flip();
+        buffer.get();
+        Assert.assertEquals("test", codec.decode(buffer).getProfileBody());
+        Assert.assertEquals(1, buffer.position());
+
+        ByteBuffer small = ByteBuffer.allocate(data.length - 1);
+        try {
+            codec.encode(profile, small);
+            Assert.fail("Record was encoded into a too small buffer");
+        } catch (BufferOverflowException e) {
+            Assert.assertEquals(0, small.position());
+        }
+        Assert.assertArrayEquals(data, codec.encode(profile));
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final AvroCodec<BasicEndpointProfile> codec = AvroCodec.forClass(BasicEndpointProfile.class);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final String body = "profile" + i;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 1000; j++) {
+                            byte[] data = codec.encode(new BasicEndpointProfile(body));
+                            if (!body.equals(codec.decode(data).getProfileBody())) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
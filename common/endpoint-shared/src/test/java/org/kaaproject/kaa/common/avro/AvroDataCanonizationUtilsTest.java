@@ -16,7 +16,16 @@
 
 package org.kaaproject.kaa.common.avro;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Type;
@@ -140,4 +149,77 @@ public class AvroDataCanonizationUtilsTest {
 
     }
 
+    @Test
+    public void testCanonizeLargeArrayInParallel() {
+        Schema arraySchema = Schema.createArray(Schema.create(Type.INT));
+        Schema rootRecordSchema = Schema.createRecord(Arrays.asList(new Schema.Field("array", arraySchema, "", null)));
+
+        Random random = new Random(42);
+        int size = AvroDataCanonizationUtils.PARALLEL_SORT_THRESHOLD * 4 + 17;
+        List<Integer> expected = new ArrayList<>(size);
+        GenericArray<Integer> array = new GenericData.Array<Integer>(size, arraySchema);
+        for (int i = 0; i < size; i++) {
+            int value = random.nextInt(size / 2);
+            expected.add(value);
+            array.add(value);
+        }
+        Collections.sort(expected);
+
+        GenericRecord record = new GenericData.Record(rootRecordSchema);
+        record.put("array", array);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AvroDataCanonizationUtils.canonizeRecord(record, pool);
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertEquals(expected, new ArrayList<>(array));
+    }
+
+    @Test
+    public void testCanonizeConcurrently() throws Exception {
+        final Schema intArraySchema = Schema.createArray(Schema.create(Type.INT));
+        final Schema stringArraySchema = Schema.createArray(Schema.create(Type.STRING));
+        final Schema rootRecordSchema = Schema.createRecord(Arrays.asList(
+                new Schema.Field("ints", intArraySchema, "", null),
+                new Schema.Field("strings", stringArraySchema, "", null)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int seed = t;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        Random random = new Random(seed);
+                        for (int n = 0; n < 50; n++) {
+                            GenericArray<Integer> ints = new GenericData.Array<Integer>(100, intArraySchema);
+                            GenericArray<String> strings = new GenericData.Array<String>(100, stringArraySchema);
+                            for (int i = 0; i < 100; i++) {
+                                ints.add(random.nextInt());
+                                strings.add(Integer.toString(random.nextInt()));
+                            }
+                            GenericRecord record = new GenericData.Record(rootRecordSchema);
+                            record.put("ints", ints);
+                            record.put("strings", strings);
+                            AvroDataCanonizationUtils.canonizeRecord(record);
+                            for (int i = 0; i < 99; i++) {
+                                if (ints.get(i) > ints.get(i + 1) || strings.get(i).compareTo(strings.get(i + 1)) > 0) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue("Items are in bad order", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
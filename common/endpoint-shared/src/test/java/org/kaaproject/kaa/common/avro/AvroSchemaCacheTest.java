@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AvroSchemaCacheTest {
+
+    private static final String SCHEMA = "{\"type\":\"record\",\"name\":\"Root\",\"namespace\":\"org.kaa\",\"fields\":["
+            + "{\"name\":\"color\",\"type\":{\"type\":\"enum\",\"name\":\"Color\",\"symbols\":[\"RED\",\"GREEN\"]}},"
+            + "{\"name\":\"items\",\"type\":{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"Item\",\"fields\":["
+            + "{\"name\":\"id\",\"type\":\"int\",\"default\":%d}]}}}]}";
+
+    @After
+    public void clearCache() {
+        AvroSchemaCache.clear();
+    }
+
+    @Test
+    public void testSharedEntries() throws Exception {
+        String source = String.format(SCHEMA, 0);
+        Schema schema = AvroSchemaCache.getSchema(source);
+        Assert.assertSame(schema, AvroSchemaCache.getSchema(new String(source)));
+        Assert.assertSame(AvroSchemaCache.getConverter(source), AvroSchemaCache.getConverter(new Schema.Parser().parse(source)));
+
+        Schema otherDefault = AvroSchemaCache.getSchema(String.format(SCHEMA, 1));
+        Assert.assertNotSame(schema, otherDefault);
+        Assert.assertNotSame(AvroSchemaCache.getConverter(schema), AvroSchemaCache.getConverter(otherDefault));
+
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("color", new GenericData.EnumSymbol(schema.getField("color").schema(), "GREEN"));
+        record.put("items", new GenericData.Array<>(0, schema.getField("items").schema()));
+        Assert.assertEquals(record, AvroSchemaCache.getConverter(schema).decodeJson(GenericAvroConverter.toJson(
+                AvroSchemaCache.getConverter(schema).encode(record), source)));
+    }
+
+    @Test
+    public void testNamedTypes() {
+        String source = String.format(SCHEMA, 0);
+        Schema.Parser parser = new Schema.Parser();
+        parser.parse(source);
+        Map<String, Schema> namedTypes = AvroSchemaCache.getNamedTypes(AvroSchemaCache.getSchema(source));
+        Assert.assertEquals(parser.getTypes(), namedTypes);
+    }
+
+    @Test
+    public void testBounded() {
+        for (int i = 0; i < AvroSchemaCache.MAX_ENTRIES + 10; i++) {
+            AvroSchemaCache.getSchema(String.format(SCHEMA, i));
+        }
+        String source = String.format(SCHEMA, 0);
+        Assert.assertEquals(AvroSchemaCache.getSchema(source), new Schema.Parser().parse(source));
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+
+/**
+ * Generates reflection-free binary serializers of the specific records defined in the endpoint protocol
+ * schemas.
+ * <p>
+ * For every record the generated class has a pair of static methods that write and read the record field
+ * by field through the {@link org.apache.avro.io.Encoder} and {@link org.apache.avro.io.Decoder} API,
+ * producing exactly the Avro binary encoding. Run it with the {@code fast-serializers} profile after a
+ * change of the schemas: <code>mvn -P fast-serializers process-test-classes</code>.
+ */
+public final class FastSerializerGenerator {
+
+    static final String PACKAGE = "org.kaaproject.kaa.common.endpoint.gen";
+    static final String CLASS_NAME = "FastSerializers";
+    static final String[] SCHEMA_FILES = {"src/main/avro/endpoint.avsc", "src/main/avro/misc.avsc"};
+    static final String OUTPUT_DIR = "src/main/java";
+
+    private final Map<String, Schema> records = new LinkedHashMap<>();
+    private final Map<String, Schema> enums = new LinkedHashMap<>();
+    private final StringBuilder out = new StringBuilder();
+    private int varCount;
+
+    private FastSerializerGenerator(List<Schema> schemas) {
+        for (Schema schema : schemas) {
+            collect(schema);
+        }
+    }
+
+    /**
+     * Generates the serializers into the source tree of the module.
+     *
+     * @param args the module directory, the current directory is used if none is given
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void main(String[] args) throws IOException {
+        File baseDir = new File(args.length > 0 ? args[0] : ".");
+        File target = new File(baseDir, OUTPUT_DIR + "/" + PACKAGE.replace('.', '/') + "/" + CLASS_NAME + ".java");
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(target.toPath()), StandardCharsets.UTF_8)) {
+            writer.write(generate(baseDir));
+        }
+    }
+
+    /**
+     * Generates the source of the serializers class from the schemas of the module.
+     *
+     * @param baseDir the module directory
+     * @return the source code
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static String generate(File baseDir) throws IOException {
+        Schema.Parser parser = new Schema.Parser();
+        List<Schema> schemas = new ArrayList<>();
+        for (String schemaFile : SCHEMA_FILES) {
+            schemas.add(parser.parse(new File(baseDir, schemaFile)));
+        }
+        return new FastSerializerGenerator(schemas).generate();
+    }
+
+    private void collect(Schema schema) {
+        switch (schema.getType()) {
+            case RECORD:
+                if (PACKAGE.equals(schema.getNamespace()) && records.put(schema.getFullName(), schema) == null) {
+                    for (Schema.Field field : schema.getFields()) {
+                        collect(field.schema());
+                    }
+                }
+                break;
+            case ENUM:
+                enums.put(schema.getFullName(), schema);
+                break;
+            case ARRAY:
+                collect(schema.getElementType());
+                break;
+            case MAP:
+                collect(schema.getValueType());
+                break;
+            case UNION:
+                for (Schema type : schema.getTypes()) {
+                    collect(type);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private String generate() {
+        line(0, "/**");
+        line(0, " * Autogenerated by FastSerializerGenerator");
+        line(0, " * ");
+        line(0, " * DO NOT EDIT DIRECTLY");
+        line(0, " */");
+        line(0, "package " + PACKAGE + ";");
+        line(0, "");
+        line(0, "/** Reflection-free binary serializers of the endpoint protocol records. */");
+        line(0, "@SuppressWarnings(\"all\")");
+        line(0, "public final class " + CLASS_NAME + " {");
+        line(1, "private static final java.util.Map<java.lang.Class<?>, Serializer<?>> SERIALIZERS = "
+                + "new java.util.HashMap<java.lang.Class<?>, Serializer<?>>();");
+        for (Schema schema : enums.values()) {
+            line(1, "private static final " + schema.getFullName() + "[] " + enumValues(schema) + " = "
+                    + schema.getFullName() + ".values();");
+        }
+        line(0, "");
+        line(1, "static {");
+        int id = 0;
+        for (Schema schema : records.values()) {
+            line(2, "SERIALIZERS.put(" + schema.getFullName() + ".class, new Serializer<" + schema.getFullName()
+                    + ">(" + id++ + ", " + schema.getFullName() + ".getClassSchema()));");
+        }
+        line(1, "}");
+        line(0, "");
+        line(1, "private " + CLASS_NAME + "() {}");
+        line(0, "");
+        line(1, "/** Returns the serializer of the record class or null if there is none. */");
+        line(1, "@SuppressWarnings(\"unchecked\")");
+        line(1, "public static <T> Serializer<T> forClass(java.lang.Class<T> type) {");
+        line(2, "return (Serializer<T>) SERIALIZERS.get(type);");
+        line(1, "}");
+        generateSerializer();
+        for (Schema schema : records.values()) {
+            generateWrite(schema);
+            generateRead(schema);
+        }
+        line(0, "}");
+        return out.toString();
+    }
+
+    private void generateSerializer() {
+        line(0, "");
+        line(1, "/** Datum writer and reader of one record class. */");
+        line(1, "public static final class Serializer<T> implements org.apache.avro.io.DatumWriter<T>, "
+                + "org.apache.avro.io.DatumReader<T> {");
+        line(2, "private final int id;");
+        line(2, "private final org.apache.avro.Schema schema;");
+        line(0, "");
+        line(2, "private Serializer(int id, org.apache.avro.Schema schema) {");
+        line(3, "this.id = id;");
+        line(3, "this.schema = schema;");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public void setSchema(org.apache.avro.Schema schema) {");
+        line(3, "if (!this.schema.equals(schema)) {");
+        line(4, "throw new java.lang.UnsupportedOperationException(\"Schema resolution is not supported\");");
+        line(3, "}");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public void write(T datum, org.apache.avro.io.Encoder out) throws java.io.IOException {");
+        line(3, "switch (id) {");
+        int id = 0;
+        for (Schema schema : records.values()) {
+            line(4, "case " + id++ + ": write" + schema.getName() + "((" + schema.getFullName() + ") datum, out); break;");
+        }
+        line(4, "default: throw new java.lang.IllegalStateException();");
+        line(3, "}");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "@SuppressWarnings(\"unchecked\")");
+        line(2, "public T read(T reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {");
+        line(3, "switch (id) {");
+        id = 0;
+        for (Schema schema : records.values()) {
+            line(4, "case " + id++ + ": return (T) read" + schema.getName() + "((" + schema.getFullName()
+                    + ") reuse, in);");
+        }
+        line(4, "default: throw new java.lang.IllegalStateException();");
+        line(3, "}");
+        line(2, "}");
+        line(1, "}");
+    }
+
+    private void generateWrite(Schema schema) {
+        varCount = 0;
+        line(0, "");
+        line(1, "public static void write" + schema.getName() + "(" + schema.getFullName()
+                + " datum, org.apache.avro.io.Encoder out) throws java.io.IOException {");
+        for (Schema.Field field : schema.getFields()) {
+            write(field.schema(), "datum." + accessor("get", field) + "()", 2);
+        }
+        line(1, "}");
+    }
+
+    private void generateRead(Schema schema) {
+        varCount = 0;
+        line(0, "");
+        line(1, "public static " + schema.getFullName() + " read" + schema.getName() + "(" + schema.getFullName()
+                + " reuse, org.apache.avro.io.Decoder in) throws java.io.IOException {");
+        line(2, schema.getFullName() + " record = reuse != null ? reuse : new " + schema.getFullName() + "();");
+        for (Schema.Field field : schema.getFields()) {
+            String value = read(field.schema(), 2);
+            line(2, "record." + accessor("set", field) + "(" + value + ");");
+        }
+        line(2, "return record;");
+        line(1, "}");
+    }
+
+    private void write(Schema schema, String value, int indent) {
+        switch (schema.getType()) {
+            case NULL:
+                line(indent, "out.writeNull();");
+                break;
+            case BOOLEAN:
+                line(indent, "out.writeBoolean(" + value + ");");
+                break;
+            case INT:
+                line(indent, "out.writeInt(" + value + ");");
+                break;
+            case LONG:
+                line(indent, "out.writeLong(" + value + ");");
+                break;
+            case FLOAT:
+                line(indent, "out.writeFloat(" + value + ");");
+                break;
+            case DOUBLE:
+                line(indent, "out.writeDouble(" + value + ");");
+                break;
+            case STRING:
+                line(indent, "out.writeString(" + value + ");");
+                break;
+            case BYTES:
+                line(indent, "out.writeBytes(" + value + ");");
+                break;
+            case ENUM:
+                line(indent, "out.writeEnum(" + value + ".ordinal());");
+                break;
+            case RECORD:
+                line(indent, "write" + schema.getName() + "(" + value + ", out);");
+                break;
+            case ARRAY: {
+                String array = local(schema, value, indent);
+                String item = newVar();
+                line(indent, "out.writeArrayStart();");
+                line(indent, "out.setItemCount(" + array + ".size());");
+                line(indent, "for (" + javaType(schema.getElementType()) + " " + item + " : " + array + ") {");
+                line(indent + 1, "out.startItem();");
+                write(schema.getElementType(), item, indent + 1);
+                line(indent, "}");
+                line(indent, "out.writeArrayEnd();");
+                break;
+            }
+            case MAP: {
+                String map = local(schema, value, indent);
+                String entry = newVar();
+                line(indent, "out.writeMapStart();");
+                line(indent, "out.setItemCount(" + map + ".size());");
+                line(indent, "for (java.util.Map.Entry<java.lang.String, " + javaType(schema.getValueType()) + "> "
+                        + entry + " : " + map + ".entrySet()) {");
+                line(indent + 1, "out.startItem();");
+                line(indent + 1, "out.writeString(" + entry + ".getKey());");
+                write(schema.getValueType(), entry + ".getValue()", indent + 1);
+                line(indent, "}");
+                line(indent, "out.writeMapEnd();");
+                break;
+            }
+            case UNION: {
+                int nullIndex = nullIndex(schema);
+                int valueIndex = 1 - nullIndex;
+                String nullable = local(schema, value, indent);
+                line(indent, "if (" + nullable + " == null) {");
+                line(indent + 1, "out.writeIndex(" + nullIndex + ");");
+                line(indent + 1, "out.writeNull();");
+                line(indent, "} else {");
+                line(indent + 1, "out.writeIndex(" + valueIndex + ");");
+                write(schema.getTypes().get(valueIndex), nullable, indent + 1);
+                line(indent, "}");
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported schema type: " + schema);
+        }
+    }
+
+    /**
+     * Emits the statements that read a value of the schema and returns the expression of the value.
+     */
+    private String read(Schema schema, int indent) {
+        switch (schema.getType()) {
+            case NULL:
+                line(indent, "in.readNull();");
+                return "null";
+            case BOOLEAN:
+                return "in.readBoolean()";
+            case INT:
+                return "in.readInt()";
+            case LONG:
+                return "in.readLong()";
+            case FLOAT:
+                return "in.readFloat()";
+            case DOUBLE:
+                return "in.readDouble()";
+            case STRING:
+                return "in.readString()";
+            case BYTES:
+                return "in.readBytes(null)";
+            case ENUM:
+                return enumValues(schema) + "[in.readEnum()]";
+            case RECORD:
+                return "read" + schema.getName() + "(null, in)";
+            case ARRAY: {
+                String array = newVar();
+                String count = newVar();
+                line(indent, javaType(schema) + " " + array + " = new java.util.ArrayList<"
+                        + javaType(schema.getElementType()) + ">();");
+                line(indent, "for (long " + count + " = in.readArrayStart(); " + count + " != 0; " + count
+                        + " = in.arrayNext()) {");
+                String index = newVar();
+                line(indent + 1, "for (long " + index + " = 0; " + index + " < " + count + "; " + index + "++) {");
+                String item = read(schema.getElementType(), indent + 2);
+                line(indent + 2, array + ".add(" + item + ");");
+                line(indent + 1, "}");
+                line(indent, "}");
+                return array;
+            }
+            case MAP: {
+                String map = newVar();
+                String count = newVar();
+                line(indent, javaType(schema) + " " + map + " = new java.util.HashMap<java.lang.String, "
+                        + javaType(schema.getValueType()) + ">();");
+                line(indent, "for (long " + count + " = in.readMapStart(); " + count + " != 0; " + count
+                        + " = in.mapNext()) {");
+                String index = newVar();
+                line(indent + 1, "for (long " + index + " = 0; " + index + " < " + count + "; " + index + "++) {");
+                String key = newVar();
+                line(indent + 2, "java.lang.String " + key + " = in.readString();");
+                String item = read(schema.getValueType(), indent + 2);
+                line(indent + 2, map + ".put(" + key + ", " + item + ");");
+                line(indent + 1, "}");
+                line(indent, "}");
+                return map;
+            }
+            case UNION: {
+                int nullIndex = nullIndex(schema);
+                int valueIndex = 1 - nullIndex;
+                String nullable = newVar();
+                String branch = newVar();
+                line(indent, javaType(schema) + " " + nullable + ";");
+                line(indent, "int " + branch + " = in.readIndex();");
+                line(indent, "if (" + branch + " == " + nullIndex + ") {");
+                line(indent + 1, "in.readNull();");
+                line(indent + 1, nullable + " = null;");
+                line(indent, "} else if (" + branch + " == " + valueIndex + ") {");
+                String value = read(schema.getTypes().get(valueIndex), indent + 1);
+                line(indent + 1, nullable + " = " + value + ";");
+                line(indent, "} else {");
+                line(indent + 1, "throw new org.apache.avro.AvroRuntimeException(\"Unknown union branch: \" + " + branch + ");");
+                line(indent, "}");
+                return nullable;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported schema type: " + schema);
+        }
+    }
+
+    private static int nullIndex(Schema union) {
+        List<Schema> types = union.getTypes();
+        if (types.size() == 2) {
+            for (int i = 0; i < 2; i++) {
+                if (types.get(i).getType() == Schema.Type.NULL) {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Only unions of a type with null are supported: " + union);
+    }
+
+    private static String javaType(Schema schema) {
+        switch (schema.getType()) {
+            case NULL:
+                return "java.lang.Void";
+            case BOOLEAN:
+                return "java.lang.Boolean";
+            case INT:
+                return "java.lang.Integer";
+            case LONG:
+                return "java.lang.Long";
+            case FLOAT:
+                return "java.lang.Float";
+            case DOUBLE:
+                return "java.lang.Double";
+            case STRING:
+                return "java.lang.String";
+            case BYTES:
+                return "java.nio.ByteBuffer";
+            case ENUM:
+            case RECORD:
+                return schema.getFullName();
+            case ARRAY:
+                return "java.util.List<" + javaType(schema.getElementType()) + ">";
+            case MAP:
+                return "java.util.Map<java.lang.String, " + javaType(schema.getValueType()) + ">";
+            case UNION:
+                return javaType(union(schema));
+            default:
+                throw new IllegalArgumentException("Unsupported schema type: " + schema);
+        }
+    }
+
+    private static Schema union(Schema schema) {
+        return schema.getTypes().get(1 - nullIndex(schema));
+    }
+
+    private static String enumValues(Schema schema) {
+        return schema.getName().replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase() + "_VALUES";
+    }
+
+    private static String accessor(String prefix, Schema.Field field) {
+        return prefix + Character.toUpperCase(field.name().charAt(0)) + field.name().substring(1);
+    }
+
+    /**
+     * Returns a local variable holding the value, declaring one unless the value already is a variable.
+     */
+    private String local(Schema schema, String value, int indent) {
+        if (value.matches("v\\d+")) {
+            return value;
+        }
+        String var = newVar();
+        line(indent, javaType(schema) + " " + var + " = " + value + ";");
+        return var;
+    }
+
+    private String newVar() {
+        return "v" + varCount++;
+    }
+
+    private void line(int indent, String text) {
+        for (int i = 0; i < indent; i++) {
+            out.append("  ");
+        }
+        out.append(text).append('\n');
+    }
+}
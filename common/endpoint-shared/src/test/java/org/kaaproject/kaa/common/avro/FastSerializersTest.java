@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.avro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kaaproject.kaa.common.endpoint.gen.FastSerializers;
+import org.kaaproject.kaa.common.endpoint.gen.SyncRequest;
+
+public class FastSerializersTest {
+
+    private static final int SAMPLES = 50;
+    private static final int MAX_DEPTH = 4;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testGeneratedSourceIsUpToDate() throws Exception {
+        File source = new File(FastSerializerGenerator.OUTPUT_DIR, FastSerializerGenerator.PACKAGE.replace('.', '/')
+                + "/" + FastSerializerGenerator.CLASS_NAME + ".java");
+        String expected = FastSerializerGenerator.generate(new File("."));
+        Assert.assertEquals("Regenerate the serializers with the fast-serializers profile", expected,
+                new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWireCompatibility() throws Exception {
+        int checked = 0;
+        for (Schema schema : recordSchemas()) {
+            Class<SpecificRecordBase> type = SpecificData.get().getClass(schema);
+            FastSerializers.Serializer<SpecificRecordBase> serializer = FastSerializers.forClass(type);
+            Assert.assertNotNull(schema.getFullName(), serializer);
+            for (int i = 0; i < SAMPLES; i++) {
+                SpecificRecordBase record = (SpecificRecordBase) randomDatum(schema, 0);
+                byte[] expected = encode(new SpecificDatumWriter<SpecificRecordBase>(type), record);
+                Assert.assertArrayEquals(schema.getFullName(), expected, encode(serializer, record));
+
+                SpecificRecordBase decoded = serializer.read(null,
+                        DecoderFactory.get().binaryDecoder(expected, null));
+                Assert.assertEquals(schema.getFullName(), record, decoded);
+            }
+            checked++;
+        }
+        Assert.assertTrue(checked > 40);
+    }
+
+    @Test
+    public void testCodecSwitch() throws Exception {
+        AvroCodec<SyncRequest> codec = AvroCodec.forClass(SyncRequest.class);
+        SyncRequest request = (SyncRequest) randomDatum(SyncRequest.getClassSchema(), 0);
+        Assert.assertTrue(AvroCodec.isFastSerializersEnabled());
+        byte[] fast = codec.encode(request);
+        AvroCodec.setFastSerializersEnabled(false);
+        try {
+            Assert.assertArrayEquals(fast, codec.encode(request));
+            Assert.assertEquals(request, codec.decode(fast));
+        } finally {
+            AvroCodec.setFastSerializersEnabled(true);
+        }
+        Assert.assertEquals(request, codec.decode(fast));
+    }
+
+    @Test(expected = AvroRuntimeException.class)
+    public void testUnknownUnionBranchIsRejected() throws Exception {
+        byte[] resultAndBranch = new byte[] {0x00, 0x04};
+        FastSerializers.readUserAttachResponse(null, DecoderFactory.get().binaryDecoder(resultAndBranch, null));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSchemaResolutionIsRejected() {
+        FastSerializers.forClass(SyncRequest.class).setSchema(Schema.create(Schema.Type.STRING));
+    }
+
+    private static List<Schema> recordSchemas() throws Exception {
+        Schema.Parser parser = new Schema.Parser();
+        List<Schema> records = new ArrayList<>();
+        for (String schemaFile : FastSerializerGenerator.SCHEMA_FILES) {
+            for (Schema schema : parser.parse(new File(schemaFile)).getTypes()) {
+                if (schema.getType() == Schema.Type.RECORD) {
+                    records.add(schema);
+                }
+            }
+        }
+        for (Schema schema : parser.getTypes().values()) {
+            if (schema.getType() == Schema.Type.RECORD && !records.contains(schema)) {
+                records.add(schema);
+            }
+        }
+        return records;
+    }
+
+    private static <T> byte[] encode(org.apache.avro.io.DatumWriter<T> writer, T datum) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(output, null);
+        writer.write(datum, encoder);
+        encoder.flush();
+        return output.toByteArray();
+    }
+
+    private Object randomDatum(Schema schema, int depth) {
+        switch (schema.getType()) {
+            case RECORD:
+                SpecificRecord record = (SpecificRecord) SpecificData.get().newRecord(null, schema);
+                for (Schema.Field field : schema.getFields()) {
+                    record.put(field.pos(), randomDatum(field.schema(), depth + 1));
+                }
+                return record;
+            case ENUM:
+                List<String> symbols = schema.getEnumSymbols();
+                return SpecificData.get().createEnum(symbols.get(random.nextInt(symbols.size())), schema);
+            case ARRAY:
+                List<Object> array = new ArrayList<>();
+                for (int i = randomSize(depth); i > 0; i--) {
+                    array.add(randomDatum(schema.getElementType(), depth + 1));
+                }
+                return array;
+            case MAP:
+                Map<String, Object> map = new HashMap<>();
+                for (int i = randomSize(depth); i > 0; i--) {
+                    map.put("key" + random.nextInt(), randomDatum(schema.getValueType(), depth + 1));
+                }
+                return map;
+            case UNION:
+                List<Schema> types = schema.getTypes();
+                return randomDatum(types.get(random.nextInt(types.size())), depth);
+            case STRING:
+                return "value" + random.nextLong();
+            case BYTES:
+                byte[] bytes = new byte[random.nextInt(16)];
+                random.nextBytes(bytes);
+                return ByteBuffer.wrap(bytes);
+            case INT:
+                return random.nextInt();
+            case LONG:
+                return random.nextLong();
+            case BOOLEAN:
+                return random.nextBoolean();
+            case NULL:
+                return null;
+            default:
+                throw new IllegalArgumentException("Unsupported schema type: " + schema);
+        }
+    }
+
+    private int randomSize(int depth) {
+        return depth < MAX_DEPTH ? random.nextInt(4) : 0;
+    }
+}
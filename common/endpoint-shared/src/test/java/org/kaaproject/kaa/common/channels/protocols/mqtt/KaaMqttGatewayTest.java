@@ -0,0 +1,209 @@
+package org.kaaproject.kaa.common.channels.protocols.mqtt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.ConnectionLostListener;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.DeliveryCompleteListener;
+import org.kaaproject.kaa.common.channels.protocols.mqtt.listeners.MessageArrivedListener;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class KaaMqttGatewayTest {
+
+    private MqttAsyncClient asyncClient;
+    private KaaMqttGateway gateway;
+
+    @Before
+    public void setUp() throws Exception {
+        asyncClient = createAsyncClientMock();
+        gateway = new KaaMqttGateway("tcp://localhost:1883", "gateway") {
+            @Override
+            protected MqttAsyncClient createAsyncClient(String broker, String clientId, MqttClientPersistence persistence) {
+                return asyncClient;
+            }
+        };
+    }
+
+    @Test
+    public void testRouting() throws Exception {
+        MessageArrivedListener firstMessages = Mockito.mock(MessageArrivedListener.class);
+        DeliveryCompleteListener firstDeliveries = Mockito.mock(DeliveryCompleteListener.class);
+        MessageArrivedListener secondMessages = Mockito.mock(MessageArrivedListener.class);
+        DeliveryCompleteListener secondDeliveries = Mockito.mock(DeliveryCompleteListener.class);
+        gateway.registerEndpoint("first", firstMessages, firstDeliveries);
+        gateway.registerEndpoint("second", secondMessages, secondDeliveries);
+        gateway.connect();
+
+        Mockito.verify(asyncClient).subscribe(Mockito.argThat(containsFilters("server/first", "server/first/zipped",
+                "server/second", "server/second/zipped")), Mockito.any(int[].class));
+
+        MqttMessage message = new MqttMessage(new byte[]{1});
+        gateway.routeMessage("server/second", message);
+        gateway.routeMessage("server/unknown", message);
+        Mockito.verify(secondMessages).messageArrived("server/second", message);
+        Mockito.verify(firstMessages, Mockito.never()).messageArrived(Mockito.anyString(), Mockito.any(MqttMessage.class));
+
+        // the listener gets the original topic to tell the compressed payloads apart
+        gateway.routeMessage("server/first/zipped", message);
+        Mockito.verify(firstMessages).messageArrived("server/first/zipped", message);
+
+        IMqttDeliveryToken token = Mockito.mock(IMqttDeliveryToken.class);
+        Mockito.when(token.getTopics()).thenReturn(new String[]{"client/first"});
+        gateway.routeDeliveryComplete(token);
+        Mockito.verify(firstDeliveries).deliveryComplete(token);
+        Mockito.verify(secondDeliveries, Mockito.never()).deliveryComplete(Mockito.any(IMqttDeliveryToken.class));
+
+        IMqttDeliveryToken zippedToken = Mockito.mock(IMqttDeliveryToken.class);
+        Mockito.when(zippedToken.getTopics()).thenReturn(new String[]{"client/second/zipped"});
+        gateway.routeDeliveryComplete(zippedToken);
+        Mockito.verify(secondDeliveries).deliveryComplete(zippedToken);
+    }
+
+    @Test
+    public void testReconnectAfterConnectionLoss() throws Exception {
+        final MqttAsyncClient firstClient = createAsyncClientMock();
+        final MqttAsyncClient secondClient = createAsyncClientMock();
+        KaaMqttGateway reconnecting = new KaaMqttGateway("tcp://localhost:1883", "gateway") {
+            private int created;
+
+            @Override
+            protected MqttAsyncClient createAsyncClient(String broker, String clientId, MqttClientPersistence persistence) {
+                return created++ == 0 ? firstClient : secondClient;
+            }
+        };
+        ConnectionLostListener endpointLost = Mockito.mock(ConnectionLostListener.class);
+        reconnecting.registerEndpoint("first", Mockito.mock(MessageArrivedListener.class),
+                Mockito.mock(DeliveryCompleteListener.class), endpointLost);
+        reconnecting.setCleanSession(false);
+        reconnecting.connect();
+
+        ArgumentCaptor<MqttConnectOptions> optionsCaptor = ArgumentCaptor.forClass(MqttConnectOptions.class);
+        Mockito.verify(firstClient).connect(optionsCaptor.capture());
+        assertFalse(optionsCaptor.getValue().isCleanSession());
+
+        ArgumentCaptor<MqttCallback> callbackCaptor = ArgumentCaptor.forClass(MqttCallback.class);
+        Mockito.verify(firstClient).setCallback(callbackCaptor.capture());
+        Exception cause = new Exception();
+        callbackCaptor.getValue().connectionLost(cause);
+        Mockito.verify(endpointLost).connectionLost(cause);
+
+        reconnecting.connect();
+        Mockito.verify(firstClient).close();
+        Mockito.verify(secondClient).subscribe(Mockito.argThat(containsFilters("server/first", "server/first/zipped")),
+                Mockito.any(int[].class));
+
+        // the stale client doesn't report its connection loss any more
+        callbackCaptor.getValue().connectionLost(cause);
+        Mockito.verify(endpointLost).connectionLost(cause);
+    }
+
+    @Test
+    public void testEndpointClient() throws Exception {
+        MessageArrivedListener messages = Mockito.mock(MessageArrivedListener.class);
+        KaaMqttClient endpointClient = gateway.createEndpointClient("first");
+        endpointClient.onMessageArrived(messages);
+        endpointClient.onDeliveryComplete(Mockito.mock(DeliveryCompleteListener.class));
+        endpointClient.connect();
+        assertTrue(gateway.isRegistered("first"));
+        Mockito.verify(asyncClient).connect(Mockito.any(MqttConnectOptions.class));
+
+        Mockito.when(asyncClient.isConnected()).thenReturn(true);
+        assertTrue(endpointClient.isConnected());
+        MqttMessage response = new MqttMessage(new byte[]{1});
+        gateway.routeMessage("server/first", response);
+        Mockito.verify(messages).messageArrived("server/first", response);
+
+        endpointClient.sendRequest(new byte[]{2}, MqttQosPolicy.AT_LEAST_ONCE, true);
+        Mockito.verify(asyncClient).publish(Mockito.eq("client/first/zipped"), Mockito.any(MqttMessage.class));
+
+        // connecting another endpoint reuses the connection
+        gateway.createEndpointClient("second").connect();
+        Mockito.verify(asyncClient).connect(Mockito.any(MqttConnectOptions.class));
+
+        endpointClient.disconnect();
+        assertFalse(gateway.isRegistered("first"));
+        assertFalse(endpointClient.isConnected());
+    }
+
+    @Test
+    public void testRegisterWhileConnected() throws Exception {
+        Mockito.when(asyncClient.isConnected()).thenReturn(true);
+        gateway.connect();
+        gateway.registerEndpoint("late", Mockito.mock(MessageArrivedListener.class),
+                Mockito.mock(DeliveryCompleteListener.class));
+        Mockito.verify(asyncClient).subscribe(new String[]{"server/late", "server/late/zipped"},
+                new int[]{MqttQosPolicy.EXACTLY_ONCE, MqttQosPolicy.EXACTLY_ONCE});
+        assertTrue(gateway.isRegistered("late"));
+
+        gateway.unregisterEndpoint("late");
+        Mockito.verify(asyncClient).unsubscribe(new String[]{"server/late", "server/late/zipped"});
+        assertFalse(gateway.isRegistered("late"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSendForUnknownEndpoint() throws Exception {
+        gateway.connect();
+        gateway.sendRequest("unknown", new byte[]{1});
+    }
+
+    @Test
+    public void testSendWithoutConnection() throws Exception {
+        gateway.registerEndpoint("first", Mockito.mock(MessageArrivedListener.class),
+                Mockito.mock(DeliveryCompleteListener.class));
+        assertNotConnected("first");
+
+        gateway.connect();
+        Mockito.when(asyncClient.isConnected()).thenReturn(false);
+        assertNotConnected("first");
+        Mockito.verify(asyncClient, Mockito.never()).publish(Mockito.anyString(), Mockito.any(MqttMessage.class));
+    }
+
+    private void assertNotConnected(String endpointId) {
+        try {
+            gateway.sendRequest(endpointId, new byte[]{1});
+            fail("Request is sent without a connection");
+        } catch (MqttException e) {
+            assertEquals(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED, e.getReasonCode());
+        }
+    }
+
+    private static MqttAsyncClient createAsyncClientMock() throws Exception {
+        MqttAsyncClient client = Mockito.mock(MqttAsyncClient.class);
+        IMqttToken token = Mockito.mock(IMqttToken.class);
+        Mockito.when(client.connect(Mockito.any(MqttConnectOptions.class))).thenReturn(token);
+        Mockito.when(client.subscribe(Mockito.any(String[].class), Mockito.any(int[].class))).thenReturn(token);
+        return client;
+    }
+
+    private static BaseMatcher<String[]> containsFilters(final String... expected) {
+        return new BaseMatcher<String[]>() {
+            @Override
+            public boolean matches(Object item) {
+                String[] filters = (String[]) item;
+                return filters.length == expected.length && Arrays.asList(filters).containsAll(Arrays.asList(expected));
+            }
+
+            @Override
+            public void describeTo(Description description) {
+                description.appendText("filters " + Arrays.toString(expected));
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package org.kaaproject.kaa.common.channels.protocols.mqtt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.kaaproject.kaa.common.TransportType;
+
+public class MqttQosPolicyTest {
+
+    @Test
+    public void testDefaultPolicy() {
+        MqttQosPolicy policy = MqttQosPolicy.createDefault();
+        assertEquals(MqttQosPolicy.AT_LEAST_ONCE, policy.getQos(TransportType.LOGGING));
+        assertEquals(MqttQosPolicy.AT_LEAST_ONCE, policy.getQos(TransportType.EVENT));
+        assertEquals(MqttQosPolicy.EXACTLY_ONCE, policy.getQos(TransportType.PROFILE));
+        assertEquals(MqttQosPolicy.EXACTLY_ONCE, policy.getQos(TransportType.CONFIGURATION));
+    }
+
+    @Test
+    public void testMaxQos() {
+        MqttQosPolicy policy = new MqttQosPolicy()
+                .setDefaultQos(MqttQosPolicy.AT_LEAST_ONCE)
+                .setQos(TransportType.LOGGING, MqttQosPolicy.AT_MOST_ONCE)
+                .setQos(TransportType.PROFILE, MqttQosPolicy.EXACTLY_ONCE);
+        assertEquals(MqttQosPolicy.AT_MOST_ONCE, policy.getMaxQos(Collections.singleton(TransportType.LOGGING)));
+        assertEquals(MqttQosPolicy.AT_LEAST_ONCE, policy.getMaxQos(Arrays.asList(TransportType.LOGGING, TransportType.EVENT)));
+        assertEquals(MqttQosPolicy.EXACTLY_ONCE, policy.getMaxQos(Arrays.asList(TransportType.LOGGING, TransportType.PROFILE)));
+        assertEquals(MqttQosPolicy.AT_LEAST_ONCE, policy.getMaxQos(Collections.<TransportType>emptyList()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQos() {
+        new MqttQosPolicy().setQos(TransportType.EVENT, 3);
+    }
+}
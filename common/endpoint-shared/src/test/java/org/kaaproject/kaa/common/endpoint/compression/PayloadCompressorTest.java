@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014-2016 CyberVision, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kaaproject.kaa.common.endpoint.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PayloadCompressorTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        byte[] payload = new byte[4096];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 16);
+        }
+        PayloadCompressor compressor = new PayloadCompressor();
+        byte[] compressed = compressor.compress(payload);
+        Assert.assertNotNull(compressed);
+        Assert.assertTrue(compressed.length < payload.length);
+        Assert.assertArrayEquals(payload, compressor.decompress(compressed));
+    }
+
+    @Test
+    public void testSmallPayloadIsNotCompressed() {
+        byte[] payload = new byte[PayloadCompressor.DEFAULT_THRESHOLD - 1];
+        Assert.assertNull(new PayloadCompressor().compress(payload));
+    }
+
+    @Test
+    public void testIncompressiblePayloadIsNotCompressed() {
+        byte[] payload = new byte[1024];
+        new Random(42).nextBytes(payload);
+        Assert.assertNull(new PayloadCompressor(new DeflatePayloadCodec(), 0).compress(payload));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptedPayload() throws Exception {
+        byte[] compressed = new DeflatePayloadCodec().compress(new byte[1024]);
+        new DeflatePayloadCodec().decompress(Arrays.copyOf(compressed, compressed.length / 2));
+    }
+
+    @Test
+    public void testInflatedSizeLimit() throws Exception {
+        byte[] compressed = new DeflatePayloadCodec().compress(new byte[64 * 1024]);
+        Assert.assertEquals(64 * 1024, new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, 64 * 1024).decompress(compressed).length);
+        try {
+            new DeflatePayloadCodec(Deflater.DEFAULT_COMPRESSION, 64 * 1024 - 1).decompress(compressed);
+            Assert.fail("Payload inflated over the limit");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
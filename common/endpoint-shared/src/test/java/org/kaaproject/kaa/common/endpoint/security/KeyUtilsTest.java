@@ -19,6 +19,7 @@ package org.kaaproject.kaa.common.endpoint.security;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
@@ -36,4 +37,18 @@ public class KeyUtilsTest {
 
         Assert.assertTrue(KeyUtil.validateKeyPair(new KeyPair(clientPublic, clientPrivate)));
     }
+
+    @Test
+    public void ecKeyPairTest() throws Exception {
+        ByteArrayOutputStream privateKeyOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream publicKeyOutput = new ByteArrayOutputStream();
+        KeyPair kp = KeyUtil.generateKeyPair(KeyUtil.EC, privateKeyOutput, publicKeyOutput);
+        Assert.assertEquals(KeyUtil.EC, kp.getPublic().getAlgorithm());
+
+        PublicKey clientPublic = KeyUtil.getPublic(publicKeyOutput.toByteArray());
+        PrivateKey clientPrivate = KeyUtil.getPrivate(privateKeyOutput.toByteArray());
+        Assert.assertEquals(kp.getPublic(), clientPublic);
+        Assert.assertTrue(KeyUtil.validateKeyPair(new KeyPair(clientPublic, clientPrivate)));
+        Assert.assertFalse(KeyUtil.validateKeyPair(new KeyPair(clientPublic, KeyUtil.generateKeyPair(KeyUtil.EC).getPrivate())));
+    }
 }
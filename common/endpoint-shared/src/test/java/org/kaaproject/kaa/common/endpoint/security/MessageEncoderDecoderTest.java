@@ -16,6 +16,8 @@
 
 package org.kaaproject.kaa.common.endpoint.security;
 
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
@@ -114,6 +116,122 @@ public class MessageEncoderDecoderTest {
         Assert.assertEquals(message, decodedSecret2);
     }
 
+    @Test
+    public void cachedSessionKeyTest() throws Exception {
+        MessageEncoderDecoder client = new MessageEncoderDecoder(clientPrivate, clientPublic, serverPublic);
+        MessageEncoderDecoder server = new MessageEncoderDecoder(serverPrivate, serverPublic, clientPublic);
+
+        byte[] encodedSessionKey = client.getEncodedSessionKey();
+        byte[] signature = client.getEncodedSessionKeySignature();
+        Assert.assertSame(encodedSessionKey, client.getEncodedSessionKey());
+        Assert.assertSame(signature, client.getEncodedSessionKeySignature());
+        Assert.assertTrue(server.verify(encodedSessionKey, signature));
+
+        byte[] secretData = client.encodeData("first".getBytes());
+        Assert.assertEquals("first", new String(server.decodeData(secretData, encodedSessionKey)));
+
+        client.rotateSessionKey();
+        byte[] rotatedSessionKey = client.getEncodedSessionKey();
+        Assert.assertFalse(Arrays.equals(encodedSessionKey, rotatedSessionKey));
+        Assert.assertTrue(server.verify(rotatedSessionKey, client.getEncodedSessionKeySignature()));
+
+        secretData = client.encodeData("second".getBytes());
+        Assert.assertEquals("second", new String(server.decodeData(secretData, rotatedSessionKey)));
+    }
+
+    @Test
+    public void gcmTest() throws Exception {
+        MessageEncoderDecoder client = new MessageEncoderDecoder(clientPrivate, clientPublic, serverPublic);
+        MessageEncoderDecoder server = new MessageEncoderDecoder(serverPrivate, serverPublic, clientPublic);
+        client.setSessionCipherMode(SessionCipherMode.AES_GCM);
+        server.setSessionCipherMode(SessionCipherMode.AES_GCM);
+
+        byte[] message = ("secret" + new Random().nextInt()).getBytes();
+        byte[] secretData = client.encodeData(message);
+        Assert.assertEquals(client.getEncodedDataSize(message.length), secretData.length);
+        Assert.assertFalse(Arrays.equals(secretData, client.encodeData(message)));
+        Assert.assertArrayEquals(message, server.decodeData(secretData, client.getEncodedSessionKey()));
+
+        ByteBuffer frame = ByteBuffer.allocate(4 + server.getEncodedDataSize(message.length));
+        frame.putInt(42);
+        int size = server.encodeData(ByteBuffer.wrap(message), frame);
+        Assert.assertEquals(frame.capacity() - 4, size);
+
+        frame.flip();
+        frame.position(4);
+        ByteBuffer decoded = client.decodeDataInPlace(frame);
+        Assert.assertSame(frame.array(), decoded.array());
+        byte[] decodedBytes = new byte[decoded.remaining()];
+        decoded.get(decodedBytes);
+        Assert.assertArrayEquals(message, decodedBytes);
+
+        secretData[secretData.length - 1] ^= 1;
+        try {
+            server.decodeData(secretData);
+            Assert.fail("Tampered message was decoded");
+        } catch (GeneralSecurityException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void ecTest() throws Exception {
+        KeyPair clientKeys = KeyUtil.generateKeyPair(KeyUtil.EC);
+        KeyPair serverKeys = KeyUtil.generateKeyPair(KeyUtil.EC);
+        MessageEncoderDecoder client = new MessageEncoderDecoder(clientKeys.getPrivate(), clientKeys.getPublic(), serverKeys.getPublic());
+        MessageEncoderDecoder server = new MessageEncoderDecoder(serverKeys.getPrivate(), serverKeys.getPublic(), clientKeys.getPublic());
+
+        String message = "secret" + new Random().nextInt();
+        byte[] secretData = client.encodeData(message.getBytes());
+        byte[] encodedSessionKey = client.getEncodedSessionKey();
+        Assert.assertEquals(clientKeys.getPublic().getEncoded().length, encodedSessionKey.length);
+        Assert.assertTrue(server.verify(encodedSessionKey, client.sign(encodedSessionKey)));
+        Assert.assertEquals(message, new String(server.decodeData(secretData, encodedSessionKey)));
+
+        byte[] response = server.encodeData("response".getBytes());
+        Assert.assertEquals("response", new String(client.decodeData(response)));
+
+        client.rotateSessionKey();
+        Assert.assertFalse(Arrays.equals(encodedSessionKey, client.getEncodedSessionKey()));
+        KeyPair thiefKeys = KeyUtil.generateKeyPair(KeyUtil.EC);
+        MessageEncoderDecoder thief = new MessageEncoderDecoder(thiefKeys.getPrivate(), thiefKeys.getPublic(), serverKeys.getPublic());
+        Assert.assertFalse(server.verify(encodedSessionKey, thief.sign(encodedSessionKey)));
+    }
+
+    @Test
+    public void remoteKeyAlgorithmChangeTest() throws Exception {
+        KeyPair ecServerKeys = KeyUtil.generateKeyPair(KeyUtil.EC);
+        MessageEncoderDecoder client = new MessageEncoderDecoder(clientPrivate, clientPublic, serverPublic);
+        client.encodeData("rsa".getBytes());
+        client.getEncodedSessionKey();
+
+        client.setRemotePublicKey(ecServerKeys.getPublic());
+        byte[] ecData = client.encodeData("ec".getBytes());
+        MessageEncoderDecoder ecServer = new MessageEncoderDecoder(ecServerKeys.getPrivate(), ecServerKeys.getPublic(), clientPublic);
+        Assert.assertEquals("ec", new String(ecServer.decodeData(ecData, client.getEncodedSessionKey())));
+
+        client.setRemotePublicKey(serverPublic);
+        byte[] rsaData = client.encodeData("rsa".getBytes());
+        MessageEncoderDecoder server = new MessageEncoderDecoder(serverPrivate, serverPublic, clientPublic);
+        Assert.assertEquals("rsa", new String(server.decodeData(rsaData, client.getEncodedSessionKey())));
+    }
+
+    @Test
+    public void inPlaceEcbTest() throws Exception {
+        MessageEncoderDecoder client = new MessageEncoderDecoder(clientPrivate, clientPublic, serverPublic);
+        MessageEncoderDecoder server = new MessageEncoderDecoder(serverPrivate, serverPublic, clientPublic);
+        byte[] message = new byte[40];
+        new Random().nextBytes(message);
+
+        byte[] secretData = client.encodeData(message);
+        Assert.assertEquals(client.getEncodedDataSize(message.length), secretData.length);
+        server.decodeData(secretData, client.getEncodedSessionKey());
+
+        ByteBuffer decoded = server.decodeDataInPlace(ByteBuffer.wrap(secretData));
+        Assert.assertEquals(message.length, decoded.remaining());
+        Assert.assertArrayEquals(message, Arrays.copyOf(decoded.array(), decoded.remaining()));
+    }
+
     @Test
     public void basicUpdateTest() throws Exception {
         MessageEncoderDecoder client = new MessageEncoderDecoder(clientPrivate, clientPublic, serverPublic);
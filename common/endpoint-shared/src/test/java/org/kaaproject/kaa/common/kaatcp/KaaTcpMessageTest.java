@@ -25,10 +25,12 @@ import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.ConnAck.Retu
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Connect;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Disconnect;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.Disconnect.DisconnectReason;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.MqttFrame;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.PingRequest;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.PingResponse;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncRequest;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncResponse;
+import org.kaaproject.kaa.common.endpoint.security.SessionCipherMode;
 
 public class KaaTcpMessageTest {
 
@@ -52,6 +54,15 @@ public class KaaTcpMessageTest {
         Assert.assertArrayEquals(kaaSync, actual);
     }
 
+    @Test
+    public void testSyncRequestTwoByteMessageId() {
+        final byte kaaSync[] = new byte [] { (byte) 0xF0, 0x0D, 0x00, 0x06, 'K', 'a', 'a', 't', 'c', 'p', 0x01, 0x12, 0x34, 0x15, (byte) 0xFF };
+        SyncRequest message = new SyncRequest(new byte [] { (byte) 0xFF }, false, true);
+        message.setMessageId(0x1234);
+        byte[] actual = message.getFrame().array();
+        Assert.assertArrayEquals(kaaSync, actual);
+    }
+
     @Test
     public void testConnectMessage() {
         final byte [] payload = new byte[] { (byte) 0xFF, 0x01, 0x02, 0x03 };
@@ -84,6 +95,14 @@ public class KaaTcpMessageTest {
         Assert.assertArrayEquals(rawConnack, message.getFrame().array());
     }
 
+    @Test
+    public void testConnackGcmSession() {
+        byte [] rawConnack = new byte[] { 0x20, 0x02, 0x01, 0x01 };
+        ConnAck message = new ConnAck(ReturnCode.ACCEPTED);
+        message.setSessionCipherMode(SessionCipherMode.AES_GCM);
+        Assert.assertArrayEquals(rawConnack, message.getFrame().array());
+    }
+
     @Test
     public void testPingRequest() {
         byte [] pingRequest = new byte[] { (byte) 0xC0, 0x00 };
@@ -98,4 +117,25 @@ public class KaaTcpMessageTest {
         Assert.assertArrayEquals(pingResponse, message.getFrame().array());
     }
 
+
+    @Test
+    public void testEncodeIntoReusedBuffer() {
+        byte[] largeObject = new byte[300];
+        largeObject[299] = 0x7F;
+        MqttFrame[] frames = new MqttFrame[] {
+                new PingRequest(),
+                new SyncRequest(largeObject, false, true),
+                new Disconnect(DisconnectReason.NONE),
+                new Connect(200, 0xf291f2d4, null, new byte[] { 0x01 }, null)
+        };
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        for (MqttFrame frame : frames) {
+            buffer.clear();
+            int length = frame.encode(buffer);
+            Assert.assertEquals(frame.getFrameLength(), length);
+            byte[] encoded = new byte[length];
+            System.arraycopy(buffer.array(), 0, encoded, 0, length);
+            Assert.assertArrayEquals(frame.getFrame().array(), encoded);
+        }
+    }
 }
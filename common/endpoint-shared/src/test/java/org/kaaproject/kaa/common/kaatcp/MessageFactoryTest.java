@@ -25,6 +25,8 @@ import java.util.Arrays;
 import org.junit.Assert;
 import org.junit.Test;
 import org.kaaproject.kaa.common.avro.AvroByteArrayConverter;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.FrameBufferPool;
+import org.kaaproject.kaa.common.channels.protocols.kaatcp.Framer;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.KaaTcpProtocolException;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.ConnAckListener;
 import org.kaaproject.kaa.common.channels.protocols.kaatcp.listeners.ConnectListener;
@@ -46,7 +48,9 @@ import org.kaaproject.kaa.common.channels.protocols.kaatcp.messages.SyncResponse
 import org.kaaproject.kaa.common.endpoint.gen.SyncRequestMetaData;
 import org.kaaproject.kaa.common.endpoint.security.KeyUtil;
 import org.kaaproject.kaa.common.endpoint.security.MessageEncoderDecoder;
+import org.kaaproject.kaa.common.endpoint.security.SessionCipherMode;
 import org.kaaproject.kaa.common.hash.SHA1HashUtils;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class MessageFactoryTest {
@@ -129,6 +133,18 @@ public class MessageFactoryTest {
     }
 
 
+    @Test
+    public void testConnackGcmSessionMessage() throws KaaTcpProtocolException {
+        MessageFactory factory = new MessageFactory();
+        ConnAckListener listener = Mockito.mock(ConnAckListener.class);
+        factory.registerMessageListener(listener);
+        factory.getFramer().pushBytes(new byte[] { 0x20, 0x02, 0x01, 0x01, 0x20, 0x02, 0x00, 0x01 });
+        ArgumentCaptor<ConnAck> captor = ArgumentCaptor.forClass(ConnAck.class);
+        Mockito.verify(listener, Mockito.times(2)).onMessage(captor.capture());
+        Assert.assertEquals(SessionCipherMode.AES_GCM, captor.getAllValues().get(0).getSessionCipherMode());
+        Assert.assertEquals(SessionCipherMode.AES_ECB, captor.getAllValues().get(1).getSessionCipherMode());
+    }
+
     @Test
     public void testConnectMessage() throws KaaTcpProtocolException, IOException, GeneralSecurityException {
         KeyPair clientPair = KeyUtil.generateKeyPair();
@@ -176,6 +192,74 @@ public class MessageFactoryTest {
         Mockito.verify(listener, Mockito.times(1)).onMessage(Mockito.any(Connect.class));
     }
 
+    @Test
+    public void testGcmConnectMessage() throws KaaTcpProtocolException, GeneralSecurityException {
+        KeyPair clientPair = KeyUtil.generateKeyPair();
+        KeyPair serverPair = KeyUtil.generateKeyPair();
+        MessageEncoderDecoder clientCrypt = new MessageEncoderDecoder(clientPair.getPrivate(), clientPair.getPublic(), serverPair.getPublic());
+        clientCrypt.setSessionCipherMode(SessionCipherMode.AES_GCM);
+        final byte[] rawData = new byte[] { 1, 2, 3, 4, 5 };
+
+        byte[] sessionKey = clientCrypt.getEncodedSessionKey();
+        Connect connect = new Connect(200, 0xf291f2d4, sessionKey, clientCrypt.encodeData(rawData), clientCrypt.sign(sessionKey));
+        connect.setSessionCipherMode(SessionCipherMode.AES_GCM);
+
+        final MessageEncoderDecoder serverCrypt = new MessageEncoderDecoder(serverPair.getPrivate(), serverPair.getPublic(), clientPair.getPublic());
+        MessageFactory factory = new MessageFactory();
+        ConnectListener listener = Mockito.spy(new ConnectListener() {
+
+            @Override
+            public void onMessage(Connect message) {
+                Assert.assertEquals(SessionCipherMode.AES_GCM, message.getSessionCipherMode());
+                serverCrypt.setSessionCipherMode(message.getSessionCipherMode());
+                try {
+                    Assert.assertArrayEquals(rawData, serverCrypt.decodeData(message.getSyncRequest(), message.getAesSessionKey()));
+                } catch (GeneralSecurityException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        factory.registerMessageListener(listener);
+        factory.getFramer().pushBytes(connect.getFrame().array());
+        Mockito.verify(listener, Mockito.times(1)).onMessage(Mockito.any(Connect.class));
+    }
+
+    @Test
+    public void testEcConnectMessage() throws KaaTcpProtocolException, GeneralSecurityException {
+        KeyPair clientPair = KeyUtil.generateKeyPair(KeyUtil.EC);
+        KeyPair serverPair = KeyUtil.generateKeyPair(KeyUtil.EC);
+        MessageEncoderDecoder clientCrypt = new MessageEncoderDecoder(clientPair.getPrivate(), clientPair.getPublic(), serverPair.getPublic());
+        clientCrypt.setSessionCipherMode(SessionCipherMode.AES_GCM);
+        final byte[] rawData = new byte[] { 1, 2, 3, 4, 5 };
+
+        byte[] requestData = clientCrypt.encodeData(rawData);
+        byte[] sessionKey = clientCrypt.getEncodedSessionKey();
+        Connect connect = new Connect(200, 0xf291f2d4, sessionKey, requestData, clientCrypt.sign(sessionKey), KeyUtil.EC, KeyUtil.EC);
+        connect.setSessionCipherMode(SessionCipherMode.AES_GCM);
+
+        final MessageEncoderDecoder serverCrypt = new MessageEncoderDecoder(serverPair.getPrivate(), serverPair.getPublic(), clientPair.getPublic());
+        MessageFactory factory = new MessageFactory();
+        ConnectListener listener = Mockito.spy(new ConnectListener() {
+
+            @Override
+            public void onMessage(Connect message) {
+                Assert.assertEquals(SessionCipherMode.AES_GCM, message.getSessionCipherMode());
+                Assert.assertEquals(KeyUtil.EC, message.getSessionKeyAlgorithm());
+                Assert.assertEquals(KeyUtil.EC, message.getSignatureAlgorithm());
+                serverCrypt.setSessionCipherMode(message.getSessionCipherMode());
+                try {
+                    Assert.assertTrue(serverCrypt.verify(message.getAesSessionKey(), message.getSignature()));
+                    Assert.assertArrayEquals(rawData, serverCrypt.decodeData(message.getSyncRequest(), message.getAesSessionKey()));
+                } catch (GeneralSecurityException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        factory.registerMessageListener(listener);
+        factory.getFramer().pushBytes(connect.getFrame().array());
+        Mockito.verify(listener, Mockito.times(1)).onMessage(Mockito.any(Connect.class));
+    }
+
     @Test
     public void testConnectMessageWithoutKey() throws KaaTcpProtocolException, IOException, GeneralSecurityException {
         KeyPair clientPair = KeyUtil.generateKeyPair();
@@ -347,4 +431,42 @@ public class MessageFactoryTest {
 
         Mockito.verify(syncRequestListener, Mockito.times(3)).onMessage(Mockito.any(SyncRequest.class));
     }
+
+    @Test
+    public void testReusedReadBuffer() throws KaaTcpProtocolException {
+        byte[] avroObject = new byte[100];
+        Arrays.fill(avroObject, (byte) 0x42);
+        final byte[] frame = new SyncRequest(avroObject, false, true).getFrame().array();
+
+        FrameBufferPool pool = Mockito.spy(new FrameBufferPool());
+        Framer framer = new Framer(pool);
+        SyncRequestListener listener = Mockito.spy(new SyncRequestListener() {
+
+            @Override
+            public void onMessage(SyncRequest message) {
+                Assert.assertEquals(100, message.getAvroObject().length);
+                Assert.assertEquals(0x42, message.getAvroObject()[99]);
+            }
+        });
+        MessageFactory factory = new MessageFactory(framer);
+        factory.registerMessageListener(listener);
+
+        // the whole frame fits into the read buffer, so it is decoded without the pool
+        byte[] readBuffer = new byte[frame.length + 10];
+        System.arraycopy(frame, 0, readBuffer, 5, frame.length);
+        Assert.assertEquals(frame.length, framer.pushBytes(readBuffer, 5, frame.length));
+        Mockito.verify(pool, Mockito.never()).acquire(Mockito.anyInt());
+
+        // the same read buffer is refilled with chunks of the frame
+        int chunkSize = 30;
+        for (int offset = 0; offset < frame.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, frame.length - offset);
+            Arrays.fill(readBuffer, (byte) 0);
+            System.arraycopy(frame, offset, readBuffer, 0, length);
+            framer.pushBytes(ByteBuffer.wrap(readBuffer, 0, length));
+        }
+        Mockito.verify(listener, Mockito.times(2)).onMessage(Mockito.any(SyncRequest.class));
+        Mockito.verify(pool, Mockito.times(1)).acquire(Mockito.anyInt());
+        Mockito.verify(pool, Mockito.times(1)).release(Mockito.any(ByteBuffer.class));
+    }
 }